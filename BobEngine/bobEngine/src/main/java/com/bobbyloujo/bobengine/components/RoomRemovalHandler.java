@@ -0,0 +1,15 @@
+package com.bobbyloujo.bobengine.components;
+
+import com.bobbyloujo.bobengine.entities.Room;
+
+/**
+ * Allows a component to react to being removed from a room.
+ */
+public interface RoomRemovalHandler extends Component {
+    /**
+     * Event that will occur when this component, or an entity it belongs to, is removed
+     * from a room with removeComponent() or deleteObject().
+     * @param room The room that this component was removed from.
+     */
+    void onRemovedFromRoom(Room room);
+}
@@ -0,0 +1,117 @@
+/**
+ * BobEngine - 2D game engine for Android
+ *
+ * Copyright (C) 2014, 2015, 2016 Benjamin Blaszczak
+ *
+ * BobEngine is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser Public License
+ * version 2.1 as published by the free software foundation.
+ *
+ * BobEngine is provided without warranty; without even the implied
+ * warranty of merchantability or fitness for a particular
+ * purpose. See the GNU Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General
+ * Public License along with BobEngine; if not, write to the
+ * Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301 USA
+ *
+ */
+package com.bobbyloujo.bobengine.entities;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+
+/**
+ * A list of the components in a Room that the Room loops over, like its Updatables.
+ * Components are found through an index map, so adding and removing one takes constant
+ * time. Removing a component leaves an empty slot, so the others keep their order and a
+ * loop over the list doesn't skip any. compact() closes up the slots once half of them
+ * are empty. get() returns null for an empty slot.
+ */
+class ComponentList<T> {
+
+	private ArrayList<T> items;
+	private IdentityHashMap<Object, Integer> index;   // The slot of each component
+	private int numEmpty;                             // Slots left by removed components
+
+	ComponentList() {
+		items = new ArrayList<T>();
+		index = new IdentityHashMap<Object, Integer>();
+		numEmpty = 0;
+	}
+
+	/**
+	 * Add a component to the end of the list. Adding a component that is already in the
+	 * list does nothing.
+	 */
+	void add(T component) {
+		if (index.containsKey(component)) {
+			return;
+		}
+
+		index.put(component, items.size());
+		items.add(component);
+	}
+
+	/**
+	 * Remove a component and leave an empty slot in its place.
+	 *
+	 * @return True if the component was in the list.
+	 */
+	boolean remove(Object component) {
+		Integer i = index.remove(component);
+
+		if (i == null) {
+			return false;
+		}
+
+		items.set(i, null);
+		numEmpty++;
+
+		return true;
+	}
+
+	/**
+	 * Returns the number of slots, including empty ones.
+	 */
+	int size() {
+		return items.size();
+	}
+
+	/**
+	 * Returns the component in a slot, or null if the slot is empty.
+	 */
+	T get(int slot) {
+		return items.get(slot);
+	}
+
+	/**
+	 * Close up the empty slots if at least half of the slots are empty. The components keep
+	 * their order. Don't call this while looping over the list.
+	 */
+	void compact() {
+		if (numEmpty == 0 || numEmpty * 2 < items.size()) {
+			return;
+		}
+
+		int n = 0;
+
+		for (int i = 0; i < items.size(); i++) {
+			T c = items.get(i);
+
+			if (c != null) {
+				items.set(n, c);
+				index.put(c, n);
+				n++;
+			}
+		}
+
+		// Drop the slots on the end
+		for (int i = items.size() - 1; i >= n; i--) {
+			items.remove(i);
+		}
+
+		numEmpty = 0;
+	}
+}
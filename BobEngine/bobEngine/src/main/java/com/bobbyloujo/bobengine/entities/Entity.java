@@ -23,7 +23,9 @@ import android.app.Activity;
 
 import com.bobbyloujo.bobengine.components.Component;
 import com.bobbyloujo.bobengine.components.ParentAssignmentHandler;
+import com.bobbyloujo.bobengine.components.RoomRemovalHandler;
 import com.bobbyloujo.bobengine.view.BobView;
+import com.bobbyloujo.bobengine.view.ViewPort;
 
 import java.util.ArrayList;
 
@@ -34,7 +36,7 @@ import java.util.ArrayList;
  *
  * Created by Ben on 9/24/2015.
  */
-public class Entity implements ParentAssignmentHandler {
+public class Entity implements ParentAssignmentHandler, RoomRemovalHandler {
 
 	// Constants
     public static final int INIT_COMP_CAPACITY = 1;  // The initial size of the Component list
@@ -87,14 +89,16 @@ public class Entity implements ParentAssignmentHandler {
 		success = components.add(component);
 
 		if (getRoom() != null) {
-			getRoom().updateComponentLists();
+			getRoom().onComponentAdded(component);
 		}
 
         return success;
     }
 
 	/**
-	 * Remove a component from this Entity.
+	 * Remove a component from this Entity. If this Entity is in a Room, the Room's systems
+	 * forget the component and everything that belongs to it, and onRemovedFromRoom() is
+	 * called for each of them.
 	 *
 	 * @param component The component to remove
 	 * @return True if the component was removed, false if the component
@@ -102,21 +106,35 @@ public class Entity implements ParentAssignmentHandler {
 	 */
     public boolean removeComponent(Component component) {
 		boolean success = false;
+		Room room = getRoom();
 
-		if (component instanceof Entity) {
+		success = components.remove(component);
+
+		if (success && component instanceof Entity) {
 			((Entity) component).parent = null;
-			((Entity) component).room = null;
+			((Entity) component).forgetRoom();
 		}
 
-		success = components.remove(component);
-
-		if (getRoom() != null) {
-			getRoom().updateComponentLists();
+		if (success && room != null) {
+			room.onComponentRemoved(component);
 		}
 
         return success;
     }
 
+	/**
+	 * Forget the cached Room of this Entity and every Entity that belongs to it.
+	 */
+	private void forgetRoom() {
+		room = null;
+
+		for (int i = 0; i < components.size(); i++) {
+			if (components.get(i) instanceof Entity) {
+				((Entity) components.get(i)).forgetRoom();
+			}
+		}
+	}
+
 	/**
 	 * Get the list of components belonging to this Entity.
 	 * @return This Entity's components.
@@ -238,6 +256,18 @@ public class Entity implements ParentAssignmentHandler {
         return getRoom().getView();
     }
 
+	/**
+	 * Get the ViewPort that this Entity's Room is in if this Entity belongs to a Room.
+	 *
+	 * @return The ViewPort that this Entity's Room is in if this Entity belongs to a
+	 * Room, null otherwise.
+	 */
+	public ViewPort getViewPort() {
+		if (getRoom() == null) return null;
+
+		return getRoom().getViewPort();
+	}
+
 	/**
 	 * Get the Activity that this Entity's BobView belongs to if this Entity
 	 * belongs to a Room.
@@ -267,4 +297,15 @@ public class Entity implements ParentAssignmentHandler {
 	public void onParentAssigned(Entity parent) {
 
 	}
+
+	/**
+	 * This event is triggered when this Entity, or an Entity it belongs to, is removed
+	 * from its Room.
+	 *
+	 * @param room The Room this Entity was removed from.
+	 */
+	@Override
+	public void onRemovedFromRoom(Room room) {
+
+	}
 }
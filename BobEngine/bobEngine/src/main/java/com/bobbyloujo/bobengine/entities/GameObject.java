@@ -84,6 +84,7 @@ public class GameObject extends Entity implements Updatable, Quad, Transformatio
 	// Objects
 	private Transformation transformParent;
 	private QuadRenderSystem renderSystem;
+	private Graphic g;                  // The graphic set with setGraphic(), or null
 
 	/**
 	 * Create a GameObject in the specified room.
@@ -130,7 +131,7 @@ public class GameObject extends Entity implements Updatable, Quad, Transformatio
 	 * System of this object)
 	 */
 	public Graphic getGraphic() {
-		return renderSystem.getGraphic();
+		return renderSystem != null ? renderSystem.getGraphic() : g;
 	}
 
 	/**
@@ -189,6 +190,7 @@ public class GameObject extends Entity implements Updatable, Quad, Transformatio
 		QuadRenderSystem r = getRoom().getQuadRenderSystem(params.graphic);
 		r.addQuad(this);
 		renderSystem = r;
+		g = params.graphic;
 	}
 
 	/**
@@ -218,6 +220,7 @@ public class GameObject extends Entity implements Updatable, Quad, Transformatio
 		QuadRenderSystem r = getRoom().getQuadRenderSystem(graphic);
 		r.addQuad(this);
 		renderSystem = r;
+		g = graphic;
 	}
 
 	/**
@@ -243,6 +246,7 @@ public class GameObject extends Entity implements Updatable, Quad, Transformatio
 		QuadRenderSystem r = getRoom().getQuadRenderSystem(graphicSheet);
 		r.addQuad(this);
 		renderSystem = r;
+		g = graphicSheet;
 	}
 
 	/**
@@ -255,6 +259,29 @@ public class GameObject extends Entity implements Updatable, Quad, Transformatio
 		}
 	}
 
+	/**
+	 * Put this object back in a render system when it is added to a Room again after
+	 * being removed.
+	 */
+	@Override
+	public void onParentAssigned() {
+		if (g != null && getRoom() != null && (renderSystem == null || renderSystem.getGraphic() != g)) {
+			removeFromRenderer();
+			renderSystem = getRoom().getQuadRenderSystem(g);
+			renderSystem.addQuad(this);
+		}
+	}
+
+	/**
+	 * Forget the render system when this object leaves the Room so it is added to a render
+	 * system again if it is put back in a Room.
+	 */
+	@Override
+	public void onRemovedFromRoom(Room room) {
+		removeFromRenderer();
+		renderSystem = null;
+	}
+
 	/**
 	 * Stop the animation. The object will display the most recently shown
 	 * frame.
@@ -337,7 +364,7 @@ public class GameObject extends Entity implements Updatable, Quad, Transformatio
 	 */
 	@Deprecated
 	public double getRatioX() {
-		return getView().getRatioX();
+		return getViewPort().getRatioX();
 	}
 	
 	/**
@@ -346,14 +373,14 @@ public class GameObject extends Entity implements Updatable, Quad, Transformatio
 	 */
 	@Deprecated
 	public double getRatioY() {
-		return getView().getRatioY();
+		return getViewPort().getRatioY();
 	}
 	
 	/**
 	 * Returns the Touch touch listener for the BobView containing this GameObject.
 	 */
 	public Touch getTouch() {
-		return getView().getTouch();
+		return getViewPort().getTouch();
 	}
 
 	/**
@@ -361,14 +388,14 @@ public class GameObject extends Entity implements Updatable, Quad, Transformatio
 	 */
 	@Deprecated
 	public Gamepad getController() {
-		return getView().getGamepad();
+		return getViewPort().getGamepad();
 	}
 
 	/**
 	 * Returns the gamepad helper for the BobView containing this GameObject.
 	 */
 	public Gamepad getGamepad() {
-		return getView().getGamepad();
+		return getViewPort().getGamepad();
 	}
 
 	/**
@@ -27,7 +27,12 @@ import java.util.ArrayList;
 import javax.microedition.khronos.opengles.GL10;
 
 import com.bobbyloujo.bobengine.view.BobView;
+import com.bobbyloujo.bobengine.view.ViewPort;
 import com.bobbyloujo.bobengine.components.Component;
+import com.bobbyloujo.bobengine.components.RoomRemovalHandler;
+import com.bobbyloujo.bobengine.profiling.Profiler;
+import com.bobbyloujo.bobengine.systems.ComponentRemovalListener;
+import com.bobbyloujo.bobengine.systems.DebugDraw;
 import com.bobbyloujo.bobengine.systems.input.gamepad.GamepadInputHandler;
 import com.bobbyloujo.bobengine.systems.Renderable;
 import com.bobbyloujo.bobengine.systems.input.touch.TouchInputHandler;
@@ -74,25 +79,32 @@ public class Room extends Entity {
 	private float camBottom;   // The bottom edge of the camera
 
 	// Objects
-	private BobView view;      // This room's containing BobView.
+	private ViewPort view;     // This room's containing view.
 
 	// Special component lists
-	private ArrayList<Renderable> renderables;                   // This list will be populated with render systems and will be used for finding render systems quickly
-	private ArrayList<Updatable> updatables;                     // List of updatable components
-	private ArrayList<TouchInputHandler> touchInputHandlers;     // List of touch screen input handlers
-	private ArrayList<GamepadInputHandler> gamepadInputHandlers; // List of gamepad input handlers
-
-	public Room(BobView view) {
+	// Special component lists. Slots of removed components are null until the lists are compacted.
+	private ComponentList<Renderable> renderables;                   // Render systems, drawn in the order they were added
+	private ComponentList<Updatable> updatables;                     // List of updatable components
+	private ComponentList<TouchInputHandler> touchInputHandlers;     // List of touch screen input handlers
+	private ComponentList<GamepadInputHandler> gamepadInputHandlers; // List of gamepad input handlers
+	private ComponentList<ComponentRemovalListener> removalListeners; // Systems that need to forget removed components
+	private ComponentList<QuadRenderSystem> quadRenderSystems;       // Every QuadRenderSystem in this room
+	private ArrayList<Component> addedComponents;                    // Reusable list of the components in an added component tree
+	private ArrayList<ArrayList<Component>> removedComponents;       // Reusable lists of removed component trees, one for each nested removal
+	private int removalDepth;                                        // Removals in progress. Removal handlers can remove more components.
+	private DebugDraw debugDraw;                                 // Draws debugging outlines. Created the first time it is asked for.
+
+	public Room(ViewPort view) {
 		super();
 		init(view, DEF_LAYERS);
 	}
 
-	public Room(BobView view, int layers) {
+	public Room(ViewPort view, int layers) {
 		super();
 		init(view, layers);
 	}
 
-	private void init(BobView view, int layers) {
+	private void init(ViewPort view, int layers) {
 		this.view = view;
 
 		this.layers = layers;
@@ -115,18 +127,34 @@ public class Room extends Entity {
 		cAnchorX = 0;
 		cAnchorY = 0;
 
-		renderables = new ArrayList<Renderable>();
-		updatables = new ArrayList<Updatable>();
-		touchInputHandlers = new ArrayList<TouchInputHandler>();
-		gamepadInputHandlers = new ArrayList<GamepadInputHandler>();
+		renderables = new ComponentList<Renderable>();
+		updatables = new ComponentList<Updatable>();
+		touchInputHandlers = new ComponentList<TouchInputHandler>();
+		gamepadInputHandlers = new ComponentList<GamepadInputHandler>();
+		removalListeners = new ComponentList<ComponentRemovalListener>();
+		quadRenderSystems = new ComponentList<QuadRenderSystem>();
+		addedComponents = new ArrayList<Component>();
+		removedComponents = new ArrayList<ArrayList<Component>>();
+		removalDepth = 0;
 	}
 
 	/**
 	 * Get the BobView that contains this Room.
 	 *
-	 * @return BobView containing this Room.
+	 * @return BobView containing this Room, or null if this Room is in a ViewPort that
+	 * isn't a BobView.
 	 */
 	public BobView getView() {
+		return view instanceof BobView ? (BobView) view : null;
+	}
+
+	/**
+	 * Get the ViewPort that contains this Room. This is the BobView unless the Room is
+	 * running somewhere else, such as in a HeadlessRuntime.
+	 *
+	 * @return ViewPort containing this Room.
+	 */
+	public ViewPort getViewPort() {
 		return view;
 	}
 
@@ -191,7 +219,6 @@ public class Room extends Entity {
 		if (r == null) {
 			r = new QuadRenderSystem(g, minSprites);
 			addComponent(r);
-			renderables.add(r);
 		} else if (r.getBufferSize() < minSprites) {
 			r.resizeBuffers(minSprites);
 		}
@@ -199,6 +226,21 @@ public class Room extends Entity {
 		return r;
 	}
 
+	/**
+	 * Returns the DebugDraw for this Room, creating it the first time this is called. Shapes
+	 * drawn with it during an update are shown on top of the Room when it is drawn.
+	 *
+	 * @return The DebugDraw for this Room.
+	 */
+	public DebugDraw getDebugDraw() {
+		if (debugDraw == null) {
+			debugDraw = new DebugDraw();
+			addComponent(debugDraw);
+		}
+
+		return debugDraw;
+	}
+
 	/**
 	 * Searches for a QuadRenderSystem for the Graphic g and returns it. If one is not found,
 	 * this will return null.
@@ -207,23 +249,12 @@ public class Room extends Entity {
 	 * @return A QuadRenderSystem for Graphic g if found, null otherwise.
 	 */
 	private QuadRenderSystem findQuadRenderSystem(Graphic g) {
+		for (int i = 0; i < quadRenderSystems.size(); i++) {
+			QuadRenderSystem r = quadRenderSystems.get(i);
 
-		for (Renderable r: renderables) {
-			if (r instanceof QuadRenderSystem && r.getGraphic() != null && r.getGraphic().equals(g)) {
-				return (QuadRenderSystem) r;
-			}
-		}
-
-		ArrayList<Component> components = this.getEntireComponentTree();
-
-		for (int o = 0; o < components.size(); o++) {
-			if (components.get(o) != null && components.get(o) instanceof QuadRenderSystem) {
-				QuadRenderSystem r = ((QuadRenderSystem) components.get(o));
-
-				if (r.getGraphic() != null && r.getGraphic().equals(g)) {
-					renderables.add(r);
-					return r;
-				}
+			// Match a null graphic too, so quads that don't have a graphic yet share one system
+			if (r != null && (r.getGraphic() == g || r.getGraphic() != null && r.getGraphic().equals(g))) {
+				return r;
 			}
 		}
 
@@ -338,7 +369,11 @@ public class Room extends Entity {
 	 * Removes all GameObjects from this room.
 	 */
 	public void clearObjects() {
-		getComponents().clear();
+		ArrayList<Component> components = getComponents();
+
+		for (int i = components.size() - 1; i >= 0; i--) {
+			removeComponent(components.get(i));
+		}
 	}
 
 	/**
@@ -350,8 +385,8 @@ public class Room extends Entity {
 		for (int i = 0; i < renderables.size(); i++) {
 			Renderable r = renderables.get(i);
 
-			if (r.getGraphic() != null) {
-				r.getGraphic().indicateUsed(getView().getGraphicsHelper().getCleanupsTilRemoval());
+			if (r != null && r.getGraphic() != null) {
+				r.getGraphic().indicateUsed(view.getGraphicsHelper().getCleanupsTilRemoval());
 			}
 		}
 	}
@@ -365,7 +400,7 @@ public class Room extends Entity {
 		for (int i = 0; i < renderables.size(); i++) {
 			Renderable r = renderables.get(i);
 
-			if (r.getGraphic() != null) {
+			if (r != null && r.getGraphic() != null) {
 				r.getGraphic().forceCleanup();
 			}
 		}
@@ -396,7 +431,7 @@ public class Room extends Entity {
 	 */
 	@Deprecated
 	public double getRatioX() {
-		return getView().getRatioX();
+		return view.getRatioX();
 	}
 
 	/**
@@ -406,7 +441,7 @@ public class Room extends Entity {
 	 */
 	@Deprecated
 	public double getRatioY() {
-		return getView().getRatioY();
+		return view.getRatioY();
 	}
 
 	/**
@@ -510,6 +545,8 @@ public class Room extends Entity {
 	 * @param gl OpenGL ES 1.0 object to do pass drawing information to.
 	 */
 	public void draw(GL10 gl) {
+		compactComponentLists();
+
 		// Update camera
 		gl.glMatrixMode(GLES10.GL_PROJECTION);
 		gl.glLoadIdentity();
@@ -520,15 +557,29 @@ public class Room extends Entity {
 		gl.glLoadIdentity();
 
 		for (int l = 0; l < layers; l++) {
+			int scope = Profiler.getLayerScope(l);
+
+			Profiler.begin(scope);
+
 			for (int i = 0; i < renderables.size(); i++) {
 				Renderable r = renderables.get(i);
 
+				if (r == null) {
+					continue;
+				}
+
 				if (r.getGraphic() != null && r.getGraphic().shouldLoad()) {     // Load the graphic if needed
-					getView().getGraphicsHelper().addGraphic(r.getGraphic());
+					view.getGraphicsHelper().addGraphic(r.getGraphic());
 				}
 
+				int renderScope = Profiler.isEnabled() ? Profiler.getClassScope(r.getClass()) : 0;
+
+				Profiler.begin(renderScope);
 				r.render(gl, l);
+				Profiler.end(renderScope);
 			}
+
+			Profiler.end(scope);
 		}
 	}
 
@@ -541,13 +592,19 @@ public class Room extends Entity {
 	 * @param deltaTime Lag correction multiplier.
 	 */
 	public void update(double deltaTime) {
+		compactComponentLists();
+
 		// Handle input events
 		for (int i = 0; i < Touch.MAX_FINGERS; i++) {
 			if (newpress[i]) {
 				newpress(i);
 
 				for (int h = 0; h < touchInputHandlers.size(); h++) {
-					touchInputHandlers.get(h).newpress(i);
+					TouchInputHandler handler = touchInputHandlers.get(h);
+
+					if (handler != null) {
+						handler.newpress(i);
+					}
 				}
 
 				newpress[i] = false;
@@ -557,7 +614,11 @@ public class Room extends Entity {
 				released(i);
 
 				for (int h = 0; h < touchInputHandlers.size(); h++) {
-					touchInputHandlers.get(h).released(i);
+					TouchInputHandler handler = touchInputHandlers.get(h);
+
+					if (handler != null) {
+						handler.released(i);
+					}
 				}
 
 				released[i] = false;
@@ -569,7 +630,11 @@ public class Room extends Entity {
 				newpress(i, buttonNewpress[i]);
 
 				for (int g = 0; g < gamepadInputHandlers.size(); g++) {
-					gamepadInputHandlers.get(g).newpress(i, buttonNewpress[i]);
+					GamepadInputHandler pad = gamepadInputHandlers.get(g);
+
+					if (pad != null) {
+						pad.newpress(i, buttonNewpress[i]);
+					}
 				}
 
 				buttonNewpress[i] = -1;
@@ -579,7 +644,11 @@ public class Room extends Entity {
 				released(i, buttonReleased[i]);
 
 				for (int g = 0; g < gamepadInputHandlers.size(); g++) {
-					gamepadInputHandlers.get(g).released(i, buttonReleased[i]);
+					GamepadInputHandler pad = gamepadInputHandlers.get(g);
+
+					if (pad != null) {
+						pad.released(i, buttonReleased[i]);
+					}
 				}
 
 				buttonReleased[i] = -1;
@@ -590,14 +659,21 @@ public class Room extends Entity {
 		step(deltaTime);
 
 		// Update camera edges
-		camLeft = (float) (camX * gridUnitX + cAnchorX - getView().getRenderer().getCameraWidth() * camZoom * (cAnchorX / getView().getRenderer().getCameraWidth()));
-		camRight = (float) (camX * gridUnitX + cAnchorX + getView().getRenderer().getCameraWidth() * camZoom * ((getView().getRenderer().getCameraWidth() - cAnchorX) / getView().getRenderer().getCameraWidth()));
-		camTop = (float) (camY * gridUnitY + cAnchorY + getView().getRenderer().getCameraHeight() * camZoom * ((getView().getRenderer().getCameraHeight() - cAnchorY) / getView().getRenderer().getCameraHeight()));
-		camBottom = (float) (camY * gridUnitY + cAnchorY - getView().getRenderer().getCameraHeight() * camZoom * (cAnchorY / getView().getRenderer().getCameraHeight()));
+		camLeft = (float) (camX * gridUnitX + cAnchorX - view.getCameraWidth() * camZoom * (cAnchorX / view.getCameraWidth()));
+		camRight = (float) (camX * gridUnitX + cAnchorX + view.getCameraWidth() * camZoom * ((view.getCameraWidth() - cAnchorX) / view.getCameraWidth()));
+		camTop = (float) (camY * gridUnitY + cAnchorY + view.getCameraHeight() * camZoom * ((view.getCameraHeight() - cAnchorY) / view.getCameraHeight()));
+		camBottom = (float) (camY * gridUnitY + cAnchorY - view.getCameraHeight() * camZoom * (cAnchorY / view.getCameraHeight()));
 
 		// Update each object
 		for (int u = 0; u < updatables.size(); u++) {
-			updatables.get(u).update(deltaTime);
+			Updatable updatable = updatables.get(u);
+
+			// Skip objects that were removed earlier this frame
+			if (updatable == null) {
+				continue;
+			}
+
+			updatable.update(deltaTime);
 		}
 	}
 
@@ -613,17 +689,18 @@ public class Room extends Entity {
 
 	}
 
-	void updateComponentLists() {
-		// Refresh special component lists
-		ArrayList<Component> components = getEntireComponentTree();
-
-		renderables.clear();
-		updatables.clear();
-		touchInputHandlers.clear();
-		gamepadInputHandlers.clear();
+	/**
+	 * Called when a component is added to this Room or to anything in it. The component and
+	 * each component that belongs to it are added to the end of the special component lists
+	 * they belong in.
+	 *
+	 * @param component The added component.
+	 */
+	void onComponentAdded(Component component) {
+		collectTree(component, addedComponents);
 
-		for (int i = 0; i < components.size(); i++) {
-			Component c = components.get(i);
+		for (int i = 0; i < addedComponents.size(); i++) {
+			Component c = addedComponents.get(i);
 
 			if (c instanceof Updatable) {
 				updatables.add((Updatable) c);
@@ -640,9 +717,118 @@ public class Room extends Entity {
 			if (c instanceof GamepadInputHandler) {
 				gamepadInputHandlers.add((GamepadInputHandler) c);
 			}
+
+			if (c instanceof ComponentRemovalListener) {
+				removalListeners.add((ComponentRemovalListener) c);
+			}
+
+			if (c instanceof QuadRenderSystem) {
+				quadRenderSystems.add((QuadRenderSystem) c);
+			}
+		}
+
+		addedComponents.clear();
+	}
+
+	/**
+	 * Called when a component is removed from this Room or from anything in it. Every
+	 * ComponentRemovalListener in this Room is told about the component and each component
+	 * that belonged to it, then onRemovedFromRoom() is called for each of them that is a
+	 * RoomRemovalHandler.
+	 *
+	 * @param component The removed component.
+	 */
+	void onComponentRemoved(Component component) {
+		if (removalDepth == removedComponents.size()) {
+			removedComponents.add(new ArrayList<Component>());
+		}
+
+		ArrayList<Component> removed = removedComponents.get(removalDepth++);
+
+		try {
+			collectTree(component, removed);
+
+			// Systems that were removed don't need to hear about their own removal
+			for (int i = 0; i < removed.size(); i++) {
+				Component c = removed.get(i);
+
+				updatables.remove(c);
+				renderables.remove(c);
+				touchInputHandlers.remove(c);
+				gamepadInputHandlers.remove(c);
+				removalListeners.remove(c);
+				quadRenderSystems.remove(c);
+			}
+
+			for (int l = 0; l < removalListeners.size(); l++) {
+				ComponentRemovalListener listener = removalListeners.get(l);
+
+				for (int i = 0; listener != null && i < removed.size(); i++) {
+					listener.onComponentRemoved(removed.get(i));
+				}
+			}
+
+			for (int i = 0; i < removed.size(); i++) {
+				if (removed.get(i) instanceof RoomRemovalHandler) {
+					((RoomRemovalHandler) removed.get(i)).onRemovedFromRoom(this);
+				}
+			}
+		} finally {
+			removed.clear();
+			removalDepth--;
 		}
 	}
 
+	/**
+	 * Add a component and every component that belongs to it to a list.
+	 *
+	 * @param component The root of the component tree.
+	 * @param list The list to add the components to.
+	 */
+	private void collectTree(Component component, ArrayList<Component> list) {
+		list.add(component);
+
+		if (component instanceof Entity) {
+			ArrayList<Component> components = ((Entity) component).getComponents();
+
+			for (int i = 0; i < components.size(); i++) {
+				collectTree(components.get(i), list);
+			}
+		}
+	}
+
+	/**
+	 * Returns the number of components that systems in this Room are still using even
+	 * though they belong to entities that were removed from the Room. This is a debugging
+	 * aid; it should always be 0.
+	 *
+	 * @return The number of orphaned registrations in this Room's systems.
+	 */
+	public int getOrphanCount() {
+		int orphans = 0;
+
+		for (int i = 0; i < removalListeners.size(); i++) {
+			if (removalListeners.get(i) != null) {
+				orphans += removalListeners.get(i).getOrphanCount();
+			}
+		}
+
+		return orphans;
+	}
+
+	/**
+	 * Close up the slots that removed components left in the special component lists.
+	 * Only done before the lists are looped over, never during a loop.
+	 */
+	private void compactComponentLists() {
+		updatables.compact();
+		renderables.compact();
+		touchInputHandlers.compact();
+		gamepadInputHandlers.compact();
+		removalListeners.compact();
+		quadRenderSystems.compact();
+	}
+
 	/**
 	 * Tell this room to handle a newpress input event on the main thread.
 	 * @param index ID number of the pointer that triggered this event.
@@ -51,7 +51,7 @@ public class SimpleGameObject extends Entity implements Quad {
 		addComponent(transform);
 		addComponent(graphic);
 
-		// todo setGraphic(getView().getGraphicsHelper().getDefaultGraphic(), false);
+		// todo setGraphic(getViewPort().getGraphicsHelper().getDefaultGraphic(), false);
 	}
 
 	public SimpleGameObject(Entity parent) {
@@ -63,7 +63,7 @@ public class SimpleGameObject extends Entity implements Quad {
 		addComponent(transform);
 		addComponent(graphic);
 
-		setGraphic(getView().getGraphicsHelper().getDefaultGraphic(), false);
+		setGraphic(getViewPort().getGraphicsHelper().getDefaultGraphic(), false);
 	}
 
 	@Override
@@ -233,6 +233,16 @@ public class SimpleGameObject extends Entity implements Quad {
 		}
 	}
 
+	/**
+	 * Forget the render system when this object leaves the Room so it is added to a render
+	 * system again if it is put back in a Room.
+	 */
+	@Override
+	public void onRemovedFromRoom(Room room) {
+		removeFromRenderer();
+		renderSystem = null;
+	}
+
 	/**
 	 * Determine if this SimpleGameObject is on the screen.
 	 * @return True if this SimpleGameObject appears on screen, false otherwise.
@@ -27,6 +27,7 @@ import com.bobbyloujo.bobengine.graphics.Graphic;
 import com.bobbyloujo.bobengine.systems.Updatable;
 
 import java.text.DecimalFormat;
+import java.text.FieldPosition;
 
 import javax.microedition.khronos.opengles.GL10;
 
@@ -62,12 +63,15 @@ public class NumberDisplay extends Entity implements Updatable, Transformation {
 
 	// Variables
 	private char[] text;
+	private int textLength;     // The number of characters in text that are being displayed
 	private double number;      // The number being displayed
 	private double realWidth;   // The real width of this NumberDisplay, included all characters being displayed.
 	private int alignment;      // The text alignment of this NumberDisplay (Right, left, center)
 	private boolean hasChanged; // Flag that indicates the number has changed.
 
 	private DecimalFormat formatter;
+	private StringBuffer formatted;       // Reused so formatting the number doesn't make a new String every time
+	private FieldPosition fieldPosition;
 	private String format;
 	private String precision; // A string defining the precision of decimal numbers.
 	private String commas;    // A string defining the formatting of commas.
@@ -112,6 +116,9 @@ public class NumberDisplay extends Entity implements Updatable, Transformation {
 		commas = COMMAS;
 		format = commas + precision;
 		formatter = new DecimalFormat(format);
+		formatted = new StringBuffer();
+		fieldPosition = new FieldPosition(0);
+		text = new char[0];
 
 		digits = new SimpleGameObject[1];
 	}
@@ -119,8 +126,8 @@ public class NumberDisplay extends Entity implements Updatable, Transformation {
 	@Override
 	public void onParentAssigned() {
 		if (graphic == null) {
-			getView().getGraphicsHelper().setParameters(true, GL10.GL_LINEAR_MIPMAP_LINEAR, GL10.GL_LINEAR_MIPMAP_LINEAR, false);
-			setGraphic(getView().getGraphicsHelper().getGraphic(R.drawable.numbers), 12, 1);
+			getViewPort().getGraphicsHelper().setParameters(true, GL10.GL_LINEAR_MIPMAP_LINEAR, GL10.GL_LINEAR_MIPMAP_LINEAR, false);
+			setGraphic(getViewPort().getGraphicsHelper().getGraphic(R.drawable.numbers), 12, 1);
 		}
 	}
 
@@ -206,6 +213,7 @@ public class NumberDisplay extends Entity implements Updatable, Transformation {
 		}
 
 		format = commas + precision;
+		formatter.applyPattern(format);
 	}
 
 	/**
@@ -227,6 +235,7 @@ public class NumberDisplay extends Entity implements Updatable, Transformation {
 		this.precision = prec;
 
 		format = commas + this.precision;
+		formatter.applyPattern(format);
 	}
 
 	/**
@@ -306,18 +315,23 @@ public class NumberDisplay extends Entity implements Updatable, Transformation {
 	private void placeDigits() {
 		double cursor = 0;
 		double shift;
-		formatter.applyPattern(format);
-		text = formatter.format(number).toCharArray();
+		formatted.setLength(0);
+		formatter.format(number, formatted, fieldPosition);
+		textLength = formatted.length();
 
-		if (text.length > digits.length) {
-			for (int i = 0; i < digits.length; i++) {
-				if (digits[i] != null) digits[i].removeFromRenderer();
-			}
+		if (textLength > text.length) {
+			text = new char[textLength];
+		}
+
+		formatted.getChars(0, textLength, text, 0);
 
-			digits = new SimpleGameObject[text.length];
+		if (textLength > digits.length) {
+			SimpleGameObject[] resized = new SimpleGameObject[textLength];  // Keep the digits we already made
+			System.arraycopy(digits, 0, resized, 0, digits.length);
+			digits = resized;
 		}
 
-		for (int i = 0; i < text.length; i++) {
+		for (int i = 0; i < textLength; i++) {
 			if (digits[i] == null) {
 				digits[i] = new SimpleGameObject(getRoom());
 				digits[i].setGraphic(graphic);
@@ -333,7 +347,7 @@ public class NumberDisplay extends Entity implements Updatable, Transformation {
 			cursor += width * kerning[getFrameFromChar(text[i])];
 		}
 
-		for (int i = text.length; i < digits.length; i++) {
+		for (int i = textLength; i < digits.length; i++) {
 			if (digits[i] != null) digits[i].transform.visible = false;
 		}
 
@@ -22,6 +22,7 @@ package com.bobbyloujo.bobengine.extra;
 import android.util.Log;
 
 import com.bobbyloujo.bobengine.view.BobView;
+import com.bobbyloujo.bobengine.view.ViewPort;
 import com.bobbyloujo.bobengine.entities.Room;
 
 /**
@@ -100,12 +101,12 @@ public class RoomCache {
 	/**
 	 * Searches the cache for an instance of the specified type of room. If no instance is
 	 * found in the cache, a new instance will be made assuming that the room's constructor
-	 * only takes a BobView as an argument. This new instance will be entered into
+	 * only takes a BobView, or a ViewPort, as an argument. This new instance will be entered into
 	 * the cache and the returned. If the cache is full, the oldest room will be removed.
 	 *
 	 * @param roomType The Class of the room type you want an instance of.
 	 * @return an instance of roomType. If roomType has no constructor with only one
-	 * parameter of type BobView, this function will return null.
+	 * parameter of type BobView or ViewPort, this function will return null.
 	 * @throws IllegalArgumentException if roomType does not inherit Room.
 	 */
 	public Room getRoom(Class<? extends Room> roomType) {
@@ -120,7 +121,15 @@ public class RoomCache {
 		}
 
 		try {
-			Room newRoom = roomType.getConstructor(BobView.class).newInstance(owner);        // Create a new instance of roomType
+			java.lang.reflect.Constructor<? extends Room> constructor;
+
+			try {
+				constructor = roomType.getConstructor(BobView.class);
+			} catch (NoSuchMethodException e) {
+				constructor = roomType.getConstructor(ViewPort.class);                     // Rooms that can also run headless
+			}
+
+			Room newRoom = constructor.newInstance(owner);                                   // Create a new instance of roomType
 			addRoom(newRoom);                                                                // Add the new instance to the cache.
 			return newRoom;                                                                  // Return the new instance!
 		} catch (Exception e) {
@@ -129,7 +129,7 @@ public class TextDisplay extends Entity implements Transformation, Updatable {
 	@Override
 	public void onParentAssigned() {
 		if (graphic == null) {
-			Graphic g = getView().getGraphicsHelper().getGraphic(R.drawable.characters);
+			Graphic g = getViewPort().getGraphicsHelper().getGraphic(R.drawable.characters);
 			setGraphic(g, 6, 13);
 		}
 	}
@@ -290,7 +290,7 @@ public class TextDisplay extends Entity implements Transformation, Updatable {
 	}
 
 	public void setFont(Font f) {
-		this.graphic = getView().getGraphicsHelper().getGraphic(f.drawable);
+		this.graphic = getViewPort().getGraphicsHelper().getGraphic(f.drawable);
 		setKerning(f.getKerning());
 		setOrder(f.getOrder());
 
@@ -337,11 +337,9 @@ public class TextDisplay extends Entity implements Transformation, Updatable {
 		lines = 1;  // We have a least one line, though it might be blank if text == ""
 
 		if (characters.length < text.length()) {
-			for (Character c: characters) {
-				if (c != null) c.removeFromRenderer();
-			}
-
-			characters = new Character[text.length()];  // Resize the character array if need be
+			Character resized[] = new Character[text.length()];                  // Resize the character array if need be,
+			System.arraycopy(characters, 0, resized, 0, characters.length);      //    keeping the characters we already made
+			characters = resized;
 		}
 
 		for (int i = 0; i < text.length(); i++) { // Output each character in String text
@@ -361,7 +359,9 @@ public class TextDisplay extends Entity implements Transformation, Updatable {
 				characters[i].transform.height = height;
 				characters[i].transform.width = width;
 				characters[i].transform.followCamera = followCamera;
-				characters[i].setGraphic(graphic);                                    // and graphic info
+				if (characters[i].getRenderSystem() == null || characters[i].getRenderSystem().getGraphic() != graphic) {
+					characters[i].setGraphic(graphic);                                // and graphic info if it isn't set already
+				}
 				characters[i].graphic.makeGrid(rows, columns, xOnGfx, yOnGfx, widthOnGfx, heightOnGfx, graphic.width, graphic.height);
 				characters[i].graphic.frame = getFrameFromChar(text.charAt(i));       // and the correct frame
 
@@ -78,7 +78,10 @@ public class Util {
 	 * @return Distance between t1 and t2, squared, in pixels.
 	 */
 	public static double getDistanceBetweenSquared(Transformation t1, Transformation t2) {
-		return Math.pow(Transform.getRealX(t1) - Transform.getRealX(t2), 2) + Math.pow(Transform.getRealY(t1) - Transform.getRealY(t2), 2);
+		double dX = Transform.getRealX(t1) - Transform.getRealX(t2);
+		double dY = Transform.getRealY(t1) - Transform.getRealY(t2);
+
+		return dX * dX + dY * dY;
 	}
 
 	/**
@@ -87,7 +90,7 @@ public class Util {
 	 * @return Distance between (x1, y1) and (x2, y2)
 	 */
 	public static double getDistance(int x1, int y1, int x2, int y2) {
-		return Math.sqrt(Math.pow(x1 - x2, 2) + Math.pow(y1 - y2, 2));
+		return Math.sqrt(getDistanceSquared(x1, y1, x2, y2));
 	}
 
 	/**
@@ -98,7 +101,10 @@ public class Util {
 	 * @return Distance between (x1, y1) and (x2, y2)
 	 */
 	public static double getDistanceSquared(int x1, int y1, int x2, int y2) {
-		return Math.pow(x1 - x2, 2) + Math.pow(y1 - y2, 2);
+		double dX = x1 - x2;
+		double dY = y1 - y2;
+
+		return dX * dX + dY * dY;
 	}
 
 	/* FINDING ANGLES */
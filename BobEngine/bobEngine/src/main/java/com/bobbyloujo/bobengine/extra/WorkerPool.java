@@ -0,0 +1,213 @@
+/**
+ * BobEngine - 2D game engine for Android
+ *
+ * Copyright (C) 2014, 2015, 2016 Benjamin Blaszczak
+ *
+ * BobEngine is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser Public License
+ * version 2.1 as published by the free software foundation.
+ *
+ * BobEngine is provided without warranty; without even the implied
+ * warranty of merchantability or fitness for a particular
+ * purpose. See the GNU Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General
+ * Public License along with BobEngine; if not, write to the
+ * Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301 USA
+ *
+ */
+package com.bobbyloujo.bobengine.extra;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A small pool of worker threads that splits a job into chunks and runs the chunks
+ * on every core. The thread that calls run() works on chunks too and doesn't return
+ * until all chunks are finished, so jobs can safely write results into arrays that the
+ * caller reads afterwards.
+ * <br />
+ * <br />
+ * Running a job does not allocate any memory, so it can be used every frame.
+ */
+public class WorkerPool {
+
+	private static WorkerPool instance;
+
+	private final Object lock = new Object();          // Guards job hand-off between the caller and the workers
+	private final Object runLock = new Object();       // Only one job may run at a time
+	private final int numThreads;                      // Number of threads including the calling thread
+
+	private final AtomicInteger nextChunk = new AtomicInteger();   // The next chunk that hasn't been claimed
+	private final AtomicInteger remaining = new AtomicInteger();   // Number of chunks that haven't finished
+
+	private Task task;          // The current job
+	private int numChunks;      // The number of chunks in the current job
+	private int generation;     // Incremented for each job so workers know when there is new work
+	private int active;         // Number of workers currently working on the job
+	private Throwable error;    // The first error thrown by a chunk of the current job
+
+	/**
+	 * Returns the shared WorkerPool, which has one thread per available core.
+	 *
+	 * @return The shared WorkerPool.
+	 */
+	public static synchronized WorkerPool getInstance() {
+		if (instance == null) {
+			instance = new WorkerPool(Runtime.getRuntime().availableProcessors());
+		}
+
+		return instance;
+	}
+
+	/**
+	 * Create a new WorkerPool.
+	 *
+	 * @param threads The number of threads that work on jobs, including the thread
+	 *                that calls run(). If 1, jobs run entirely on the calling thread.
+	 */
+	public WorkerPool(int threads) {
+		numThreads = threads < 1 ? 1 : threads;
+
+		for (int i = 1; i < numThreads; i++) {
+			Thread t = new Thread(new Worker(), "BobEngine worker " + i);
+			t.setDaemon(true);
+			t.start();
+		}
+	}
+
+	/**
+	 * Returns the number of threads that work on jobs, including the calling thread.
+	 *
+	 * @return Number of threads that work on jobs.
+	 */
+	public int getNumThreads() {
+		return numThreads;
+	}
+
+	/**
+	 * Run a job on all threads. Each chunk number from 0 to numChunks - 1 is passed
+	 * to task.run() exactly once. This method returns when all chunks have finished.
+	 *
+	 * @param task The job to run.
+	 * @param numChunks The number of chunks to split the job into.
+	 */
+	public void run(Task task, int numChunks) {
+		if (numChunks <= 0) {
+			return;
+		}
+
+		if (numThreads == 1 || numChunks == 1) {
+			for (int i = 0; i < numChunks; i++) {
+				task.run(i);
+			}
+
+			return;
+		}
+
+		synchronized (runLock) {
+			Throwable e;
+
+			synchronized (lock) {
+				this.task = task;
+				this.numChunks = numChunks;
+				error = null;
+				nextChunk.set(0);
+				remaining.set(numChunks);
+				generation++;
+				lock.notifyAll();
+			}
+
+			work(task, numChunks);
+
+			synchronized (lock) {
+				// Wait for workers too, so none of them is still holding this job when the next one starts
+				while (remaining.get() > 0 || active > 0) {
+					try {
+						lock.wait();
+					} catch (InterruptedException ie) {
+						Thread.currentThread().interrupt();
+					}
+				}
+
+				e = error;
+				this.task = null;
+			}
+
+			if (e != null) {
+				throw new RuntimeException("A WorkerPool task failed.", e);
+			}
+		}
+	}
+
+	/**
+	 * Claim and run chunks until there are none left.
+	 */
+	private void work(Task task, int numChunks) {
+		int chunk;
+
+		while ((chunk = nextChunk.getAndIncrement()) < numChunks) {
+			try {
+				task.run(chunk);
+			} catch (Throwable t) {
+				synchronized (lock) {
+					if (error == null) error = t;
+				}
+			}
+
+			if (remaining.decrementAndGet() == 0) {
+				synchronized (lock) {
+					lock.notifyAll();
+				}
+			}
+		}
+	}
+
+	private class Worker implements Runnable {
+		@Override
+		public void run() {
+			int seen = 0;
+
+			while (true) {
+				Task t;
+				int chunks;
+
+				synchronized (lock) {
+					while (generation == seen || task == null) {
+						if (generation != seen) seen = generation;    // Missed a job that already finished
+
+						try {
+							lock.wait();
+						} catch (InterruptedException e) {
+							return;
+						}
+					}
+
+					seen = generation;
+					t = task;
+					chunks = numChunks;
+					active++;
+				}
+
+				work(t, chunks);
+
+				synchronized (lock) {
+					active--;
+					lock.notifyAll();
+				}
+			}
+		}
+	}
+
+	/**
+	 * A job that can be split into chunks and run by a WorkerPool.
+	 */
+	public interface Task {
+		/**
+		 * Run one chunk of this job. May be called from any thread.
+		 *
+		 * @param chunk The chunk number, from 0 to the number of chunks - 1.
+		 */
+		void run(int chunk);
+	}
+}
@@ -19,22 +19,33 @@
  */
 package com.bobbyloujo.bobengine.graphics;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.PortUnreachableException;
+import java.util.Arrays;
+import java.util.HashMap;
 
 import javax.microedition.khronos.opengles.GL10;
 import javax.microedition.khronos.opengles.GL11;
 
 import android.content.Context;
+import android.content.pm.PackageManager;
 import android.graphics.Bitmap;
 import android.graphics.BitmapFactory;
 import android.opengl.GLUtils;
 import android.util.Log;
 
+import com.bobbyloujo.bobengine.profiling.Profiler;
+import com.bobbyloujo.bobengine.systems.collision.PixelMask;
+
 /**
  * This class helps load graphics. Every BobView has it's own GraphicsHelper.
  * Use getGraphicsHelper() in a BobView to get it's GraphicsHelper.
@@ -54,6 +65,9 @@ public class GraphicsHelper {
 
 	private final static int START_NUM_TEX = 50;     // Starting maximum number of textures (graphics)
 	public final static int DEF_CLEANUPS = 2;        // Default number of cleanups until a graphic is removed.
+	private final static String MASK_DIR = "bobengine_masks"; // Folder in the cache directory for pixel masks
+	private final static int MASK_FILE_ID = 0x426F624D;       // First int of a pixel mask file
+	private final static int PLACEHOLDER_SIZE = 100;          // Width and height of graphics whose size can't be read
 
 	// Variables
 	private int numGFX;                              // Number of added graphics
@@ -63,11 +77,19 @@ public class GraphicsHelper {
 	private int magFilter;                           // Upscale filter to use
 	private int minFilter;                           // Downscale filter to use
 	private int	cleanupsTilRemoval;                  // Number of cleanups until a graphic is removed.
+	private HashMap<String, PixelMask[]> pixelMasks; // Masks that have been made, by drawable and area
 
 	// Object
 	private Context context;
 	private Graphic defGraphic;
 
+	/**
+	 * Create a GraphicsHelper that reads images from an app's resources.
+	 *
+	 * @param context The Context of the app. May be null when there is no app to read
+	 *                images from, such as in a HeadlessViewPort. Graphics are then given a
+	 *                placeholder size and pixel masks are null.
+	 */
 	public GraphicsHelper(Context context) {
 		this.context = context;
 		defGraphic = new Graphic();
@@ -80,6 +102,7 @@ public class GraphicsHelper {
 		magFilter = GL11.GL_LINEAR;
 		minFilter = GL11.GL_LINEAR_MIPMAP_LINEAR;
 		cleanupsTilRemoval = DEF_CLEANUPS;
+		pixelMasks = new HashMap<String, PixelMask[]>();
 	}
 
 	/**
@@ -156,6 +179,12 @@ public class GraphicsHelper {
 			}
 		}
 
+		if (context == null) {                                     // No images to read the size from
+			graphics[graphic] = new Graphic(drawable, PLACEHOLDER_SIZE, PLACEHOLDER_SIZE, minFilter, magFilter, useMipMaps, repeating);
+			if (shouldLoad) graphics[graphic].load();
+			return graphics[graphic];
+		}
+
 		try {
 			// Load the bitmap just to get the height and width
 			Bitmap bmp = null;
@@ -179,7 +208,7 @@ public class GraphicsHelper {
 				bmp.recycle();
 			}
 		} catch (OutOfMemoryError e) {
-			graphics[graphic] = new Graphic(drawable, 100, 100, minFilter, magFilter, useMipMaps, repeating);
+			graphics[graphic] = new Graphic(drawable, PLACEHOLDER_SIZE, PLACEHOLDER_SIZE, minFilter, magFilter, useMipMaps, repeating);
 			Log.e("BobEngine", "Image too large. Unable to get height and width.");
 		}
 
@@ -408,6 +437,222 @@ public class GraphicsHelper {
 		gl.glFinish();
 	}
 
+	/**
+	 * Get a PixelMask for each frame of a graphic with one column of frames, for pixel
+	 * perfect collisions. See getPixelMasks(Graphic, int, int, int, int, int, int, int).
+	 *
+	 * @param graphic The graphic sheet.
+	 * @param frameRows The number of frames in the column.
+	 * @return The mask of each frame, in the same order as the frames of an AnimatedGraphicAreaTransform.
+	 */
+	public PixelMask[] getPixelMasks(Graphic graphic, int frameRows) {
+		return getPixelMasks(graphic, 0, 0, graphic.height, graphic.width, frameRows, 1, PixelMask.DEF_ALPHA);
+	}
+
+	/**
+	 * Get a PixelMask for each frame of the area of a graphic in a Parameters object. Columns
+	 * of frames are counted to the right edge of the graphic.
+	 *
+	 * @param params The graphic and the area of its frames.
+	 * @return The mask of each frame, in the same order as the frames of an AnimatedGraphicAreaTransform.
+	 */
+	public PixelMask[] getPixelMasks(Graphic.Parameters params) {
+		int columns = Math.max(1, (params.graphic.width - params.x) / Math.max(1, params.width));
+		return getPixelMasks(params.graphic, params.x, params.y, params.height, params.width, params.rows, columns, PixelMask.DEF_ALPHA);
+	}
+
+	/**
+	 * Get a PixelMask for each frame of an area of a graphic, for pixel perfect collisions.
+	 * Frames go down each column, then on to the next column, like the frames of an
+	 * AnimatedGraphicAreaTransform. <br/>
+	 * <br/>
+	 * Masks are made once for each drawable and area and kept, both in memory and in the
+	 * app's cache directory, so they are only made again after the app is updated. Get the
+	 * masks when the graphics are created so the image isn't read during the game.
+	 *
+	 * @param graphic The graphic sheet.
+	 * @param x The x coordinate of the first column of frames, in pixels.
+	 * @param y The y coordinate of the top of the frames, in pixels.
+	 * @param height The height of a column of frames, in pixels.
+	 * @param width The width of a column of frames, in pixels.
+	 * @param frameRows The number of frames in each column.
+	 * @param columns The number of columns of frames.
+	 * @param alpha The alpha, from 0 to 255, a pixel needs to be solid.
+	 * @return The mask of each frame. If the image can't be read, each mask is null so the
+	 *         whole box is used.
+	 */
+	public PixelMask[] getPixelMasks(Graphic graphic, int x, int y, int height, int width, int frameRows, int columns, int alpha) {
+		String key = graphic.drawable + "_" + x + "_" + y + "_" + width + "_" + height + "_" + frameRows + "_"
+				+ columns + "_" + alpha + "_" + graphic.width + "_" + graphic.height;
+
+		PixelMask[] masks = pixelMasks.get(key);
+
+		if (masks == null && context == null) {                   // No image or cache to read
+			return new PixelMask[frameRows * columns];
+		}
+
+		if (masks == null) {
+			masks = readPixelMasks(key, frameRows * columns);
+		}
+
+		if (masks == null) {
+			masks = makePixelMasks(graphic, x, y, height, width, frameRows, columns, alpha);
+
+			if (masks == null) {
+				return new PixelMask[frameRows * columns];    // Try again next time
+			}
+
+			writePixelMasks(key, masks);
+		}
+
+		pixelMasks.put(key, masks);
+
+		return masks;
+	}
+
+	/**
+	 * Read the image of a graphic and make the masks of its frames.
+	 *
+	 * @return The masks, or null if the image can't be read.
+	 */
+	private PixelMask[] makePixelMasks(Graphic graphic, int x, int y, int height, int width, int frameRows, int columns, int alpha) {
+		Bitmap bmp = null;
+
+		try {
+			InputStream is = context.getResources().openRawResource(graphic.drawable);
+
+			try {
+				bmp = BitmapFactory.decodeStream(is);
+			} finally {
+				is.close();
+			}
+		} catch (Exception e) {
+			Log.e("BobEngine", "Failed to load graphic for pixel masks.");
+			e.printStackTrace();
+		} catch (OutOfMemoryError e) {
+			Log.e("BobEngine", "Image too large to make pixel masks.");
+		}
+
+		if (bmp == null) {
+			return null;
+		}
+
+		// Coordinates are in the dimensions of the graphic, which might not be the size of this image
+		double scaleX = (double) bmp.getWidth() / graphic.width;
+		double scaleY = (double) bmp.getHeight() / graphic.height;
+
+		int frameW = Math.max(1, (int) Math.round(width * scaleX));
+		int frameH = Math.max(1, (int) Math.round((double) height / frameRows * scaleY));
+		int[] pixels = new int[frameW * frameH];
+
+		PixelMask[] masks = new PixelMask[frameRows * columns];
+
+		for (int f = 0; f < masks.length; f++) {
+			int left = (int) Math.round((x + width * (f / frameRows)) * scaleX);
+			int top = (int) Math.round(y * scaleY) + frameH * (f % frameRows);
+
+			// Only the part of the frame on the image is read, the rest is see-through
+			int x1 = Math.max(left, 0);
+			int y1 = Math.max(top, 0);
+			int x2 = Math.min(left + frameW, bmp.getWidth());
+			int y2 = Math.min(top + frameH, bmp.getHeight());
+
+			Arrays.fill(pixels, 0);
+
+			if (x1 < x2 && y1 < y2) {
+				bmp.getPixels(pixels, (y1 - top) * frameW + x1 - left, frameW, x1, y1, x2 - x1, y2 - y1);
+			}
+
+			masks[f] = PixelMask.fromPixels(pixels, 0, frameW, frameW, frameH, alpha);
+		}
+
+		bmp.recycle();
+
+		return masks;
+	}
+
+	/**
+	 * Read masks saved by writePixelMasks().
+	 *
+	 * @return The masks, or null if they haven't been saved since the app was last updated.
+	 */
+	private PixelMask[] readPixelMasks(String key, int numFrames) {
+		File file = new File(new File(context.getCacheDir(), MASK_DIR), key);
+
+		if (!file.exists()) {
+			return null;
+		}
+
+		try {
+			DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+
+			try {
+				if (in.readInt() != MASK_FILE_ID || in.readLong() != getAppUpdateTime() || in.readInt() != numFrames) {
+					return null;                               // Saved by an older version of the app
+				}
+
+				PixelMask[] masks = new PixelMask[numFrames];
+
+				for (int i = 0; i < numFrames; i++) {
+					masks[i] = PixelMask.read(in);
+				}
+
+				return masks;
+			} finally {
+				in.close();
+			}
+		} catch (IOException e) {
+			Log.e("BobEngine", "Failed to read pixel masks.");
+			return null;
+		}
+	}
+
+	/**
+	 * Save masks in the cache directory so they don't have to be made again.
+	 */
+	private void writePixelMasks(String key, PixelMask[] masks) {
+		File dir = new File(context.getCacheDir(), MASK_DIR);
+		File temp = new File(dir, key + ".tmp");
+
+		if (!dir.isDirectory() && !dir.mkdirs()) {
+			return;
+		}
+
+		try {
+			DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)));
+
+			try {
+				out.writeInt(MASK_FILE_ID);
+				out.writeLong(getAppUpdateTime());
+				out.writeInt(masks.length);
+
+				for (int i = 0; i < masks.length; i++) {
+					masks[i].write(out);
+				}
+			} finally {
+				out.close();
+			}
+
+			if (!temp.renameTo(new File(dir, key))) {          // Only whole files are ever read
+				temp.delete();
+			}
+		} catch (IOException e) {
+			Log.e("BobEngine", "Failed to save pixel masks.");
+			temp.delete();
+		}
+	}
+
+	/**
+	 * @return The time the app was installed or last updated. Resources may have changed since then.
+	 */
+	private long getAppUpdateTime() {
+		try {
+			return context.getPackageManager().getPackageInfo(context.getPackageName(), 0).lastUpdateTime;
+		} catch (PackageManager.NameNotFoundException e) {
+			return 0;
+		}
+	}
+
 	/**
 	 * Load a particular graphic.
 	 * 
@@ -456,7 +701,9 @@ public class GraphicsHelper {
 		}
 
 		// This assigns bmp to the texture we are working with (g)
+		Profiler.begin(Profiler.SCOPE_TEXTURE_UPLOAD);
 		GLUtils.texImage2D(GL11.GL_TEXTURE_2D, 0, bmp, 0);
+		Profiler.end(Profiler.SCOPE_TEXTURE_UPLOAD);
 
 		// Set the face rotation
 		gl.glFrontFace(GL11.GL_CCW);
@@ -0,0 +1,166 @@
+/**
+ * BobEngine - 2D game engine for Android
+ * <p/>
+ * Copyright (C) 2014, 2015, 2016 Benjamin Blaszczak
+ * <p/>
+ * BobEngine is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser Public License
+ * version 2.1 as published by the free software foundation.
+ * <p/>
+ * BobEngine is provided without warranty; without even the implied
+ * warranty of merchantability or fitness for a particular
+ * purpose. See the GNU Lesser Public License for more details.
+ * <p/>
+ * You should have received a copy of the GNU Lesser General
+ * Public License along with BobEngine; if not, write to the
+ * Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301 USA
+ */
+package com.bobbyloujo.bobengine.headless;
+
+import com.bobbyloujo.bobengine.entities.Room;
+import com.bobbyloujo.bobengine.profiling.Profiler;
+import com.bobbyloujo.bobengine.view.BobRenderer;
+
+/**
+ * Runs Rooms without a BobView or GL context, such as in tests, benchmarks, or a desktop
+ * JVM. Each step() does what BobRenderer does for a frame: the current Room is updated,
+ * then drawn into a RecordingGL that counts draw calls instead of drawing.
+ * <br />
+ * <br />
+ * Time is kept by a manual clock that moves forward getFrameTime() every step, however
+ * long the step really took, so runs are the same every time. Rooms that should run
+ * headless need a constructor that takes a ViewPort, and should use getViewPort()
+ * rather than getView(), which is null here.
+ */
+public class HeadlessRuntime {
+
+	public static final long DEF_FRAME_NANOS = 1000000000L / BobRenderer.OPTIMAL_FPS; // Default time each step moves the clock
+
+	private HeadlessViewPort viewPort;
+	private RecordingGL gl;
+	private Room currentRoom;
+
+	private long time;          // The manual clock, in ns
+	private long frameNanos;    // Time each step moves the clock, in ns
+	private long frames;        // Steps run
+
+	public HeadlessRuntime() {
+		this(new HeadlessViewPort());
+	}
+
+	/**
+	 * Create a runtime for Rooms in the given ViewPort.
+	 *
+	 * @param viewPort The ViewPort the Rooms are in.
+	 */
+	public HeadlessRuntime(HeadlessViewPort viewPort) {
+		this.viewPort = viewPort;
+
+		gl = new RecordingGL();
+		frameNanos = DEF_FRAME_NANOS;
+		time = 0;
+		frames = 0;
+	}
+
+	/**
+	 * Returns the ViewPort to create Rooms with.
+	 */
+	public HeadlessViewPort getViewPort() {
+		return viewPort;
+	}
+
+	/**
+	 * Returns the GL that the Rooms are drawn into, which counts draw calls and binds.
+	 */
+	public RecordingGL getRecordingGL() {
+		return gl;
+	}
+
+	/**
+	 * Changes the Room that is updated and drawn each step.
+	 *
+	 * @param nextRoom The Room to switch to.
+	 */
+	public void goToRoom(Room nextRoom) {
+		if (Profiler.getTrace() != null) {
+			Profiler.mark(Profiler.scope("Go to " + nextRoom.getClass().getSimpleName()));
+		}
+
+		currentRoom = nextRoom;
+		currentRoom.indicateGraphicsUsed();
+	}
+
+	/**
+	 * Returns the Room that is updated and drawn each step.
+	 */
+	public Room getCurrentRoom() {
+		return currentRoom;
+	}
+
+	/**
+	 * Set how far each step moves the clock. Rooms are updated with a delta time of
+	 * frame time / (1 / BobRenderer.OPTIMAL_FPS), so the default frame time gives 1, the
+	 * same delta time BobRenderer uses.
+	 *
+	 * @param nanos The time of a frame, in ns.
+	 */
+	public void setFrameTime(long nanos) {
+		frameNanos = nanos;
+	}
+
+	/**
+	 * Returns how far each step moves the clock, in ns.
+	 */
+	public long getFrameTime() {
+		return frameNanos;
+	}
+
+	/**
+	 * Returns the time on the manual clock, in ns. It starts at 0.
+	 */
+	public long getTime() {
+		return time;
+	}
+
+	/**
+	 * Returns the number of steps run.
+	 */
+	public long getFrameCount() {
+		return frames;
+	}
+
+	/**
+	 * Update and draw the current Room once, then move the clock forward one frame.
+	 */
+	public void step() {
+		Profiler.begin(Profiler.SCOPE_FRAME);
+
+		if (currentRoom != null) {
+			Profiler.begin(Profiler.SCOPE_UPDATE);
+			currentRoom.update((double) frameNanos / DEF_FRAME_NANOS);
+			Profiler.end(Profiler.SCOPE_UPDATE);
+
+			Profiler.begin(Profiler.SCOPE_DRAW);
+			currentRoom.draw(gl.getGL());
+			Profiler.end(Profiler.SCOPE_DRAW);
+		}
+
+		Profiler.end(Profiler.SCOPE_FRAME);
+		Profiler.endFrame();
+
+		time += frameNanos;
+		frames++;
+	}
+
+	/**
+	 * Run a number of steps.
+	 *
+	 * @param steps The number of frames to run.
+	 */
+	public void run(int steps) {
+		for (int i = 0; i < steps; i++) {
+			step();
+		}
+	}
+}
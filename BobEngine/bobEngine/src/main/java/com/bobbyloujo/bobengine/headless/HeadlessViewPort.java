@@ -0,0 +1,124 @@
+/**
+ * BobEngine - 2D game engine for Android
+ * <p/>
+ * Copyright (C) 2014, 2015, 2016 Benjamin Blaszczak
+ * <p/>
+ * BobEngine is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser Public License
+ * version 2.1 as published by the free software foundation.
+ * <p/>
+ * BobEngine is provided without warranty; without even the implied
+ * warranty of merchantability or fitness for a particular
+ * purpose. See the GNU Lesser Public License for more details.
+ * <p/>
+ * You should have received a copy of the GNU Lesser General
+ * Public License along with BobEngine; if not, write to the
+ * Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301 USA
+ */
+package com.bobbyloujo.bobengine.headless;
+
+import android.app.Activity;
+
+import com.bobbyloujo.bobengine.graphics.GraphicsHelper;
+import com.bobbyloujo.bobengine.systems.input.gamepad.Gamepad;
+import com.bobbyloujo.bobengine.systems.input.touch.Touch;
+import com.bobbyloujo.bobengine.view.ViewPort;
+
+/**
+ * A ViewPort with no screen, for running Rooms in a HeadlessRuntime. It has a size but
+ * nothing is shown. Its GraphicsHelper has no app to read images from, so graphics get a
+ * placeholder size and are never loaded. There is no Activity or gamepad.
+ */
+public class HeadlessViewPort implements ViewPort {
+
+	public static final int DEF_WIDTH = 1280;     // Default width, in pixels
+	public static final int DEF_HEIGHT = 720;     // Default height, in pixels
+
+	private static final int BASE_LONG_SIDE = 1280;   // Screen size the correction ratios are relative to,
+	private static final int BASE_SHORT_SIDE = 720;   // the same as BobView's
+
+	private int width;
+	private int height;
+	private GraphicsHelper graphicsHelper;
+	private Touch touch;
+
+	public HeadlessViewPort() {
+		this(DEF_WIDTH, DEF_HEIGHT);
+	}
+
+	/**
+	 * Create a ViewPort of the given size.
+	 *
+	 * @param width The width, in pixels.
+	 * @param height The height, in pixels.
+	 */
+	public HeadlessViewPort(int width, int height) {
+		this.width = width;
+		this.height = height;
+
+		graphicsHelper = new GraphicsHelper(null);
+		touch = new Touch();
+	}
+
+	/**
+	 * Change the size of this ViewPort. Rooms see the new size on their next update.
+	 *
+	 * @param width The width, in pixels.
+	 * @param height The height, in pixels.
+	 */
+	public void setSize(int width, int height) {
+		this.width = width;
+		this.height = height;
+	}
+
+	@Override
+	public int getWidth() {
+		return width;
+	}
+
+	@Override
+	public int getHeight() {
+		return height;
+	}
+
+	@Override
+	public double getRatioX() {
+		return (double) width / (height > width ? BASE_SHORT_SIDE : BASE_LONG_SIDE);
+	}
+
+	@Override
+	public double getRatioY() {
+		return (double) height / (height > width ? BASE_LONG_SIDE : BASE_SHORT_SIDE);
+	}
+
+	@Override
+	public double getCameraWidth() {
+		return width;
+	}
+
+	@Override
+	public double getCameraHeight() {
+		return height;
+	}
+
+	@Override
+	public GraphicsHelper getGraphicsHelper() {
+		return graphicsHelper;
+	}
+
+	@Override
+	public Touch getTouch() {
+		return touch;
+	}
+
+	@Override
+	public Gamepad getGamepad() {
+		return null;
+	}
+
+	@Override
+	public Activity getActivity() {
+		return null;
+	}
+}
@@ -0,0 +1,142 @@
+/**
+ * BobEngine - 2D game engine for Android
+ * <p/>
+ * Copyright (C) 2014, 2015, 2016 Benjamin Blaszczak
+ * <p/>
+ * BobEngine is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser Public License
+ * version 2.1 as published by the free software foundation.
+ * <p/>
+ * BobEngine is provided without warranty; without even the implied
+ * warranty of merchantability or fitness for a particular
+ * purpose. See the GNU Lesser Public License for more details.
+ * <p/>
+ * You should have received a copy of the GNU Lesser General
+ * Public License along with BobEngine; if not, write to the
+ * Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301 USA
+ */
+package com.bobbyloujo.bobengine.headless;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+
+import javax.microedition.khronos.opengles.GL10;
+import javax.microedition.khronos.opengles.GL11;
+
+/**
+ * A GL10 that draws nothing and counts what it is asked to do, for running Rooms without
+ * a GL context. getGL() returns an object that implements GL10 and GL11; every call to it
+ * returns 0, false, or null, and draw calls, texture binds, and the vertices or indices
+ * drawn are counted.
+ */
+public class RecordingGL implements InvocationHandler {
+
+	private final GL11 gl;
+
+	private long calls;            // Calls of any GL method
+	private long drawCalls;        // glDrawArrays and glDrawElements calls
+	private long textureBinds;     // glBindTexture calls
+	private long elements;         // Vertices or indices drawn
+
+	public RecordingGL() {
+		gl = (GL11) Proxy.newProxyInstance(RecordingGL.class.getClassLoader(), new Class<?>[] {GL11.class}, this);
+	}
+
+	/**
+	 * Returns the GL object to pass to Room.draw().
+	 */
+	public GL10 getGL() {
+		return gl;
+	}
+
+	/**
+	 * Set every count back to 0.
+	 */
+	public void reset() {
+		calls = 0;
+		drawCalls = 0;
+		textureBinds = 0;
+		elements = 0;
+	}
+
+	/**
+	 * Returns the number of GL calls since the last reset.
+	 */
+	public long getCallCount() {
+		return calls;
+	}
+
+	/**
+	 * Returns the number of glDrawArrays and glDrawElements calls since the last reset.
+	 */
+	public long getDrawCalls() {
+		return drawCalls;
+	}
+
+	/**
+	 * Returns the number of glBindTexture calls since the last reset.
+	 */
+	public long getTextureBinds() {
+		return textureBinds;
+	}
+
+	/**
+	 * Returns the number of vertices or indices drawn since the last reset.
+	 */
+	public long getElementCount() {
+		return elements;
+	}
+
+	@Override
+	public Object invoke(Object proxy, Method method, Object[] args) {
+		String name = method.getName();
+
+		if (method.getDeclaringClass() == Object.class) {
+			if (name.equals("equals")) {
+				return proxy == args[0];
+			} else if (name.equals("hashCode")) {
+				return System.identityHashCode(proxy);
+			}
+
+			return "RecordingGL";
+		}
+
+		calls++;
+
+		if (name.equals("glDrawElements") || name.equals("glDrawArrays")) {
+			drawCalls++;
+			elements += (Integer) args[name.equals("glDrawElements") ? 1 : 2];
+		} else if (name.equals("glBindTexture")) {
+			textureBinds++;
+		}
+
+		return defaultValue(method.getReturnType());
+	}
+
+	/**
+	 * Returns what a method with the given return type returns when nothing is done.
+	 */
+	private static Object defaultValue(Class<?> type) {
+		if (type == int.class) {
+			return 0;
+		} else if (type == boolean.class) {
+			return false;
+		} else if (type == float.class) {
+			return 0f;
+		} else if (type == long.class) {
+			return 0L;
+		} else if (type == short.class) {
+			return (short) 0;
+		} else if (type == byte.class) {
+			return (byte) 0;
+		} else if (type == double.class) {
+			return 0d;
+		} else if (type == char.class) {
+			return (char) 0;
+		}
+
+		return null;
+	}
+}
@@ -0,0 +1,455 @@
+/**
+ * BobEngine - 2D game engine for Android
+ * <p/>
+ * Copyright (C) 2014, 2015, 2016 Benjamin Blaszczak
+ * <p/>
+ * BobEngine is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser Public License
+ * version 2.1 as published by the free software foundation.
+ * <p/>
+ * BobEngine is provided without warranty; without even the implied
+ * warranty of merchantability or fitness for a particular
+ * purpose. See the GNU Lesser Public License for more details.
+ * <p/>
+ * You should have received a copy of the GNU Lesser General
+ * Public License along with BobEngine; if not, write to the
+ * Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301 USA
+ */
+package com.bobbyloujo.bobengine.profiling;
+
+import android.util.Log;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+
+/**
+ * Measures how long named parts of each frame take. Wrap code in begin() and end() with
+ * the id of a scope from scope(). Scopes can be nested, and a scope that runs several
+ * times in a frame adds up its time. The engine measures the whole frame, updating,
+ * drawing each layer, collisions, and loading textures with the SCOPE_ constants.
+ * <br />
+ * <br />
+ * At the end of each frame the time of every scope is kept in a history of the last
+ * getHistorySize() frames, from which getMin(), getAverage(), getPercentile() and
+ * report() are worked out.
+ * <br />
+ * <br />
+ * To see each frame on a timeline instead, pass a TraceRecorder to startTrace(). Every
+ * scope that ends is then also recorded as an event, and mark() records moments such as
+ * changing Rooms.
+ * <br />
+ * <br />
+ * The profiler is off until setEnabled(true) is called. While it is off, begin() and end()
+ * return right away and nothing is recorded. Scopes must only be used on the GL thread.
+ */
+public final class Profiler {
+
+	public static final int DEF_HISTORY = 240;     // Default number of frames kept in the history
+	public static final int MAX_DEPTH = 64;        // Deepest that scopes can be nested
+
+	/** The whole frame, from the start of onDrawFrame() to the end. */
+	public static final int SCOPE_FRAME;
+	/** Loading and unloading textures in GraphicsHelper.handleGraphics(). */
+	public static final int SCOPE_TEXTURES;
+	/** Room.update(), including collisions. */
+	public static final int SCOPE_UPDATE;
+	/** CollisionSystem.update(). */
+	public static final int SCOPE_COLLISION;
+	/** Room.draw(). Each layer also has a scope of its own from getLayerScope(). */
+	public static final int SCOPE_DRAW;
+	/** Copying a decoded texture to the GPU. */
+	public static final int SCOPE_TEXTURE_UPLOAD;
+
+	private static boolean enabled;
+
+	private static String[] names = new String[16];   // Name of each scope
+	private static int numScopes;
+
+	private static int[] stack = new int[MAX_DEPTH];  // Scopes begun and not ended yet
+	private static long[] starts = new long[MAX_DEPTH]; // When each of them began
+	private static int depth;
+
+	private static long[] frameTimes = new long[16];  // Time of each scope so far this frame, in ns
+	private static long[][] history;                  // Time of each scope in each of the last frames, in ns
+	private static int historySize;
+	private static int next;                          // Slot in history for the next frame
+	private static int numFrames;                     // Frames in history, up to historySize
+	private static long[] sorted;                     // Scratch space for getPercentile()
+
+	private static int[] layerScopes = new int[0];    // Scope of each layer, or 0 if not made yet
+	private static IdentityHashMap<Class<?>, Integer> classScopes = new IdentityHashMap<Class<?>, Integer>(); // Scope of each class from getClassScope()
+
+	private static TraceRecorder trace;               // Records each scope as an event, or null
+
+	static {
+		setHistorySize(DEF_HISTORY);
+
+		SCOPE_FRAME = scope("Frame");
+		SCOPE_TEXTURES = scope("Textures");
+		SCOPE_UPDATE = scope("Update");
+		SCOPE_COLLISION = scope("Collision");
+		SCOPE_DRAW = scope("Draw");
+		SCOPE_TEXTURE_UPLOAD = scope("Texture upload");
+	}
+
+	private Profiler() {
+	}
+
+	/**
+	 * Turn the profiler on or off. Turning it on starts a new history.
+	 *
+	 * @param enable True to record scopes.
+	 */
+	public static void setEnabled(boolean enable) {
+		if (enable && !enabled) {
+			clear();
+		}
+
+		enabled = enable;
+	}
+
+	/**
+	 * Returns true if scopes are being recorded.
+	 */
+	public static boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * Set the number of frames kept in the history. The history is cleared.
+	 *
+	 * @param frames The number of frames to keep.
+	 */
+	public static void setHistorySize(int frames) {
+		historySize = Math.max(1, frames);
+		history = new long[names.length][historySize];
+		sorted = new long[historySize];
+		next = 0;
+		numFrames = 0;
+	}
+
+	/**
+	 * Returns the number of frames kept in the history.
+	 */
+	public static int getHistorySize() {
+		return historySize;
+	}
+
+	/**
+	 * Returns the number of frames in the history, up to getHistorySize().
+	 */
+	public static int getFrameCount() {
+		return numFrames;
+	}
+
+	/**
+	 * Forget the history and any scopes that have begun.
+	 */
+	public static void clear() {
+		for (int s = 0; s < numScopes; s++) {
+			Arrays.fill(history[s], 0);
+			frameTimes[s] = 0;
+		}
+
+		depth = 0;
+		next = 0;
+		numFrames = 0;
+	}
+
+	/**
+	 * Returns the id of the scope with a name, making it if it doesn't exist. Get ids once
+	 * and keep them rather than calling this every frame.
+	 *
+	 * @param name The name of the scope.
+	 * @return The id of the scope.
+	 */
+	public static int scope(String name) {
+		for (int s = 0; s < numScopes; s++) {
+			if (names[s].equals(name)) {
+				return s;
+			}
+		}
+
+		if (numScopes == names.length) {
+			int size = names.length * 2;
+			long[][] h = new long[size][];
+
+			System.arraycopy(history, 0, h, 0, numScopes);
+
+			for (int s = numScopes; s < size; s++) {
+				h[s] = new long[historySize];
+			}
+
+			names = Arrays.copyOf(names, size);
+			frameTimes = Arrays.copyOf(frameTimes, size);
+			history = h;
+		}
+
+		names[numScopes] = name;
+		return numScopes++;
+	}
+
+	/**
+	 * Returns the id of the scope for drawing a layer of a Room.
+	 *
+	 * @param layer The layer.
+	 * @return The id of the scope.
+	 */
+	public static int getLayerScope(int layer) {
+		if (layer >= layerScopes.length) {
+			int[] scopes = Arrays.copyOf(layerScopes, layer + 1);
+
+			for (int l = layerScopes.length; l < scopes.length; l++) {
+				scopes[l] = scope("Draw layer " + l);
+			}
+
+			layerScopes = scopes;
+		}
+
+		return layerScopes[layer];
+	}
+
+	/**
+	 * Returns the id of a scope named after a class, such as the scope for a kind of
+	 * Renderable. Looking up a class doesn't allocate once its scope has been made.
+	 *
+	 * @param type The class.
+	 * @return The id of the scope.
+	 */
+	public static int getClassScope(Class<?> type) {
+		Integer scope = classScopes.get(type);
+
+		if (scope == null) {
+			String name = type.getSimpleName();
+
+			scope = scope(name.length() > 0 ? name : type.getName());
+			classScopes.put(type, scope);
+		}
+
+		return scope;
+	}
+
+	/**
+	 * Start recording every scope, and every mark(), into a TraceRecorder. This turns the
+	 * profiler on if it is off.
+	 *
+	 * @param recorder The recorder to add the events to.
+	 */
+	public static void startTrace(TraceRecorder recorder) {
+		setEnabled(true);
+		trace = recorder;
+	}
+
+	/**
+	 * Stop recording events. The recorder keeps the events it has.
+	 *
+	 * @return The recorder that was recording, or null.
+	 */
+	public static TraceRecorder stopTrace() {
+		TraceRecorder recorder = trace;
+
+		trace = null;
+		return recorder;
+	}
+
+	/**
+	 * Returns the TraceRecorder that events are being recorded into, or null.
+	 */
+	public static TraceRecorder getTrace() {
+		return trace;
+	}
+
+	/**
+	 * Record a moment on the trace timeline, such as a change of Room. Does nothing if
+	 * no trace is being recorded.
+	 *
+	 * @param scope The id of the scope to name the moment with.
+	 */
+	public static void mark(int scope) {
+		if (enabled && trace != null) {
+			trace.addInstant(scope, System.nanoTime());
+		}
+	}
+
+	/**
+	 * Returns the name of a scope.
+	 *
+	 * @param scope The id of the scope.
+	 */
+	public static String getScopeName(int scope) {
+		return names[scope];
+	}
+
+	/**
+	 * Returns the number of scopes that have been made.
+	 */
+	public static int getScopeCount() {
+		return numScopes;
+	}
+
+	/**
+	 * Start timing a scope. Must be followed by end() with the same scope.
+	 *
+	 * @param scope The id of the scope.
+	 */
+	public static void begin(int scope) {
+		if (!enabled) {
+			return;
+		}
+
+		if (depth == MAX_DEPTH) {
+			Log.e("BobEngine", "Profiler scopes nested too deeply. Scope " + names[scope] + " ignored.");
+			return;
+		}
+
+		stack[depth] = scope;
+		starts[depth] = System.nanoTime();
+		depth++;
+	}
+
+	/**
+	 * Stop timing a scope and add its time to this frame.
+	 *
+	 * @param scope The id of the scope passed to the matching begin().
+	 */
+	public static void end(int scope) {
+		if (!enabled) {
+			return;
+		}
+
+		long now = System.nanoTime();
+
+		if (depth == 0) {                             // Began before the profiler was turned on
+			return;
+		}
+
+		if (stack[depth - 1] != scope) {
+			Log.e("BobEngine", "Profiler scope " + names[scope] + " ended without beginning.");
+			return;
+		}
+
+		depth--;
+		frameTimes[scope] += now - starts[depth];
+
+		if (trace != null) {
+			trace.add(scope, starts[depth], now);
+		}
+	}
+
+	/**
+	 * Add the time of every scope this frame to the history and start a new frame. The
+	 * engine calls this at the end of each frame.
+	 */
+	public static void endFrame() {
+		if (!enabled) {
+			return;
+		}
+
+		for (int s = 0; s < numScopes; s++) {
+			history[s][next] = frameTimes[s];
+			frameTimes[s] = 0;
+		}
+
+		next = (next + 1) % historySize;
+
+		if (numFrames < historySize) {
+			numFrames++;
+		}
+	}
+
+	/**
+	 * Returns the time of a scope in the last frame, in milliseconds.
+	 *
+	 * @param scope The id of the scope.
+	 */
+	public static double getLast(int scope) {
+		if (numFrames == 0) {
+			return 0;
+		}
+
+		return history[scope][(next + historySize - 1) % historySize] / 1e6;
+	}
+
+	/**
+	 * Returns the shortest time of a scope in the history, in milliseconds.
+	 *
+	 * @param scope The id of the scope.
+	 */
+	public static double getMin(int scope) {
+		long min = Long.MAX_VALUE;
+
+		for (int f = 0; f < numFrames; f++) {
+			min = Math.min(min, history[scope][f]);
+		}
+
+		return numFrames == 0 ? 0 : min / 1e6;
+	}
+
+	/**
+	 * Returns the longest time of a scope in the history, in milliseconds.
+	 *
+	 * @param scope The id of the scope.
+	 */
+	public static double getMax(int scope) {
+		long max = 0;
+
+		for (int f = 0; f < numFrames; f++) {
+			max = Math.max(max, history[scope][f]);
+		}
+
+		return max / 1e6;
+	}
+
+	/**
+	 * Returns the average time of a scope in the history, in milliseconds.
+	 *
+	 * @param scope The id of the scope.
+	 */
+	public static double getAverage(int scope) {
+		long total = 0;
+
+		for (int f = 0; f < numFrames; f++) {
+			total += history[scope][f];
+		}
+
+		return numFrames == 0 ? 0 : total / 1e6 / numFrames;
+	}
+
+	/**
+	 * Returns the time, in milliseconds, that a scope took no longer than in the given
+	 * percent of the frames in the history. getPercentile(scope, 95) is the p95 time.
+	 *
+	 * @param scope The id of the scope.
+	 * @param percent The percent of frames, from 0 to 100.
+	 */
+	public static double getPercentile(int scope, double percent) {
+		if (numFrames == 0) {
+			return 0;
+		}
+
+		System.arraycopy(history[scope], 0, sorted, 0, numFrames);
+		Arrays.sort(sorted, 0, numFrames);
+
+		int rank = (int) Math.ceil(percent / 100 * numFrames) - 1;
+
+		return sorted[Math.max(0, Math.min(numFrames - 1, rank))] / 1e6;
+	}
+
+	/**
+	 * Returns a table of the min, average, p95, p99 and max time of every scope in the
+	 * history, in milliseconds.
+	 */
+	public static String report() {
+		StringBuilder report = new StringBuilder();
+
+		report.append(String.format("%-16s %8s %8s %8s %8s %8s (%d frames)%n", "Scope", "min", "avg", "p95", "p99", "max", numFrames));
+
+		for (int s = 0; s < numScopes; s++) {
+			report.append(String.format("%-16s %8.3f %8.3f %8.3f %8.3f %8.3f%n", names[s],
+					getMin(s), getAverage(s), getPercentile(s, 95), getPercentile(s, 99), getMax(s)));
+		}
+
+		return report.toString();
+	}
+}
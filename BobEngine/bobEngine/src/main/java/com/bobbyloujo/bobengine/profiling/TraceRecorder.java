@@ -0,0 +1,268 @@
+/**
+ * BobEngine - 2D game engine for Android
+ * <p/>
+ * Copyright (C) 2014, 2015, 2016 Benjamin Blaszczak
+ * <p/>
+ * BobEngine is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser Public License
+ * version 2.1 as published by the free software foundation.
+ * <p/>
+ * BobEngine is provided without warranty; without even the implied
+ * warranty of merchantability or fitness for a particular
+ * purpose. See the GNU Lesser Public License for more details.
+ * <p/>
+ * You should have received a copy of the GNU Lesser General
+ * Public License along with BobEngine; if not, write to the
+ * Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301 USA
+ */
+package com.bobbyloujo.bobengine.profiling;
+
+import android.util.Log;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+
+/**
+ * Records each Profiler scope as an event on a timeline so frames can be looked at one by
+ * one later. Pass a TraceRecorder to Profiler.startTrace() to start recording. Events are
+ * kept in arrays made when the recorder is created, so recording doesn't allocate. When
+ * the recorder is full the oldest events are replaced, so it always holds the most recent
+ * events.
+ * <br />
+ * <br />
+ * write() saves the events as Chrome Trace Event JSON, which can be opened in Perfetto
+ * (ui.perfetto.dev) or chrome://tracing. The JSON is written a chunk of events at a time
+ * so writing a large trace doesn't need memory for the whole file. Stop the trace, or call
+ * write() on the GL thread, before writing.
+ */
+public class TraceRecorder {
+
+	public static final int DEF_CAPACITY = 65536;  // Default number of events kept
+	private static final int CHUNK_EVENTS = 256;   // Events formatted before they are written out
+	private static final long INSTANT = -1;        // Duration of an event that marks a moment
+
+	private final int[] scopes;      // Scope of each event
+	private final long[] starts;     // When each event started, in ns
+	private final long[] durations;  // How long each event took, in ns, or INSTANT
+	private int next;                // Slot for the next event
+	private int count;               // Events kept, up to the capacity
+	private long dropped;            // Events replaced because the recorder was full
+	private long origin;             // Time 0 of the trace, in ns
+
+	private StringBuilder chunk;     // Reused to format events
+	private char[] chars;            // Reused to hand formatted events to a Writer
+
+	public TraceRecorder() {
+		this(DEF_CAPACITY);
+	}
+
+	/**
+	 * Create a recorder that keeps the given number of events.
+	 *
+	 * @param capacity The most events kept at once.
+	 */
+	public TraceRecorder(int capacity) {
+		capacity = Math.max(1, capacity);
+
+		scopes = new int[capacity];
+		starts = new long[capacity];
+		durations = new long[capacity];
+
+		clear();
+	}
+
+	/**
+	 * Forget every event and start the timeline at 0 again.
+	 */
+	public void clear() {
+		next = 0;
+		count = 0;
+		dropped = 0;
+		origin = System.nanoTime();
+	}
+
+	/**
+	 * Returns the most events this recorder can keep.
+	 */
+	public int getCapacity() {
+		return scopes.length;
+	}
+
+	/**
+	 * Returns the number of events kept.
+	 */
+	public int getEventCount() {
+		return count;
+	}
+
+	/**
+	 * Returns the number of events that were replaced by newer events since the last clear.
+	 */
+	public long getDroppedCount() {
+		return dropped;
+	}
+
+	/**
+	 * Record a scope that ran from start to end.
+	 */
+	void add(int scope, long start, long end) {
+		scopes[next] = scope;
+		starts[next] = start;
+		durations[next] = end - start;
+
+		advance();
+	}
+
+	/**
+	 * Record a moment, like a change of Room.
+	 */
+	void addInstant(int scope, long time) {
+		scopes[next] = scope;
+		starts[next] = time;
+		durations[next] = INSTANT;
+
+		advance();
+	}
+
+	private void advance() {
+		next = (next + 1) % scopes.length;
+
+		if (count < scopes.length) {
+			count++;
+		} else {
+			dropped++;
+		}
+	}
+
+	/**
+	 * Write the events to a file as Chrome Trace Event JSON.
+	 *
+	 * @param file The file to write to. It is replaced if it exists.
+	 * @return True if the trace was written.
+	 */
+	public boolean write(File file) {
+		Writer out = null;
+
+		try {
+			out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), "UTF-8"));
+			write(out);
+			return true;
+		} catch (IOException e) {
+			Log.e("BobEngine", "Failed to write trace to " + file.getPath());
+			return false;
+		} finally {
+			if (out != null) {
+				try {
+					out.close();
+				} catch (IOException e) {
+					Log.e("BobEngine", "Failed to close trace file.");
+				}
+			}
+		}
+	}
+
+	/**
+	 * Write the events as Chrome Trace Event JSON, oldest first.
+	 *
+	 * @param out The Writer to write the JSON to. It is not closed.
+	 * @throws IOException If out can't be written to.
+	 */
+	public void write(Writer out) throws IOException {
+		if (chunk == null) {
+			chunk = new StringBuilder(CHUNK_EVENTS * 96);
+		}
+
+		chunk.setLength(0);
+		chunk.append("{\"displayTimeUnit\":\"ms\",\"traceEvents\":[\n");
+		chunk.append("{\"name\":\"process_name\",\"ph\":\"M\",\"pid\":1,\"tid\":1,\"args\":{\"name\":\"BobEngine\"}},\n");
+		chunk.append("{\"name\":\"thread_name\",\"ph\":\"M\",\"pid\":1,\"tid\":1,\"args\":{\"name\":\"GL thread\"}}");
+
+		int first = (next - count + scopes.length) % scopes.length;
+
+		for (int e = 0; e < count; e++) {
+			int i = (first + e) % scopes.length;
+
+			chunk.append(",\n{\"name\":\"");
+			appendEscaped(chunk, Profiler.getScopeName(scopes[i]));
+			chunk.append("\",\"cat\":\"bobengine\",\"pid\":1,\"tid\":1,\"ts\":");
+			appendMicros(chunk, starts[i] - origin);
+
+			if (durations[i] == INSTANT) {
+				chunk.append(",\"ph\":\"i\",\"s\":\"g\"}");
+			} else {
+				chunk.append(",\"ph\":\"X\",\"dur\":");
+				appendMicros(chunk, durations[i]);
+				chunk.append('}');
+			}
+
+			if (e % CHUNK_EVENTS == CHUNK_EVENTS - 1) {
+				flushChunk(out);
+			}
+		}
+
+		chunk.append("\n]}\n");
+		flushChunk(out);
+		out.flush();
+	}
+
+	/**
+	 * Hand the formatted events to out and empty the chunk.
+	 */
+	private void flushChunk(Writer out) throws IOException {
+		int length = chunk.length();
+
+		if (chars == null || chars.length < length) {
+			chars = new char[Math.max(length, CHUNK_EVENTS * 96)];
+		}
+
+		chunk.getChars(0, length, chars, 0);
+		out.write(chars, 0, length);
+		chunk.setLength(0);
+	}
+
+	/**
+	 * Append a time in ns as microseconds with 3 decimal places, the unit trace files use.
+	 */
+	private static void appendMicros(StringBuilder sb, long nanos) {
+		if (nanos < 0) {
+			sb.append('-');
+			nanos = -nanos;
+		}
+
+		long fraction = nanos % 1000;
+
+		sb.append(nanos / 1000).append('.');
+
+		if (fraction < 100) {
+			sb.append('0');
+		}
+
+		if (fraction < 10) {
+			sb.append('0');
+		}
+
+		sb.append(fraction);
+	}
+
+	/**
+	 * Append a string with the characters JSON doesn't allow in strings escaped.
+	 */
+	private static void appendEscaped(StringBuilder sb, String s) {
+		for (int i = 0; i < s.length(); i++) {
+			char c = s.charAt(i);
+
+			if (c == '"' || c == '\\') {
+				sb.append('\\').append(c);
+			} else if (c < 0x20) {
+				sb.append(String.format("\\u%04x", (int) c));
+			} else {
+				sb.append(c);
+			}
+		}
+	}
+}
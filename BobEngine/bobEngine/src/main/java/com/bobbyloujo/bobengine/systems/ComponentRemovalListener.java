@@ -0,0 +1,46 @@
+/**
+ * BobEngine - 2D game engine for Android
+ * <p/>
+ * Copyright (C) 2014, 2015, 2016 Benjamin Blaszczak
+ * <p/>
+ * BobEngine is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser Public License
+ * version 2.1 as published by the free software foundation.
+ * <p/>
+ * BobEngine is provided without warranty; without even the implied
+ * warranty of merchantability or fitness for a particular
+ * purpose. See the GNU Lesser Public License for more details.
+ * <p/>
+ * You should have received a copy of the GNU Lesser General
+ * Public License along with BobEngine; if not, write to the
+ * Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301 USA
+ */
+package com.bobbyloujo.bobengine.systems;
+
+import com.bobbyloujo.bobengine.components.Component;
+
+/**
+ * This is the interface for a system that keeps track of components and needs to forget
+ * them when they leave the Room. When a component is removed from a Room, every
+ * ComponentRemovalListener in the Room is told about the component and each component
+ * that belonged to it.
+ */
+public interface ComponentRemovalListener extends Component {
+	/**
+	 * Called when a component is removed from the Room this system is in. The system
+	 * should stop using the component.
+	 *
+	 * @param component The removed component.
+	 */
+	void onComponentRemoved(Component component);
+
+	/**
+	 * Returns the number of components this system is still using that belong to
+	 * entities that are no longer in a Room. This should always be 0; anything else
+	 * means something that was removed is still costing time.
+	 *
+	 * @return The number of orphaned components.
+	 */
+	int getOrphanCount();
+}
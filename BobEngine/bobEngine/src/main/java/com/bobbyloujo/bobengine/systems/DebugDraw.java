@@ -0,0 +1,365 @@
+/**
+ * BobEngine - 2D game engine for Android
+ * <p/>
+ * Copyright (C) 2014, 2015, 2016 Benjamin Blaszczak
+ * <p/>
+ * BobEngine is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser Public License
+ * version 2.1 as published by the free software foundation.
+ * <p/>
+ * BobEngine is provided without warranty; without even the implied
+ * warranty of merchantability or fitness for a particular
+ * purpose. See the GNU Lesser Public License for more details.
+ * <p/>
+ * You should have received a copy of the GNU Lesser General
+ * Public License along with BobEngine; if not, write to the
+ * Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301 USA
+ */
+package com.bobbyloujo.bobengine.systems;
+
+import com.bobbyloujo.bobengine.entities.Entity;
+import com.bobbyloujo.bobengine.entities.Room;
+import com.bobbyloujo.bobengine.graphics.Graphic;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+
+import javax.microedition.khronos.opengles.GL10;
+
+/**
+ * Draws outlines for debugging, such as hit boxes, paths, and areas. Shapes are drawn
+ * with line(), rect(), circle(), and polygon() each frame, in grid units, and are
+ * forgotten once they have been rendered. Nothing is kept for each shape; every line
+ * goes into one vertex buffer that is drawn with one draw call.
+ * <br />
+ * <br />
+ * Use Room.getDebugDraw() to get the DebugDraw for a Room. Shapes are drawn on top of
+ * everything else unless setLayer() is used.
+ */
+public class DebugDraw extends Entity implements Renderable {
+
+	public static final int DEF_INIT_LINES = 256;          // Default number of lines the buffers can hold before growing
+	public static final int DEF_CIRCLE_SEGMENTS = 16;      // Default number of lines used to draw a circle
+	public static final int LAYER_TOP = -1;                // Draw on the top layer of the Room
+
+	private static final int COORDS_PER_VERTEX = 2;
+	private static final boolean LITTLE_ENDIAN = ByteOrder.nativeOrder() == ByteOrder.LITTLE_ENDIAN;
+
+	private float[] vertexStaging;    // Line end points, 2 per line, in grid units
+	private int[] colorStaging;       // RGBA bytes of each end point, packed in native order
+	private int numVertices;          // Number of end points drawn this frame
+
+	private FloatBuffer vertexBuffer; // Buffers given to OpenGL. Grown when the staging arrays outgrow them.
+	private IntBuffer colorBuffer;
+	private int bufferVertices;
+
+	private int color;                // Color of the next shapes
+	private int layer;                // Layer to draw on, or LAYER_TOP
+
+	private float[] circleCos;        // Unit circle used by circle()
+	private float[] circleSin;
+
+	public DebugDraw() {
+		vertexStaging = new float[DEF_INIT_LINES * 2 * COORDS_PER_VERTEX];
+		colorStaging = new int[DEF_INIT_LINES * 2];
+		numVertices = 0;
+		bufferVertices = 0;
+		layer = LAYER_TOP;
+
+		setColor(1, 0, 0, 1);
+		setCircleSegments(DEF_CIRCLE_SEGMENTS);
+	}
+
+	/**
+	 * Set the color of the shapes drawn after this.
+	 *
+	 * @param r The red value, from 0-1
+	 * @param g The green value, from 0-1
+	 * @param b The blue value, from 0-1
+	 * @param a The alpha value, from 0-1
+	 */
+	public void setColor(float r, float g, float b, float a) {
+		int red = toByte(r * a);                    // Colors are premultiplied like the rest of the engine's
+		int green = toByte(g * a);
+		int blue = toByte(b * a);
+		int alpha = toByte(a);
+
+		if (LITTLE_ENDIAN) {
+			color = red | green << 8 | blue << 16 | alpha << 24;
+		} else {
+			color = red << 24 | green << 16 | blue << 8 | alpha;
+		}
+	}
+
+	/**
+	 * Set the layer the shapes are drawn on.
+	 *
+	 * @param layer The layer to draw on, or LAYER_TOP to draw on top of everything.
+	 */
+	public void setLayer(int layer) {
+		this.layer = layer;
+	}
+
+	/**
+	 * Returns the layer the shapes are drawn on, or LAYER_TOP.
+	 */
+	public int getLayer() {
+		return layer;
+	}
+
+	/**
+	 * Set the number of lines used to draw a circle.
+	 *
+	 * @param segments The number of lines in a circle. At least 3.
+	 */
+	public void setCircleSegments(int segments) {
+		segments = Math.max(3, segments);
+
+		circleCos = new float[segments];
+		circleSin = new float[segments];
+
+		for (int i = 0; i < segments; i++) {
+			double angle = Math.PI * 2 * i / segments;
+
+			circleCos[i] = (float) Math.cos(angle);
+			circleSin[i] = (float) Math.sin(angle);
+		}
+	}
+
+	/**
+	 * Draw a line between two points.
+	 *
+	 * @param x1 X of the first point, in grid units.
+	 * @param y1 Y of the first point, in grid units.
+	 * @param x2 X of the second point, in grid units.
+	 * @param y2 Y of the second point, in grid units.
+	 */
+	public void line(double x1, double y1, double x2, double y2) {
+		if (numVertices + 2 > colorStaging.length) {
+			grow(numVertices + 2);
+		}
+
+		int v = numVertices * COORDS_PER_VERTEX;
+
+		vertexStaging[v] = (float) x1;
+		vertexStaging[v + 1] = (float) y1;
+		vertexStaging[v + 2] = (float) x2;
+		vertexStaging[v + 3] = (float) y2;
+		colorStaging[numVertices] = color;
+		colorStaging[numVertices + 1] = color;
+
+		numVertices += 2;
+	}
+
+	/**
+	 * Draw the outline of a rectangle.
+	 *
+	 * @param x X of the center of the rectangle, in grid units.
+	 * @param y Y of the center of the rectangle, in grid units.
+	 * @param width The width of the rectangle, in grid units.
+	 * @param height The height of the rectangle, in grid units.
+	 */
+	public void rect(double x, double y, double width, double height) {
+		double left = x - width / 2;
+		double right = x + width / 2;
+		double bottom = y - height / 2;
+		double top = y + height / 2;
+
+		line(left, bottom, left, top);
+		line(left, top, right, top);
+		line(right, top, right, bottom);
+		line(right, bottom, left, bottom);
+	}
+
+	/**
+	 * Draw the outline of a rotated rectangle.
+	 *
+	 * @param x X of the center of the rectangle, in grid units.
+	 * @param y Y of the center of the rectangle, in grid units.
+	 * @param width The width of the rectangle, in grid units.
+	 * @param height The height of the rectangle, in grid units.
+	 * @param angle The angle of the rectangle, in degrees.
+	 */
+	public void rect(double x, double y, double width, double height, double angle) {
+		if (angle == 0) {
+			rect(x, y, width, height);
+			return;
+		}
+
+		double rad = Math.toRadians(angle);
+		double cos = Math.cos(rad);
+		double sin = Math.sin(rad);
+		double wX = width / 2 * cos;             // Half of the width and height as rotated vectors
+		double wY = width / 2 * sin;
+		double hX = -height / 2 * sin;
+		double hY = height / 2 * cos;
+
+		double blX = x - wX - hX;
+		double blY = y - wY - hY;
+		double tlX = x - wX + hX;
+		double tlY = y - wY + hY;
+		double trX = x + wX + hX;
+		double trY = y + wY + hY;
+		double brX = x + wX - hX;
+		double brY = y + wY - hY;
+
+		line(blX, blY, tlX, tlY);
+		line(tlX, tlY, trX, trY);
+		line(trX, trY, brX, brY);
+		line(brX, brY, blX, blY);
+	}
+
+	/**
+	 * Draw the outline of a circle.
+	 *
+	 * @param x X of the center of the circle, in grid units.
+	 * @param y Y of the center of the circle, in grid units.
+	 * @param radius The radius of the circle, in grid units.
+	 */
+	public void circle(double x, double y, double radius) {
+		int segments = circleCos.length;
+		double lastX = x + radius;
+		double lastY = y;
+
+		for (int i = 1; i <= segments; i++) {
+			int s = i % segments;
+			double nextX = x + radius * circleCos[s];
+			double nextY = y + radius * circleSin[s];
+
+			line(lastX, lastY, nextX, nextY);
+
+			lastX = nextX;
+			lastY = nextY;
+		}
+	}
+
+	/**
+	 * Draw the outline of a polygon. The last point is joined to the first.
+	 *
+	 * @param points The x and y of each point, in grid units: {x1, y1, x2, y2, ...}
+	 * @param numPoints The number of points to use from the array.
+	 */
+	public void polygon(float[] points, int numPoints) {
+		if (numPoints < 2) {
+			return;
+		}
+
+		int last = (numPoints - 1) * 2;
+
+		for (int i = 0; i < numPoints; i++) {
+			int p = i * 2;
+
+			line(points[last], points[last + 1], points[p], points[p + 1]);
+			last = p;
+		}
+	}
+
+	/**
+	 * Forget the shapes drawn since the last render.
+	 */
+	public void clear() {
+		numVertices = 0;
+	}
+
+	/**
+	 * Returns the number of lines that will be drawn by the next render.
+	 */
+	public int getLineCount() {
+		return numVertices / 2;
+	}
+
+	@Override
+	public void render(GL10 gl, int layer) {
+		Room room = getRoom();
+
+		if (room == null || layer != getDrawLayer(room)) {
+			return;
+		}
+
+		if (numVertices > 0) {
+			if (bufferVertices < numVertices) {
+				resizeBuffers(colorStaging.length);
+			}
+
+			vertexBuffer.clear();
+			vertexBuffer.put(vertexStaging, 0, numVertices * COORDS_PER_VERTEX);
+			vertexBuffer.position(0);
+			colorBuffer.clear();
+			colorBuffer.put(colorStaging, 0, numVertices);
+			colorBuffer.position(0);
+
+			gl.glDisable(GL10.GL_TEXTURE_2D);
+			gl.glDisableClientState(GL10.GL_TEXTURE_COORD_ARRAY);
+			gl.glEnableClientState(GL10.GL_COLOR_ARRAY);
+
+			gl.glPushMatrix();
+			gl.glScalef((float) room.getGridUnitX(), (float) room.getGridUnitY(), 1);  // Grid units to pixels
+
+			gl.glVertexPointer(COORDS_PER_VERTEX, GL10.GL_FLOAT, 0, vertexBuffer);
+			gl.glColorPointer(4, GL10.GL_UNSIGNED_BYTE, 0, colorBuffer);
+			gl.glDrawArrays(GL10.GL_LINES, 0, numVertices);
+
+			gl.glPopMatrix();
+
+			gl.glDisableClientState(GL10.GL_COLOR_ARRAY);
+			gl.glEnableClientState(GL10.GL_TEXTURE_COORD_ARRAY);
+			gl.glEnable(GL10.GL_TEXTURE_2D);
+			gl.glColor4f(1, 1, 1, 1);
+		}
+
+		numVertices = 0;
+	}
+
+	@Override
+	public Graphic getGraphic() {
+		return null;
+	}
+
+	/**
+	 * Returns the layer of room that the shapes are drawn on.
+	 */
+	private int getDrawLayer(Room room) {
+		if (layer < 0 || layer >= room.getNumLayers()) {
+			return room.getNumLayers() - 1;
+		}
+
+		return layer;
+	}
+
+	/**
+	 * Make the staging arrays big enough for at least minVertices end points.
+	 */
+	private void grow(int minVertices) {
+		int size = Math.max(minVertices, colorStaging.length * 2);
+		float[] vertices = new float[size * COORDS_PER_VERTEX];
+		int[] colors = new int[size];
+
+		System.arraycopy(vertexStaging, 0, vertices, 0, numVertices * COORDS_PER_VERTEX);
+		System.arraycopy(colorStaging, 0, colors, 0, numVertices);
+
+		vertexStaging = vertices;
+		colorStaging = colors;
+	}
+
+	/**
+	 * Make new vertex and color buffers that can hold the given number of end points.
+	 */
+	private void resizeBuffers(int vertices) {
+		ByteBuffer byteBuffer = ByteBuffer.allocateDirect(vertices * COORDS_PER_VERTEX * 4);
+		byteBuffer.order(ByteOrder.nativeOrder());
+		vertexBuffer = byteBuffer.asFloatBuffer();
+
+		byteBuffer = ByteBuffer.allocateDirect(vertices * 4);
+		byteBuffer.order(ByteOrder.nativeOrder());
+		colorBuffer = byteBuffer.asIntBuffer();
+
+		bufferVertices = vertices;
+	}
+
+	private static int toByte(float value) {
+		return Math.round(Math.max(0, Math.min(1, value)) * 255);
+	}
+}
@@ -6,11 +6,11 @@ import com.bobbyloujo.bobengine.components.ParentAssignmentHandler;
 import com.bobbyloujo.bobengine.entities.Entity;
 import com.bobbyloujo.bobengine.entities.Room;
 import com.bobbyloujo.bobengine.graphics.Graphic;
+import com.bobbyloujo.bobengine.systems.quadrenderer.QuadIndexBuffer;
 
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.nio.FloatBuffer;
-import java.nio.ShortBuffer;
 
 import javax.microedition.khronos.opengles.GL10;
 import javax.microedition.khronos.opengles.GL11;
@@ -22,16 +22,13 @@ public class ShadeRenderer extends Entity implements Renderable, ParentAssignmen
 
     private final int VERTEX_BYTES = 4 * 3 * 4;   // 4 bytes per float * 3 coords per vertex * 4 vertices
     private final int TEX_BYTES = 4 * 2 * 4;      // 4 bytes per float * 2 coords per vertex * 4 vertices
-    private final int INDEX_BYTES = 4 * 6;        // 4 bytes per short * 4 indices per quad
 
     private FloatBuffer vertexBuffer;      // Buffer that holds the render system's vertices
-    private ShortBuffer indexBuffer;       // Buffer that holds the render system's indices
     private FloatBuffer textureBuffer;     // Buffer that holds the render system's texture coordinates
 
     private static final int VERTICES = 8;
     private float[] vertices = new float[VERTICES];
     private static final float[] TEX_VERTS = {0, 1, 0, 0, 1, 1, 1, 0}; // "Texture" vertices. Uses the default text, which is white.
-    private final static short INDICES[] = {0,1,2,1,2,3};
 
     private float red[];          // Red values for each layer
     private float green[];        // Green values for each layer
@@ -70,7 +67,7 @@ public class ShadeRenderer extends Entity implements Renderable, ParentAssignmen
     }
 
     /**
-     * Change the size of the vertex, texture, and index buffers.
+     * Change the size of the vertex and texture buffers.
      */
     public void resizeBuffers() {
         // Set up vertex buffer
@@ -85,13 +82,6 @@ public class ShadeRenderer extends Entity implements Renderable, ParentAssignmen
         textureBuffer = vertexByteBuffer.asFloatBuffer();
         textureBuffer.position(0);
         textureBuffer.put(TEX_VERTS);
-
-        // Set up index buffer
-        vertexByteBuffer = ByteBuffer.allocateDirect(INDEX_BYTES);
-        vertexByteBuffer.order(ByteOrder.nativeOrder());
-        indexBuffer = vertexByteBuffer.asShortBuffer();
-        indexBuffer.position(0);
-        indexBuffer.put(INDICES);
     }
 
     /**
@@ -167,19 +157,11 @@ public class ShadeRenderer extends Entity implements Renderable, ParentAssignmen
             vertexBuffer.clear();
             vertexBuffer.put(vertices);
 
-            vertexBuffer.position(0);
-            textureBuffer.position(0);
-            indexBuffer.position(0);
-
             gl.glBindTexture(GL11.GL_TEXTURE_2D, 0);
             gl.glColor4f(red[layer] * alpha[layer], green[layer] * alpha[layer], blue[layer] * alpha[layer], alpha[layer]);
 
-            // Point to our vertex and texture buffers
-            gl.glVertexPointer(2, GL10.GL_FLOAT, 0, vertexBuffer);
-            gl.glTexCoordPointer(2, GL10.GL_FLOAT, 0, textureBuffer);
-
             // Draw the vertices as triangles
-            gl.glDrawElements(GL10.GL_TRIANGLES, INDICES.length, GL10.GL_UNSIGNED_SHORT, indexBuffer);
+            QuadIndexBuffer.draw(gl, vertexBuffer, textureBuffer, 1);
         }
     }
 
@@ -0,0 +1,123 @@
+/**
+ * BobEngine - 2D game engine for Android
+ *
+ * Copyright (C) 2014, 2015, 2016 Benjamin Blaszczak
+ *
+ * BobEngine is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser Public License
+ * version 2.1 as published by the free software foundation.
+ *
+ * BobEngine is provided without warranty; without even the implied
+ * warranty of merchantability or fitness for a particular
+ * purpose. See the GNU Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General
+ * Public License along with BobEngine; if not, write to the
+ * Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301 USA
+ *
+ */
+package com.bobbyloujo.bobengine.systems.collision;
+
+/**
+ * A strategy for finding which hit boxes in a CollisionSystem might be touching. Each
+ * hit box is given to the broadphase as an id and an axis aligned bounding box in cells.
+ * Bounds are inclusive, so boxes that share an edge overlap.
+ * <br />
+ * <br />
+ * Each box has a category and a mask, given as bits. Box a can collide with box b if a's
+ * mask has a bit in common with b's category. A pair is only needed if either box can
+ * collide with the other, so a broadphase should skip all other pairs; that way large
+ * amounts of scenery with a mask of 0 cost very little. See CollisionFilter.
+ * <br />
+ * <br />
+ * A broadphase only needs to be fast at ruling out boxes that are far apart. It may report
+ * pairs that don't overlap; the CollisionSystem checks every pair again before calling
+ * any CollisionHandlers.
+ */
+public interface Broadphase {
+
+	/**
+	 * Add a box.
+	 *
+	 * @param id The box's id. Ids are small, non-negative, and unique among the boxes in this broadphase.
+	 * @param minX Left edge.
+	 * @param minY Bottom edge.
+	 * @param maxX Right edge.
+	 * @param maxY Top edge.
+	 * @param category The box's category bits.
+	 * @param mask The categories the box collides with.
+	 */
+	void insert(int id, float minX, float minY, float maxX, float maxY, int category, int mask);
+
+	/**
+	 * Change the bounds of a box. Called for every box each frame, so it should be cheap
+	 * when the box hasn't moved.
+	 *
+	 * @param id The box's id.
+	 * @param minX Left edge.
+	 * @param minY Bottom edge.
+	 * @param maxX Right edge.
+	 * @param maxY Top edge.
+	 */
+	void update(int id, float minX, float minY, float maxX, float maxY);
+
+	/**
+	 * Change a box's category and mask.
+	 *
+	 * @param id The box's id.
+	 * @param category The box's category bits.
+	 * @param mask The categories the box collides with.
+	 */
+	void setFilter(int id, int category, int mask);
+
+	/**
+	 * Remove a box. Its id may be given to another box afterwards.
+	 *
+	 * @param id The box's id.
+	 */
+	void remove(int id);
+
+	/**
+	 * Remove all boxes.
+	 */
+	void clear();
+
+	/**
+	 * Report each pair of boxes that might overlap, where at least one of the boxes can
+	 * collide with the other, exactly once.
+	 *
+	 * @param callback Receives the pairs.
+	 */
+	void findPairs(PairCallback callback);
+
+	/**
+	 * Report each box that might overlap an area.
+	 *
+	 * @param minX Left edge of the area.
+	 * @param minY Bottom edge of the area.
+	 * @param maxX Right edge of the area.
+	 * @param maxY Top edge of the area.
+	 * @param callback Receives the ids of the boxes.
+	 */
+	void query(float minX, float minY, float maxX, float maxY, QueryCallback callback);
+
+	interface PairCallback {
+		/**
+		 * Called for a pair of boxes that might overlap.
+		 *
+		 * @param idA The id of one box.
+		 * @param idB The id of the other box.
+		 */
+		void onPair(int idA, int idB);
+	}
+
+	interface QueryCallback {
+		/**
+		 * Called for a box that might overlap the area being queried.
+		 *
+		 * @param id The id of the box.
+		 */
+		void onResult(int id);
+	}
+}
@@ -0,0 +1,179 @@
+/**
+ * BobEngine - 2D game engine for Android
+ *
+ * Copyright (C) 2014, 2015, 2016 Benjamin Blaszczak
+ *
+ * BobEngine is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser Public License
+ * version 2.1 as published by the free software foundation.
+ *
+ * BobEngine is provided without warranty; without even the implied
+ * warranty of merchantability or fitness for a particular
+ * purpose. See the GNU Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General
+ * Public License along with BobEngine; if not, write to the
+ * Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301 USA
+ *
+ */
+package com.bobbyloujo.bobengine.systems.collision;
+
+/**
+ * The simplest Broadphase. Every box with a mask is checked against every other box, so finding
+ * pairs takes O(n^2) time. This is the default for a CollisionSystem and is the fastest choice
+ * when there are only a few boxes.
+ */
+public class BruteForceBroadphase implements Broadphase {
+
+	private static final int DEF_CAPACITY = 16;
+
+	private int[] ids;          // The ids of the boxes, packed at the front of the array
+	private int[] slots;        // The index in ids of each id, or -1
+	private float[] minX;       // Bounds of each box, by index in ids
+	private float[] minY;
+	private float[] maxX;
+	private float[] maxY;
+	private int[] category;     // Category bits of each box, by index in ids
+	private int[] mask;         // Mask of each box, by index in ids
+	private int count;          // Number of boxes
+
+	public BruteForceBroadphase() {
+		ids = new int[DEF_CAPACITY];
+		slots = new int[DEF_CAPACITY];
+		minX = new float[DEF_CAPACITY];
+		minY = new float[DEF_CAPACITY];
+		maxX = new float[DEF_CAPACITY];
+		maxY = new float[DEF_CAPACITY];
+		category = new int[DEF_CAPACITY];
+		mask = new int[DEF_CAPACITY];
+
+		for (int i = 0; i < slots.length; i++) {
+			slots[i] = -1;
+		}
+
+		count = 0;
+	}
+
+	@Override
+	public void insert(int id, float minX, float minY, float maxX, float maxY, int category, int mask) {
+		if (count == ids.length) {
+			int size = ids.length * 2;
+
+			ids = copyOf(ids, size);
+			this.minX = copyOf(this.minX, size);
+			this.minY = copyOf(this.minY, size);
+			this.maxX = copyOf(this.maxX, size);
+			this.maxY = copyOf(this.maxY, size);
+			this.category = copyOf(this.category, size);
+			this.mask = copyOf(this.mask, size);
+		}
+
+		if (id >= slots.length) {
+			int[] s = new int[Math.max(id + 1, slots.length * 2)];
+			System.arraycopy(slots, 0, s, 0, slots.length);
+
+			for (int i = slots.length; i < s.length; i++) {
+				s[i] = -1;
+			}
+
+			slots = s;
+		}
+
+		ids[count] = id;
+		slots[id] = count;
+		this.category[count] = category;
+		this.mask[count] = mask;
+		count++;
+
+		update(id, minX, minY, maxX, maxY);
+	}
+
+	@Override
+	public void setFilter(int id, int category, int mask) {
+		this.category[slots[id]] = category;
+		this.mask[slots[id]] = mask;
+	}
+
+	@Override
+	public void update(int id, float minX, float minY, float maxX, float maxY) {
+		int i = slots[id];
+
+		this.minX[i] = minX;
+		this.minY[i] = minY;
+		this.maxX[i] = maxX;
+		this.maxY[i] = maxY;
+	}
+
+	@Override
+	public void remove(int id) {
+		int i = slots[id];
+		int last = count - 1;
+
+		// Move the last box into the removed box's place
+		ids[i] = ids[last];
+		minX[i] = minX[last];
+		minY[i] = minY[last];
+		maxX[i] = maxX[last];
+		maxY[i] = maxY[last];
+		category[i] = category[last];
+		mask[i] = mask[last];
+		slots[ids[i]] = i;
+
+		slots[id] = -1;
+		count--;
+	}
+
+	@Override
+	public void clear() {
+		for (int i = 0; i < count; i++) {
+			slots[ids[i]] = -1;
+		}
+
+		count = 0;
+	}
+
+	@Override
+	public void findPairs(PairCallback callback) {
+		for (int i = 0; i < count; i++) {
+			if (mask[i] == 0) {
+				continue;
+			}
+
+			for (int j = 0; j < count; j++) {
+				if (j == i || (mask[j] != 0 && j < i)) {
+					continue;                        // Pairs of two boxes with masks are found from the first one
+				}
+
+				if ((mask[i] & category[j]) == 0 && (mask[j] & category[i]) == 0) {
+					continue;
+				}
+
+				if (maxX[i] >= minX[j] && minX[i] <= maxX[j] && maxY[i] >= minY[j] && minY[i] <= maxY[j]) {
+					callback.onPair(ids[i], ids[j]);
+				}
+			}
+		}
+	}
+
+	@Override
+	public void query(float minX, float minY, float maxX, float maxY, QueryCallback callback) {
+		for (int i = 0; i < count; i++) {
+			if (this.maxX[i] >= minX && this.minX[i] <= maxX && this.maxY[i] >= minY && this.minY[i] <= maxY) {
+				callback.onResult(ids[i]);
+			}
+		}
+	}
+
+	private static int[] copyOf(int[] a, int size) {
+		int[] n = new int[size];
+		System.arraycopy(a, 0, n, 0, a.length);
+		return n;
+	}
+
+	private static float[] copyOf(float[] a, int size) {
+		float[] n = new float[size];
+		System.arraycopy(a, 0, n, 0, a.length);
+		return n;
+	}
+}
@@ -0,0 +1,51 @@
+/**
+ * BobEngine - 2D game engine for Android
+ *
+ * Copyright (C) 2014, 2015, 2016 Benjamin Blaszczak
+ *
+ * BobEngine is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser Public License
+ * version 2.1 as published by the free software foundation.
+ *
+ * BobEngine is provided without warranty; without even the implied
+ * warranty of merchantability or fitness for a particular
+ * purpose. See the GNU Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General
+ * Public License along with BobEngine; if not, write to the
+ * Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301 USA
+ *
+ */
+package com.bobbyloujo.bobengine.systems.collision;
+
+/**
+ * A CollisionBox can also implement this interface to say which kinds of boxes it
+ * collides with. Each box belongs to one or more categories, given as bits. A box's
+ * CollisionHandler is only told about boxes whose category has a bit in common with
+ * the box's mask. Pairs that can't collide are thrown out before any geometry is
+ * checked, so giving bullets, pickups, and scenery their own categories can save a
+ * lot of work.
+ * <br />
+ * <br />
+ * Boxes that don't implement this interface are in CATEGORY_DEFAULT and collide with
+ * everything.
+ */
+public interface CollisionFilter {
+
+	/** The category of boxes that don't implement CollisionFilter. */
+	int CATEGORY_DEFAULT = 1;
+
+	/** A mask that collides with every category. */
+	int MASK_ALL = ~0;
+
+	/**
+	 * @return The category bits of this box.
+	 */
+	int getCollisionCategory();
+
+	/**
+	 * @return The categories this box collides with.
+	 */
+	int getCollisionMask();
+}
@@ -0,0 +1,50 @@
+/**
+ * BobEngine - 2D game engine for Android
+ *
+ * Copyright (C) 2014, 2015, 2016 Benjamin Blaszczak
+ *
+ * BobEngine is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser Public License
+ * version 2.1 as published by the free software foundation.
+ *
+ * BobEngine is provided without warranty; without even the implied
+ * warranty of merchantability or fitness for a particular
+ * purpose. See the GNU Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General
+ * Public License along with BobEngine; if not, write to the
+ * Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301 USA
+ *
+ */
+package com.bobbyloujo.bobengine.systems.collision;
+
+/**
+ * A CollisionBox can also implement this interface to choose the shape of its hit box.
+ * <br />
+ * <br />
+ * SHAPE_BOX is the shape of boxes that don't implement this interface. It ignores the
+ * angle of the box and snaps it to the CollisionSystem's cell grid. SHAPE_ORIENTED_BOX
+ * rotates the box with its real angle, so a rotated sprite collides with its rotated
+ * bounds. SHAPE_CIRCLE is the largest circle centered in the box.
+ * <br />
+ * <br />
+ * When either box of a pair has SHAPE_ORIENTED_BOX or SHAPE_CIRCLE, the pair is checked
+ * using the boxes' real bounds instead of the cell grid.
+ */
+public interface CollisionShape {
+
+	/** An unrotated box on the cell grid. The shape of boxes that don't implement CollisionShape. */
+	int SHAPE_BOX = 0;
+
+	/** A box that rotates with its real angle. */
+	int SHAPE_ORIENTED_BOX = 1;
+
+	/** The largest circle that fits in the box, centered on the box. */
+	int SHAPE_CIRCLE = 2;
+
+	/**
+	 * @return The shape of this box. One of SHAPE_BOX, SHAPE_ORIENTED_BOX, or SHAPE_CIRCLE.
+	 */
+	int getCollisionShape();
+}
@@ -19,151 +19,1874 @@
  */
 package com.bobbyloujo.bobengine.systems.collision;
 
+import com.bobbyloujo.bobengine.components.Component;
 import com.bobbyloujo.bobengine.components.Transform;
 import com.bobbyloujo.bobengine.components.Transformation;
 import com.bobbyloujo.bobengine.entities.Entity;
-import com.bobbyloujo.bobengine.graphics.Graphic;
+import com.bobbyloujo.bobengine.extra.WorkerPool;
+import com.bobbyloujo.bobengine.profiling.Profiler;
+import com.bobbyloujo.bobengine.systems.ComponentRemovalListener;
+import com.bobbyloujo.bobengine.systems.DebugDraw;
 import com.bobbyloujo.bobengine.systems.Updatable;
-import com.bobbyloujo.bobengine.systems.quadrenderer.AnimatedGraphicAreaTransform;
-import com.bobbyloujo.bobengine.systems.quadrenderer.GraphicAreaTransformation;
-import com.bobbyloujo.bobengine.systems.quadrenderer.Quad;
-import com.bobbyloujo.bobengine.systems.quadrenderer.QuadRenderSystem;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
 
 /**
  * A system for detecting collisions between objects. Transformables are used to
  * define hit boxes.
+ * <br />
+ * <br />
+ * Each frame a Broadphase finds the pairs of hit boxes that might be touching, then each
+ * pair is checked exactly. The default BruteForceBroadphase checks every pair and is best
+ * for a few boxes. Use setBroadphase() to pick a faster strategy for scenes with many boxes,
+ * such as a DynamicAabbTree.
+ * <br />
+ * <br />
+ * CollisionBoxes that also implement CollisionFilter are only checked against the categories
+ * of boxes they care about. Pairs that can't collide are skipped before the broadphase
+ * reports them.
+ * <br />
+ * <br />
+ * If a CollisionBox's handler is a ContactHandler, it is told when each collision starts,
+ * continues, and ends instead of getting onCollision() every frame.
+ * <br />
+ * <br />
+ * CollisionBoxes that implement CollisionShape can be rotated boxes or circles. Rotated
+ * sprites then collide with one box instead of several boxes approximating them.
+ * <br />
+ * <br />
+ * Fast CollisionBoxes can implement ContinuousCollision so they can't pass through thin
+ * boxes between frames. See ContinuousCollisionHandler for the time of impact.
+ * <br />
+ * <br />
+ * The broadphase also answers queries for the boxes at a point, in an area, along a ray,
+ * or nearest to a point. Results are written to a list passed in so they can be reused.
+ * <br />
+ * <br />
+ * Boxes that never move should be added with addStaticCollidable(). They are not
+ * refreshed each frame and are never checked against each other. Levels made of many
+ * small tiles are better kept in a TileCollisionLayer than as static boxes.
+ * <br />
+ * <br />
+ * Boxes can be taken out with removeCollidable() or removeEntity(). When an Entity is
+ * removed from the Room, its boxes are removed from every CollisionSystem in the Room
+ * automatically.
+ * <br />
+ * <br />
+ * Scenes with many pairs of touching boxes can test the pairs on all cores by calling
+ * setParallelNarrowphase(true). Only the tests run on other threads; handlers are still
+ * called on the thread that calls update(), in the same order as without it.
+ * <br />
+ * <br />
+ * CollisionBoxes that implement PixelCollision only collide where their graphic has solid
+ * pixels. The masks are only checked after the boxes are found to touch.
+ * <br />
+ * <br />
+ * A box whose handler is a TriggerHandler is a trigger zone. It is only told when boxes
+ * enter and leave it.
+ * <br />
+ * <br />
+ * Call setSleepFrames() to let moving boxes fall asleep once they have been still for a
+ * while. Sleeping boxes aren't refreshed or checked against each other, so quiet parts of
+ * a level cost nothing per frame.
  *
  * Created by Benjamin on 11/24/2015.
  */
-public class CollisionSystem implements Updatable {
+public class CollisionSystem implements Updatable, ComponentRemovalListener {
 
 	private static final int DEF_CELL_W = 1; // Default cellW
 	private static final int DEF_CELL_H = 1; // Default cellH
+	public static final int DEF_PARALLEL_THRESHOLD = 2000;  // Default number of pairs needed to test pairs in parallel
+	private static final int MIN_CHUNK_PAIRS = 256;          // Fewest pairs given to one worker at a time
+	private static final int MAX_INSERTION_SORT = 32;        // Most pairs of one handler sorted with an insertion sort
+	private static final int MAX_SWEEP_STEPS = 64;           // Most places the shapes of a continuous pair are tested along their paths
+	private static final int SWEEP_REFINE_STEPS = 8;         // Halvings used to narrow down the time of impact
+	private static final int CHUNKS_PER_THREAD = 4;          // Extra chunks so faster threads can pick up the slack
+	private static final PixelMask SOLID = PixelMask.solid(1, 1); // The mask of a box without one
 
 	private int cellW;                       // Width of a cell on the cell grid.
 	private int cellH;                       // Height of a cell on the cell grid.
 
-	private ArrayList<HitBox> hitBoxes;      // All of the hit boxes in this system.
+	private ArrayList<HitBox> hitBoxes;      // All of the hit boxes in this system. A hit box's id is its index.
+	private ArrayList<HitBox> dynamicBoxes;  // The hit boxes that are refreshed every frame
+	private ArrayList<HitBox> invalidBoxes;  // Static hit boxes to refresh next frame
+	private IdentityHashMap<CollisionBox, HitBox> boxMap;           // The hit box of each CollisionBox
+	private IdentityHashMap<Entity, ArrayList<HitBox>> entityBoxes; // The hit boxes of each owner Entity
+	private ArrayList<HitBox> removedBoxes;  // Hit boxes removed since the last update started
+	private ArrayList<HitBox> retiredBoxes;  // Hit boxes whose ids are freed at the end of this update
+	private IdentityHashMap<CollisionBox, HitBox> pendingBoxes;     // Removed hit boxes whose ids aren't free yet
+	private int[] freeIds;                   // Ids of removed hit boxes that can be used again
+	private int numFreeIds;
 	private Entity parent;
 
+	private ArrayList<HitBox> sleepingBoxes; // Moving hit boxes that are asleep. They are kept in staticIndex.
+	private ArrayList<HitBox> wakeQueue;     // Sleeping hit boxes to wake at the start of the next update
+	private SleeperCollector sleeperCollector;
+	private int sleepFrames;                 // Updates a box has to be still before it falls asleep. 0 if boxes never sleep.
+	private int lastSleeps;                  // Boxes that fell asleep in the last update
+	private int lastWakes;                   // Boxes woken at the start of the last update
+	private boolean showBoxes;               // Draw the hit boxes with the Room's DebugDraw each update
+
+	private Broadphase broadphase;           // Finds pairs of hit boxes that might be touching
+	private long[] pairs;                    // Collisions to check this frame, packed as (id with handler << 32) | other id
+	private int numPairs;                    // Number of collisions to check this frame
+	private long[] sortedPairs;              // Reusable array the pairs are sorted into, then swapped with pairs
+	private int[] pairStarts;                // Reusable index in sortedPairs of the first pair of each handler id
+	private PairCollector pairCollector;
+
+	private boolean parallelNarrowphase;     // Test pairs on all cores when there are enough pairs
+	private int parallelThreshold;           // Number of pairs needed to test pairs in parallel
+	private int[] hitPairs;                  // Indices in pairs of the collisions found by each chunk, starting at the chunk's first pair
+	private double[] hitTimes;               // The time of each collision in hitPairs
+	private int[] chunkHits;                 // The number of collisions each chunk found
+	private NarrowphaseTask narrowphaseTask; // The job run by the workers
+
+	private DynamicAabbTree staticIndex;     // Static and sleeping hit boxes. Only searched by dynamic hit boxes.
+	private StaticCollector staticCollector;
+	private int staticCategories;            // Every category bit of a static hit box, to skip searching when nothing can collide
+	private int staticMasks;                 // Every mask bit of a static hit box
+
+	private LongHashSet contacts;            // Collisions of ContactHandlers last frame, packed like pairs
+	private LongHashSet newContacts;         // Collisions of ContactHandlers this frame
+	private long[] contactList;              // contacts in sorted order, so exits are fired in a fixed order
+	private int numContacts;
+	private long[] newContactList;           // newContacts in sorted order
+	private int numNewContacts;
+
+	private QueryCollector queryCollector;
+	private int[] queryIds;                  // Ids of the boxes the broadphase found for the current query
+	private int numQueryIds;
+	private HitBox queryShape;               // The area of the current query
+	private int[] nearIds;                   // The nearest boxes found so far by nearestK(), nearest first
+	private double[] nearDist;               // Their distances, squared
+
+	/**
+	 * Create a new collision system.
+	 */
+	public CollisionSystem() {
+		init();
+	}
+
+	/**
+	 * Create a new collision system.
+	 */
+	public CollisionSystem(Entity parent) {
+		parent.addComponent(this);
+		this.parent = parent;
+		init();
+	}
+
+	private void init() {
+		hitBoxes = new ArrayList<HitBox>();
+		dynamicBoxes = new ArrayList<HitBox>();
+		invalidBoxes = new ArrayList<HitBox>();
+		boxMap = new IdentityHashMap<CollisionBox, HitBox>();
+		entityBoxes = new IdentityHashMap<Entity, ArrayList<HitBox>>();
+		removedBoxes = new ArrayList<HitBox>();
+		retiredBoxes = new ArrayList<HitBox>();
+		pendingBoxes = new IdentityHashMap<CollisionBox, HitBox>();
+		freeIds = new int[16];
+		numFreeIds = 0;
+		sleepingBoxes = new ArrayList<HitBox>();
+		wakeQueue = new ArrayList<HitBox>();
+		sleeperCollector = new SleeperCollector();
+		sleepFrames = 0;
+		cellW = DEF_CELL_W;
+		cellH = DEF_CELL_H;
+
+		broadphase = new BruteForceBroadphase();
+		pairs = new long[16];
+		numPairs = 0;
+		pairCollector = new PairCollector();
+
+		parallelNarrowphase = false;
+		parallelThreshold = DEF_PARALLEL_THRESHOLD;
+
+		staticIndex = new DynamicAabbTree(DynamicAabbTree.DEF_MARGIN, true);
+		staticCollector = new StaticCollector();
+		staticCategories = 0;
+		staticMasks = 0;
+
+		contacts = new LongHashSet();
+		newContacts = new LongHashSet();
+		contactList = new long[16];
+		newContactList = new long[16];
+		numContacts = 0;
+		numNewContacts = 0;
+
+		queryCollector = new QueryCollector();
+		queryIds = new int[16];
+		numQueryIds = 0;
+		queryShape = new HitBox(null, -1);
+		nearIds = new int[0];
+		nearDist = new double[0];
+	}
+
+	public void setParent(Entity parent) {
+		this.parent = parent;
+	}
+
+	/**
+	 * Set whether the outlines of the hit boxes are drawn with the Room's DebugDraw at the end
+	 * of each update. Moving boxes are red, static boxes are gray, sleeping boxes are blue and
+	 * triggers are green.
+	 *
+	 * @param show True to draw the hit boxes.
+	 */
+	public void showBoxes(boolean show) {
+		showBoxes = show;
+	}
+
+	/**
+	 * Returns true if the outlines of the hit boxes are drawn each update.
+	 */
+	public boolean isShowingBoxes() {
+		return showBoxes;
+	}
+
+	/**
+	 * Draw the outline of every hit box in this system as it was at the end of the last update.
+	 *
+	 * @param draw The DebugDraw to draw the outlines with.
+	 */
+	public void drawBoxes(DebugDraw draw) {
+		int color = -1;
+
+		for (int i = 0; i < hitBoxes.size(); i++) {
+			HitBox h = hitBoxes.get(i);
+
+			if (h == null || h.removed || !h.hasLast) {
+				continue;
+			}
+
+			int next = h.trigger ? 3 : h.asleep ? 2 : h.isStatic ? 1 : 0;
+
+			if (next != color) {
+				color = next;
+
+				if (color == 0) {
+					draw.setColor(1, 0, 0, 1);
+				} else if (color == 1) {
+					draw.setColor(.6f, .6f, .6f, 1);
+				} else if (color == 2) {
+					draw.setColor(0, .4f, 1, 1);
+				} else {
+					draw.setColor(0, 1, 0, 1);
+				}
+			}
+
+			if (h.shape == CollisionShape.SHAPE_CIRCLE) {
+				draw.circle(h.realX, h.realY, h.extentX);
+			} else {
+				draw.rect(h.realX, h.realY, h.halfW * 2, h.halfH * 2, h.angle);
+			}
+		}
+	}
+
+	/**
+	 * Set the strategy used to find hit boxes that might be touching. The hit boxes already
+	 * in this system are moved to the new broadphase. The collisions found are the same for
+	 * every broadphase; only the speed changes. Static boxes are always kept in a
+	 * DynamicAabbTree of their own.
+	 *
+	 * @param broadphase The new broadphase. If null, a BruteForceBroadphase is used.
+	 */
+	public void setBroadphase(Broadphase broadphase) {
+		if (broadphase == null) {
+			broadphase = new BruteForceBroadphase();
+		}
+
+		this.broadphase.clear();
+		this.broadphase = broadphase;
+		broadphase.clear();
+
+		for (int i = 0; i < dynamicBoxes.size(); i++) {
+			HitBox h = dynamicBoxes.get(i);
+
+			h.update();
+			broadphase.insert(h.id, h.minX, h.minY, h.maxX, h.maxY, h.category, h.mask);
+		}
+	}
+
+	/**
+	 * Set whether pairs of hit boxes are tested on all cores when there are more than
+	 * getParallelThreshold() pairs. Handlers are still called on the thread that calls
+	 * update(), in the same order and with the same results as testing on one thread.
+	 * CollisionBoxes are only read on the thread that calls update().
+	 *
+	 * @param parallel True to test pairs in parallel.
+	 */
+	public void setParallelNarrowphase(boolean parallel) {
+		parallelNarrowphase = parallel;
+	}
+
+	/**
+	 * Returns true if pairs are tested on all cores when there are enough of them.
+	 */
+	public boolean isParallelNarrowphase() {
+		return parallelNarrowphase;
+	}
+
+	/**
+	 * Set the number of pairs the broadphase must find before the pairs are tested in
+	 * parallel. Below this, handing the pairs to the workers costs more than it saves.
+	 *
+	 * @param pairs The number of pairs needed to test pairs in parallel.
+	 */
+	public void setParallelThreshold(int pairs) {
+		parallelThreshold = pairs;
+	}
+
+	/**
+	 * Returns the number of pairs needed to test pairs in parallel.
+	 *
+	 * @return The number of pairs needed to test pairs in parallel.
+	 */
+	public int getParallelThreshold() {
+		return parallelThreshold;
+	}
+
+	/**
+	 * Returns the strategy used to find hit boxes that might be touching.
+	 *
+	 * @return The broadphase used by this system.
+	 */
+	public Broadphase getBroadphase() {
+		return broadphase;
+	}
+
+	/**
+	 * Returns the tree that holds the static and sleeping hit boxes.
+	 */
+	DynamicAabbTree getStaticIndex() {
+		return staticIndex;
+	}
+
+	/**
+	 * Let moving boxes fall asleep once they haven't moved, changed, or been part of a
+	 * collision for some number of updates. A sleeping box is kept with the static boxes: it
+	 * isn't refreshed each frame and isn't checked against static or other sleeping boxes,
+	 * but boxes that are awake still collide with it. Triggers don't keep a box awake, and
+	 * a box resting in a trigger stays inside it while it sleeps.
+	 * <br />
+	 * <br />
+	 * A sleeping box wakes up when its handler is told about a collision, when a static box
+	 * is added or invalidated on top of it, or when wake() is called. Sleeping boxes can't
+	 * tell when they are moved, so call wake() after moving one yourself.
+	 *
+	 * @param frames The number of updates a box has to be still before it falls asleep, or 0
+	 *               to keep every box awake. Default is 0.
+	 */
+	public void setSleepFrames(int frames) {
+		sleepFrames = Math.max(frames, 0);
+
+		if (sleepFrames == 0) {
+			wakeAll();
+		}
+	}
+
+	/**
+	 * Returns the number of updates a box has to be still before it falls asleep.
+	 *
+	 * @return The number of updates, or 0 if boxes never sleep.
+	 */
+	public int getSleepFrames() {
+		return sleepFrames;
+	}
+
+	/**
+	 * Wake a sleeping box at the start of the next update. Call this after moving, resizing,
+	 * or changing a box that might be asleep. A box that is awake starts counting the updates
+	 * it has been still from 0 again.
+	 *
+	 * @param c A CollisionBox in this system.
+	 */
+	public void wake(CollisionBox c) {
+		HitBox h = boxMap.get(c);
+
+		if (h != null) {
+			h.stillFrames = 0;
+			queueWake(h);
+		}
+	}
+
+	/**
+	 * Wake every sleeping box at the start of the next update.
+	 */
+	public void wakeAll() {
+		for (int i = 0; i < sleepingBoxes.size(); i++) {
+			queueWake(sleepingBoxes.get(i));
+		}
+	}
+
+	/**
+	 * Returns the number of moving boxes that are asleep.
+	 *
+	 * @return The number of sleeping boxes.
+	 */
+	public int getSleepingCount() {
+		return sleepingBoxes.size();
+	}
+
+	/**
+	 * Returns the number of moving boxes that are awake and refreshed every frame.
+	 *
+	 * @return The number of awake boxes.
+	 */
+	public int getAwakeCount() {
+		return dynamicBoxes.size();
+	}
+
+	/**
+	 * Returns the number of boxes that fell asleep during the last update.
+	 *
+	 * @return The number of boxes that fell asleep.
+	 */
+	public int getLastSleepCount() {
+		return lastSleeps;
+	}
+
+	/**
+	 * Returns the number of boxes that woke up during the last update.
+	 *
+	 * @return The number of boxes that woke up.
+	 */
+	public int getLastWakeCount() {
+		return lastWakes;
+	}
+
+	/**
+	 * Set the dimensions of a single cell on the cell grid. Larger cells means
+	 * larger hit boxes. The smallest value is 1 which will cause cells to be
+	 * one pixel. Default value is 1.
+	 *
+	 * @param cellW Width of a cell.
+	 * @param cellH Height of a cell.
+	 */
+	public void setCellDim(int cellW, int cellH) {
+		if (cellW < 1) cellW = 1;
+		if (cellH < 1) cellH = 1;
+		this.cellW = cellW;
+		this.cellH = cellH;
+	}
+
+	/**
+	 * Add each CollisionBox component of Entity e to this system.
+	 * @param e an Entity with CollisionBox components.
+	 */
+	public void addEntity(Entity e) {
+		ArrayList<CollisionBox> collisionBoxes = e.getComponentsOfType(CollisionBox.class);
+
+		if (e instanceof CollisionBox) {
+			addCollidable((CollisionBox) e);
+		}
+
+		for (CollisionBox c: collisionBoxes) {
+			addCollidable(c);
+		}
+	}
+
+	/**
+	 * Add a new CollisionBox to this collision system. Adding a CollisionBox that is already
+	 * in this system does nothing.
+	 * @param c The CollisionBox to add to this collision system.
+	 */
+	public void addCollidable(CollisionBox c) {
+		HitBox h = newHitBox(c);
+
+		if (h == null) {
+			return;
+		}
+
+		h.index = dynamicBoxes.size();
+		dynamicBoxes.add(h);
+		h.update();
+		broadphase.insert(h.id, h.minX, h.minY, h.maxX, h.maxY, h.category, h.mask);
+	}
+
+	/**
+	 * Add each CollisionBox component of Entity e to this system as a static box. See
+	 * addStaticCollidable().
+	 *
+	 * @param e an Entity with CollisionBox components that don't move.
+	 */
+	public void addStaticEntity(Entity e) {
+		ArrayList<CollisionBox> collisionBoxes = e.getComponentsOfType(CollisionBox.class);
+
+		if (e instanceof CollisionBox) {
+			addStaticCollidable((CollisionBox) e);
+		}
+
+		for (CollisionBox c: collisionBoxes) {
+			addStaticCollidable(c);
+		}
+	}
+
+	/**
+	 * Add a CollisionBox that doesn't move, like a wall or a platform. Its hit box is found
+	 * once now instead of every frame, and it is only checked against boxes that move,
+	 * never against other static boxes. If a static box does move or change size, call
+	 * invalidate() so its hit box is found again next frame.
+	 *
+	 * @param c The CollisionBox to add to this collision system.
+	 */
+	public void addStaticCollidable(CollisionBox c) {
+		HitBox h = newHitBox(c);
+
+		if (h == null) {
+			return;
+		}
+
+		h.isStatic = true;
+		h.update();
+		staticIndex.insert(h.id, h.minX, h.minY, h.maxX, h.maxY, h.category, h.mask);
+		staticCategories |= h.category;
+		staticMasks |= h.mask;
+		wakeSleepers(h);
+	}
+
+	/**
+	 * Find the hit box of a static CollisionBox again next frame. Call this after moving,
+	 * resizing, or changing the CollisionFilter of a box added with addStaticCollidable().
+	 * Sleeping boxes are woken. Does nothing for other boxes.
+	 *
+	 * @param c A static CollisionBox in this system.
+	 */
+	public void invalidate(CollisionBox c) {
+		HitBox h = boxMap.get(c);
+
+		if (h != null && h.isStatic && !h.invalid) {
+			h.invalid = true;
+			invalidBoxes.add(h);
+		} else if (h != null) {
+			h.stillFrames = 0;
+			queueWake(h);
+		}
+	}
+
+	/**
+	 * Wake a sleeping hit box at the start of the next update.
+	 */
+	private void queueWake(HitBox h) {
+		if (h.asleep && !h.waking) {
+			h.waking = true;
+			wakeQueue.add(h);
+		}
+	}
+
+	/**
+	 * Wake the sleeping hit boxes under a static hit box, which is never checked against them.
+	 */
+	private void wakeSleepers(HitBox h) {
+		if (!sleepingBoxes.isEmpty()) {
+			staticIndex.query(h.minX, h.minY, h.maxX, h.maxY, sleeperCollector);
+		}
+	}
+
+	/**
+	 * Put a moving hit box to sleep by moving it from the broadphase to the static boxes.
+	 */
+	private void sleep(HitBox h) {
+		removeFromList(dynamicBoxes, h);
+		broadphase.remove(h.id);
+
+		h.asleep = true;
+		h.index = sleepingBoxes.size();
+		sleepingBoxes.add(h);
+
+		staticIndex.insert(h.id, h.minX, h.minY, h.maxX, h.maxY, h.category, h.mask);
+		staticCategories |= h.category;
+		staticMasks |= h.mask;
+	}
+
+	/**
+	 * Move a sleeping hit box back into the broadphase so it is refreshed every frame.
+	 */
+	private void wakeUp(HitBox h) {
+		h.waking = false;
+
+		if (!h.asleep || h.removed) {                         // Already awake, or removed since it was queued
+			return;
+		}
+
+		removeFromList(sleepingBoxes, h);
+		staticIndex.remove(h.id);
+
+		h.asleep = false;
+		h.stillFrames = 0;
+		h.hasLast = false;                                    // Don't sweep from where it fell asleep
+		h.index = dynamicBoxes.size();
+		dynamicBoxes.add(h);
+
+		broadphase.insert(h.id, h.minX, h.minY, h.maxX, h.maxY, h.category, h.mask);
+		lastWakes++;
+	}
+
+	/**
+	 * Remove a hit box from dynamicBoxes or sleepingBoxes by moving the last box into its place.
+	 */
+	private static void removeFromList(ArrayList<HitBox> list, HitBox h) {
+		HitBox last = list.remove(list.size() - 1);
+
+		if (last != h) {
+			list.set(h.index, last);
+			last.index = h.index;
+		}
+	}
+
+	/**
+	 * Make a hit box for a CollisionBox, using the id of a removed hit box if there is one.
+	 * A box added back before its old id was freed gets its old hit box back, so its
+	 * contacts carry on as if it was never removed.
+	 *
+	 * @return The new hit box, or null if c is already in this system.
+	 */
+	private HitBox newHitBox(CollisionBox c) {
+		if (boxMap.containsKey(c)) {
+			return null;
+		}
+
+		HitBox h = pendingBoxes.remove(c);
+
+		if (h != null) {
+			h.removed = false;
+			h.isStatic = false;
+			h.invalid = false;
+			h.asleep = false;
+			h.stillFrames = 0;
+		} else if (numFreeIds > 0) {
+			h = new HitBox(c, freeIds[--numFreeIds]);
+			hitBoxes.set(h.id, h);
+		} else {
+			h = new HitBox(c, hitBoxes.size());
+			hitBoxes.add(h);
+		}
+
+		boxMap.put(c, h);
+		h.owner = c.getEntity();
+
+		if (h.owner != null) {
+			ArrayList<HitBox> boxes = entityBoxes.get(h.owner);
+
+			if (boxes == null) {
+				boxes = new ArrayList<HitBox>(2);
+				entityBoxes.put(h.owner, boxes);
+			}
+
+			boxes.add(h);
+		}
+
+		return h;
+	}
+
+	/**
+	 * Remove each CollisionBox component of Entity e, and every CollisionBox owned by e,
+	 * from this system.
+	 *
+	 * @param e an Entity with CollisionBox components.
+	 */
+	public void removeEntity(Entity e) {
+		ArrayList<HitBox> boxes = entityBoxes.get(e);
+
+		if (e instanceof CollisionBox) {
+			removeCollidable((CollisionBox) e);
+		}
+
+		while (boxes != null && !boxes.isEmpty()) {
+			removeCollidable(boxes.get(boxes.size() - 1).c);
+		}
+
+		ArrayList<Component> components = e.getComponents();
+
+		for (int i = 0; i < components.size(); i++) {
+			if (components.get(i) instanceof CollisionBox) {
+				removeCollidable((CollisionBox) components.get(i));
+			}
+		}
+	}
+
+	/**
+	 * Remove a CollisionBox from this collision system. It stops colliding right away, even
+	 * if this is called from a CollisionHandler. ContactHandlers touching the box get
+	 * onCollisionExit() next frame. Removing a box doesn't depend on the number of boxes,
+	 * but the broadphase may need more time to forget it; see Broadphase.remove().
+	 *
+	 * @param c The CollisionBox to remove.
+	 * @return True if c was removed, false if it wasn't in this system.
+	 */
+	public boolean removeCollidable(CollisionBox c) {
+		HitBox h = boxMap.remove(c);
+
+		if (h == null) {
+			return false;
+		}
+
+		h.removed = true;
+
+		if (h.isStatic) {
+			staticIndex.remove(h.id);
+		} else if (h.asleep) {
+			removeFromList(sleepingBoxes, h);
+			staticIndex.remove(h.id);
+		} else {
+			removeFromList(dynamicBoxes, h);
+			broadphase.remove(h.id);
+		}
+
+		if (h.owner != null) {
+			ArrayList<HitBox> boxes = entityBoxes.get(h.owner);
+
+			boxes.remove(h);
+
+			if (boxes.isEmpty()) {
+				entityBoxes.remove(h.owner);
+			}
+		}
+
+		// The id can't be used again until contacts with this box have ended
+		removedBoxes.add(h);
+		pendingBoxes.put(c, h);
+
+		return true;
+	}
+
+	/**
+	 * Returns the number of CollisionBoxes in this system.
+	 *
+	 * @return The number of CollisionBoxes in this system.
+	 */
+	public int getBoxCount() {
+		return boxMap.size();
+	}
+
+	/**
+	 * Removes the boxes of components that were removed from the Room.
+	 *
+	 * @param component The removed component.
+	 */
+	@Override
+	public void onComponentRemoved(Component component) {
+		if (component instanceof CollisionBox) {
+			removeCollidable((CollisionBox) component);
+		}
+
+		if (component instanceof Entity) {
+			ArrayList<HitBox> boxes = entityBoxes.get(component);
+
+			while (boxes != null && !boxes.isEmpty()) {
+				removeCollidable(boxes.get(boxes.size() - 1).c);
+			}
+		}
+	}
+
+	/**
+	 * Returns the number of boxes in this system owned by entities that are no longer in a
+	 * Room.
+	 *
+	 * @return The number of orphaned boxes.
+	 */
+	@Override
+	public int getOrphanCount() {
+		int orphans = 0;
+
+		for (HitBox h : boxMap.values()) {
+			if (h.owner != null && h.owner.getRoom() == null) {
+				orphans++;
+			}
+		}
+
+		return orphans;
+	}
+
+	/* SPATIAL QUERIES */
+
+	/**
+	 * Find every CollisionBox that contains a point. Queries use the positions the boxes
+	 * had when this system was last updated. The boxes' real shapes are checked, not the
+	 * cell grid.
+	 *
+	 * @param x The x position of the point.
+	 * @param y The y position of the point.
+	 * @param results Cleared, then filled with the boxes found.
+	 * @return The number of boxes found.
+	 */
+	public int queryPoint(double x, double y, ArrayList<CollisionBox> results) {
+		return queryPoint(x, y, CollisionFilter.MASK_ALL, results);
+	}
+
+	/**
+	 * Find every CollisionBox in certain categories that contains a point.
+	 *
+	 * @param x The x position of the point.
+	 * @param y The y position of the point.
+	 * @param mask Only boxes with a category in this mask are found.
+	 * @param results Cleared, then filled with the boxes found.
+	 * @return The number of boxes found.
+	 */
+	public int queryPoint(double x, double y, int mask, ArrayList<CollisionBox> results) {
+		results.clear();
+		findCandidates(x, y, x, y);
+
+		for (int i = 0; i < numQueryIds; i++) {
+			HitBox h = hitBoxes.get(queryIds[i]);
+
+			if ((h.category & mask) != 0 && containsPoint(h, x, y)) {
+				results.add(h.c);
+			}
+		}
+
+		return results.size();
+	}
+
+	/**
+	 * Find every CollisionBox that touches an axis-aligned box.
+	 *
+	 * @param minX Left edge of the box.
+	 * @param minY Bottom edge of the box.
+	 * @param maxX Right edge of the box.
+	 * @param maxY Top edge of the box.
+	 * @param results Cleared, then filled with the boxes found.
+	 * @return The number of boxes found.
+	 */
+	public int queryAabb(double minX, double minY, double maxX, double maxY, ArrayList<CollisionBox> results) {
+		return queryAabb(minX, minY, maxX, maxY, CollisionFilter.MASK_ALL, results);
+	}
+
+	/**
+	 * Find every CollisionBox in certain categories that touches an axis-aligned box.
+	 *
+	 * @param minX Left edge of the box.
+	 * @param minY Bottom edge of the box.
+	 * @param maxX Right edge of the box.
+	 * @param maxY Top edge of the box.
+	 * @param mask Only boxes with a category in this mask are found.
+	 * @param results Cleared, then filled with the boxes found.
+	 * @return The number of boxes found.
+	 */
+	public int queryAabb(double minX, double minY, double maxX, double maxY, int mask, ArrayList<CollisionBox> results) {
+		queryShape.shape = CollisionShape.SHAPE_ORIENTED_BOX;
+		queryShape.realX = (minX + maxX) / 2;
+		queryShape.realY = (minY + maxY) / 2;
+		queryShape.halfW = (maxX - minX) / 2;
+		queryShape.halfH = (maxY - minY) / 2;
+		queryShape.cos = 1;
+		queryShape.sin = 0;
+
+		return queryShape(minX, minY, maxX, maxY, mask, results);
+	}
+
+	/**
+	 * Find every CollisionBox that touches a circle.
+	 *
+	 * @param x The x position of the center of the circle.
+	 * @param y The y position of the center of the circle.
+	 * @param radius The radius of the circle.
+	 * @param results Cleared, then filled with the boxes found.
+	 * @return The number of boxes found.
+	 */
+	public int queryRadius(double x, double y, double radius, ArrayList<CollisionBox> results) {
+		return queryRadius(x, y, radius, CollisionFilter.MASK_ALL, results);
+	}
+
+	/**
+	 * Find every CollisionBox in certain categories that touches a circle.
+	 *
+	 * @param x The x position of the center of the circle.
+	 * @param y The y position of the center of the circle.
+	 * @param radius The radius of the circle.
+	 * @param mask Only boxes with a category in this mask are found.
+	 * @param results Cleared, then filled with the boxes found.
+	 * @return The number of boxes found.
+	 */
+	public int queryRadius(double x, double y, double radius, int mask, ArrayList<CollisionBox> results) {
+		queryShape.shape = CollisionShape.SHAPE_CIRCLE;
+		queryShape.realX = x;
+		queryShape.realY = y;
+		queryShape.halfW = radius;
+		queryShape.halfH = radius;
+		queryShape.cos = 1;
+		queryShape.sin = 0;
+
+		return queryShape(x - radius, y - radius, x + radius, y + radius, mask, results);
+	}
+
+	/**
+	 * Find the first CollisionBox hit by a ray.
+	 *
+	 * @param x The x position of the start of the ray.
+	 * @param y The y position of the start of the ray.
+	 * @param dirX The x component of the direction of the ray.
+	 * @param dirY The y component of the direction of the ray.
+	 * @param maxDistance The length of the ray.
+	 * @param hit Filled with the box that was hit and where. hit.box is null if nothing was hit.
+	 * @return True if a box was hit.
+	 */
+	public boolean raycast(double x, double y, double dirX, double dirY, double maxDistance, RaycastHit hit) {
+		return raycast(x, y, dirX, dirY, maxDistance, CollisionFilter.MASK_ALL, hit);
+	}
+
+	/**
+	 * Find the first CollisionBox in certain categories hit by a ray. Boxes that contain
+	 * the start of the ray are hit at distance 0.
+	 *
+	 * @param x The x position of the start of the ray.
+	 * @param y The y position of the start of the ray.
+	 * @param dirX The x component of the direction of the ray.
+	 * @param dirY The y component of the direction of the ray.
+	 * @param maxDistance The length of the ray.
+	 * @param mask Only boxes with a category in this mask can be hit.
+	 * @param hit Filled with the box that was hit and where. hit.box is null if nothing was hit.
+	 * @return True if a box was hit.
+	 */
+	public boolean raycast(double x, double y, double dirX, double dirY, double maxDistance, int mask, RaycastHit hit) {
+		double length = Math.sqrt(dirX * dirX + dirY * dirY);
+
+		hit.clear();
+
+		if (length == 0) {
+			return false;
+		}
+
+		dirX /= length;
+		dirY /= length;
+
+		double endX = x + dirX * maxDistance;
+		double endY = y + dirY * maxDistance;
+
+		findCandidates(Math.min(x, endX), Math.min(y, endY), Math.max(x, endX), Math.max(y, endY));
+
+		for (int i = 0; i < numQueryIds; i++) {
+			HitBox h = hitBoxes.get(queryIds[i]);
+
+			if ((h.category & mask) != 0) {
+				double distance = rayDistance(h, x, y, dirX, dirY);
+
+				if (distance >= 0 && distance <= maxDistance && (hit.box == null || distance < hit.distance)) {
+					hit.box = h.c;
+					hit.distance = distance;
+				}
+			}
+		}
+
+		if (hit.box != null) {
+			hit.x = x + dirX * hit.distance;
+			hit.y = y + dirY * hit.distance;
+			return true;
+		}
+
+		return false;
+	}
+
+	/**
+	 * Find the k CollisionBoxes with centers nearest to a point.
+	 *
+	 * @param x The x position of the point.
+	 * @param y The y position of the point.
+	 * @param k The most boxes to find.
+	 * @param results Cleared, then filled with the boxes found, nearest first.
+	 * @return The number of boxes found. Less than k if there aren't k boxes.
+	 */
+	public int nearestK(double x, double y, int k, ArrayList<CollisionBox> results) {
+		return nearestK(x, y, k, CollisionFilter.MASK_ALL, results);
+	}
+
+	/**
+	 * Find the k CollisionBoxes in certain categories with centers nearest to a point.
+	 * The search starts with a small area around the point and grows until it finds k
+	 * boxes, so it is fastest when the boxes are close.
+	 *
+	 * @param x The x position of the point.
+	 * @param y The y position of the point.
+	 * @param k The most boxes to find.
+	 * @param mask Only boxes with a category in this mask are found.
+	 * @param results Cleared, then filled with the boxes found, nearest first.
+	 * @return The number of boxes found. Less than k if there aren't k boxes.
+	 */
+	public int nearestK(double x, double y, int k, int mask, ArrayList<CollisionBox> results) {
+		results.clear();
+
+		if (k <= 0 || boxMap.isEmpty()) {
+			return 0;
+		}
+
+		if (nearIds.length < k) {
+			nearIds = new int[k];
+			nearDist = new double[k];
+		}
+
+		double r = Math.max(cellW, cellH);
+
+		while (true) {                                        // Grow the area until it has k boxes or every box
+			findCandidates(x - r, y - r, x + r, y + r);
+
+			int found = 0;
+
+			for (int i = 0; i < numQueryIds; i++) {
+				HitBox h = hitBoxes.get(queryIds[i]);
+				double dX = h.realX - x;
+				double dY = h.realY - y;
+
+				if ((h.category & mask) != 0 && dX * dX + dY * dY <= r * r) {
+					found++;
+				}
+			}
+
+			if (found >= k || numQueryIds >= boxMap.size() || Double.isInfinite(r)) {
+				break;
+			}
+
+			r *= 2;
+		}
+
+		int numNear = 0;
+
+		for (int i = 0; i < numQueryIds; i++) {               // Keep the k nearest, sorted by insertion
+			HitBox h = hitBoxes.get(queryIds[i]);
+			double dX = h.realX - x;
+			double dY = h.realY - y;
+			double d = dX * dX + dY * dY;
+
+			if ((h.category & mask) != 0 && (numNear < k || d < nearDist[numNear - 1])) {
+				int j = numNear < k ? numNear++ : k - 1;
+
+				while (j > 0 && nearDist[j - 1] > d) {
+					nearDist[j] = nearDist[j - 1];
+					nearIds[j] = nearIds[j - 1];
+					j--;
+				}
+
+				nearDist[j] = d;
+				nearIds[j] = h.id;
+			}
+		}
+
+		for (int i = 0; i < numNear; i++) {
+			results.add(hitBoxes.get(nearIds[i]).c);
+		}
+
+		return numNear;
+	}
+
+	/**
+	 * Find the boxes that touch queryShape.
+	 */
+	private int queryShape(double minX, double minY, double maxX, double maxY, int mask, ArrayList<CollisionBox> results) {
+		results.clear();
+		findCandidates(minX, minY, maxX, maxY);
+
+		for (int i = 0; i < numQueryIds; i++) {
+			HitBox h = hitBoxes.get(queryIds[i]);
+
+			if ((h.category & mask) != 0 && overlaps(queryShape, h)) {
+				results.add(h.c);
+			}
+		}
+
+		return results.size();
+	}
+
+	/**
+	 * Ask the broadphase for the boxes that might touch an area given in real coordinates.
+	 * The ids are sorted so results don't depend on the broadphase.
+	 */
+	private void findCandidates(double minX, double minY, double maxX, double maxY) {
+		float cellMinX = (float) Math.floor(minX / cellW);
+		float cellMinY = (float) Math.floor(minY / cellH);
+		float cellMaxX = (float) Math.ceil(maxX / cellW);
+		float cellMaxY = (float) Math.ceil(maxY / cellH);
+
+		numQueryIds = 0;
+		broadphase.query(cellMinX, cellMinY, cellMaxX, cellMaxY, queryCollector);
+		staticIndex.query(cellMinX, cellMinY, cellMaxX, cellMaxY, queryCollector);
+		Arrays.sort(queryIds, 0, numQueryIds);
+	}
+
+	/**
+	 * Collects the ids found by a broadphase query.
+	 */
+	private class QueryCollector implements Broadphase.QueryCallback {
+		@Override
+		public void onResult(int id) {
+			if (numQueryIds == queryIds.length) {
+				int[] q = new int[queryIds.length * 2];
+				System.arraycopy(queryIds, 0, q, 0, numQueryIds);
+				queryIds = q;
+			}
+
+			queryIds[numQueryIds++] = id;
+		}
+	}
+
+	@Override
+	public void update(double deltaTime) {
+		Profiler.begin(Profiler.SCOPE_COLLISION);
+
+		ArrayList<HitBox> retired = retiredBoxes;             // Boxes removed before now aren't in any pair or contact this frame
+		retiredBoxes = removedBoxes;
+		removedBoxes = retired;
+
+		lastSleeps = 0;
+		lastWakes = 0;
+
+		for (int i = 0; i < invalidBoxes.size(); i++) {       // Update static hit boxes that were invalidated.
+			HitBox h = invalidBoxes.get(i);
+
+			if (h.removed || !h.isStatic) {                   // Removed, or added back as a moving box
+				continue;
+			}
+
+			h.invalid = false;
+			h.update();
+			staticIndex.update(h.id, h.minX, h.minY, h.maxX, h.maxY);
+			staticIndex.setFilter(h.id, h.category, h.mask);
+			staticCategories |= h.category;
+			staticMasks |= h.mask;
+			wakeSleepers(h);
+		}
+
+		invalidBoxes.clear();
+
+		for (int i = 0; i < wakeQueue.size(); i++) {          // Wake boxes before they are refreshed, including those under moved static boxes
+			wakeUp(wakeQueue.get(i));
+		}
+
+		wakeQueue.clear();
+
+		for (int i = 0; i < dynamicBoxes.size(); i++) {       // Update all the hit boxes that move.
+			HitBox h = dynamicBoxes.get(i);
+			int category = h.category;
+			int mask = h.mask;
+			double x = h.realX;
+			double y = h.realY;
+			double halfW = h.halfW;
+			double halfH = h.halfH;
+			double cos = h.cos;
+			double sin = h.sin;
+			PixelMask pixelMask = h.pixelMask;
+			boolean trigger = h.trigger;
+
+			h.update();
+			broadphase.update(h.id, h.minX, h.minY, h.maxX, h.maxY);
+
+			if (h.category != category || h.mask != mask) {
+				broadphase.setFilter(h.id, h.category, h.mask);
+			}
+
+			if (sleepFrames > 0) {
+				if (h.realX != x || h.realY != y || h.halfW != halfW || h.halfH != halfH || h.cos != cos || h.sin != sin
+						|| h.category != category || h.mask != mask || h.pixelMask != pixelMask || h.trigger != trigger) {
+					h.stillFrames = 0;
+				} else {
+					h.stillFrames++;
+				}
+			}
+		}
+
+		numPairs = 0;
+		broadphase.findPairs(pairCollector);
+
+		if (staticCategories != 0) {                          // Check moving boxes against static boxes
+			for (int i = 0; i < dynamicBoxes.size(); i++) {
+				HitBox h = dynamicBoxes.get(i);
+
+				if ((h.mask & staticCategories) != 0 || (staticMasks & h.category) != 0) {
+					staticCollector.dynamicId = h.id;
+					staticIndex.query(h.minX, h.minY, h.maxX, h.maxY, staticCollector);
+				}
+			}
+		}
+
+		// Handle collisions in order of the handler's hit box, then the other hit box, no matter the broadphase
+		sortPairs();
+
+		if (parallelNarrowphase && numPairs >= parallelThreshold) {
+			testParallel();
+		} else {
+			for (int i = 0; i < numPairs; i++) {
+				HitBox h1 = hitBoxes.get((int) (pairs[i] >>> 32));
+				HitBox h2 = hitBoxes.get((int) pairs[i]);
+
+				if (h1.removed || h2.removed) {               // Removed by a handler earlier this frame
+					continue;
+				}
+
+				double time = test(h1, h2);
+
+				if (time >= 0) {
+					dispatch(pairs[i], h1, h2, time);
+				}
+			}
+		}
+
+		boolean kept = false;
+
+		for (int i = 0; i < numContacts; i++) {                // Fire exits for contacts that ended this frame
+			if (!newContacts.contains(contactList[i])) {
+				HitBox h1 = hitBoxes.get((int) (contactList[i] >>> 32));
+				HitBox h2 = hitBoxes.get((int) contactList[i]);
+				CollisionHandler handler = h1.c.getCollisionHandler();
+
+				if (h1.removed) {
+					continue;
+				}
+
+				if (handler instanceof TriggerHandler) {
+					if (!h2.removed && !isAwake(h1) && !isAwake(h2)) {
+						addContact(contactList[i]);           // Not checked because neither box moves, so still inside
+						kept = true;
+					} else {
+						((TriggerHandler) handler).onTriggerExit(h2.c);
+					}
+				} else if (handler instanceof ContactHandler) {
+					((ContactHandler) handler).onCollisionExit(h2.c);
+				}
+			}
+		}
+
+		if (kept) {
+			Arrays.sort(newContactList, 0, numNewContacts);
+		}
+
+		if (sleepFrames > 0) {                                // Put boxes that have been still long enough to sleep
+			for (int i = dynamicBoxes.size() - 1; i >= 0; i--) {
+				HitBox h = dynamicBoxes.get(i);
+
+				if (h.stillFrames >= sleepFrames) {
+					sleep(h);
+					lastSleeps++;
+				}
+			}
+		}
+
+		swapContacts();
+		freeIds();
+
+		if (showBoxes && parent != null && parent.getRoom() != null) {
+			drawBoxes(parent.getRoom().getDebugDraw());
+		}
+
+		Profiler.end(Profiler.SCOPE_COLLISION);
+	}
+
+	/**
+	 * Sort this frame's pairs. The pairs are first put in order of their handler's id with a
+	 * counting sort, since ids are small and dense, so only each handler's own pairs are left
+	 * to sort. Most handlers have a few pairs, so this is close to O(pairs + hit boxes)
+	 * instead of O(pairs log pairs).
+	 */
+	private void sortPairs() {
+		int numIds = hitBoxes.size();
+
+		if (pairStarts == null || pairStarts.length < numIds + 1) {
+			pairStarts = new int[Math.max(numIds + 1, pairStarts == null ? 0 : pairStarts.length * 2)];
+		} else {
+			Arrays.fill(pairStarts, 0, numIds + 1, 0);
+		}
+
+		if (sortedPairs == null || sortedPairs.length < pairs.length) {
+			sortedPairs = new long[pairs.length];
+		}
+
+		for (int i = 0; i < numPairs; i++) {                  // Count the pairs of each handler id
+			pairStarts[(int) (pairs[i] >>> 32) + 1]++;
+		}
+
+		for (int id = 0; id < numIds; id++) {
+			pairStarts[id + 1] += pairStarts[id];
+		}
+
+		for (int i = 0; i < numPairs; i++) {                  // Each id's start moves up to the next id's start
+			sortedPairs[pairStarts[(int) (pairs[i] >>> 32)]++] = pairs[i];
+		}
+
+		int start = 0;
+
+		for (int id = 0; id < numIds; id++) {                 // Sort the pairs of each handler
+			int end = pairStarts[id];
+
+			if (end - start > MAX_INSERTION_SORT) {
+				Arrays.sort(sortedPairs, start, end);
+			} else {
+				for (int i = start + 1; i < end; i++) {
+					long pair = sortedPairs[i];
+					int j = i - 1;
+
+					while (j >= start && sortedPairs[j] > pair) {
+						sortedPairs[j + 1] = sortedPairs[j];
+						j--;
+					}
+
+					sortedPairs[j + 1] = pair;
+				}
+			}
+
+			start = end;
+		}
+
+		long[] p = pairs;
+		pairs = sortedPairs;
+		sortedPairs = p;
+	}
+
+	/**
+	 * Let the ids of the hit boxes removed before this update be used again.
+	 */
+	private void freeIds() {
+		for (int i = 0; i < retiredBoxes.size(); i++) {
+			HitBox h = retiredBoxes.get(i);
+
+			if (!h.removed || pendingBoxes.get(h.c) != h) {  // Added back, or already freed
+				continue;
+			}
+
+			pendingBoxes.remove(h.c);
+			hitBoxes.set(h.id, null);
+
+			if (numFreeIds == freeIds.length) {
+				int[] f = new int[freeIds.length * 2];
+				System.arraycopy(freeIds, 0, f, 0, numFreeIds);
+				freeIds = f;
+			}
+
+			freeIds[numFreeIds++] = h.id;
+		}
+
+		retiredBoxes.clear();
+	}
+
+	/**
+	 * Test the pairs on all cores, then call the handlers on this thread. Each chunk is a
+	 * run of neighboring pairs, so going through the chunks in order calls the handlers in
+	 * the sorted order of the pairs, the same as testing on one thread.
+	 */
+	private void testParallel() {
+		WorkerPool pool = WorkerPool.getInstance();
+		int numChunks = (numPairs + MIN_CHUNK_PAIRS - 1) / MIN_CHUNK_PAIRS;
+		int maxChunks = pool.getNumThreads() * CHUNKS_PER_THREAD;
+
+		if (numChunks > maxChunks) {
+			numChunks = maxChunks;
+		}
+
+		if (hitPairs == null || hitPairs.length < numPairs) {
+			hitPairs = new int[pairs.length];
+			hitTimes = new double[pairs.length];
+		}
+
+		if (chunkHits == null || chunkHits.length < numChunks) {
+			chunkHits = new int[numChunks];
+		}
+
+		if (narrowphaseTask == null) {
+			narrowphaseTask = new NarrowphaseTask();
+		}
+
+		narrowphaseTask.chunkSize = (numPairs + numChunks - 1) / numChunks;
+
+		pool.run(narrowphaseTask, numChunks);
+
+		for (int c = 0; c < numChunks; c++) {
+			int start = c * narrowphaseTask.chunkSize;
+
+			for (int k = start; k < start + chunkHits[c]; k++) {
+				long pair = pairs[hitPairs[k]];
+				HitBox h1 = hitBoxes.get((int) (pair >>> 32));
+				HitBox h2 = hitBoxes.get((int) pair);
+
+				if (!h1.removed && !h2.removed) {             // Not removed by a handler earlier this frame
+					dispatch(pair, h1, h2, hitTimes[k]);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Tests one chunk of pairs. Only reads the hit boxes and writes to the chunk's own part
+	 * of hitPairs and hitTimes, so chunks can run at the same time.
+	 */
+	private class NarrowphaseTask implements WorkerPool.Task {
+		int chunkSize;
+
+		@Override
+		public void run(int chunk) {
+			int start = chunk * chunkSize;
+			int end = Math.min(start + chunkSize, numPairs);
+			int count = 0;
+
+			for (int i = start; i < end; i++) {
+				HitBox h1 = hitBoxes.get((int) (pairs[i] >>> 32));
+				HitBox h2 = hitBoxes.get((int) pairs[i]);
+
+				if (h1.removed || h2.removed) {
+					continue;
+				}
+
+				double time = test(h1, h2);
+
+				if (time >= 0) {
+					hitPairs[start + count] = i;
+					hitTimes[start + count] = time;
+					count++;
+				}
+			}
+
+			chunkHits[chunk] = count;
+		}
+	}
+
+	/**
+	 * Check if two hit boxes collided this frame. Only reads the hit boxes, so it can be
+	 * called from any thread.
+	 *
+	 * Where the boxes are now decides if they collided. If they didn't and one of them is
+	 * continuous, their shapes are tested along the paths they moved this frame.
+	 *
+	 * @return -1 if they didn't collide. Otherwise, how far along the frame they touched,
+	 * from 0 to 1. This is 1 unless one of them is continuous.
+	 */
+	private static double test(HitBox h1, HitBox h2) {
+		if (h1.c == h2.c) {                                   // Make sure it isn't the same CollisionBox!
+			return -1;
+		}
+
+		boolean collided;
+
+		if (h1.shape == CollisionShape.SHAPE_BOX && h2.shape == CollisionShape.SHAPE_BOX) {
+			collided = ((h2.y <= h1.y + h2.h) && (h2.y >= h1.y - h1.h)) && ((h2.x >= h1.x - h2.w) && (h2.x <= h1.x + h1.w));
+		} else {
+			collided = overlaps(h1, h2);
+		}
+
+		if (collided && (h1.pixelMask != null || h2.pixelMask != null)) {
+			collided = masksOverlap(h1, h2);
+		}
+
+		if (!h1.continuous && !h2.continuous) {
+			return collided ? 1 : -1;
+		}
+
+		double time = sweepShapes(h1, h2);
+
+		if (collided) {
+			return time >= 0 ? time : 1;                      // The cells can touch where the real bounds don't
+		}
+
+		return time;
+	}
+
 	/**
-	 * Create a new collision system.
+	 * Call the handler of h1 for a collision with h2.
 	 */
-	public CollisionSystem() {
-		init();
+	private void dispatch(long pair, HitBox h1, HitBox h2, double time) {
+		CollisionHandler handler = h1.c.getCollisionHandler();
+
+		if (handler instanceof TriggerHandler) {
+			addContact(pair);
+
+			if (!contacts.contains(pair)) {
+				((TriggerHandler) handler).onTriggerEnter(h2.c);
+			}
+
+			return;
+		}
+
+		// Boxes stay awake while they are colliding, and a handler might move its box
+		h1.stillFrames = 0;
+		h2.stillFrames = 0;
+		queueWake(h1);
+
+		if (handler instanceof ContactHandler) {
+			addContact(pair);
+
+			if (contacts.contains(pair)) {
+				((ContactHandler) handler).onCollisionStay(h2.c);
+			} else {
+				((ContactHandler) handler).onCollisionEnter(h2.c);
+			}
+		} else if (handler instanceof ContinuousCollisionHandler) {
+			((ContinuousCollisionHandler) handler).onCollision(h2.c, time);
+		} else {
+			handler.onCollision(h2.c);
+		}
 	}
 
 	/**
-	 * Create a new collision system.
+	 * Returns true if h is refreshed and checked against every other box each frame.
 	 */
-	public CollisionSystem(Entity parent) {
-		parent.addComponent(this);
-		this.parent = parent;
-		init();
+	private static boolean isAwake(HitBox h) {
+		return !h.isStatic && !h.asleep;
 	}
 
-	private void init() {
-		hitBoxes = new ArrayList<HitBox>();
-		cellW = DEF_CELL_W;
-		cellH = DEF_CELL_H;
+	/**
+	 * Check if the masks of two touching hit boxes have a solid pixel in the same place. Each
+	 * mask is stretched over the real bounds of its box. A box without a mask is solid.
+	 */
+	private static boolean masksOverlap(HitBox a, HitBox b) {
+		return masksOverlap(a, a.realX, a.realY, b, b.realX, b.realY);
 	}
 
-	public void setParent(Entity parent) {
-		this.parent = parent;
+	/**
+	 * Check if the masks of two hit boxes centered at (aX, aY) and (bX, bY) have a solid
+	 * pixel in the same place.
+	 */
+	private static boolean masksOverlap(HitBox a, double aX, double aY, HitBox b, double bX, double bY) {
+		PixelMask aMask = a.pixelMask != null ? a.pixelMask : SOLID;
+		PixelMask bMask = b.pixelMask != null ? b.pixelMask : SOLID;
+
+		// Masks go down from the top edge, but y goes up
+		return PixelMask.overlaps(aMask, aX - a.halfW, -(aY + a.halfH), a.halfW * 2 / aMask.width, a.halfH * 2 / aMask.height,
+				bMask, bX - b.halfW, -(bY + b.halfH), b.halfW * 2 / bMask.width, b.halfH * 2 / bMask.height);
 	}
 
-	public void showBoxes(boolean show) {
-		if (parent != null) {
-			QuadRenderSystem renderSystem = parent.getRoom().getQuadRenderSystem(new Graphic());
-			renderSystem.setLayerColor(2, 1, 0, 0, 0.5f);
-
-			if (show) {
-				for (final HitBox h : hitBoxes) {
-					final GraphicAreaTransformation graphic = new AnimatedGraphicAreaTransform();
-
-					Quad q = new Quad() {
-						@Override
-						public Transformation getTransformation() {
-							return h.c.getBoxTransformation();
-						}
-
-						@Override
-						public GraphicAreaTransformation getGraphicAreaTransformation() {
-							return graphic;
-						}
-					};
-
-					renderSystem.addQuad(q);
-				}
-			} else {
-				renderSystem.removeAllQuads();
-			}
+	/**
+	 * Check if the real shapes of two hit boxes touch. Boxes are tested with the separating
+	 * axis test, circles against boxes by finding the closest point of the box to the circle.
+	 */
+	private static boolean overlaps(HitBox a, HitBox b) {
+		return overlaps(a, b, b.realX - a.realX, b.realY - a.realY);
+	}
+
+	/**
+	 * Check if the real shapes of two hit boxes touch when the center of b is (dX, dY) from
+	 * the center of a.
+	 */
+	private static boolean overlaps(HitBox a, HitBox b, double dX, double dY) {
+		if (a.shape == CollisionShape.SHAPE_CIRCLE && b.shape == CollisionShape.SHAPE_CIRCLE) {
+			double r = Math.min(a.halfW, a.halfH) + Math.min(b.halfW, b.halfH);
+
+			return dX * dX + dY * dY <= r * r;
+		} else if (a.shape == CollisionShape.SHAPE_CIRCLE) {
+			return circleOverlapsBox(a, b, -dX, -dY);
+		} else if (b.shape == CollisionShape.SHAPE_CIRCLE) {
+			return circleOverlapsBox(b, a, dX, dY);
 		}
+
+		// Each box has two axes, so four axes have to be checked
+		return !separated(a, b, dX, dY, a.cos, a.sin) && !separated(a, b, dX, dY, -a.sin, a.cos)
+				&& !separated(a, b, dX, dY, b.cos, b.sin) && !separated(a, b, dX, dY, -b.sin, b.cos);
 	}
 
 	/**
-	 * Set the dimensions of a single cell on the cell grid. Larger cells means
-	 * larger hit boxes. The smallest value is 1 which will cause cells to be
-	 * one pixel. Default value is 1.
-	 *
-	 * @param cellW Width of a cell.
-	 * @param cellH Height of a cell.
+	 * Returns true if the projections of boxes a and b onto the axis (axisX, axisY) don't overlap
+	 * when the center of b is (dX, dY) from the center of a.
 	 */
-	public void setCellDim(int cellW, int cellH) {
-		if (cellW < 1) cellW = 1;
-		if (cellH < 1) cellH = 1;
-		this.cellW = cellW;
-		this.cellH = cellH;
+	private static boolean separated(HitBox a, HitBox b, double dX, double dY, double axisX, double axisY) {
+		double distance = Math.abs(dX * axisX + dY * axisY);
+		double radiusA = a.halfW * Math.abs(a.cos * axisX + a.sin * axisY) + a.halfH * Math.abs(-a.sin * axisX + a.cos * axisY);
+		double radiusB = b.halfW * Math.abs(b.cos * axisX + b.sin * axisY) + b.halfH * Math.abs(-b.sin * axisX + b.cos * axisY);
+
+		return distance > radiusA + radiusB;
 	}
 
 	/**
-	 * Add each CollisionBox component of Entity e to this system.
-	 * @param e an Entity with CollisionBox components.
+	 * Check if circle touches box when the center of circle is (dX, dY) from the center of box.
 	 */
-	public void addEntity(Entity e) {
-		ArrayList<CollisionBox> collisionBoxes = e.getComponentsOfType(CollisionBox.class);
+	private static boolean circleOverlapsBox(HitBox circle, HitBox box, double dX, double dY) {
+		double r = Math.min(circle.halfW, circle.halfH);
 
-		if (e instanceof CollisionBox) {
-			addCollidable((CollisionBox) e);
-		}
+		double localX = dX * box.cos + dY * box.sin;        // Circle center in the box's rotated frame
+		double localY = -dX * box.sin + dY * box.cos;
 
-		for (CollisionBox c: collisionBoxes) {
-			addCollidable(c);
+		double closestX = Math.max(-box.halfW, Math.min(box.halfW, localX));
+		double closestY = Math.max(-box.halfH, Math.min(box.halfH, localY));
+
+		dX = localX - closestX;
+		dY = localY - closestY;
+
+		return dX * dX + dY * dY <= r * r;
+	}
+
+	/**
+	 * Check if the real shape of a hit box contains a point.
+	 */
+	private static boolean containsPoint(HitBox h, double x, double y) {
+		double dX = x - h.realX;
+		double dY = y - h.realY;
+		double localX = dX * h.cos + dY * h.sin;              // Point in the box's rotated frame
+		double localY = -dX * h.sin + dY * h.cos;
+
+		if (h.shape == CollisionShape.SHAPE_CIRCLE) {
+			double r = Math.min(h.halfW, h.halfH);
+			return localX * localX + localY * localY <= r * r;
 		}
+
+		return Math.abs(localX) <= h.halfW && Math.abs(localY) <= h.halfH;
 	}
 
 	/**
-	 * Add a new CollisionBox to this collision system.
-	 * @param c The CollisionBox to add to this collision system.
+	 * Find how far a ray travels before it hits the real shape of a hit box. The direction
+	 * must have a length of 1.
+	 *
+	 * @return The distance to the hit, 0 if the ray starts inside the box, or -1 if it misses.
 	 */
-	public void addCollidable(CollisionBox c) {
-		hitBoxes.add(new HitBox(c));
+	private static double rayDistance(HitBox h, double x, double y, double dirX, double dirY) {
+		double dX = x - h.realX;
+		double dY = y - h.realY;
+		double localX = dX * h.cos + dY * h.sin;              // Ray in the box's rotated frame
+		double localY = -dX * h.sin + dY * h.cos;
+		double localDirX = dirX * h.cos + dirY * h.sin;
+		double localDirY = -dirX * h.sin + dirY * h.cos;
+
+		if (h.shape == CollisionShape.SHAPE_CIRCLE) {
+			double r = Math.min(h.halfW, h.halfH);
+			double b = localX * localDirX + localY * localDirY;
+			double c = localX * localX + localY * localY - r * r;
+
+			if (c <= 0) return 0;                             // Starts inside
+
+			double discriminant = b * b - c;
+
+			if (discriminant < 0) return -1;
+
+			double t = -b - Math.sqrt(discriminant);
+			return t >= 0 ? t : -1;
+		}
+
+		double enter = 0;
+		double exit = Double.POSITIVE_INFINITY;
+
+		if (localDirX == 0) {
+			if (Math.abs(localX) > h.halfW) return -1;
+		} else {
+			double t1 = (-h.halfW - localX) / localDirX;
+			double t2 = (h.halfW - localX) / localDirX;
+
+			enter = Math.max(enter, Math.min(t1, t2));
+			exit = Math.min(exit, Math.max(t1, t2));
+		}
+
+		if (localDirY == 0) {
+			if (Math.abs(localY) > h.halfH) return -1;
+		} else {
+			double t1 = (-h.halfH - localY) / localDirY;
+			double t2 = (h.halfH - localY) / localDirY;
+
+			enter = Math.max(enter, Math.min(t1, t2));
+			exit = Math.min(exit, Math.max(t1, t2));
+		}
+
+		return enter <= exit ? enter : -1;
 	}
 
-	@Override
-	public void update(double deltaTime) {
-		for (int i = 0; i < hitBoxes.size(); i++) {           // Update all the hit boxes.
-			hitBoxes.get(i).update();
+	/**
+	 * Find when the real shapes of two hit boxes first touch while moving in straight lines
+	 * from their last positions to their current positions. The swept bounds give the part of
+	 * the frame they can touch in. The shapes are tested at steps through that part, each
+	 * shorter than the smallest half size of the two boxes, and the first touch is narrowed
+	 * down between the last step that missed and the step that touched.
+	 *
+	 * @return The time of impact from 0 to 1, or -1 if the shapes don't touch this frame.
+	 */
+	private static double sweepShapes(HitBox a, HitBox b) {
+		double enter = sweep(a, b, false);
+
+		if (enter < 0) {
+			return -1;
 		}
 
-		for (int i = 0; i < hitBoxes.size(); i++) {           // Find all the CollisionHandlers.
-			HitBox h1 = hitBoxes.get(i);
+		double exit = sweep(a, b, true);
+		double moveX = (b.realX - b.lastX) - (a.realX - a.lastX);
+		double moveY = (b.realY - b.lastY) - (a.realY - a.lastY);
+		double distance = Math.sqrt(moveX * moveX + moveY * moveY) * (exit - enter);
+		double size = Math.min(Math.min(a.halfW, a.halfH), Math.min(b.halfW, b.halfH));
+		int steps = size > 0 ? (int) Math.min(Math.ceil(distance / size), MAX_SWEEP_STEPS) : MAX_SWEEP_STEPS;
+
+		steps = Math.max(steps, 1);
 
-			if (h1.c.getCollisionHandler() != null) {         // Is this hit box for a CollisionHandler?
-				for (int j = 0; j < hitBoxes.size(); j++) {   // Compare hit box h1 to all other hit boxes.
-					HitBox h2 = hitBoxes.get(j);
+		double missed = enter;
 
-					if (h1.c != h2.c) {                       // Make sure it isn't the same CollisionBox!
-						boolean collided = ((h2.y <= h1.y + h2.h) && (h2.y >= h1.y - h1.h)) && ((h2.x >= h1.x - h2.w) && (h2.x <= h1.x + h1.w));
+		for (int i = 0; i <= steps; i++) {
+			double t = enter + (exit - enter) * i / steps;
 
-						if (collided) {
-							h1.c.getCollisionHandler().onCollision(h2.c);
-						}
+			if (touchesAt(a, b, t)) {
+				if (i == 0) {
+					return t;
+				}
+
+				for (int j = 0; j < SWEEP_REFINE_STEPS; j++) {
+					double mid = (missed + t) / 2;
+
+					if (touchesAt(a, b, mid)) {
+						t = mid;
+					} else {
+						missed = mid;
 					}
 				}
+
+				return t;
+			}
+
+			missed = t;
+		}
+
+		return -1;
+	}
+
+	/**
+	 * Check if the real shapes of two hit boxes touch at a time from 0 to 1 along the paths
+	 * they moved this frame. Boxes are tested by their real bounds instead of their cells.
+	 */
+	private static boolean touchesAt(HitBox a, HitBox b, double t) {
+		double aX = a.lastX + (a.realX - a.lastX) * t;
+		double aY = a.lastY + (a.realY - a.lastY) * t;
+		double bX = b.lastX + (b.realX - b.lastX) * t;
+		double bY = b.lastY + (b.realY - b.lastY) * t;
+		boolean touched;
+
+		if (a.shape == CollisionShape.SHAPE_BOX && b.shape == CollisionShape.SHAPE_BOX) {
+			touched = Math.abs(bX - aX) <= a.extentX + b.extentX && Math.abs(bY - aY) <= a.extentY + b.extentY;
+		} else {
+			touched = overlaps(a, b, bX - aX, bY - aY);
+		}
+
+		if (touched && (a.pixelMask != null || b.pixelMask != null)) {
+			touched = masksOverlap(a, aX, aY, b, bX, bY);
+		}
+
+		return touched;
+	}
+
+	/**
+	 * Find when the real axis-aligned bounds of two hit boxes first or last touch while moving
+	 * in straight lines from their last positions to their current positions.
+	 *
+	 * @param exit False to find when they first touch, true to find when they last touch.
+	 * @return The time from 0 to 1, or -1 if they don't touch this frame.
+	 */
+	private static double sweep(HitBox a, HitBox b, boolean exit) {
+		double enter = 0;
+		double leave = 1;
+
+		// X axis: b's position and velocity relative to a
+		double d = b.lastX - a.lastX;
+		double v = (b.realX - b.lastX) - (a.realX - a.lastX);
+		double e = a.extentX + b.extentX;
+
+		if (v == 0) {
+			if (Math.abs(d) > e) return -1;
+		} else {
+			double t1 = (-e - d) / v;
+			double t2 = (e - d) / v;
+
+			enter = Math.max(enter, Math.min(t1, t2));
+			leave = Math.min(leave, Math.max(t1, t2));
+		}
+
+		// Y axis
+		d = b.lastY - a.lastY;
+		v = (b.realY - b.lastY) - (a.realY - a.lastY);
+		e = a.extentY + b.extentY;
+
+		if (v == 0) {
+			if (Math.abs(d) > e) return -1;
+		} else {
+			double t1 = (-e - d) / v;
+			double t2 = (e - d) / v;
+
+			enter = Math.max(enter, Math.min(t1, t2));
+			leave = Math.min(leave, Math.max(t1, t2));
+		}
+
+		if (enter > leave) return -1;
+
+		return exit ? leave : enter;
+	}
+
+	/**
+	 * Record a collision of a ContactHandler for this frame. Keys are added in sorted order.
+	 */
+	private void addContact(long key) {
+		newContacts.add(key);
+
+		if (numNewContacts == newContactList.length) {
+			long[] c = new long[newContactList.length * 2];
+			System.arraycopy(newContactList, 0, c, 0, numNewContacts);
+			newContactList = c;
+		}
+
+		newContactList[numNewContacts++] = key;
+	}
+
+	/**
+	 * Make this frame's contacts last frame's contacts.
+	 */
+	private void swapContacts() {
+		LongHashSet set = contacts;
+		contacts = newContacts;
+		newContacts = set;
+		newContacts.clear();
+
+		long[] list = contactList;
+		contactList = newContactList;
+		newContactList = list;
+		numContacts = numNewContacts;
+		numNewContacts = 0;
+	}
+
+	/**
+	 * Returns the largest float that isn't more than value, so bounds given to the
+	 * broadphase never shrink when they are stored as floats.
+	 */
+	private static float roundDown(double value) {
+		float f = (float) value;
+		return f > value ? Math.nextAfter(f, Double.NEGATIVE_INFINITY) : f;
+	}
+
+	/**
+	 * Returns the smallest float that isn't less than value.
+	 */
+	private static float roundUp(double value) {
+		float f = (float) value;
+		return f < value ? Math.nextAfter(f, Double.POSITIVE_INFINITY) : f;
+	}
+
+	/**
+	 * Turns each pair found by the broadphase into a collision to check for each hit box
+	 * in the pair that can collide with the other.
+	 */
+	private class PairCollector implements Broadphase.PairCallback {
+		@Override
+		public void onPair(int idA, int idB) {
+			HitBox a = hitBoxes.get(idA);
+			HitBox b = hitBoxes.get(idB);
+
+			// Only a trigger's own handler is told about it
+			if ((a.mask & b.category) != 0 && !b.trigger) add(idA, idB);
+			if ((b.mask & a.category) != 0 && !a.trigger) add(idB, idA);
+		}
+
+		private void add(int handlerId, int otherId) {
+			if (numPairs == pairs.length) {
+				long[] p = new long[pairs.length * 2];
+				System.arraycopy(pairs, 0, p, 0, numPairs);
+				pairs = p;
 			}
+
+			pairs[numPairs++] = ((long) handlerId << 32) | otherId;
+		}
+	}
+
+	/**
+	 * Wakes each sleeping box found under a static box.
+	 */
+	private class SleeperCollector implements Broadphase.QueryCallback {
+		@Override
+		public void onResult(int id) {
+			queueWake(hitBoxes.get(id));
+		}
+	}
+
+	/**
+	 * Turns each static box found near a moving box into a pair.
+	 */
+	private class StaticCollector implements Broadphase.QueryCallback {
+		int dynamicId;     // The moving box being checked
+
+		@Override
+		public void onResult(int id) {
+			pairCollector.onPair(dynamicId, id);
 		}
 	}
 
@@ -242,9 +1965,96 @@ public class CollisionSystem implements Updatable {
 		};
 	}
 
+	/**
+	 * Generates a new CollisionBox using the provided Transformation for the bounds that
+	 * only collides with certain categories of boxes. See CollisionFilter.
+	 *
+	 * @param transformation A Transformation defining the bounds of the CollisionBox
+	 * @param collisionHandler A CollisionHandler, optional.
+	 * @param owner The Entity that this box belongs to.
+	 * @param category The category bits of the new box.
+	 * @param mask The categories the new box collides with.
+	 *
+	 * @return A new CollisionBox that is also a CollisionFilter
+	 */
+	public static CollisionBox generateCollisionBox(Transformation transformation, CollisionHandler collisionHandler, Entity owner, int category, int mask) {
+		return new GeneratedCollisionBox(transformation, collisionHandler, owner, CollisionShape.SHAPE_BOX, category, mask);
+	}
+
+	/**
+	 * Generates a new CollisionBox using the provided Transformation for the bounds with
+	 * the given shape. See CollisionShape.
+	 *
+	 * @param transformation A Transformation defining the bounds of the CollisionBox
+	 * @param collisionHandler A CollisionHandler, optional.
+	 * @param owner The Entity that this box belongs to.
+	 * @param shape The shape of the new box. One of the CollisionShape.SHAPE_ constants.
+	 *
+	 * @return A new CollisionBox that is also a CollisionShape
+	 */
+	public static CollisionBox generateCollisionBox(Transformation transformation, CollisionHandler collisionHandler, Entity owner, int shape) {
+		return new GeneratedCollisionBox(transformation, collisionHandler, owner, shape, CollisionFilter.CATEGORY_DEFAULT, CollisionFilter.MASK_ALL);
+	}
+
+	/**
+	 * Generates a new CollisionBox using the provided Transformation for the bounds with
+	 * the given shape that only collides with certain categories of boxes. See
+	 * CollisionShape and CollisionFilter.
+	 *
+	 * @param transformation A Transformation defining the bounds of the CollisionBox
+	 * @param collisionHandler A CollisionHandler, optional.
+	 * @param owner The Entity that this box belongs to.
+	 * @param shape The shape of the new box. One of the CollisionShape.SHAPE_ constants.
+	 * @param category The category bits of the new box.
+	 * @param mask The categories the new box collides with.
+	 *
+	 * @return A new CollisionBox that is also a CollisionShape and a CollisionFilter
+	 */
+	public static CollisionBox generateCollisionBox(Transformation transformation, CollisionHandler collisionHandler, Entity owner, int shape, int category, int mask) {
+		return new GeneratedCollisionBox(transformation, collisionHandler, owner, shape, category, mask);
+	}
+
+	/**
+	 * Generates a new CollisionBox using the provided Transformation for the bounds with
+	 * the given shape, categories, and continuous collision detection. See CollisionShape,
+	 * CollisionFilter, and ContinuousCollision.
+	 *
+	 * @param transformation A Transformation defining the bounds of the CollisionBox
+	 * @param collisionHandler A CollisionHandler, optional.
+	 * @param owner The Entity that this box belongs to.
+	 * @param shape The shape of the new box. One of the CollisionShape.SHAPE_ constants.
+	 * @param category The category bits of the new box.
+	 * @param mask The categories the new box collides with.
+	 * @param continuous True if the new box should be checked along the path it moves each frame.
+	 *
+	 * @return A new CollisionBox that is also a CollisionShape, a CollisionFilter, and a ContinuousCollision
+	 */
+	public static CollisionBox generateCollisionBox(Transformation transformation, CollisionHandler collisionHandler, Entity owner, int shape, int category, int mask, boolean continuous) {
+		GeneratedCollisionBox box = new GeneratedCollisionBox(transformation, collisionHandler, owner, shape, category, mask);
+		box.continuous = continuous;
+		return box;
+	}
+
 	public static boolean checkPosition(CollisionBox c, double x, double y) {
 		Transformation t = c.getBoxTransformation();
 
+		if (c instanceof CollisionShape && ((CollisionShape) c).getCollisionShape() != CollisionShape.SHAPE_BOX) {
+			double hw = Math.abs(t.getWidth()) * Transform.getRealScale(t) / 2;
+			double hh = Math.abs(t.getHeight()) * Transform.getRealScale(t) / 2;
+			double angle = Math.toRadians(Transform.getRealAngle(t));
+			double dX = x - Transform.getRealX(t);
+			double dY = y - Transform.getRealY(t);
+			double localX = dX * Math.cos(angle) + dY * Math.sin(angle);    // Point in the box's rotated frame
+			double localY = -dX * Math.sin(angle) + dY * Math.cos(angle);
+
+			if (((CollisionShape) c).getCollisionShape() == CollisionShape.SHAPE_CIRCLE) {
+				double r = Math.min(hw, hh);
+				return localX * localX + localY * localY <= r * r;
+			}
+
+			return Math.abs(localX) <= hw && Math.abs(localY) <= hh;
+		}
+
 		int x1 = (int) (Transform.getRealX(t) - Math.abs(t.getWidth()) * Transform.getRealScale(t) / 2);
 		int y1 = (int) (Transform.getRealY(t) + Math.abs(t.getHeight()) * Transform.getRealScale(t) / 2);
 
@@ -254,6 +2064,53 @@ public class CollisionSystem implements Updatable {
 		return x >= x1 && x <= x2 && y <= y1 && y >= y2;
 	}
 
+	private static class GeneratedCollisionBox implements CollisionBox, CollisionFilter, CollisionShape, ContinuousCollision {
+		private Transformation transformation;
+		private CollisionHandler collisionHandler;
+		private Entity owner;
+		private int shape;
+		private int category;
+		private int mask;
+		private boolean continuous;
+
+		GeneratedCollisionBox(Transformation transformation, CollisionHandler collisionHandler, Entity owner, int shape, int category, int mask) {
+			this.transformation = transformation;
+			this.collisionHandler = collisionHandler;
+			this.owner = owner;
+			this.shape = shape;
+			this.category = category;
+			this.mask = mask;
+		}
+
+		@Override public Transformation getBoxTransformation() {
+			return transformation;
+		}
+
+		@Override public CollisionHandler getCollisionHandler() {
+			return collisionHandler;
+		}
+
+		@Override public Entity getEntity() {
+			return owner;
+		}
+
+		@Override public int getCollisionCategory() {
+			return category;
+		}
+
+		@Override public int getCollisionMask() {
+			return mask;
+		}
+
+		@Override public int getCollisionShape() {
+			return shape;
+		}
+
+		@Override public boolean isContinuous() {
+			return continuous;
+		}
+	}
+
 	/**
 	 * An instance of this class is generated for each CollisionBox in this system each frame.
 	 * The information held in the class is used to determine if two Collidables have collided
@@ -261,18 +2118,54 @@ public class CollisionSystem implements Updatable {
 	 */
 	private class HitBox {
 		CollisionBox c;    // The collidable from which this hit box was generated.
+		int id;            // The id of this hit box in the broadphase.
+		int category;      // The category bits of c.
+		int mask;          // The categories c collides with. 0 if c has no CollisionHandler.
+		int shape;         // The CollisionShape of c.
+		boolean continuous; // True if c is checked along the path it moved this frame.
+		boolean trigger;   // True if c's handler is a TriggerHandler.
+		PixelMask pixelMask; // The solid pixels of c this frame. Null if c is solid everywhere.
 
 		int x; // The x position on the cell grid of the upper left corner of this box.
 		int y; // The y position on the cell grid of the upper left corner of this box.
 		int w; // The width in cells on the cell grid of this box.
 		int h; // The width in cells on the cell grid of this box.
 
+		double realX;      // The real center of this box.
+		double realY;
+		double halfW;      // Half of the real width of this box.
+		double halfH;      // Half of the real height of this box.
+		double angle;      // The real angle in degrees. Always 0 for SHAPE_BOX.
+		double cos;        // Cosine and sine of the real angle. Always 1 and 0 for SHAPE_BOX.
+		double sin;
+		double extentX;    // Half the size of the real axis-aligned bounds of this box.
+		double extentY;
+
+		double lastX;      // The real center of this box last frame.
+		double lastY;
+		boolean hasLast;   // False until this box has been updated once.
+		boolean isStatic;  // True if this box is only updated when it is added or invalidated.
+		boolean invalid;   // True if this static box is waiting to be updated.
+		boolean removed;   // True once c has been removed from this system.
+		int index;         // The index of this box in dynamicBoxes, or in sleepingBoxes while it is asleep.
+		boolean asleep;    // True if this moving box is asleep and kept in staticIndex.
+		boolean waking;    // True if this box is in wakeQueue.
+		int stillFrames;   // Updates in a row this box hasn't changed or collided.
+		Entity owner;      // c.getEntity() when c was added.
+
+		float minX;        // Bounds of this box on the cell grid given to the broadphase. They contain
+		float minY;        // both the cells and the real bounds so any pair that might touch is found.
+		float maxX;
+		float maxY;
+
 		/**
 		 * Generates a new hit box.
 		 * @param c
+		 * @param id
 		 */
-		public HitBox(CollisionBox c) {
+		public HitBox(CollisionBox c, int id) {
 			this.c = c;
+			this.id = id;
 		}
 
 		/**
@@ -281,16 +2174,91 @@ public class CollisionSystem implements Updatable {
 		public void update() {
 			Transformation t = c.getBoxTransformation();
 
-			int x1 = (int) (Transform.getRealX(t) - Math.abs(t.getWidth()) * Transform.getRealScale(t) / 2) / cellW;
-			int y1 = (int) (Transform.getRealY(t) + Math.abs(t.getHeight()) * Transform.getRealScale(t) / 2) / cellH;
+			if (c instanceof CollisionFilter) {
+				category = ((CollisionFilter) c).getCollisionCategory();
+				mask = ((CollisionFilter) c).getCollisionMask();
+			} else {
+				category = CollisionFilter.CATEGORY_DEFAULT;
+				mask = CollisionFilter.MASK_ALL;
+			}
+
+			CollisionHandler handler = c.getCollisionHandler();
+
+			if (handler == null) {
+				mask = 0;                                     // Nothing would handle a collision
+			}
+
+			trigger = handler instanceof TriggerHandler;
+
+			shape = c instanceof CollisionShape ? ((CollisionShape) c).getCollisionShape() : CollisionShape.SHAPE_BOX;
+
+			continuous = !isStatic && c instanceof ContinuousCollision && ((ContinuousCollision) c).isContinuous();
+
+			pixelMask = shape == CollisionShape.SHAPE_BOX && c instanceof PixelCollision ? ((PixelCollision) c).getPixelMask() : null;
+
+			lastX = realX;
+			lastY = realY;
 
-			int x2 = (int) (Transform.getRealX(t) + Math.abs(t.getWidth()) * Transform.getRealScale(t) / 2) / cellW;
-			int y2 = (int) (Transform.getRealY(t) - Math.abs(t.getHeight()) * Transform.getRealScale(t) / 2) / cellH;
+			double scale = Transform.getRealScale(t);
+
+			realX = Transform.getRealX(t);
+			realY = Transform.getRealY(t);
+			halfW = Math.abs(t.getWidth()) * scale / 2;
+			halfH = Math.abs(t.getHeight()) * scale / 2;
+
+			int x1 = (int) (realX - halfW) / cellW;
+			int y1 = (int) (realY + halfH) / cellH;
+
+			int x2 = (int) (realX + halfW) / cellW;
+			int y2 = (int) (realY - halfH) / cellH;
 
 			x = x1;
 			y = y1;
 			w = x2 - x1;
 			h = y1 - y2;
+
+			if (!hasLast || isStatic) {                       // Static boxes don't sweep when they are moved
+				lastX = realX;
+				lastY = realY;
+				hasLast = true;
+			}
+
+			extentX = halfW;
+			extentY = halfH;
+
+			if (shape == CollisionShape.SHAPE_BOX) {
+				angle = 0;
+				cos = 1;
+				sin = 0;
+			} else {
+				angle = Transform.getRealAngle(t);
+
+				double rad = Math.toRadians(angle);
+
+				cos = Math.cos(rad);
+				sin = Math.sin(rad);
+
+				if (shape == CollisionShape.SHAPE_CIRCLE) {
+					extentX = extentY = Math.min(halfW, halfH);
+				} else {
+					extentX = halfW * Math.abs(cos) + halfH * Math.abs(sin);
+					extentY = halfW * Math.abs(sin) + halfH * Math.abs(cos);
+				}
+			}
+
+			// Cover the cells used by the box test and the real shape, without rounding out to
+			// whole cells, so boxes in neighboring cells aren't paired for nothing
+			minX = roundDown(Math.min(x1, (realX - extentX) / cellW));
+			maxX = roundUp(Math.max(x2, (realX + extentX) / cellW));
+			minY = roundDown(Math.min(y2, (realY - extentY) / cellH));
+			maxY = roundUp(Math.max(y1, (realY + extentY) / cellH));
+
+			if (continuous) {                                 // Cover the whole path moved this frame
+				minX = Math.min(minX, roundDown((lastX - extentX) / cellW));
+				maxX = Math.max(maxX, roundUp((lastX + extentX) / cellW));
+				minY = Math.min(minY, roundDown((lastY - extentY) / cellH));
+				maxY = Math.max(maxY, roundUp((lastY + extentY) / cellH));
+			}
 		}
 	}
 }
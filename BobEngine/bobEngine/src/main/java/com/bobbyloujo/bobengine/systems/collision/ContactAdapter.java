@@ -0,0 +1,48 @@
+/**
+ * BobEngine - 2D game engine for Android
+ *
+ * Copyright (C) 2014, 2015, 2016 Benjamin Blaszczak
+ *
+ * BobEngine is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser Public License
+ * version 2.1 as published by the free software foundation.
+ *
+ * BobEngine is provided without warranty; without even the implied
+ * warranty of merchantability or fitness for a particular
+ * purpose. See the GNU Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General
+ * Public License along with BobEngine; if not, write to the
+ * Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301 USA
+ *
+ */
+package com.bobbyloujo.bobengine.systems.collision;
+
+/**
+ * A ContactHandler with empty methods. Extend this and override only the events you need.
+ */
+public abstract class ContactAdapter implements ContactHandler {
+	@Override
+	public void onCollisionEnter(CollisionBox c) {
+
+	}
+
+	@Override
+	public void onCollisionStay(CollisionBox c) {
+
+	}
+
+	@Override
+	public void onCollisionExit(CollisionBox c) {
+
+	}
+
+	/**
+	 * Not called for ContactHandlers.
+	 */
+	@Override
+	public final void onCollision(CollisionBox c) {
+
+	}
+}
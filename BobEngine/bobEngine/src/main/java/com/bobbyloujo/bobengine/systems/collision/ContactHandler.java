@@ -0,0 +1,51 @@
+/**
+ * BobEngine - 2D game engine for Android
+ *
+ * Copyright (C) 2014, 2015, 2016 Benjamin Blaszczak
+ *
+ * BobEngine is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser Public License
+ * version 2.1 as published by the free software foundation.
+ *
+ * BobEngine is provided without warranty; without even the implied
+ * warranty of merchantability or fitness for a particular
+ * purpose. See the GNU Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General
+ * Public License along with BobEngine; if not, write to the
+ * Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301 USA
+ *
+ */
+package com.bobbyloujo.bobengine.systems.collision;
+
+/**
+ * A CollisionHandler that is told when a collision starts, continues, and ends instead of
+ * being told about every collision every frame. If a CollisionBox's handler is a
+ * ContactHandler, the CollisionSystem calls these methods and never calls onCollision().
+ * <br />
+ * <br />
+ * Extend ContactAdapter to only handle the events you need.
+ */
+public interface ContactHandler extends CollisionHandler {
+	/**
+	 * Fired on the first frame that this handler's box touches c.
+	 *
+	 * @param c The CollisionBox that started touching this handler's box.
+	 */
+	void onCollisionEnter(CollisionBox c);
+
+	/**
+	 * Fired on every frame after the first that this handler's box is still touching c.
+	 *
+	 * @param c The CollisionBox that is still touching this handler's box.
+	 */
+	void onCollisionStay(CollisionBox c);
+
+	/**
+	 * Fired on the first frame that this handler's box is no longer touching c.
+	 *
+	 * @param c The CollisionBox that stopped touching this handler's box.
+	 */
+	void onCollisionExit(CollisionBox c);
+}
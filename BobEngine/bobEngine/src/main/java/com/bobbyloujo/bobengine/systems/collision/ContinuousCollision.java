@@ -0,0 +1,43 @@
+/**
+ * BobEngine - 2D game engine for Android
+ *
+ * Copyright (C) 2014, 2015, 2016 Benjamin Blaszczak
+ *
+ * BobEngine is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser Public License
+ * version 2.1 as published by the free software foundation.
+ *
+ * BobEngine is provided without warranty; without even the implied
+ * warranty of merchantability or fitness for a particular
+ * purpose. See the GNU Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General
+ * Public License along with BobEngine; if not, write to the
+ * Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301 USA
+ *
+ */
+package com.bobbyloujo.bobengine.systems.collision;
+
+/**
+ * A CollisionBox can also implement this interface to turn on continuous collision
+ * detection. A fast box only overlaps a thin wall for a few frames, or never if it
+ * moves farther than the wall is thick in one frame. A continuous box is checked along
+ * the whole path it moved since the last frame, so it can't tunnel through other boxes.
+ * <br />
+ * <br />
+ * Both boxes move in a straight line from their positions last frame to their positions
+ * this frame. Their axis-aligned bounds find when during the frame they could touch, and
+ * their real shapes are tested at steps through that time. A box that is moved instantly
+ * across the room should turn continuous detection off for that frame.
+ * <br />
+ * <br />
+ * Handlers that implement ContinuousCollisionHandler are told when during the frame
+ * the collision happened.
+ */
+public interface ContinuousCollision {
+	/**
+	 * @return True if this box should be checked along the path it moved this frame.
+	 */
+	boolean isContinuous();
+}
@@ -0,0 +1,39 @@
+/**
+ * BobEngine - 2D game engine for Android
+ *
+ * Copyright (C) 2014, 2015, 2016 Benjamin Blaszczak
+ *
+ * BobEngine is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser Public License
+ * version 2.1 as published by the free software foundation.
+ *
+ * BobEngine is provided without warranty; without even the implied
+ * warranty of merchantability or fitness for a particular
+ * purpose. See the GNU Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General
+ * Public License along with BobEngine; if not, write to the
+ * Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301 USA
+ *
+ */
+package com.bobbyloujo.bobengine.systems.collision;
+
+/**
+ * A CollisionHandler that is told the time of impact of each collision. When either
+ * box of a pair is a ContinuousCollision box, the time is when the boxes first touched
+ * during the last frame, from 0 (the boxes' positions last frame) to 1 (their positions
+ * now). Otherwise it is 1. If a CollisionBox's handler is a ContinuousCollisionHandler,
+ * the CollisionSystem calls onCollision(CollisionBox, double) instead of
+ * onCollision(CollisionBox).
+ */
+public interface ContinuousCollisionHandler extends CollisionHandler {
+	/**
+	 * This event is fired when this CollisionHandler collides with a CollisionBox
+	 * object in the same CollisionSystem.
+	 *
+	 * @param c The CollisionBox object that this CollisionHandler collided with.
+	 * @param time The fraction of the last frame at which the boxes first touched, from 0 to 1.
+	 */
+	void onCollision(CollisionBox c, double time);
+}
@@ -0,0 +1,698 @@
+/**
+ * BobEngine - 2D game engine for Android
+ *
+ * Copyright (C) 2014, 2015, 2016 Benjamin Blaszczak
+ *
+ * BobEngine is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser Public License
+ * version 2.1 as published by the free software foundation.
+ *
+ * BobEngine is provided without warranty; without even the implied
+ * warranty of merchantability or fitness for a particular
+ * purpose. See the GNU Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General
+ * Public License along with BobEngine; if not, write to the
+ * Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301 USA
+ *
+ */
+package com.bobbyloujo.bobengine.systems.collision;
+
+/**
+ * A Broadphase that keeps the boxes in a balanced binary tree of bounding boxes. Works well
+ * when box sizes vary a lot, like a huge boss next to tiny bullets, where a grid would be
+ * either too coarse or too fine.
+ * <br />
+ * <br />
+ * Each box is stored with "fat" bounds that are bigger than the box by a margin. A box is
+ * only moved in the tree when it leaves its fat bounds, so boxes that don't move, or move
+ * only a little, cost almost nothing. Pairs are remembered between frames and only the
+ * boxes that were moved in the tree look for new pairs. Pairs that can't collide are never
+ * remembered, so static scenery without masks costs almost nothing too.
+ */
+public class DynamicAabbTree implements Broadphase {
+
+	/** Default amount, in cells, that fat bounds extend past each side of a box. */
+	public static final float DEF_MARGIN = 1f;
+
+	private static final int NULL = -1;
+	private static final int DEF_CAPACITY = 16;
+
+	private float margin;
+	private boolean queryOnly;   // True if findPairs() is never called, so moved boxes and pairs aren't remembered
+
+	// Nodes. Leaves hold one box each. Free nodes are chained through parent.
+	private float[] nMinX;
+	private float[] nMinY;
+	private float[] nMaxX;
+	private float[] nMaxY;
+	private int[] parent;
+	private int[] child1;
+	private int[] child2;
+	private int[] height;      // Leaves have height 0, free nodes -1
+	private int[] nodeBox;     // The id of the box in each leaf
+	private int root;
+	private int freeNode;
+
+	// Boxes, by id
+	private int[] boxNode;     // The leaf holding each box, or NULL
+	private float[] bMinX;     // The real bounds of each box
+	private float[] bMinY;
+	private float[] bMaxX;
+	private float[] bMaxY;
+	private int[] category;    // Category bits of each box
+	private int[] mask;        // Mask of each box
+	private boolean[] moved;   // True if the box was put in a new leaf since the last findPairs()
+
+	private int[] moveBuffer;  // The ids of the boxes that were put in a new leaf since the last findPairs()
+	private int moveCount;
+
+	// Pairs with overlapping fat bounds, found in earlier frames
+	private LongHashSet pairSet;
+	private long[] pairs;
+	private int pairCount;
+
+	private int[] stack = new int[64];   // Used to walk the tree without recursion
+
+	/**
+	 * Create a new tree with the default margin.
+	 */
+	public DynamicAabbTree() {
+		this(DEF_MARGIN);
+	}
+
+	/**
+	 * Create a new tree.
+	 *
+	 * @param margin The amount, in cells, that fat bounds extend past each side of a box.
+	 *               Bigger margins mean boxes are moved in the tree less often, but more
+	 *               pairs that don't really overlap are checked.
+	 */
+	public DynamicAabbTree(float margin) {
+		this(margin, false);
+	}
+
+	/**
+	 * Create a new tree.
+	 *
+	 * @param margin The amount, in cells, that fat bounds extend past each side of a box.
+	 * @param queryOnly True if this tree will only be searched with query(). A query-only
+	 *                  tree doesn't remember which boxes moved for the next findPairs(), so
+	 *                  boxes can be added and removed any number of times without calling
+	 *                  findPairs(). findPairs() never reports any pairs.
+	 */
+	public DynamicAabbTree(float margin, boolean queryOnly) {
+		this.margin = margin;
+		this.queryOnly = queryOnly;
+
+		allocateNodes(DEF_CAPACITY);
+		root = NULL;
+
+		boxNode = new int[DEF_CAPACITY];
+		bMinX = new float[DEF_CAPACITY];
+		bMinY = new float[DEF_CAPACITY];
+		bMaxX = new float[DEF_CAPACITY];
+		bMaxY = new float[DEF_CAPACITY];
+		category = new int[DEF_CAPACITY];
+		mask = new int[DEF_CAPACITY];
+		moved = new boolean[DEF_CAPACITY];
+
+		for (int i = 0; i < DEF_CAPACITY; i++) {
+			boxNode[i] = NULL;
+		}
+
+		moveBuffer = new int[DEF_CAPACITY];
+		moveCount = 0;
+
+		pairSet = new LongHashSet();
+		pairs = new long[DEF_CAPACITY];
+		pairCount = 0;
+	}
+
+	/**
+	 * Returns the height of the tree. A balanced tree with n boxes has a height close to log2(n).
+	 *
+	 * @return The height of the tree.
+	 */
+	public int getHeight() {
+		return root == NULL ? 0 : height[root];
+	}
+
+	/**
+	 * Returns the number of boxes waiting for the next findPairs() to look for new pairs.
+	 */
+	int getMoveCount() {
+		return moveCount;
+	}
+
+	/* BROADPHASE */
+
+	@Override
+	public void insert(int id, float minX, float minY, float maxX, float maxY, int category, int mask) {
+		if (id >= boxNode.length) {
+			growBoxes(Math.max(id + 1, boxNode.length * 2));
+		}
+
+		int leaf = allocateNode();
+
+		nMinX[leaf] = minX - margin;
+		nMinY[leaf] = minY - margin;
+		nMaxX[leaf] = maxX + margin;
+		nMaxY[leaf] = maxY + margin;
+		nodeBox[leaf] = id;
+		height[leaf] = 0;
+
+		insertLeaf(leaf);
+
+		boxNode[id] = leaf;
+		this.category[id] = category;
+		this.mask[id] = mask;
+		setBounds(id, minX, minY, maxX, maxY);
+		addMove(id);
+	}
+
+	@Override
+	public void setFilter(int id, int category, int mask) {
+		if (this.category[id] != category || this.mask[id] != mask) {
+			this.category[id] = category;
+			this.mask[id] = mask;
+
+			addMove(id);                      // Look for pairs that weren't remembered with the old filter
+		}
+	}
+
+	@Override
+	public void update(int id, float minX, float minY, float maxX, float maxY) {
+		int leaf = boxNode[id];
+
+		setBounds(id, minX, minY, maxX, maxY);
+
+		if (minX >= nMinX[leaf] && minY >= nMinY[leaf] && maxX <= nMaxX[leaf] && maxY <= nMaxY[leaf]) {
+			return;                                          // Still inside the fat bounds
+		}
+
+		removeLeaf(leaf);
+
+		nMinX[leaf] = minX - margin;
+		nMinY[leaf] = minY - margin;
+		nMaxX[leaf] = maxX + margin;
+		nMaxY[leaf] = maxY + margin;
+
+		insertLeaf(leaf);
+		addMove(id);
+	}
+
+	@Override
+	public void remove(int id) {
+		int leaf = boxNode[id];
+
+		removeLeaf(leaf);
+		freeNode(leaf);
+
+		boxNode[id] = NULL;
+		moved[id] = false;                 // Pairs with this box are dropped by the next findPairs()
+	}
+
+	@Override
+	public void clear() {
+		allocateNodes(DEF_CAPACITY);
+		root = NULL;
+
+		for (int i = 0; i < boxNode.length; i++) {
+			boxNode[i] = NULL;
+			moved[i] = false;
+		}
+
+		moveCount = 0;
+		pairSet.clear();
+		pairCount = 0;
+	}
+
+	@Override
+	public void findPairs(PairCallback callback) {
+		// Boxes that got new fat bounds look for new pairs
+		for (int m = 0; m < moveCount; m++) {
+			int id = moveBuffer[m];
+
+			if (boxNode[id] != NULL && moved[id]) {
+				moved[id] = false;
+				addPairs(id);
+			}
+		}
+
+		moveCount = 0;
+
+		// Forget pairs that no longer overlap and report the ones whose real bounds overlap
+		int kept = 0;
+
+		for (int p = 0; p < pairCount; p++) {
+			long key = pairs[p];
+			int a = (int) (key >>> 32);
+			int b = (int) key;
+			int leafA = a < boxNode.length ? boxNode[a] : NULL;
+			int leafB = b < boxNode.length ? boxNode[b] : NULL;
+
+			if (leafA != NULL && leafB != NULL && canCollide(a, b) && overlap(leafA, leafB)) {
+				pairs[kept++] = key;
+
+				if (bMaxX[a] >= bMinX[b] && bMinX[a] <= bMaxX[b] && bMaxY[a] >= bMinY[b] && bMinY[a] <= bMaxY[b]) {
+					callback.onPair(a, b);
+				}
+			} else {
+				pairSet.remove(key);
+			}
+		}
+
+		pairCount = kept;
+	}
+
+	@Override
+	public void query(float minX, float minY, float maxX, float maxY, QueryCallback callback) {
+		if (root == NULL) {
+			return;
+		}
+
+		int top = 0;
+		stack[top++] = root;
+
+		while (top > 0) {
+			int node = stack[--top];
+
+			if (nMaxX[node] >= minX && nMinX[node] <= maxX && nMaxY[node] >= minY && nMinY[node] <= maxY) {
+				if (child1[node] == NULL) {
+					int id = nodeBox[node];
+
+					if (bMaxX[id] >= minX && bMinX[id] <= maxX && bMaxY[id] >= minY && bMinY[id] <= maxY) {
+						callback.onResult(id);
+					}
+				} else {
+					top = push(top, child1[node]);
+					top = push(top, child2[node]);
+				}
+			}
+		}
+	}
+
+	/* PAIRS */
+
+	/**
+	 * Find every box whose fat bounds overlap the fat bounds of box id and remember the pairs.
+	 */
+	private void addPairs(int id) {
+		int leaf = boxNode[id];
+		float minX = nMinX[leaf];
+		float minY = nMinY[leaf];
+		float maxX = nMaxX[leaf];
+		float maxY = nMaxY[leaf];
+		int top = 0;
+
+		stack[top++] = root;
+
+		while (top > 0) {
+			int node = stack[--top];
+
+			if (node != leaf && nMaxX[node] >= minX && nMinX[node] <= maxX && nMaxY[node] >= minY && nMinY[node] <= maxY) {
+				if (child1[node] == NULL) {
+					int other = nodeBox[node];
+
+					if (!canCollide(id, other)) {
+						continue;
+					}
+
+					long key = other < id ? ((long) other << 32) | id : ((long) id << 32) | other;
+
+					if (pairSet.add(key)) {
+						if (pairCount == pairs.length) {
+							long[] p = new long[pairs.length * 2];
+							System.arraycopy(pairs, 0, p, 0, pairCount);
+							pairs = p;
+						}
+
+						pairs[pairCount++] = key;
+					}
+				} else {
+					top = push(top, child1[node]);
+					top = push(top, child2[node]);
+				}
+			}
+		}
+	}
+
+	private boolean canCollide(int a, int b) {
+		return (mask[a] & category[b]) != 0 || (mask[b] & category[a]) != 0;
+	}
+
+	private void addMove(int id) {
+		if (queryOnly || moved[id]) {
+			return;
+		}
+
+		if (moveCount == moveBuffer.length) {
+			int[] m = new int[moveBuffer.length * 2];
+			System.arraycopy(moveBuffer, 0, m, 0, moveCount);
+			moveBuffer = m;
+		}
+
+		moved[id] = true;
+		moveBuffer[moveCount++] = id;
+	}
+
+	private void setBounds(int id, float minX, float minY, float maxX, float maxY) {
+		bMinX[id] = minX;
+		bMinY[id] = minY;
+		bMaxX[id] = maxX;
+		bMaxY[id] = maxY;
+	}
+
+	/* TREE */
+
+	private void insertLeaf(int leaf) {
+		if (root == NULL) {
+			root = leaf;
+			parent[root] = NULL;
+			return;
+		}
+
+		// Find the best sibling for the new leaf by the perimeter it would add to the tree
+		float lMinX = nMinX[leaf];
+		float lMinY = nMinY[leaf];
+		float lMaxX = nMaxX[leaf];
+		float lMaxY = nMaxY[leaf];
+		int index = root;
+
+		while (child1[index] != NULL) {
+			int c1 = child1[index];
+			int c2 = child2[index];
+
+			float area = perimeter(nMinX[index], nMinY[index], nMaxX[index], nMaxY[index]);
+			float combined = perimeter(Math.min(lMinX, nMinX[index]), Math.min(lMinY, nMinY[index]),
+					Math.max(lMaxX, nMaxX[index]), Math.max(lMaxY, nMaxY[index]));
+
+			float cost = 2 * combined;                      // Cost of making a new parent for this node and the leaf
+			float inheritance = 2 * (combined - area);      // Cost of pushing the leaf further down the tree
+
+			float cost1 = descendCost(c1, lMinX, lMinY, lMaxX, lMaxY) + inheritance;
+			float cost2 = descendCost(c2, lMinX, lMinY, lMaxX, lMaxY) + inheritance;
+
+			if (cost < cost1 && cost < cost2) {
+				break;
+			}
+
+			index = cost1 < cost2 ? c1 : c2;
+		}
+
+		int sibling = index;
+
+		// Make a new parent for the sibling and the leaf
+		int oldParent = parent[sibling];
+		int newParent = allocateNode();
+
+		parent[newParent] = oldParent;
+		nodeBox[newParent] = NULL;
+		height[newParent] = height[sibling] + 1;
+		union(newParent, leaf, sibling);
+
+		if (oldParent != NULL) {
+			if (child1[oldParent] == sibling) {
+				child1[oldParent] = newParent;
+			} else {
+				child2[oldParent] = newParent;
+			}
+		} else {
+			root = newParent;
+		}
+
+		child1[newParent] = sibling;
+		child2[newParent] = leaf;
+		parent[sibling] = newParent;
+		parent[leaf] = newParent;
+
+		fixUpwards(parent[leaf]);
+	}
+
+	private void removeLeaf(int leaf) {
+		if (leaf == root) {
+			root = NULL;
+			return;
+		}
+
+		int p = parent[leaf];
+		int grandParent = parent[p];
+		int sibling = child1[p] == leaf ? child2[p] : child1[p];
+
+		if (grandParent != NULL) {
+			// Put the sibling in the parent's place
+			if (child1[grandParent] == p) {
+				child1[grandParent] = sibling;
+			} else {
+				child2[grandParent] = sibling;
+			}
+
+			parent[sibling] = grandParent;
+			freeNode(p);
+
+			fixUpwards(grandParent);
+		} else {
+			root = sibling;
+			parent[sibling] = NULL;
+			freeNode(p);
+		}
+	}
+
+	/**
+	 * Balance and refit each node from index up to the root.
+	 */
+	private void fixUpwards(int index) {
+		while (index != NULL) {
+			index = balance(index);
+
+			int c1 = child1[index];
+			int c2 = child2[index];
+
+			height[index] = 1 + Math.max(height[c1], height[c2]);
+			union(index, c1, c2);
+
+			index = parent[index];
+		}
+	}
+
+	/**
+	 * If one child of node a is more than one level taller than the other, rotate the
+	 * taller child up into a's place.
+	 *
+	 * @return The node now in a's place.
+	 */
+	private int balance(int a) {
+		if (child1[a] == NULL || height[a] < 2) {
+			return a;
+		}
+
+		int b = child1[a];
+		int c = child2[a];
+		int difference = height[c] - height[b];
+
+		if (difference > 1) {
+			return rotate(a, c, b, false);
+		}
+
+		if (difference < -1) {
+			return rotate(a, b, c, true);
+		}
+
+		return a;
+	}
+
+	/**
+	 * Rotate the tall child up to take a's place. The tall child's taller child stays under
+	 * it and its shorter child moves under a, in the tall child's old spot.
+	 *
+	 * @param a The unbalanced node.
+	 * @param tall a's taller child.
+	 * @param shortChild a's shorter child.
+	 * @param tallIsChild1 True if tall is a's child1.
+	 * @return The node now in a's place.
+	 */
+	private int rotate(int a, int tall, int shortChild, boolean tallIsChild1) {
+		int f = child1[tall];
+		int g = child2[tall];
+
+		// Swap a and tall
+		child1[tall] = a;
+		parent[tall] = parent[a];
+		parent[a] = tall;
+
+		if (parent[tall] != NULL) {
+			if (child1[parent[tall]] == a) {
+				child1[parent[tall]] = tall;
+			} else {
+				child2[parent[tall]] = tall;
+			}
+		} else {
+			root = tall;
+		}
+
+		int keep = height[f] > height[g] ? f : g;       // Stays under tall
+		int move = keep == f ? g : f;                   // Moves under a
+
+		child2[tall] = keep;
+
+		if (tallIsChild1) {
+			child1[a] = move;
+		} else {
+			child2[a] = move;
+		}
+
+		parent[move] = a;
+
+		union(a, shortChild, move);
+		union(tall, a, keep);
+
+		height[a] = 1 + Math.max(height[shortChild], height[move]);
+		height[tall] = 1 + Math.max(height[a], height[keep]);
+
+		return tall;
+	}
+
+	/**
+	 * The cost of putting the new leaf somewhere below node.
+	 */
+	private float descendCost(int node, float minX, float minY, float maxX, float maxY) {
+		float combined = perimeter(Math.min(minX, nMinX[node]), Math.min(minY, nMinY[node]),
+				Math.max(maxX, nMaxX[node]), Math.max(maxY, nMaxY[node]));
+
+		if (child1[node] == NULL) {
+			return combined;
+		}
+
+		return combined - perimeter(nMinX[node], nMinY[node], nMaxX[node], nMaxY[node]);
+	}
+
+	private static float perimeter(float minX, float minY, float maxX, float maxY) {
+		return 2 * ((maxX - minX) + (maxY - minY));
+	}
+
+	/**
+	 * Set the bounds of node to the bounds that contain nodes a and b.
+	 */
+	private void union(int node, int a, int b) {
+		nMinX[node] = Math.min(nMinX[a], nMinX[b]);
+		nMinY[node] = Math.min(nMinY[a], nMinY[b]);
+		nMaxX[node] = Math.max(nMaxX[a], nMaxX[b]);
+		nMaxY[node] = Math.max(nMaxY[a], nMaxY[b]);
+	}
+
+	private boolean overlap(int a, int b) {
+		return nMaxX[a] >= nMinX[b] && nMinX[a] <= nMaxX[b] && nMaxY[a] >= nMinY[b] && nMinY[a] <= nMaxY[b];
+	}
+
+	private int push(int top, int node) {
+		if (top == stack.length) {
+			int[] s = new int[stack.length * 2];
+			System.arraycopy(stack, 0, s, 0, top);
+			stack = s;
+		}
+
+		stack[top] = node;
+		return top + 1;
+	}
+
+	/* MEMORY */
+
+	private void allocateNodes(int capacity) {
+		nMinX = new float[capacity];
+		nMinY = new float[capacity];
+		nMaxX = new float[capacity];
+		nMaxY = new float[capacity];
+		parent = new int[capacity];
+		child1 = new int[capacity];
+		child2 = new int[capacity];
+		height = new int[capacity];
+		nodeBox = new int[capacity];
+
+		chainFree(0, capacity);
+		freeNode = 0;
+	}
+
+	/**
+	 * Link nodes from first to capacity - 1 into the free list.
+	 */
+	private void chainFree(int first, int capacity) {
+		for (int i = first; i < capacity; i++) {
+			parent[i] = i + 1 < capacity ? i + 1 : NULL;
+			child1[i] = NULL;
+			child2[i] = NULL;
+			height[i] = -1;
+		}
+	}
+
+	private int allocateNode() {
+		if (freeNode == NULL) {
+			int old = parent.length;
+			int capacity = old * 2;
+
+			nMinX = copyOf(nMinX, capacity);
+			nMinY = copyOf(nMinY, capacity);
+			nMaxX = copyOf(nMaxX, capacity);
+			nMaxY = copyOf(nMaxY, capacity);
+			parent = copyOf(parent, capacity);
+			child1 = copyOf(child1, capacity);
+			child2 = copyOf(child2, capacity);
+			height = copyOf(height, capacity);
+			nodeBox = copyOf(nodeBox, capacity);
+
+			chainFree(old, capacity);
+			freeNode = old;
+		}
+
+		int node = freeNode;
+		freeNode = parent[node];
+
+		parent[node] = NULL;
+		child1[node] = NULL;
+		child2[node] = NULL;
+		height[node] = 0;
+
+		return node;
+	}
+
+	private void freeNode(int node) {
+		parent[node] = freeNode;
+		child1[node] = NULL;
+		child2[node] = NULL;
+		height[node] = -1;
+		freeNode = node;
+	}
+
+	private void growBoxes(int size) {
+		int old = boxNode.length;
+
+		boxNode = copyOf(boxNode, size);
+		bMinX = copyOf(bMinX, size);
+		bMinY = copyOf(bMinY, size);
+		bMaxX = copyOf(bMaxX, size);
+		bMaxY = copyOf(bMaxY, size);
+
+		boolean[] m = new boolean[size];
+		System.arraycopy(moved, 0, m, 0, old);
+		moved = m;
+		category = copyOf(category, size);
+		mask = copyOf(mask, size);
+
+		for (int i = old; i < size; i++) {
+			boxNode[i] = NULL;
+		}
+	}
+
+	private static int[] copyOf(int[] a, int size) {
+		int[] n = new int[size];
+		System.arraycopy(a, 0, n, 0, a.length);
+		return n;
+	}
+
+	private static float[] copyOf(float[] a, int size) {
+		float[] n = new float[size];
+		System.arraycopy(a, 0, n, 0, a.length);
+		return n;
+	}
+}
@@ -0,0 +1,162 @@
+/**
+ * BobEngine - 2D game engine for Android
+ *
+ * Copyright (C) 2014, 2015, 2016 Benjamin Blaszczak
+ *
+ * BobEngine is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser Public License
+ * version 2.1 as published by the free software foundation.
+ *
+ * BobEngine is provided without warranty; without even the implied
+ * warranty of merchantability or fitness for a particular
+ * purpose. See the GNU Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General
+ * Public License along with BobEngine; if not, write to the
+ * Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301 USA
+ *
+ */
+package com.bobbyloujo.bobengine.systems.collision;
+
+/**
+ * A set of long values that doesn't box them. Uses open addressing with linear probing.
+ * Used to remember pairs of hit box ids packed into one long. Values must not be -1.
+ */
+class LongHashSet {
+
+	private static final long EMPTY = -1;
+	private static final int DEF_CAPACITY = 64;
+
+	private long[] keys;     // The table. Its length is always a power of 2.
+	private int size;        // Number of values in the set
+	private int mask;        // keys.length - 1
+
+	LongHashSet() {
+		allocate(DEF_CAPACITY);
+	}
+
+	private void allocate(int capacity) {
+		keys = new long[capacity];
+		mask = capacity - 1;
+		size = 0;
+
+		for (int i = 0; i < capacity; i++) {
+			keys[i] = EMPTY;
+		}
+	}
+
+	/**
+	 * Spread the bits of a key so that nearby pairs don't land in nearby slots.
+	 */
+	private static int hash(long key) {
+		key ^= key >>> 33;
+		key *= 0xff51afd7ed558ccdL;
+		key ^= key >>> 33;
+		return (int) key;
+	}
+
+	/**
+	 * Add a value to the set.
+	 *
+	 * @return True if the value was added, false if it was already in the set.
+	 */
+	boolean add(long key) {
+		if ((size + 1) * 2 > keys.length) {     // Keep the table at most half full
+			grow();
+		}
+
+		int i = hash(key) & mask;
+
+		while (keys[i] != EMPTY) {
+			if (keys[i] == key) {
+				return false;
+			}
+
+			i = (i + 1) & mask;
+		}
+
+		keys[i] = key;
+		size++;
+		return true;
+	}
+
+	boolean contains(long key) {
+		int i = hash(key) & mask;
+
+		while (keys[i] != EMPTY) {
+			if (keys[i] == key) {
+				return true;
+			}
+
+			i = (i + 1) & mask;
+		}
+
+		return false;
+	}
+
+	/**
+	 * Remove a value from the set.
+	 *
+	 * @return True if the value was in the set.
+	 */
+	boolean remove(long key) {
+		int i = hash(key) & mask;
+
+		while (keys[i] != EMPTY) {
+			if (keys[i] == key) {
+				keys[i] = EMPTY;
+				size--;
+
+				// Move later values in the same run back so lookups don't stop at the new gap
+				int j = (i + 1) & mask;
+
+				while (keys[j] != EMPTY) {
+					long k = keys[j];
+					int home = hash(k) & mask;
+
+					// Move k into the gap if its home slot isn't between the gap and j
+					if (((j - home) & mask) >= ((j - i) & mask)) {
+						keys[i] = k;
+						keys[j] = EMPTY;
+						i = j;
+					}
+
+					j = (j + 1) & mask;
+				}
+
+				return true;
+			}
+
+			i = (i + 1) & mask;
+		}
+
+		return false;
+	}
+
+	int size() {
+		return size;
+	}
+
+	void clear() {
+		if (size > 0) {
+			for (int i = 0; i < keys.length; i++) {
+				keys[i] = EMPTY;
+			}
+
+			size = 0;
+		}
+	}
+
+	private void grow() {
+		long[] old = keys;
+
+		allocate(old.length * 2);
+
+		for (int i = 0; i < old.length; i++) {
+			if (old[i] != EMPTY) {
+				add(old[i]);
+			}
+		}
+	}
+}
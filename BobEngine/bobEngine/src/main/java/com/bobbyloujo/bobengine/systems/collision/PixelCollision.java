@@ -0,0 +1,45 @@
+/**
+ * BobEngine - 2D game engine for Android
+ *
+ * Copyright (C) 2014, 2015, 2016 Benjamin Blaszczak
+ *
+ * BobEngine is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser Public License
+ * version 2.1 as published by the free software foundation.
+ *
+ * BobEngine is provided without warranty; without even the implied
+ * warranty of merchantability or fitness for a particular
+ * purpose. See the GNU Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General
+ * Public License along with BobEngine; if not, write to the
+ * Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301 USA
+ *
+ */
+package com.bobbyloujo.bobengine.systems.collision;
+
+/**
+ * A CollisionBox can also implement this interface to only collide where its graphic
+ * has solid pixels. The mask is stretched over the box, and once the boxes of a pair
+ * touch, the pair only collides if their masks have a solid pixel in the same place.
+ * A box without a mask is solid everywhere in its bounds.
+ * <br />
+ * <br />
+ * Masks are only used by boxes with SHAPE_BOX, and like the box the mask ignores the
+ * angle. Return a flipped mask from PixelMask.flip() for a sprite drawn upside down or
+ * mirrored. A sprite drawn at any other angle shouldn't have a mask, because its solid
+ * pixels won't line up with the mask; leave it on its whole box. The path checked by ContinuousCollision and the queries of a CollisionSystem
+ * still use the whole box.
+ * <br />
+ * <br />
+ * The mask is read when the hit box is refreshed, which is every frame for most boxes.
+ * Static boxes have to be invalidated after their mask changes.
+ */
+public interface PixelCollision {
+
+	/**
+	 * @return The mask of the frame this box is showing, or null to use the whole box.
+	 */
+	PixelMask getPixelMask();
+}
@@ -0,0 +1,354 @@
+/**
+ * BobEngine - 2D game engine for Android
+ *
+ * Copyright (C) 2014, 2015, 2016 Benjamin Blaszczak
+ *
+ * BobEngine is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser Public License
+ * version 2.1 as published by the free software foundation.
+ *
+ * BobEngine is provided without warranty; without even the implied
+ * warranty of merchantability or fitness for a particular
+ * purpose. See the GNU Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General
+ * Public License along with BobEngine; if not, write to the
+ * Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301 USA
+ *
+ */
+package com.bobbyloujo.bobengine.systems.collision;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * A 1-bit mask of the solid pixels of one frame of a graphic. Each row is packed into
+ * longs, 64 pixels to a long, so two masks can be checked against each other 64 pixels
+ * at a time. Rows go from the top of the frame to the bottom.
+ * <br />
+ * <br />
+ * Masks are usually made by GraphicsHelper.getPixelMasks(), which makes one for each
+ * frame of a graphic and caches them. Masks never change once they are made, so the
+ * same mask can be shared by any number of objects.
+ */
+public class PixelMask {
+
+	// Constants
+	public static final int DEF_ALPHA = 128;          // Default alpha a pixel needs to be solid
+	private static final int VERSION = 1;             // Version of the format written by write()
+	private static final double SAME_SCALE = 1e-4;    // Difference in pixel size, relative to the size, treated as the same scale
+
+	/** Width of this mask in pixels. */
+	public final int width;
+	/** Height of this mask in pixels. */
+	public final int height;
+
+	private final int words;           // Longs in each row
+	private final long[] bits;         // Rows of pixels. Pixel x of a row is bit x % 64 of long x / 64.
+
+	private int left;                  // Bounds of the solid pixels. left and top are the first solid
+	private int top;                   // column and row, right and bottom are one past the last.
+	private int right;                 // All are 0 when no pixels are solid.
+	private int bottom;
+
+	private PixelMask(int width, int height) {
+		this.width = width;
+		this.height = height;
+
+		words = (width + 63) >>> 6;
+		bits = new long[words * height];
+	}
+
+	/**
+	 * Make a mask from ARGB pixels, like those from Bitmap.getPixels().
+	 *
+	 * @param pixels The ARGB colors of the pixels.
+	 * @param offset The index in pixels of the upper left pixel of the mask.
+	 * @param stride The number of pixels from the start of one row to the start of the next.
+	 * @param width The width of the mask.
+	 * @param height The height of the mask.
+	 * @param alpha The alpha, from 0 to 255, a pixel needs to be solid.
+	 * @return A new mask.
+	 */
+	public static PixelMask fromPixels(int[] pixels, int offset, int stride, int width, int height, int alpha) {
+		PixelMask mask = new PixelMask(width, height);
+
+		for (int y = 0; y < height; y++) {
+			int p = offset + y * stride;
+			int row = y * mask.words;
+
+			for (int x = 0; x < width; x++) {
+				if (pixels[p + x] >>> 24 >= alpha) {
+					mask.bits[row + (x >>> 6)] |= 1L << x;
+				}
+			}
+		}
+
+		mask.findBounds();
+		return mask;
+	}
+
+	/**
+	 * Make a mask with every pixel solid.
+	 *
+	 * @param width The width of the mask.
+	 * @param height The height of the mask.
+	 * @return A new mask.
+	 */
+	public static PixelMask solid(int width, int height) {
+		PixelMask mask = new PixelMask(width, height);
+
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x < width; x++) {
+				mask.bits[y * mask.words + (x >>> 6)] |= 1L << x;
+			}
+		}
+
+		mask.findBounds();
+		return mask;
+	}
+
+	/**
+	 * Make a mirrored copy of this mask, for a sprite drawn flipped or rotated 180 degrees.
+	 *
+	 * @param horizontal True to mirror the columns.
+	 * @param vertical True to mirror the rows.
+	 * @return A new mask.
+	 */
+	public PixelMask flip(boolean horizontal, boolean vertical) {
+		PixelMask mask = new PixelMask(width, height);
+
+		for (int y = 0; y < height; y++) {
+			int toY = vertical ? height - 1 - y : y;
+
+			for (int x = 0; x < width; x++) {
+				if (get(x, y)) {
+					int toX = horizontal ? width - 1 - x : x;
+					mask.bits[toY * words + (toX >>> 6)] |= 1L << toX;
+				}
+			}
+		}
+
+		mask.findBounds();
+		return mask;
+	}
+
+	/**
+	 * @param x The column of the pixel, 0 is the left edge.
+	 * @param y The row of the pixel, 0 is the top edge.
+	 * @return True if the pixel is solid. Pixels outside the mask are not solid.
+	 */
+	public boolean get(int x, int y) {
+		if (x < 0 || y < 0 || x >= width || y >= height) {
+			return false;
+		}
+
+		return (bits[y * words + (x >>> 6)] & (1L << x)) != 0;
+	}
+
+	/**
+	 * @return True if no pixels of this mask are solid.
+	 */
+	public boolean isEmpty() {
+		return right == 0;
+	}
+
+	/**
+	 * Check if two masks have a solid pixel in the same place when their upper left corners
+	 * are at (ax, ay) and (bx, by) on the same grid of pixels, with y going down.
+	 *
+	 * @return True if the masks touch.
+	 */
+	public static boolean overlaps(PixelMask a, int ax, int ay, PixelMask b, int bx, int by) {
+		int x1 = Math.max(ax + a.left, bx + b.left);       // Only the solid parts of the masks can touch
+		int x2 = Math.min(ax + a.right, bx + b.right);
+		int y1 = Math.max(ay + a.top, by + b.top);
+		int y2 = Math.min(ay + a.bottom, by + b.bottom);
+
+		if (x1 >= x2 || y1 >= y2) {
+			return false;
+		}
+
+		for (int y = y1; y < y2; y++) {
+			int aRow = (y - ay) * a.words;
+			int bRow = (y - by) * b.words;
+
+			for (int x = x1; x < x2; x += 64) {
+				long hit = a.word(aRow, x - ax) & b.word(bRow, x - bx);
+
+				if (x2 - x < 64) {
+					hit &= (1L << (x2 - x)) - 1;                // Ignore pixels past the overlap
+				}
+
+				if (hit != 0) {
+					return true;
+				}
+			}
+		}
+
+		return false;
+	}
+
+	/**
+	 * Check if two masks have a solid pixel in the same place when each one is stretched over
+	 * an area. Positions are of the upper left corners, with y going down, and scales are the
+	 * size of one pixel of the mask. When both masks have pixels the same size they are checked
+	 * 64 pixels at a time. Otherwise each solid pixel of the mask with the smaller pixels is
+	 * checked against the pixel of the other mask under its center.
+	 *
+	 * @return True if the masks touch.
+	 */
+	public static boolean overlaps(PixelMask a, double aX, double aY, double aScaleX, double aScaleY,
+	                               PixelMask b, double bX, double bY, double bScaleX, double bScaleY) {
+		if (aScaleX <= 0 || aScaleY <= 0 || bScaleX <= 0 || bScaleY <= 0) {
+			return false;                                     // A mask with no area can't touch anything
+		}
+
+		if (Math.abs(aScaleX - bScaleX) <= aScaleX * SAME_SCALE && Math.abs(aScaleY - bScaleY) <= aScaleY * SAME_SCALE) {
+			int dX = (int) Math.floor((bX - aX) / aScaleX + .5);
+			int dY = (int) Math.floor((bY - aY) / aScaleY + .5);
+
+			return overlaps(a, 0, 0, b, dX, dY);
+		}
+
+		if (aScaleX * aScaleY > bScaleX * bScaleY) {         // Go over the smaller pixels so thin parts aren't missed
+			return sampled(b, bX, bY, bScaleX, bScaleY, a, aX, aY, aScaleX, aScaleY);
+		}
+
+		return sampled(a, aX, aY, aScaleX, aScaleY, b, bX, bY, bScaleX, bScaleY);
+	}
+
+	/**
+	 * Check each solid pixel of a in the area covered by the solid pixels of b against the
+	 * pixel of b under its center.
+	 */
+	private static boolean sampled(PixelMask a, double aX, double aY, double aScaleX, double aScaleY,
+	                               PixelMask b, double bX, double bY, double bScaleX, double bScaleY) {
+		int x1 = Math.max(a.left, (int) Math.floor((bX + b.left * bScaleX - aX) / aScaleX));
+		int x2 = Math.min(a.right, (int) Math.ceil((bX + b.right * bScaleX - aX) / aScaleX));
+		int y1 = Math.max(a.top, (int) Math.floor((bY + b.top * bScaleY - aY) / aScaleY));
+		int y2 = Math.min(a.bottom, (int) Math.ceil((bY + b.bottom * bScaleY - aY) / aScaleY));
+
+		for (int y = y1; y < y2; y++) {
+			int bRow = (int) Math.floor((aY + (y + .5) * aScaleY - bY) / bScaleY);
+
+			if (bRow < b.top || bRow >= b.bottom) {
+				continue;
+			}
+
+			int aRow = y * a.words;
+
+			for (int x = x1; x < x2; x += 64) {
+				long solid = a.word(aRow, x);
+
+				if (x2 - x < 64) {
+					solid &= (1L << (x2 - x)) - 1;
+				}
+
+				while (solid != 0) {                           // Each solid pixel of a in this word
+					int bit = Long.numberOfTrailingZeros(solid);
+					int bCol = (int) Math.floor((aX + (x + bit + .5) * aScaleX - bX) / bScaleX);
+
+					if (b.get(bCol, bRow)) {
+						return true;
+					}
+
+					solid &= solid - 1;
+				}
+			}
+		}
+
+		return false;
+	}
+
+	/**
+	 * Get the 64 pixels of a row starting at a column, which doesn't have to be a multiple
+	 * of 64. Pixels past the end of the row are not solid.
+	 *
+	 * @param row Index in bits of the first long of the row.
+	 * @param x The first column.
+	 */
+	private long word(int row, int x) {
+		int i = x >>> 6;
+		int shift = x & 63;
+		long word = bits[row + i] >>> shift;
+
+		if (shift != 0 && i + 1 < words) {
+			word |= bits[row + i + 1] << (64 - shift);
+		}
+
+		return word;
+	}
+
+	/**
+	 * Find the bounds of the solid pixels.
+	 */
+	private void findBounds() {
+		left = width;
+		top = height;
+		right = 0;
+		bottom = 0;
+
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x < width; x++) {
+				if (get(x, y)) {
+					left = Math.min(left, x);
+					right = Math.max(right, x + 1);
+					top = Math.min(top, y);
+					bottom = y + 1;
+				}
+			}
+		}
+
+		if (right == 0) {
+			left = top = 0;
+		}
+	}
+
+	/**
+	 * Write this mask to a stream. It can be read back with read().
+	 *
+	 * @param out The stream to write to.
+	 * @throws IOException if the stream can't be written to.
+	 */
+	public void write(DataOutputStream out) throws IOException {
+		out.writeInt(VERSION);
+		out.writeInt(width);
+		out.writeInt(height);
+
+		for (int i = 0; i < bits.length; i++) {
+			out.writeLong(bits[i]);
+		}
+	}
+
+	/**
+	 * Read a mask written by write().
+	 *
+	 * @param in The stream to read from.
+	 * @return The mask.
+	 * @throws IOException if the stream can't be read or doesn't hold a mask.
+	 */
+	public static PixelMask read(DataInputStream in) throws IOException {
+		if (in.readInt() != VERSION) {
+			throw new IOException("Unknown pixel mask version.");
+		}
+
+		int width = in.readInt();
+		int height = in.readInt();
+
+		if (width < 0 || height < 0) {
+			throw new IOException("Bad pixel mask size.");
+		}
+
+		PixelMask mask = new PixelMask(width, height);
+
+		for (int i = 0; i < mask.bits.length; i++) {
+			mask.bits[i] = in.readLong();
+		}
+
+		mask.findBounds();
+		return mask;
+	}
+}
@@ -0,0 +1,46 @@
+/**
+ * BobEngine - 2D game engine for Android
+ *
+ * Copyright (C) 2014, 2015, 2016 Benjamin Blaszczak
+ *
+ * BobEngine is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser Public License
+ * version 2.1 as published by the free software foundation.
+ *
+ * BobEngine is provided without warranty; without even the implied
+ * warranty of merchantability or fitness for a particular
+ * purpose. See the GNU Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General
+ * Public License along with BobEngine; if not, write to the
+ * Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301 USA
+ *
+ */
+package com.bobbyloujo.bobengine.systems.collision;
+
+/**
+ * The result of CollisionSystem.raycast(). Reuse one RaycastHit for every raycast
+ * to avoid creating garbage.
+ */
+public class RaycastHit {
+	/** The first CollisionBox hit by the ray. Null if nothing was hit. */
+	public CollisionBox box;
+
+	/** The distance from the start of the ray to where it hit box. */
+	public double distance;
+
+	/** The point where the ray hit box. */
+	public double x;
+	public double y;
+
+	/**
+	 * Forget the last hit.
+	 */
+	public void clear() {
+		box = null;
+		distance = 0;
+		x = 0;
+		y = 0;
+	}
+}
@@ -0,0 +1,416 @@
+/**
+ * BobEngine - 2D game engine for Android
+ *
+ * Copyright (C) 2014, 2015, 2016 Benjamin Blaszczak
+ *
+ * BobEngine is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser Public License
+ * version 2.1 as published by the free software foundation.
+ *
+ * BobEngine is provided without warranty; without even the implied
+ * warranty of merchantability or fitness for a particular
+ * purpose. See the GNU Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General
+ * Public License along with BobEngine; if not, write to the
+ * Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301 USA
+ *
+ */
+package com.bobbyloujo.bobengine.systems.collision;
+
+/**
+ * A Broadphase that keeps the edges of the boxes sorted along each axis. Between frames
+ * the order of the edges barely changes, so the edges are re-sorted with an insertion sort
+ * that only does work for the edges that passed each other. Pairs are then found with one
+ * sweep along the axis where the boxes are most spread out.
+ * <br />
+ * <br />
+ * Works best when boxes move a little each frame, like in a side scroller. Boxes that jump
+ * far across the world in one frame make the insertion sort slow; getSwapCount() shows how
+ * much sorting was needed.
+ */
+public class SweepAndPrune implements Broadphase {
+
+	/** Pairs were found by sweeping along the X axis. */
+	public static final int AXIS_X = 0;
+	/** Pairs were found by sweeping along the Y axis. */
+	public static final int AXIS_Y = 1;
+
+	private static final int DEF_CAPACITY = 16;
+
+	// Boxes, by id
+	private float[] minX;
+	private float[] minY;
+	private float[] maxX;
+	private float[] maxY;
+	private int[] category;
+	private int[] mask;
+	private int[] openIndex;      // The index of each box in open during a sweep
+	private boolean[] removed;    // True if the box was removed but its edges haven't been taken out yet
+
+	// Edges along each axis, sorted by position. Each edge is (id << 1) | 1 for a max edge, (id << 1) for a min edge.
+	private int[] edgesX;
+	private int[] edgesY;
+	private int numEdges;
+	private int numRemoved;       // Boxes whose edges will be taken out before the next sort
+
+	private int[] open;           // Boxes whose min edge has been passed but not their max edge
+	private int numOpen;
+
+	// Metrics
+	private int pairCount;        // Pairs found by the last findPairs()
+	private int swapCount;        // Edges swapped while sorting in the last findPairs()
+	private int sweepAxis;        // The axis swept in the last findPairs()
+
+	public SweepAndPrune() {
+		minX = new float[DEF_CAPACITY];
+		minY = new float[DEF_CAPACITY];
+		maxX = new float[DEF_CAPACITY];
+		maxY = new float[DEF_CAPACITY];
+		category = new int[DEF_CAPACITY];
+		mask = new int[DEF_CAPACITY];
+		openIndex = new int[DEF_CAPACITY];
+		removed = new boolean[DEF_CAPACITY];
+
+		edgesX = new int[DEF_CAPACITY * 2];
+		edgesY = new int[DEF_CAPACITY * 2];
+		numEdges = 0;
+		numRemoved = 0;
+
+		open = new int[DEF_CAPACITY];
+		numOpen = 0;
+
+		sweepAxis = AXIS_X;
+	}
+
+	/**
+	 * Returns the number of pairs reported by the last call to findPairs().
+	 *
+	 * @return Number of pairs found last frame.
+	 */
+	public int getPairCount() {
+		return pairCount;
+	}
+
+	/**
+	 * Returns the number of times two edges were swapped while sorting in the last call to
+	 * findPairs(). When boxes move smoothly this stays small compared to the number of boxes.
+	 *
+	 * @return Number of edge swaps last frame.
+	 */
+	public int getSwapCount() {
+		return swapCount;
+	}
+
+	/**
+	 * Returns the axis that was swept in the last call to findPairs().
+	 *
+	 * @return AXIS_X or AXIS_Y.
+	 */
+	public int getSweepAxis() {
+		return sweepAxis;
+	}
+
+	/* BROADPHASE */
+
+	@Override
+	public void insert(int id, float minX, float minY, float maxX, float maxY, int category, int mask) {
+		if (id >= this.mask.length) {
+			growBoxes(Math.max(id + 1, this.mask.length * 2));
+		}
+
+		this.category[id] = category;
+		this.mask[id] = mask;
+		update(id, minX, minY, maxX, maxY);
+
+		if (removed[id]) {                                   // The id's old edges are still there, so use them again
+			removed[id] = false;
+			numRemoved--;
+			return;
+		}
+
+		if (numEdges + 2 > edgesX.length) {
+			edgesX = copyOf(edgesX, edgesX.length * 2);
+			edgesY = copyOf(edgesY, edgesY.length * 2);
+		}
+
+		// New edges go at the end. The next sort moves them into place.
+		edgesX[numEdges] = id << 1;
+		edgesY[numEdges] = id << 1;
+		edgesX[numEdges + 1] = (id << 1) | 1;
+		edgesY[numEdges + 1] = (id << 1) | 1;
+		numEdges += 2;
+	}
+
+	@Override
+	public void update(int id, float minX, float minY, float maxX, float maxY) {
+		this.minX[id] = minX;
+		this.minY[id] = minY;
+		this.maxX[id] = maxX;
+		this.maxY[id] = maxY;
+	}
+
+	@Override
+	public void setFilter(int id, int category, int mask) {
+		this.category[id] = category;
+		this.mask[id] = mask;
+	}
+
+	/**
+	 * The box's edges are taken out in one pass before the next sort, so removing many
+	 * boxes at once doesn't copy the edges once for each box.
+	 */
+	@Override
+	public void remove(int id) {
+		if (!removed[id]) {
+			removed[id] = true;
+			numRemoved++;
+		}
+	}
+
+	@Override
+	public void clear() {
+		for (int i = 0; i < numEdges; i++) {
+			removed[edgesX[i] >> 1] = false;
+		}
+
+		numEdges = 0;
+		numRemoved = 0;
+		numOpen = 0;
+	}
+
+	@Override
+	public void findPairs(PairCallback callback) {
+		removeEdges();
+		swapCount = sort(edgesX, minX, maxX) + sort(edgesY, minY, maxY);
+		sweepAxis = spreadX() >= spreadY() ? AXIS_X : AXIS_Y;
+		pairCount = 0;
+
+		if (sweepAxis == AXIS_X) {
+			sweep(edgesX, minY, maxY, callback);
+		} else {
+			sweep(edgesY, minX, maxX, callback);
+		}
+	}
+
+	@Override
+	public void query(float minX, float minY, float maxX, float maxY, QueryCallback callback) {
+		int[] edges = edgesX;
+		int end;
+
+		removeEdges();
+		sort(edgesX, this.minX, this.maxX);              // Boxes may have moved since the last findPairs()
+
+		// Only boxes whose min edge is at or before the right of the area can overlap it
+		int lo = 0;
+		int hi = numEdges;
+
+		while (lo < hi) {
+			int mid = (lo + hi) >>> 1;
+
+			if (value(edges[mid], this.minX, this.maxX) <= maxX) {
+				lo = mid + 1;
+			} else {
+				hi = mid;
+			}
+		}
+
+		end = lo;
+
+		for (int i = 0; i < end; i++) {
+			int e = edges[i];
+
+			if ((e & 1) == 0) {
+				int id = e >> 1;
+
+				if (this.maxX[id] >= minX && this.maxY[id] >= minY && this.minY[id] <= maxY) {
+					callback.onResult(id);
+				}
+			}
+		}
+	}
+
+	/* SORT AND SWEEP */
+
+	/**
+	 * Take the edges of the removed boxes out of both edge arrays.
+	 */
+	private void removeEdges() {
+		if (numRemoved == 0) {
+			return;
+		}
+
+		int n = 0;
+
+		for (int i = 0; i < numEdges; i++) {
+			if (!removed[edgesX[i] >> 1]) {
+				edgesX[n++] = edgesX[i];
+			}
+		}
+
+		n = 0;
+
+		for (int i = 0; i < numEdges; i++) {
+			int id = edgesY[i] >> 1;
+
+			if (!removed[id]) {
+				edgesY[n++] = edgesY[i];
+			} else if ((edgesY[i] & 1) == 1) {
+				removed[id] = false;                         // Both of its edges are out of both arrays now
+			}
+		}
+
+		numEdges = n;
+		numRemoved = 0;
+	}
+
+	/**
+	 * Insertion sort the edges along one axis. Min edges go before max edges at the same
+	 * position so boxes that only touch still overlap.
+	 *
+	 * @return The number of swaps.
+	 */
+	private int sort(int[] edges, float[] min, float[] max) {
+		int swaps = 0;
+
+		for (int i = 1; i < numEdges; i++) {
+			int edge = edges[i];
+			float v = value(edge, min, max);
+			int j = i - 1;
+
+			while (j >= 0 && before(v, edge, edges[j], min, max)) {
+				edges[j + 1] = edges[j];
+				j--;
+				swaps++;
+			}
+
+			edges[j + 1] = edge;
+		}
+
+		return swaps;
+	}
+
+	/**
+	 * Returns true if an edge at position v should go before the other edge.
+	 */
+	private static boolean before(float v, int edge, int other, float[] min, float[] max) {
+		float o = value(other, min, max);
+		return v < o || (v == o && (edge & 1) == 0 && (other & 1) == 1);
+	}
+
+	private static float value(int edge, float[] min, float[] max) {
+		return (edge & 1) == 0 ? min[edge >> 1] : max[edge >> 1];
+	}
+
+	/**
+	 * Walk along the sorted edges. When a box's min edge is reached, it is checked on the
+	 * other axis against every box that is still open.
+	 */
+	private void sweep(int[] edges, float[] otherMin, float[] otherMax, PairCallback callback) {
+		numOpen = 0;
+
+		for (int i = 0; i < numEdges; i++) {
+			int edge = edges[i];
+			int id = edge >> 1;
+
+			if ((edge & 1) == 0) {
+				for (int o = 0; o < numOpen; o++) {
+					int other = open[o];
+
+					if (((mask[id] & category[other]) != 0 || (mask[other] & category[id]) != 0) && otherMax[id] >= otherMin[other] && otherMin[id] <= otherMax[other]) {
+						callback.onPair(other, id);
+						pairCount++;
+					}
+				}
+
+				if (numOpen == open.length) {
+					open = copyOf(open, open.length * 2);
+				}
+
+				openIndex[id] = numOpen;
+				open[numOpen++] = id;
+			} else {
+				// Close the box by moving the last open box into its place
+				int index = openIndex[id];
+				int last = open[--numOpen];
+
+				open[index] = last;
+				openIndex[last] = index;
+			}
+		}
+	}
+
+	/**
+	 * Variance of the box centers along X, times the number of boxes.
+	 */
+	private double spreadX() {
+		return spread(minX, maxX);
+	}
+
+	/**
+	 * Variance of the box centers along Y, times the number of boxes.
+	 */
+	private double spreadY() {
+		return spread(minY, maxY);
+	}
+
+	/**
+	 * Uses Welford's method in doubles. Summing the squares of the centers in floats loses
+	 * the whole variance when the boxes are far from the origin compared to how spread out
+	 * they are.
+	 */
+	private double spread(float[] min, float[] max) {
+		double mean = 0;
+		double m2 = 0;
+		int n = 0;
+
+		for (int i = 0; i < numEdges; i++) {
+			int edge = edgesX[i];
+
+			if ((edge & 1) == 0) {
+				int id = edge >> 1;
+				double c = ((double) min[id] + max[id]) / 2;
+				double delta = c - mean;
+
+				n++;
+				mean += delta / n;
+				m2 += delta * (c - mean);
+			}
+		}
+
+		return m2;
+	}
+
+	/* MEMORY */
+
+	private void growBoxes(int size) {
+		minX = copyOf(minX, size);
+		minY = copyOf(minY, size);
+		maxX = copyOf(maxX, size);
+		maxY = copyOf(maxY, size);
+		openIndex = copyOf(openIndex, size);
+		removed = copyOf(removed, size);
+		category = copyOf(category, size);
+		mask = copyOf(mask, size);
+
+	}
+
+	private static int[] copyOf(int[] a, int size) {
+		int[] n = new int[size];
+		System.arraycopy(a, 0, n, 0, a.length);
+		return n;
+	}
+
+	private static boolean[] copyOf(boolean[] a, int size) {
+		boolean[] n = new boolean[size];
+		System.arraycopy(a, 0, n, 0, a.length);
+		return n;
+	}
+
+	private static float[] copyOf(float[] a, int size) {
+		float[] n = new float[size];
+		System.arraycopy(a, 0, n, 0, a.length);
+		return n;
+	}
+}
@@ -0,0 +1,421 @@
+/**
+ * BobEngine - 2D game engine for Android
+ *
+ * Copyright (C) 2014, 2015, 2016 Benjamin Blaszczak
+ *
+ * BobEngine is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser Public License
+ * version 2.1 as published by the free software foundation.
+ *
+ * BobEngine is provided without warranty; without even the implied
+ * warranty of merchantability or fitness for a particular
+ * purpose. See the GNU Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General
+ * Public License along with BobEngine; if not, write to the
+ * Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301 USA
+ *
+ */
+package com.bobbyloujo.bobengine.systems.collision;
+
+import com.bobbyloujo.bobengine.components.Component;
+import com.bobbyloujo.bobengine.components.Transform;
+import com.bobbyloujo.bobengine.entities.Entity;
+
+/**
+ * A grid of tiles for level geometry, like the ground and walls of a platformer. Each tile
+ * is one byte saying whether it is empty, solid, a platform, or a slope, so a level made
+ * of thousands of tiles doesn't need a CollisionBox for each one.
+ * <br />
+ * <br />
+ * Boxes are moved through the tiles with move(), which only looks at the tiles the box
+ * passes over. Boxes are moved along x first, then along y. A moving object can also be
+ * in a CollisionSystem to get collisions with other objects.
+ * <br />
+ * <br />
+ * Tiles are 1 grid unit of the Room wide and high unless another size is given. Tile (0, 0)
+ * is the lower left tile and its lower left corner is at the origin, which can be moved with
+ * setOrigin(). Everything outside the grid is empty.
+ * <br />
+ * <br />
+ * Slopes are floors. A box standing on a slope rests on the highest point of the slope under
+ * it. The tall side of a slope is a wall unless the box is walking up a slope toward it.
+ * Platforms can be jumped through from below and walked through from the sides.
+ */
+public class TileCollisionLayer implements Component {
+
+	// Tile types
+	public static final byte EMPTY = 0;       // Nothing
+	public static final byte SOLID = 1;       // Solid from every side
+	public static final byte PLATFORM = 2;    // Only solid from above
+	public static final byte SLOPE_UP = 3;    // Floor rising from the lower left corner to the upper right corner
+	public static final byte SLOPE_DOWN = 4;  // Floor falling from the upper left corner to the lower right corner
+
+	// Sides of a box that hit a tile in move()
+	public static final int HIT_LEFT = 1;
+	public static final int HIT_RIGHT = 2;
+	public static final int HIT_BOTTOM = 4;   // Also set when the box is standing on a tile
+	public static final int HIT_TOP = 8;
+
+	private static final double EPSILON = 1e-6;  // Fraction of a tile that a box can overlap a tile without touching it
+
+	private int columns;           // Number of tiles in each row
+	private int rows;              // Number of rows of tiles
+	private double tileW;          // Width of a tile in grid units
+	private double tileH;          // Height of a tile in grid units
+	private double epsX;           // EPSILON in grid units
+	private double epsY;
+	private double originX;        // Lower left corner of tile (0, 0)
+	private double originY;
+	private byte[] tiles;          // The type of each tile, row by row from the bottom row up
+
+	/**
+	 * Create a new layer of empty tiles that are each 1 grid unit wide and high.
+	 *
+	 * @param columns The number of tiles in each row.
+	 * @param rows The number of rows of tiles.
+	 */
+	public TileCollisionLayer(int columns, int rows) {
+		this(columns, rows, 1, 1);
+	}
+
+	/**
+	 * Create a new layer of empty tiles.
+	 *
+	 * @param columns The number of tiles in each row.
+	 * @param rows The number of rows of tiles.
+	 * @param tileWidth The width of a tile in grid units.
+	 * @param tileHeight The height of a tile in grid units.
+	 */
+	public TileCollisionLayer(int columns, int rows, double tileWidth, double tileHeight) {
+		this.columns = columns;
+		this.rows = rows;
+
+		tileW = tileWidth;
+		tileH = tileHeight;
+		epsX = tileW * EPSILON;
+		epsY = tileH * EPSILON;
+
+		tiles = new byte[columns * rows];
+	}
+
+	/**
+	 * Create a new layer of empty tiles and add it to an Entity.
+	 *
+	 * @param parent The Entity this layer belongs to, usually a Room.
+	 * @param columns The number of tiles in each row.
+	 * @param rows The number of rows of tiles.
+	 * @param tileWidth The width of a tile in grid units.
+	 * @param tileHeight The height of a tile in grid units.
+	 */
+	public TileCollisionLayer(Entity parent, int columns, int rows, double tileWidth, double tileHeight) {
+		this(columns, rows, tileWidth, tileHeight);
+		parent.addComponent(this);
+	}
+
+	/**
+	 * Move the lower left corner of tile (0, 0).
+	 */
+	public void setOrigin(double x, double y) {
+		originX = x;
+		originY = y;
+	}
+
+	/**
+	 * @return The number of tiles in each row.
+	 */
+	public int getColumns() {
+		return columns;
+	}
+
+	/**
+	 * @return The number of rows of tiles.
+	 */
+	public int getRows() {
+		return rows;
+	}
+
+	/**
+	 * @return The width of a tile in grid units.
+	 */
+	public double getTileWidth() {
+		return tileW;
+	}
+
+	/**
+	 * @return The height of a tile in grid units.
+	 */
+	public double getTileHeight() {
+		return tileH;
+	}
+
+	/**
+	 * Set the type of a tile. Tiles outside the grid are ignored.
+	 *
+	 * @param column The column of the tile, 0 is the left column.
+	 * @param row The row of the tile, 0 is the bottom row.
+	 * @param type EMPTY, SOLID, PLATFORM, SLOPE_UP, or SLOPE_DOWN.
+	 */
+	public void setTile(int column, int row, byte type) {
+		if (column >= 0 && row >= 0 && column < columns && row < rows) {
+			tiles[row * columns + column] = type;
+		}
+	}
+
+	/**
+	 * Set the type of every tile in a rectangle of tiles.
+	 *
+	 * @param column The left column of the rectangle.
+	 * @param row The bottom row of the rectangle.
+	 * @param width The number of columns in the rectangle.
+	 * @param height The number of rows in the rectangle.
+	 * @param type EMPTY, SOLID, PLATFORM, SLOPE_UP, or SLOPE_DOWN.
+	 */
+	public void fillTiles(int column, int row, int width, int height, byte type) {
+		for (int r = row; r < row + height; r++) {
+			for (int c = column; c < column + width; c++) {
+				setTile(c, r, type);
+			}
+		}
+	}
+
+	/**
+	 * @param column The column of the tile, 0 is the left column.
+	 * @param row The row of the tile, 0 is the bottom row.
+	 * @return The type of the tile. EMPTY if the tile is outside the grid.
+	 */
+	public byte getTile(int column, int row) {
+		if (column < 0 || row < 0 || column >= columns || row >= rows) {
+			return EMPTY;
+		}
+
+		return tiles[row * columns + column];
+	}
+
+	/**
+	 * @return The type of the tile at a point in grid units.
+	 */
+	public byte getTileAt(double x, double y) {
+		return getTile(getColumn(x), getRow(y));
+	}
+
+	/**
+	 * @return The column of the tiles at x, in grid units. May be outside the grid.
+	 */
+	public int getColumn(double x) {
+		return (int) Math.floor((x - originX) / tileW);
+	}
+
+	/**
+	 * @return The row of the tiles at y, in grid units. May be outside the grid.
+	 */
+	public int getRow(double y) {
+		return (int) Math.floor((y - originY) / tileH);
+	}
+
+	/**
+	 * Move the center of a Transform by (dx, dy) in grid units, stopping at the tiles in the
+	 * way. The box is the Transform's width and height times its scale. The Transform's parent
+	 * is ignored, so its x and y should be in the Room's grid units.
+	 * <br />
+	 * <br />
+	 * A box standing on the ground when it moves sideways follows slopes and small steps
+	 * down instead of walking off into the air, as long as dy isn't upward.
+	 *
+	 * @param t The Transform to move.
+	 * @param dx The distance to move on the x axis.
+	 * @param dy The distance to move on the y axis.
+	 * @return The sides of the box that hit a tile: some of HIT_LEFT, HIT_RIGHT, HIT_BOTTOM,
+	 *         and HIT_TOP.
+	 */
+	public int move(Transform t, double dx, double dy) {
+		double halfW = Math.abs(t.width) * t.scale / 2;
+		double halfH = Math.abs(t.height) * t.scale / 2;
+		double left = t.x - halfW;
+		double right = t.x + halfW;
+		double bottom = t.y - halfH;
+		double top = t.y + halfH;
+		int hit = 0;
+
+		boolean grounded = dy <= 0 && dx != 0 && findFloor(left, bottom, right, bottom - epsY * 2) != Double.NEGATIVE_INFINITY;
+
+		double moveX = moveX(left, bottom, right, top, dx);
+
+		if (moveX != dx) {
+			hit |= dx > 0 ? HIT_RIGHT : HIT_LEFT;
+		}
+
+		left += moveX;
+		right += moveX;
+
+		double moveY;
+
+		if (dy > 0) {
+			moveY = moveY(left, bottom, right, top, dy);
+
+			if (moveY != dy) {
+				hit |= HIT_TOP;
+			}
+		} else {
+			double reach = dy;
+
+			if (grounded) {                                   // Reach down as far as a slope could fall over the distance moved
+				reach -= Math.abs(moveX) * tileH / tileW;
+			}
+
+			double floor = findFloor(left, bottom, right, bottom + reach);
+
+			if (floor != Double.NEGATIVE_INFINITY) {
+				moveY = floor - bottom;
+				hit |= HIT_BOTTOM;
+			} else {
+				moveY = dy;
+			}
+		}
+
+		t.x += moveX;
+		t.y += moveY;
+
+		return hit;
+	}
+
+	/**
+	 * Find how far a box can move along the x axis before it hits a tile.
+	 *
+	 * @param left The left edge of the box.
+	 * @param bottom The bottom edge of the box.
+	 * @param right The right edge of the box.
+	 * @param top The top edge of the box.
+	 * @param dx The distance the box is trying to move.
+	 * @return The distance the box can move, dx if nothing is in the way.
+	 */
+	public double moveX(double left, double bottom, double right, double top, double dx) {
+		int floorRow = getRow(bottom + epsY);                 // The row the box is standing in, which may have a slope
+		int r1 = Math.max(floorRow, 0);
+		int r2 = Math.min(getRow(top - epsY), rows - 1);
+
+		if (dx > 0) {
+			int first = Math.max(getColumn(right - epsX) + 1, 0);
+			int last = Math.min(getColumn(right + dx - epsX), columns - 1);
+
+			for (int c = first; c <= last; c++) {
+				for (int r = r1; r <= r2; r++) {
+					byte tile = tiles[r * columns + c];
+
+					if (tile == SOLID || tile == SLOPE_DOWN || (tile == SLOPE_UP && r != floorRow)) {
+						if (r == floorRow && getTile(c - 1, r) == SLOPE_UP) {
+							continue;                         // The top of the slope the box is walking up
+						}
+
+						return originX + c * tileW - right;
+					}
+				}
+			}
+		} else if (dx < 0) {
+			int first = Math.min(getColumn(left + epsX) - 1, columns - 1);
+			int last = Math.max(getColumn(left + dx + epsX), 0);
+
+			for (int c = first; c >= last; c--) {
+				for (int r = r1; r <= r2; r++) {
+					byte tile = tiles[r * columns + c];
+
+					if (tile == SOLID || tile == SLOPE_UP || (tile == SLOPE_DOWN && r != floorRow)) {
+						if (r == floorRow && getTile(c + 1, r) == SLOPE_DOWN) {
+							continue;
+						}
+
+						return originX + (c + 1) * tileW - left;
+					}
+				}
+			}
+		}
+
+		return dx;
+	}
+
+	/**
+	 * Find how far a box can move along the y axis before it hits a tile. A box moving down
+	 * lands on the highest floor under it, which can move it up if it is inside a slope.
+	 *
+	 * @param left The left edge of the box.
+	 * @param bottom The bottom edge of the box.
+	 * @param right The right edge of the box.
+	 * @param top The top edge of the box.
+	 * @param dy The distance the box is trying to move.
+	 * @return The distance the box can move, dy if nothing is in the way.
+	 */
+	public double moveY(double left, double bottom, double right, double top, double dy) {
+		if (dy <= 0) {
+			double floor = findFloor(left, bottom, right, bottom + dy);
+			return floor != Double.NEGATIVE_INFINITY ? floor - bottom : dy;
+		}
+
+		int c1 = Math.max(getColumn(left + epsX), 0);
+		int c2 = Math.min(getColumn(right - epsX), columns - 1);
+		int first = Math.max(getRow(top - epsY) + 1, 0);
+		int last = Math.min(getRow(top + dy - epsY), rows - 1);
+
+		for (int r = first; r <= last; r++) {
+			for (int c = c1; c <= c2; c++) {
+				byte tile = tiles[r * columns + c];
+
+				if (tile == SOLID || tile == SLOPE_UP || tile == SLOPE_DOWN) {
+					return originY + r * tileH - top;
+				}
+			}
+		}
+
+		return dy;
+	}
+
+	/**
+	 * Find the highest floor under a box from its bottom down to a height.
+	 *
+	 * @param target The lowest floor to look for.
+	 * @return The height of the floor, or Double.NEGATIVE_INFINITY if there isn't one.
+	 */
+	private double findFloor(double left, double bottom, double right, double target) {
+		int c1 = Math.max(getColumn(left + epsX), 0);
+		int c2 = Math.min(getColumn(right - epsX), columns - 1);
+		int first = Math.min(getRow(bottom + epsY), rows - 1);
+		int last = Math.max(getRow(target - epsY), 0);
+
+		for (int r = first; r >= last; r--) {
+			double rowBottom = originY + r * tileH;
+			double rowTop = rowBottom + tileH;
+			double floor = Double.NEGATIVE_INFINITY;
+
+			for (int c = c1; c <= c2; c++) {
+				byte tile = tiles[r * columns + c];
+
+				if (tile == EMPTY) {
+					continue;
+				}
+
+				if (tile == SOLID || tile == PLATFORM) {
+					if (rowTop <= bottom + epsY) {            // Only the tops of tiles the box was above
+						floor = Math.max(floor, rowTop);
+					}
+				} else {
+					double tileLeft = originX + c * tileW;
+					double u;                                 // Where the box is highest on the slope, from 0 to 1
+
+					if (tile == SLOPE_UP) {
+						u = Math.min((right - tileLeft) / tileW, 1);
+					} else {
+						u = 1 - Math.max((left - tileLeft) / tileW, 0);
+					}
+
+					floor = Math.max(floor, rowBottom + u * tileH);
+				}
+			}
+
+			if (floor != Double.NEGATIVE_INFINITY) {          // Floors in lower rows can't be higher
+				return floor >= target ? floor : Double.NEGATIVE_INFINITY;
+			}
+		}
+
+		return Double.NEGATIVE_INFINITY;
+	}
+}
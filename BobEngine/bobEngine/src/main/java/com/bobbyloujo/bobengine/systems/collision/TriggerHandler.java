@@ -0,0 +1,51 @@
+/**
+ * BobEngine - 2D game engine for Android
+ *
+ * Copyright (C) 2014, 2015, 2016 Benjamin Blaszczak
+ *
+ * BobEngine is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser Public License
+ * version 2.1 as published by the free software foundation.
+ *
+ * BobEngine is provided without warranty; without even the implied
+ * warranty of merchantability or fitness for a particular
+ * purpose. See the GNU Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General
+ * Public License along with BobEngine; if not, write to the
+ * Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301 USA
+ *
+ */
+package com.bobbyloujo.bobengine.systems.collision;
+
+/**
+ * A CollisionHandler for trigger zones, like checkpoints, kill planes, and pickup areas. A
+ * box whose handler is a TriggerHandler is a trigger. It is only told when another box
+ * enters or leaves it, never on the frames in between, and onCollision() is never called.
+ * <br />
+ * <br />
+ * The handlers of other boxes are not told about triggers, and triggers don't trigger each
+ * other. Use a CollisionFilter to choose which boxes a trigger reacts to. Triggers that
+ * never move should be added with addStaticCollidable() so they cost nothing until
+ * something comes near them.
+ * <br />
+ * <br />
+ * Extend TriggerAdapter to only handle the events you need.
+ */
+public interface TriggerHandler extends CollisionHandler {
+	/**
+	 * Fired on the first frame that c touches this handler's box.
+	 *
+	 * @param c The CollisionBox that entered this trigger.
+	 */
+	void onTriggerEnter(CollisionBox c);
+
+	/**
+	 * Fired on the first frame that c no longer touches this handler's box, or when c is
+	 * removed from the CollisionSystem.
+	 *
+	 * @param c The CollisionBox that left this trigger.
+	 */
+	void onTriggerExit(CollisionBox c);
+}
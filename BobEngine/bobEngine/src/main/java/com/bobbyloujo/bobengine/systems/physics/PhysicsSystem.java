@@ -0,0 +1,795 @@
+/**
+ * BobEngine - 2D game engine for Android
+ * <p/>
+ * Copyright (C) 2014, 2015, 2016 Benjamin Blaszczak
+ * <p/>
+ * BobEngine is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser Public License
+ * version 2.1 as published by the free software foundation.
+ * <p/>
+ * BobEngine is provided without warranty; without even the implied
+ * warranty of merchantability or fitness for a particular
+ * purpose. See the GNU Lesser Public License for more details.
+ * <p/>
+ * You should have received a copy of the GNU Lesser General
+ * Public License along with BobEngine; if not, write to the
+ * Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301 USA
+ */
+package com.bobbyloujo.bobengine.systems.physics;
+
+import com.bobbyloujo.bobengine.components.Component;
+import com.bobbyloujo.bobengine.components.Transform;
+import com.bobbyloujo.bobengine.entities.Entity;
+import com.bobbyloujo.bobengine.systems.ComponentRemovalListener;
+import com.bobbyloujo.bobengine.systems.Updatable;
+import com.bobbyloujo.bobengine.systems.collision.Broadphase;
+import com.bobbyloujo.bobengine.systems.collision.CollisionFilter;
+import com.bobbyloujo.bobengine.systems.collision.CollisionShape;
+import com.bobbyloujo.bobengine.systems.collision.DynamicAabbTree;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+
+/**
+ * A small rigid body solver for boxes and circles that don't rotate. Each body is a
+ * Transform with a velocity, a mass, and a restitution (bounciness). Every frame this
+ * system moves the bodies by their velocities, finds the bodies that overlap with a
+ * Broadphase, and pushes them apart with a fixed number of passes over all of the
+ * contacts. The new positions are written back to the Transforms.
+ * <br />
+ * <br />
+ * The body data is kept in arrays, so one update does the work of a step() method on
+ * every object that moves itself and checks its neighbors. Contacts are solved in the
+ * same order every frame no matter the broadphase, so the same input gives the same
+ * result.
+ * <br />
+ * <br />
+ * The bodies are kept in a broadphase of their own, not the one in a CollisionSystem.
+ * Contacts have to be found after gravity is added and before the bodies move, for every
+ * pair of bodies where one of them can move. A CollisionSystem finds its pairs during its
+ * own update, which may run before or after this one, and only for hit boxes whose
+ * filters and handlers want them, so its pairs would be a frame old and miss some bodies.
+ * This way bodies don't need CollisionBoxes either. Use setBroadphase() to pick the same
+ * kind of broadphase as the CollisionSystem.
+ * <br />
+ * <br />
+ * Bodies use their Transform's x, y, width, height, and scale. The Transforms should not
+ * have a parent, and their angle is ignored. Bodies with a mass of 0 never move, like
+ * walls and floors. Velocities are in room units per frame at 60 FPS, like the speeds
+ * objects use in step().
+ */
+public class PhysicsSystem implements Updatable, ComponentRemovalListener {
+
+	public static final int DEF_ITERATIONS = 8;           // Default number of passes over the contacts each frame
+	public static final double DEF_SLOP = 0.01;           // Default overlap, in room units, left alone to keep resting contacts steady
+	private static final double CORRECTION = 0.2;         // Fraction of the overlap past the slop removed each frame. Much more overshoots in piles
+	private static final double BOUNCE_SPEED = 0.01;      // Slowest closing speed, past one frame of gravity, that bounces
+	private static final int DEF_CAPACITY = 16;
+
+	// Bodies, by index. Removing a body moves the last body into its place.
+	private Transform[] transforms;
+	private double[] posX;
+	private double[] posY;
+	private double[] velX;
+	private double[] velY;
+	private double[] halfW;
+	private double[] halfH;
+	private double[] invMass;          // 1 / mass, or 0 for bodies that never move
+	private double[] restitution;
+	private int[] shape;
+	private int[] bodyId;              // The id of each body in the broadphase
+	private Entity[] owner;            // The Entity each body belongs to, or null
+	private int numBodies;
+
+	private IdentityHashMap<Transform, Integer> bodyIndex;   // The index of each body's Transform
+	private IdentityHashMap<Entity, ArrayList<Transform>> entityBodies; // The bodies of each owner Entity
+	private int[] idIndex;             // The index of the body with each broadphase id, or -1
+	private int[] freeIds;             // Broadphase ids of removed bodies that can be used again
+	private int numFreeIds;
+	private int nextId;
+
+	private Broadphase broadphase;
+	private long[] pairs;              // Pairs from the broadphase, packed as (lower id << 32) | higher id
+	private int numPairs;
+	private PairCollector pairCollector;
+
+	// Contacts found this frame, by index
+	private int[] contactA;
+	private int[] contactB;
+	private double[] normalX;          // The direction from A to B that pushes them apart
+	private double[] normalY;
+	private double[] depth;            // How far A and B overlap along the normal
+	private double[] normalMass;       // 1 / (invMass of A + invMass of B)
+	private double[] bounce;           // The speed A and B should separate at after bouncing
+	private double[] impulse;          // The total impulse applied to the contact this frame
+	private int numContacts;
+
+	private double gravityX;
+	private double gravityY;
+	private int iterations;
+	private double slop;
+
+	private boolean bounded;           // True if bodies are kept inside the bounds
+	private double boundsLeft;
+	private double boundsBottom;
+	private double boundsRight;
+	private double boundsTop;
+
+	/**
+	 * Create a new physics system that finds contacts with a DynamicAabbTree.
+	 */
+	public PhysicsSystem() {
+		transforms = new Transform[DEF_CAPACITY];
+		posX = new double[DEF_CAPACITY];
+		posY = new double[DEF_CAPACITY];
+		velX = new double[DEF_CAPACITY];
+		velY = new double[DEF_CAPACITY];
+		halfW = new double[DEF_CAPACITY];
+		halfH = new double[DEF_CAPACITY];
+		invMass = new double[DEF_CAPACITY];
+		restitution = new double[DEF_CAPACITY];
+		shape = new int[DEF_CAPACITY];
+		bodyId = new int[DEF_CAPACITY];
+		owner = new Entity[DEF_CAPACITY];
+		numBodies = 0;
+
+		bodyIndex = new IdentityHashMap<Transform, Integer>();
+		entityBodies = new IdentityHashMap<Entity, ArrayList<Transform>>();
+		idIndex = new int[DEF_CAPACITY];
+		freeIds = new int[DEF_CAPACITY];
+		numFreeIds = 0;
+		nextId = 0;
+
+		broadphase = new DynamicAabbTree();
+		pairs = new long[DEF_CAPACITY];
+		numPairs = 0;
+		pairCollector = new PairCollector();
+
+		allocateContacts(DEF_CAPACITY);
+		numContacts = 0;
+
+		iterations = DEF_ITERATIONS;
+		slop = DEF_SLOP;
+		bounded = false;
+	}
+
+	/**
+	 * Add a box body.
+	 *
+	 * @param t The Transform of the body. Its position is changed by this system.
+	 * @param mass The mass of the body. 0 for a body that never moves.
+	 * @param restitution How bouncy the body is, from 0 for no bounce to 1 for a perfect bounce.
+	 */
+	public void addBody(Transform t, double mass, double restitution) {
+		addBody(t, mass, restitution, CollisionShape.SHAPE_BOX, null);
+	}
+
+	/**
+	 * Add a box body that belongs to an Entity. The body is removed when the Entity is
+	 * removed from the Room.
+	 *
+	 * @param t The Transform of the body. Its position is changed by this system.
+	 * @param mass The mass of the body. 0 for a body that never moves.
+	 * @param restitution How bouncy the body is, from 0 for no bounce to 1 for a perfect bounce.
+	 * @param owner The Entity this body belongs to.
+	 */
+	public void addBody(Transform t, double mass, double restitution, Entity owner) {
+		addBody(t, mass, restitution, CollisionShape.SHAPE_BOX, owner);
+	}
+
+	/**
+	 * Add a body. Adding a Transform that is already a body does nothing.
+	 *
+	 * @param t The Transform of the body. Its position is changed by this system.
+	 * @param mass The mass of the body. 0 for a body that never moves.
+	 * @param restitution How bouncy the body is, from 0 for no bounce to 1 for a perfect bounce.
+	 * @param shape CollisionShape.SHAPE_BOX or CollisionShape.SHAPE_CIRCLE. The circle is the
+	 *              largest circle that fits in the Transform. SHAPE_ORIENTED_BOX is treated
+	 *              as SHAPE_BOX because bodies don't rotate.
+	 */
+	public void addBody(Transform t, double mass, double restitution, int shape) {
+		addBody(t, mass, restitution, shape, null);
+	}
+
+	/**
+	 * Add a body. Adding a Transform that is already a body does nothing.
+	 *
+	 * @param t The Transform of the body. Its position is changed by this system.
+	 * @param mass The mass of the body. 0 for a body that never moves.
+	 * @param restitution How bouncy the body is, from 0 for no bounce to 1 for a perfect bounce.
+	 * @param shape CollisionShape.SHAPE_BOX or CollisionShape.SHAPE_CIRCLE. The circle is the
+	 *              largest circle that fits in the Transform. SHAPE_ORIENTED_BOX is treated
+	 *              as SHAPE_BOX because bodies don't rotate.
+	 * @param owner The Entity this body belongs to, or null. The body is removed when the
+	 *              Entity is removed from the Room.
+	 */
+	public void addBody(Transform t, double mass, double restitution, int shape, Entity owner) {
+		if (bodyIndex.containsKey(t)) {
+			return;
+		}
+
+		if (numBodies == transforms.length) {
+			growBodies(numBodies * 2);
+		}
+
+		int id = numFreeIds > 0 ? freeIds[--numFreeIds] : nextId++;
+		int i = numBodies++;
+
+		if (id >= idIndex.length) {
+			idIndex = Arrays.copyOf(idIndex, Math.max(id + 1, idIndex.length * 2));
+		}
+
+		transforms[i] = t;
+		velX[i] = 0;
+		velY[i] = 0;
+		invMass[i] = mass > 0 ? 1 / mass : 0;
+		this.restitution[i] = restitution;
+		this.shape[i] = shape == CollisionShape.SHAPE_CIRCLE ? CollisionShape.SHAPE_CIRCLE : CollisionShape.SHAPE_BOX;
+		bodyId[i] = id;
+		this.owner[i] = owner;
+		idIndex[id] = i;
+		bodyIndex.put(t, i);
+
+		if (owner != null) {
+			ArrayList<Transform> bodies = entityBodies.get(owner);
+
+			if (bodies == null) {
+				bodies = new ArrayList<Transform>(2);
+				entityBodies.put(owner, bodies);
+			}
+
+			bodies.add(t);
+		}
+
+		readBody(i);
+
+		// Bodies that never move can't push each other, so they are never paired
+		int mask = invMass[i] > 0 ? CollisionFilter.MASK_ALL : 0;
+		broadphase.insert(id, (float) (posX[i] - halfW[i]), (float) (posY[i] - halfH[i]), (float) (posX[i] + halfW[i]), (float) (posY[i] + halfH[i]), CollisionFilter.CATEGORY_DEFAULT, mask);
+	}
+
+	/**
+	 * Remove a body. Its Transform keeps its last position.
+	 *
+	 * @param t The Transform of the body.
+	 * @return True if the body was removed, false if t isn't a body in this system.
+	 */
+	public boolean removeBody(Transform t) {
+		Integer index = bodyIndex.remove(t);
+
+		if (index == null) {
+			return false;
+		}
+
+		int i = index;
+		int last = numBodies - 1;
+
+		broadphase.remove(bodyId[i]);
+		idIndex[bodyId[i]] = -1;
+
+		if (numFreeIds == freeIds.length) {
+			freeIds = Arrays.copyOf(freeIds, freeIds.length * 2);
+		}
+
+		freeIds[numFreeIds++] = bodyId[i];
+
+		if (owner[i] != null) {
+			ArrayList<Transform> bodies = entityBodies.get(owner[i]);
+
+			bodies.remove(t);
+
+			if (bodies.isEmpty()) {
+				entityBodies.remove(owner[i]);
+			}
+		}
+
+		if (i != last) {                                      // Move the last body into the removed body's place
+			transforms[i] = transforms[last];
+			posX[i] = posX[last];
+			posY[i] = posY[last];
+			velX[i] = velX[last];
+			velY[i] = velY[last];
+			halfW[i] = halfW[last];
+			halfH[i] = halfH[last];
+			invMass[i] = invMass[last];
+			restitution[i] = restitution[last];
+			shape[i] = shape[last];
+			bodyId[i] = bodyId[last];
+			owner[i] = owner[last];
+			idIndex[bodyId[i]] = i;
+			bodyIndex.put(transforms[i], i);
+		}
+
+		transforms[last] = null;
+		owner[last] = null;
+		numBodies--;
+
+		return true;
+	}
+
+	/**
+	 * Returns the number of bodies in this system.
+	 */
+	public int getBodyCount() {
+		return numBodies;
+	}
+
+	/**
+	 * Set the velocity of a body.
+	 *
+	 * @param t The Transform of the body.
+	 * @param x Velocity on the X axis, in room units per frame.
+	 * @param y Velocity on the Y axis, in room units per frame.
+	 */
+	public void setVelocity(Transform t, double x, double y) {
+		Integer i = bodyIndex.get(t);
+
+		if (i != null) {
+			velX[i] = x;
+			velY[i] = y;
+		}
+	}
+
+	/**
+	 * Returns the velocity of a body on the X axis, or 0 if t isn't a body in this system.
+	 */
+	public double getVelocityX(Transform t) {
+		Integer i = bodyIndex.get(t);
+		return i == null ? 0 : velX[i];
+	}
+
+	/**
+	 * Returns the velocity of a body on the Y axis, or 0 if t isn't a body in this system.
+	 */
+	public double getVelocityY(Transform t) {
+		Integer i = bodyIndex.get(t);
+		return i == null ? 0 : velY[i];
+	}
+
+	/**
+	 * Push a body. The change in velocity is the impulse divided by the body's mass, so
+	 * this does nothing to bodies with a mass of 0.
+	 *
+	 * @param t The Transform of the body.
+	 * @param x Impulse on the X axis.
+	 * @param y Impulse on the Y axis.
+	 */
+	public void applyImpulse(Transform t, double x, double y) {
+		Integer i = bodyIndex.get(t);
+
+		if (i != null) {
+			velX[i] += x * invMass[i];
+			velY[i] += y * invMass[i];
+		}
+	}
+
+	/**
+	 * Set the acceleration added to the velocity of every body that moves, each frame.
+	 *
+	 * @param x Acceleration on the X axis, in room units per frame per frame.
+	 * @param y Acceleration on the Y axis, in room units per frame per frame.
+	 */
+	public void setGravity(double x, double y) {
+		gravityX = x;
+		gravityY = y;
+	}
+
+	/**
+	 * Set the number of passes made over the contacts each frame. More passes make stacks
+	 * and crowds of bodies settle better but take longer. Default is DEF_ITERATIONS.
+	 *
+	 * @param iterations The number of passes. At least 1.
+	 */
+	public void setIterations(int iterations) {
+		this.iterations = iterations < 1 ? 1 : iterations;
+	}
+
+	/**
+	 * Returns the number of passes made over the contacts each frame.
+	 */
+	public int getIterations() {
+		return iterations;
+	}
+
+	/**
+	 * Set how much bodies may overlap before their positions are corrected. A small
+	 * overlap keeps resting bodies from jittering. Default is DEF_SLOP.
+	 *
+	 * @param slop The allowed overlap, in room units.
+	 */
+	public void setSlop(double slop) {
+		this.slop = slop;
+	}
+
+	/**
+	 * Keep every body that moves inside an area, such as the edges of the room. Bodies
+	 * that reach an edge bounce off of it with their restitution.
+	 *
+	 * @param left The left edge.
+	 * @param bottom The bottom edge.
+	 * @param right The right edge.
+	 * @param top The top edge.
+	 */
+	public void setBounds(double left, double bottom, double right, double top) {
+		bounded = true;
+		boundsLeft = left;
+		boundsBottom = bottom;
+		boundsRight = right;
+		boundsTop = top;
+	}
+
+	/**
+	 * Let bodies leave the area set with setBounds().
+	 */
+	public void clearBounds() {
+		bounded = false;
+	}
+
+	/**
+	 * Set the strategy used to find bodies that might be touching. The bodies already in
+	 * this system are moved to the new broadphase. The result of each frame is the same
+	 * for every broadphase.
+	 *
+	 * @param broadphase The new broadphase. If null, a DynamicAabbTree is used.
+	 */
+	public void setBroadphase(Broadphase broadphase) {
+		if (broadphase == null) {
+			broadphase = new DynamicAabbTree();
+		}
+
+		this.broadphase.clear();
+		this.broadphase = broadphase;
+		broadphase.clear();
+
+		for (int i = 0; i < numBodies; i++) {
+			int mask = invMass[i] > 0 ? CollisionFilter.MASK_ALL : 0;
+
+			readBody(i);
+			broadphase.insert(bodyId[i], (float) (posX[i] - halfW[i]), (float) (posY[i] - halfH[i]), (float) (posX[i] + halfW[i]), (float) (posY[i] + halfH[i]), CollisionFilter.CATEGORY_DEFAULT, mask);
+		}
+	}
+
+	/**
+	 * Returns the number of contacts solved in the last frame.
+	 */
+	public int getContactCount() {
+		return numContacts;
+	}
+
+	@Override
+	public void update(double deltaTime) {
+		// Read the Transforms, add gravity, and tell the broadphase where the bodies are
+		for (int i = 0; i < numBodies; i++) {
+			readBody(i);
+
+			if (invMass[i] > 0) {
+				velX[i] += gravityX * deltaTime;
+				velY[i] += gravityY * deltaTime;
+			}
+
+			broadphase.update(bodyId[i], (float) (posX[i] - halfW[i]), (float) (posY[i] - halfH[i]), (float) (posX[i] + halfW[i]), (float) (posY[i] + halfH[i]));
+		}
+
+		// Find the contacts, in order of the bodies' ids no matter the broadphase
+		numPairs = 0;
+		broadphase.findPairs(pairCollector);
+		Arrays.sort(pairs, 0, numPairs);
+
+		numContacts = 0;
+
+		for (int p = 0; p < numPairs; p++) {
+			int a = idIndex[(int) (pairs[p] >>> 32)];
+			int b = idIndex[(int) pairs[p]];
+
+			if (invMass[a] + invMass[b] > 0) {
+				collide(a, b);
+			}
+		}
+
+		// Work out how hard each contact should push and how fast it should bounce. Resting
+		// bodies gain one frame of gravity each frame, which shouldn't make them bounce.
+		double bounceSpeed = BOUNCE_SPEED + Math.sqrt(gravityX * gravityX + gravityY * gravityY) * deltaTime;
+
+		for (int c = 0; c < numContacts; c++) {
+			int a = contactA[c];
+			int b = contactB[c];
+			double closing = (velX[b] - velX[a]) * normalX[c] + (velY[b] - velY[a]) * normalY[c];
+
+			normalMass[c] = 1 / (invMass[a] + invMass[b]);
+			bounce[c] = closing < -bounceSpeed ? -Math.max(restitution[a], restitution[b]) * closing : 0;
+			impulse[c] = 0;
+		}
+
+		// Sequential impulses. Each pass pushes each contact toward its target speed, and the
+		// total push on a contact never pulls the bodies together.
+		for (int it = 0; it < iterations; it++) {
+			for (int c = 0; c < numContacts; c++) {
+				int a = contactA[c];
+				int b = contactB[c];
+				double nX = normalX[c];
+				double nY = normalY[c];
+				double closing = (velX[b] - velX[a]) * nX + (velY[b] - velY[a]) * nY;
+				double push = normalMass[c] * (bounce[c] - closing);
+				double total = Math.max(impulse[c] + push, 0);
+
+				push = total - impulse[c];
+				impulse[c] = total;
+
+				velX[a] -= nX * push * invMass[a];
+				velY[a] -= nY * push * invMass[a];
+				velX[b] += nX * push * invMass[b];
+				velY[b] += nY * push * invMass[b];
+			}
+		}
+
+		// Move the bodies
+		for (int i = 0; i < numBodies; i++) {
+			if (invMass[i] > 0) {
+				posX[i] += velX[i] * deltaTime;
+				posY[i] += velY[i] * deltaTime;
+			}
+		}
+
+		// Push overlapping bodies apart so they don't sink into each other over time
+		for (int c = 0; c < numContacts; c++) {
+			int a = contactA[c];
+			int b = contactB[c];
+			double correction = Math.max(depth[c] - slop, 0) * CORRECTION * normalMass[c];
+
+			posX[a] -= normalX[c] * correction * invMass[a];
+			posY[a] -= normalY[c] * correction * invMass[a];
+			posX[b] += normalX[c] * correction * invMass[b];
+			posY[b] += normalY[c] * correction * invMass[b];
+		}
+
+		if (bounded) {
+			keepInBounds();
+		}
+
+		for (int i = 0; i < numBodies; i++) {
+			if (invMass[i] > 0) {
+				transforms[i].x = posX[i];
+				transforms[i].y = posY[i];
+			}
+		}
+	}
+
+	/**
+	 * Bounce bodies that moved past the bounds back inside.
+	 */
+	private void keepInBounds() {
+		for (int i = 0; i < numBodies; i++) {
+			if (invMass[i] == 0) {
+				continue;
+			}
+
+			if (posX[i] - halfW[i] < boundsLeft) {
+				posX[i] = boundsLeft + halfW[i];
+				if (velX[i] < 0) velX[i] = -velX[i] * restitution[i];
+			} else if (posX[i] + halfW[i] > boundsRight) {
+				posX[i] = boundsRight - halfW[i];
+				if (velX[i] > 0) velX[i] = -velX[i] * restitution[i];
+			}
+
+			if (posY[i] - halfH[i] < boundsBottom) {
+				posY[i] = boundsBottom + halfH[i];
+				if (velY[i] < 0) velY[i] = -velY[i] * restitution[i];
+			} else if (posY[i] + halfH[i] > boundsTop) {
+				posY[i] = boundsTop - halfH[i];
+				if (velY[i] > 0) velY[i] = -velY[i] * restitution[i];
+			}
+		}
+	}
+
+	/**
+	 * Copy the position and size of a body from its Transform.
+	 */
+	private void readBody(int i) {
+		Transform t = transforms[i];
+
+		posX[i] = t.x;
+		posY[i] = t.y;
+		halfW[i] = Math.abs(t.width * t.scale) / 2;
+		halfH[i] = Math.abs(t.height * t.scale) / 2;
+	}
+
+	/**
+	 * Add a contact between two bodies if their shapes overlap.
+	 */
+	private void collide(int a, int b) {
+		double dX = posX[b] - posX[a];
+		double dY = posY[b] - posY[a];
+
+		if (shape[a] == CollisionShape.SHAPE_BOX && shape[b] == CollisionShape.SHAPE_BOX) {
+			double overlapX = halfW[a] + halfW[b] - Math.abs(dX);
+			double overlapY = halfH[a] + halfH[b] - Math.abs(dY);
+
+			if (overlapX <= 0 || overlapY <= 0) {
+				return;
+			}
+
+			if (overlapX < overlapY) {                        // Push apart along the axis they overlap the least on
+				addContact(a, b, dX < 0 ? -1 : 1, 0, overlapX);
+			} else {
+				addContact(a, b, 0, dY < 0 ? -1 : 1, overlapY);
+			}
+		} else if (shape[a] == CollisionShape.SHAPE_CIRCLE && shape[b] == CollisionShape.SHAPE_CIRCLE) {
+			double r = Math.min(halfW[a], halfH[a]) + Math.min(halfW[b], halfH[b]);
+			double d2 = dX * dX + dY * dY;
+
+			if (d2 >= r * r) {
+				return;
+			}
+
+			double d = Math.sqrt(d2);
+
+			if (d == 0) {
+				addContact(a, b, 0, 1, r);
+			} else {
+				addContact(a, b, dX / d, dY / d, r - d);
+			}
+		} else if (shape[a] == CollisionShape.SHAPE_CIRCLE) {
+			circleBox(a, b, 1);
+		} else {
+			circleBox(b, a, -1);
+		}
+	}
+
+	/**
+	 * Add a contact between a circle and a box if they overlap. The normal points from the
+	 * circle to the box, times sign.
+	 */
+	private void circleBox(int circle, int box, int sign) {
+		double r = Math.min(halfW[circle], halfH[circle]);
+		double dX = posX[circle] - posX[box];                // Circle center relative to the box
+		double dY = posY[circle] - posY[box];
+		double closestX = Math.max(-halfW[box], Math.min(halfW[box], dX));
+		double closestY = Math.max(-halfH[box], Math.min(halfH[box], dY));
+
+		if (closestX == dX && closestY == dY) {              // The center is inside the box
+			double overlapX = halfW[box] - Math.abs(dX);
+			double overlapY = halfH[box] - Math.abs(dY);
+
+			if (overlapX < overlapY) {
+				int s = dX < 0 ? 1 : -1;
+				addPair(circle, box, s * sign, 0, overlapX + r, sign);
+			} else {
+				int s = dY < 0 ? 1 : -1;
+				addPair(circle, box, 0, s * sign, overlapY + r, sign);
+			}
+
+			return;
+		}
+
+		double oX = closestX - dX;                           // From the center to the closest point
+		double oY = closestY - dY;
+		double d2 = oX * oX + oY * oY;
+
+		if (d2 >= r * r) {
+			return;
+		}
+
+		double d = Math.sqrt(d2);
+
+		addPair(circle, box, oX / d * sign, oY / d * sign, r - d, sign);
+	}
+
+	/**
+	 * Add a contact found by circleBox() with A and B in the order collide() was given them.
+	 */
+	private void addPair(int circle, int box, double nX, double nY, double depth, int sign) {
+		if (sign > 0) {
+			addContact(circle, box, nX, nY, depth);
+		} else {
+			addContact(box, circle, nX, nY, depth);
+		}
+	}
+
+	private void addContact(int a, int b, double nX, double nY, double depth) {
+		if (numContacts == contactA.length) {
+			allocateContacts(contactA.length * 2);
+		}
+
+		contactA[numContacts] = a;
+		contactB[numContacts] = b;
+		normalX[numContacts] = nX;
+		normalY[numContacts] = nY;
+		this.depth[numContacts] = depth;
+		numContacts++;
+	}
+
+	private void allocateContacts(int capacity) {
+		if (contactA == null) {
+			contactA = new int[capacity];
+			contactB = new int[capacity];
+			normalX = new double[capacity];
+			normalY = new double[capacity];
+			depth = new double[capacity];
+			normalMass = new double[capacity];
+			bounce = new double[capacity];
+			impulse = new double[capacity];
+		} else {
+			contactA = Arrays.copyOf(contactA, capacity);
+			contactB = Arrays.copyOf(contactB, capacity);
+			normalX = Arrays.copyOf(normalX, capacity);
+			normalY = Arrays.copyOf(normalY, capacity);
+			depth = Arrays.copyOf(depth, capacity);
+			normalMass = Arrays.copyOf(normalMass, capacity);
+			bounce = Arrays.copyOf(bounce, capacity);
+			impulse = Arrays.copyOf(impulse, capacity);
+		}
+	}
+
+	private void growBodies(int capacity) {
+		transforms = Arrays.copyOf(transforms, capacity);
+		posX = Arrays.copyOf(posX, capacity);
+		posY = Arrays.copyOf(posY, capacity);
+		velX = Arrays.copyOf(velX, capacity);
+		velY = Arrays.copyOf(velY, capacity);
+		halfW = Arrays.copyOf(halfW, capacity);
+		halfH = Arrays.copyOf(halfH, capacity);
+		invMass = Arrays.copyOf(invMass, capacity);
+		restitution = Arrays.copyOf(restitution, capacity);
+		shape = Arrays.copyOf(shape, capacity);
+		bodyId = Arrays.copyOf(bodyId, capacity);
+		owner = Arrays.copyOf(owner, capacity);
+	}
+
+	/**
+	 * Removes the bodies of Transforms and entities that were removed from the Room.
+	 *
+	 * @param component The removed component.
+	 */
+	@Override
+	public void onComponentRemoved(Component component) {
+		if (component instanceof Transform) {
+			removeBody((Transform) component);
+		}
+
+		if (component instanceof Entity) {
+			ArrayList<Transform> bodies = entityBodies.get(component);
+
+			while (bodies != null && !bodies.isEmpty()) {
+				removeBody(bodies.get(bodies.size() - 1));
+			}
+		}
+	}
+
+	/**
+	 * Returns the number of bodies in this system owned by entities that are no longer in
+	 * a Room. Bodies added without an owner are never counted.
+	 *
+	 * @return The number of orphaned bodies.
+	 */
+	@Override
+	public int getOrphanCount() {
+		int orphans = 0;
+
+		for (int i = 0; i < numBodies; i++) {
+			if (owner[i] != null && owner[i].getRoom() == null) {
+				orphans++;
+			}
+		}
+
+		return orphans;
+	}
+
+	/**
+	 * Collects the pairs found by the broadphase.
+	 */
+	private class PairCollector implements Broadphase.PairCallback {
+		@Override
+		public void onPair(int idA, int idB) {
+			if (numPairs == pairs.length) {
+				pairs = Arrays.copyOf(pairs, pairs.length * 2);
+			}
+
+			int low = Math.min(idA, idB);
+			int high = Math.max(idA, idB);
+
+			pairs[numPairs++] = ((long) low << 32) | high;
+		}
+	}
+}
@@ -0,0 +1,10 @@
+package com.bobbyloujo.bobengine.systems.quadrenderer;
+
+/**
+ * A Quad with an explicit depth. On a layer sorted with QuadRenderSystem.SORT_DEPTH,
+ * quads with greater depth are drawn first, behind quads with less depth. Quads that
+ * don't implement this interface have a depth of 0.
+ */
+public interface DepthQuad extends Quad {
+    double getDepth();
+}
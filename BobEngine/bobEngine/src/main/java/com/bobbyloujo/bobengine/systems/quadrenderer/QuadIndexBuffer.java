@@ -0,0 +1,120 @@
+/**
+ * BobEngine - 2D game engine for Android
+ * <p/>
+ * Copyright (C) 2014, 2015, 2016 Benjamin Blaszczak
+ * <p/>
+ * BobEngine is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser Public License
+ * version 2.1 as published by the free software foundation.
+ * <p/>
+ * BobEngine is provided without warranty; without even the implied
+ * warranty of merchantability or fitness for a particular
+ * purpose. See the GNU Lesser Public License for more details.
+ * <p/>
+ * You should have received a copy of the GNU Lesser General
+ * Public License along with BobEngine; if not, write to the
+ * Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301 USA
+ */
+package com.bobbyloujo.bobengine.systems.quadrenderer;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.ShortBuffer;
+
+import javax.microedition.khronos.opengles.GL10;
+
+/**
+ * One index buffer shared by every renderer that draws quads. Quads are drawn as two
+ * triangles from 4 vertices in the order bottom left, top left, bottom right, top right,
+ * so the indices are the same for every renderer and never change. They are generated
+ * once for as many quads as 16-bit indices can reach.
+ * <br />
+ * <br />
+ * Use draw() to draw quads with these indices. Draws with more than MAX_QUADS quads are
+ * split into multiple draw calls automatically.
+ */
+public final class QuadIndexBuffer {
+
+	/** The most quads that can be drawn by one glDrawElements call with 16-bit indices. */
+	public static final int MAX_QUADS = 16383;
+
+	/** The number of indices used to draw one quad. */
+	public static final int INDICES_PER_QUAD = 6;
+
+	private static final int VERTICES_PER_QUAD = 4;
+	private static final int COORDS_PER_QUAD = 8;   // 2 coords per vertex * 4 vertices
+
+	private static ShortBuffer indexBuffer;
+
+	private QuadIndexBuffer() {
+	}
+
+	/**
+	 * Returns the shared index buffer, generating it the first time this is called. The
+	 * buffer must not be changed.
+	 */
+	private static ShortBuffer getIndices() {
+		if (indexBuffer == null) {
+			short[] indices = new short[MAX_QUADS * INDICES_PER_QUAD];
+
+			for (int i = 0; i < MAX_QUADS; i++) {
+				int v = i * VERTICES_PER_QUAD;
+
+				indices[i * INDICES_PER_QUAD + 0] = (short) (v + 0);
+				indices[i * INDICES_PER_QUAD + 1] = (short) (v + 1);
+				indices[i * INDICES_PER_QUAD + 2] = (short) (v + 2);
+				indices[i * INDICES_PER_QUAD + 3] = (short) (v + 1);
+				indices[i * INDICES_PER_QUAD + 4] = (short) (v + 2);
+				indices[i * INDICES_PER_QUAD + 5] = (short) (v + 3);
+			}
+
+			ByteBuffer byteBuffer = ByteBuffer.allocateDirect(2 * indices.length);
+			byteBuffer.order(ByteOrder.nativeOrder());
+
+			ShortBuffer buffer = byteBuffer.asShortBuffer();
+			buffer.put(indices);
+			buffer.position(0);
+
+			indexBuffer = buffer;
+		}
+
+		return indexBuffer;
+	}
+
+	/**
+	 * Draw quads as triangles. The vertex and texture buffers hold 2 coordinates per vertex
+	 * and 4 vertices per quad, starting at position 0. If there are more than MAX_QUADS
+	 * quads, they are drawn with several draw calls. The color and texture should already
+	 * be set. Both buffers are left at position 0.
+	 *
+	 * @param gl OpenGL ES 1 object.
+	 * @param vertices The vertex buffer.
+	 * @param texCoords The texture coordinate buffer.
+	 * @param numQuads The number of quads to draw.
+	 */
+	public static void draw(GL10 gl, FloatBuffer vertices, FloatBuffer texCoords, int numQuads) {
+		ShortBuffer indices = getIndices();
+		int first = 0;
+
+		while (first < numQuads) {
+			int quads = Math.min(numQuads - first, MAX_QUADS);
+
+			// Start each chunk at its first quad so its indices start from 0 again
+			vertices.position(first * COORDS_PER_QUAD);
+			texCoords.position(first * COORDS_PER_QUAD);
+			indices.position(0);
+
+			gl.glVertexPointer(2, GL10.GL_FLOAT, 0, vertices);
+			gl.glTexCoordPointer(2, GL10.GL_FLOAT, 0, texCoords);
+
+			gl.glDrawElements(GL10.GL_TRIANGLES, quads * INDICES_PER_QUAD, GL10.GL_UNSIGNED_SHORT, indices);
+
+			first += quads;
+		}
+
+		vertices.position(0);
+		texCoords.position(0);
+	}
+}
@@ -23,16 +23,19 @@ import android.util.Log;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.nio.FloatBuffer;
-import java.nio.ShortBuffer;
 import java.util.ArrayList;
+import java.util.IdentityHashMap;
 
 import javax.microedition.khronos.opengles.GL10;
 import javax.microedition.khronos.opengles.GL11;
 
+import com.bobbyloujo.bobengine.components.Component;
 import com.bobbyloujo.bobengine.components.Transform;
 import com.bobbyloujo.bobengine.components.Transformation;
 import com.bobbyloujo.bobengine.entities.Entity;
 import com.bobbyloujo.bobengine.entities.Room;
+import com.bobbyloujo.bobengine.extra.WorkerPool;
+import com.bobbyloujo.bobengine.systems.ComponentRemovalListener;
 import com.bobbyloujo.bobengine.systems.Renderable;
 import com.bobbyloujo.bobengine.graphics.Graphic;
 
@@ -43,33 +46,55 @@ import com.bobbyloujo.bobengine.graphics.Graphic;
  * <br>
  * <b>GraphicTransformation:</b> defines the rectangular area of the graphic to use to texture the quad.
  * <br>
+ * <br>
+ * Systems with many quads can fill their vertex and texture buffers on all cores by calling
+ * setParallelFill(true). When parallel fill is on, the quads' transformations are read from
+ * worker threads while rendering, so their getters must not change any state.
+ * <br>
+ * <br>
+ * Quads on a layer are drawn in the order they were added unless the layer is sorted with
+ * setLayerSort(). Sorted layers keep their order from the last frame and only move the quads
+ * that changed, so sorting quads that move a little each frame is fast.
+ * <br>
+ * <br>
+ * Quads that are entities are removed automatically when they are removed from the Room.
+ * Removing a quad leaves an empty slot behind; the slots are closed up once enough quads
+ * have been removed, so removing a quad doesn't depend on how many quads there are.
+ * <br>
  * Created by Benjamin on 9/25/2015.
  */
-public class QuadRenderSystem extends Entity implements Renderable {
+public class QuadRenderSystem extends Entity implements Renderable, ComponentRemovalListener {
 
 	public static final int DEF_INIT_QUADS = 3;
+	public static final int DEF_PARALLEL_THRESHOLD = 2000;  // Default number of quads needed to fill buffers in parallel
+	private static final int MIN_CHUNK_QUADS = 256;          // Fewest quads given to one worker at a time
+	private static final int CHUNKS_PER_THREAD = 4;          // Extra chunks so faster threads can pick up the slack
+	private static final int MIN_COMPACT_SLOTS = 32;         // Fewest empty slots worth closing up
+
+	/** Draw quads on the layer in the order they were added. */
+	public static final int SORT_NONE = 0;
+	/** Draw quads on the layer from the highest Y position to the lowest, so lower quads are in front. */
+	public static final int SORT_Y = 1;
+	/** Draw quads on the layer from the greatest depth to the least. See DepthQuad. */
+	public static final int SORT_DEPTH = 2;
+	/** Draw quads on the layer from the lowest key to the highest. See QuadSortKey. */
+	public static final int SORT_CUSTOM = 3;
 
 	public static final int GFX_VERTICES = 8;
 	private static final int VERTICES = 8;
-	private static final int INDICES = 6;
 
 	private final int VERTEX_BYTES = 4 * 3 * 4;   // 4 bytes per float * 3 coords per vertex * 4 vertices
 	private final int TEX_BYTES = 4 * 2 * 4;      // 4 bytes per float * 2 coords per vertex * 4 vertices
-	private final int INDEX_BYTES = 4 * INDICES;  // 4 bytes per short * 6 indices per quad
 
 	private Graphic graphic;
 
-	private int numQuads;             // The number of quads in this system.
-	private ArrayList<Quad> quads;    // The quads in this system.
-
-	private short indices[] = new short[6];                 // The order in which to draw the vertices
-	private int lastIndex[];                                // The number of indices last frame for each layer
-
-	private float[] vertices = new float[VERTICES];
-	private float[] gfxVertices = new float[GFX_VERTICES];
+	private int numQuads;             // The number of slots in quads, including empty slots.
+	private int numEmpty;             // The number of empty slots left by removed quads.
+	private ArrayList<Quad> quads;    // The quads in this system. Removed quads leave a null slot.
+	private IdentityHashMap<Quad, Integer> quadIndex;  // The slot of each quad
+	private int[] slotMap;            // Reusable old slot -> new slot table used when closing up empty slots
 
 	private FloatBuffer vertexBuffer;      // Buffer that holds the render system's vertices
-	private ShortBuffer indexBuffer[];     // Buffer that holds the render system's indices
 	private FloatBuffer textureBuffer;     // Buffer that holds the render system's texture coordinates
 	private int bufferSize;
 
@@ -78,6 +103,28 @@ public class QuadRenderSystem extends Entity implements Renderable {
 	private float blue[];         // Blue values for each layer
 	private float alpha[];        // alpha values for each layer
 
+	private boolean parallelFill;         // Fill buffers on all cores when there are enough quads
+	private int parallelThreshold;        // Number of quads needed to fill buffers in parallel
+	private float[] vertexStaging;        // Vertices for a layer, put into vertexBuffer all at once
+	private float[] textureStaging;       // Texture coordinates for a layer, put into textureBuffer all at once
+	private int[] chunkCounts;            // The number of quads each chunk put in the staging arrays
+	private FillTask fillTask;            // The job run by the workers
+
+	private int sortMode[];               // How each layer is sorted
+	private QuadSortKey sortKeyGetter[];  // Gives the keys for layers with SORT_CUSTOM
+	private int sortOrder[][];            // For each sorted layer, the indices of the layer's quads in the order to draw them
+	private float sortKey[][];            // For each sorted layer, the key of the quad at each position in sortOrder
+	private int sortCount[];              // For each sorted layer, the number of quads in sortOrder
+	private int[] sortSeen;               // The last sortPass each slot's quad was found in a layer's sort order
+	private int sortPass;                 // Counts calls to sortLayer so sortSeen doesn't need to be cleared
+
+	// Room values used when computing vertices, read once per frame so the workers don't have to
+	private Room fillRoom;
+	private double camLeft;
+	private double camBottom;
+	private double unitX;
+	private double unitY;
+
     /**
      * Make a new QuadRenderSystem.
      * @param graphic The graphic used to render the quads.
@@ -100,15 +147,18 @@ public class QuadRenderSystem extends Entity implements Renderable {
 		this.graphic = graphic;
 
 		numQuads = 0;
+		numEmpty = 0;
 		quads = new ArrayList<Quad>(initBufferSize);
+		quadIndex = new IdentityHashMap<Quad, Integer>(initBufferSize);
+
+		parallelFill = false;
+		parallelThreshold = DEF_PARALLEL_THRESHOLD;
 	}
 
 	@Override
 	public void onParentAssigned() {
 		int layers = getRoom().getNumLayers();
 
-		lastIndex = new int[layers];
-
 		float[] r,g,b,a;
 
 		r = red;
@@ -235,25 +285,138 @@ public class QuadRenderSystem extends Entity implements Renderable {
 	}
 
 	/**
-	 * Add a quad to this render system.
+	 * Turn parallel buffer filling on or off. When on, and this system has at least
+	 * getParallelThreshold() quads, the vertices and texture coordinates are computed on
+	 * every core and then copied into the buffers at once. Off by default.
+	 *
+	 * @param parallel True to fill the buffers in parallel.
+	 */
+	public void setParallelFill(boolean parallel) {
+		parallelFill = parallel;
+	}
+
+	/**
+	 * Returns true if parallel buffer filling is on.
+	 *
+	 * @return True if parallel buffer filling is on.
+	 */
+	public boolean isParallelFill() {
+		return parallelFill;
+	}
+
+	/**
+	 * Set the number of quads this system needs to have before the buffers are filled in
+	 * parallel. Below this, the overhead of handing work to other threads costs more
+	 * than it saves. Only used when parallel fill is on.
+	 *
+	 * @param quads The number of quads needed to fill the buffers in parallel.
+	 */
+	public void setParallelThreshold(int quads) {
+		parallelThreshold = quads;
+	}
+
+	/**
+	 * Returns the number of quads needed to fill the buffers in parallel.
+	 *
+	 * @return The number of quads needed to fill the buffers in parallel.
+	 */
+	public int getParallelThreshold() {
+		return parallelThreshold;
+	}
+
+	/**
+	 * Add a quad to this render system. Adding a quad that is already in this system does
+	 * nothing.
 	 * @param quad The quad to add.
      */
 	public void addQuad(Quad quad) {
+		if (quadIndex.containsKey(quad)) {
+			return;
+		}
+
+		quadIndex.put(quad, numQuads);
 		quads.add(quad);
 		numQuads++;
 
 		if (numQuads > bufferSize) {
-			resizeBuffers(numQuads);
+			resizeBuffers(Math.max(numQuads, bufferSize * 2));  // Grow by doubling so adding many quads doesn't remake the buffers every time
 		}
 	}
 
 	/**
-	 * Remove a quad to this render system.
+	 * Remove a quad from this render system. The quad's slot is left empty so the other
+	 * quads don't move; empty slots are closed up once there are enough of them.
 	 * @param quad The quad to remove.
      */
 	public void removeQuad(Quad quad) {
-		quads.remove(quad);
-		numQuads--;
+		Integer index = quadIndex.remove(quad);
+
+		if (index == null) {
+			return;
+		}
+
+		quads.set(index, null);
+		numEmpty++;
+
+		if (numEmpty >= MIN_COMPACT_SLOTS && numEmpty * 2 >= numQuads) {
+			compact();
+		}
+	}
+
+	/**
+	 * Close up the empty slots left by removed quads. The quads keep their order, and so do
+	 * the sort orders of sorted layers.
+	 */
+	private void compact() {
+		if (slotMap == null || slotMap.length < numQuads) {
+			slotMap = new int[numQuads];
+		}
+
+		int n = 0;
+
+		for (int i = 0; i < numQuads; i++) {
+			Quad q = quads.get(i);
+
+			if (q == null) {
+				slotMap[i] = -1;
+			} else {
+				slotMap[i] = n;
+				quads.set(n, q);
+				quadIndex.put(q, n);
+				n++;
+			}
+		}
+
+		// Drop the slots on the end
+		for (int i = numQuads - 1; i >= n; i--) {
+			quads.remove(i);
+		}
+
+		// Take the empty slots out of each sort order and point the rest at the new slots
+		if (sortOrder != null) {
+			for (int l = 0; l < sortOrder.length; l++) {
+				if (sortOrder[l] != null) {
+					int[] order = sortOrder[l];
+					float[] keys = sortKey[l];
+					int o = 0;
+
+					for (int i = 0; i < sortCount[l]; i++) {
+						int slot = slotMap[order[i]];
+
+						if (slot >= 0) {
+							order[o] = slot;
+							keys[o] = keys[i];
+							o++;
+						}
+					}
+
+					sortCount[l] = o;
+				}
+			}
+		}
+
+		numQuads = n;
+		numEmpty = 0;
 	}
 
 	/**
@@ -261,11 +424,248 @@ public class QuadRenderSystem extends Entity implements Renderable {
 	 */
 	public void removeAllQuads() {
 		quads.clear();
+		quadIndex.clear();
 		numQuads = 0;
+		numEmpty = 0;
+
+		if (sortCount != null) {
+			for (int l = 0; l < sortCount.length; l++) {
+				sortCount[l] = 0;
+			}
+		}
+	}
+
+	/**
+	 * Returns the number of quads in this render system.
+	 * @return The number of quads in this render system.
+	 */
+	public int getQuadCount() {
+		return numQuads - numEmpty;
+	}
+
+	/**
+	 * Removes quads that were removed from the Room.
+	 * @param component The removed component.
+	 */
+	@Override
+	public void onComponentRemoved(Component component) {
+		if (component instanceof Quad) {
+			removeQuad((Quad) component);
+		}
 	}
 
 	/**
-	 * Change the size of the vertex, texture, and index buffers.
+	 * Returns the number of quads in this render system that are entities no longer in a
+	 * Room.
+	 * @return The number of orphaned quads.
+	 */
+	@Override
+	public int getOrphanCount() {
+		int orphans = 0;
+
+		for (int i = 0; i < numQuads; i++) {
+			Quad q = quads.get(i);
+
+			if (q instanceof Entity && ((Entity) q).getRoom() == null) {
+				orphans++;
+			}
+		}
+
+		return orphans;
+	}
+
+	/**
+	 * Set how the quads on a layer are sorted. Quads on a layer that isn't sorted are
+	 * drawn in the order they were added. Sorting is stable, so quads with the same key
+	 * keep their relative order.
+	 *
+	 * @param layer The layer to sort.
+	 * @param mode SORT_NONE, SORT_Y, or SORT_DEPTH. Use setLayerSort(int, QuadSortKey)
+	 *             for SORT_CUSTOM.
+	 */
+	public void setLayerSort(int layer, int mode) {
+		if (layer < 0) {
+			Log.e("BobEngine", "Can't sort layer. Layer not in range.");
+			return;
+		}
+
+		if (mode == SORT_CUSTOM) {
+			Log.e("BobEngine", "Can't sort layer. SORT_CUSTOM needs a QuadSortKey.");
+			return;
+		}
+
+		setSort(layer, mode, null);
+	}
+
+	/**
+	 * Sort the quads on a layer by a custom key. Quads are drawn from the lowest key to
+	 * the highest.
+	 *
+	 * @param layer The layer to sort.
+	 * @param key Gives the key for each quad.
+	 */
+	public void setLayerSort(int layer, QuadSortKey key) {
+		if (layer < 0) {
+			Log.e("BobEngine", "Can't sort layer. Layer not in range.");
+			return;
+		}
+
+		setSort(layer, key == null ? SORT_NONE : SORT_CUSTOM, key);
+	}
+
+	/**
+	 * Returns how the quads on a layer are sorted.
+	 *
+	 * @param layer The layer.
+	 * @return SORT_NONE, SORT_Y, SORT_DEPTH, or SORT_CUSTOM.
+	 */
+	public int getLayerSort(int layer) {
+		if (sortMode == null || layer < 0 || layer >= sortMode.length) {
+			return SORT_NONE;
+		}
+
+		return sortMode[layer];
+	}
+
+	private void setSort(int layer, int mode, QuadSortKey key) {
+		if (sortMode == null || layer >= sortMode.length) {
+			int layers = Math.max(layer + 1, Room.DEF_LAYERS);
+			int[] m = new int[layers];
+			QuadSortKey[] k = new QuadSortKey[layers];
+			int[][] o = new int[layers][];
+			float[][] sk = new float[layers][];
+			int[] c = new int[layers];
+
+			if (sortMode != null) {
+				System.arraycopy(sortMode, 0, m, 0, sortMode.length);
+				System.arraycopy(sortKeyGetter, 0, k, 0, sortMode.length);
+				System.arraycopy(sortOrder, 0, o, 0, sortMode.length);
+				System.arraycopy(sortKey, 0, sk, 0, sortMode.length);
+				System.arraycopy(sortCount, 0, c, 0, sortMode.length);
+			}
+
+			sortMode = m;
+			sortKeyGetter = k;
+			sortOrder = o;
+			sortKey = sk;
+			sortCount = c;
+		}
+
+		sortMode[layer] = mode;
+		sortKeyGetter[layer] = key;
+
+		if (mode == SORT_NONE) {
+			sortOrder[layer] = null;
+			sortKey[layer] = null;
+			sortCount[layer] = 0;
+		} else if (sortOrder[layer] == null) {
+			sortOrder[layer] = new int[Math.max(numQuads, DEF_INIT_QUADS)];
+			sortKey[layer] = new float[sortOrder[layer].length];
+			sortCount[layer] = 0;
+		}
+	}
+
+	/**
+	 * Make sure a layer's sort arrays can hold every quad.
+	 */
+	private void ensureSortCapacity(int layer) {
+		if (sortSeen == null || sortSeen.length < numQuads) {
+			sortSeen = new int[Math.max(numQuads, DEF_INIT_QUADS)];
+			sortPass = 0;
+		}
+
+		if (sortOrder[layer].length < numQuads) {
+			int size = Math.max(numQuads, sortOrder[layer].length * 2);
+			int[] o = new int[size];
+			float[] k = new float[size];
+
+			System.arraycopy(sortOrder[layer], 0, o, 0, sortOrder[layer].length);
+			System.arraycopy(sortKey[layer], 0, k, 0, sortKey[layer].length);
+
+			sortOrder[layer] = o;
+			sortKey[layer] = k;
+		}
+	}
+
+	/**
+	 * Update the sort order of a layer and return the number of quads in it. The order only
+	 * holds the quads on the layer and is kept from the last frame: quads that left the layer
+	 * are dropped, quads that joined it go on the end, and an insertion sort puts them all in
+	 * place. If only a few quads have changed places this is close to O(n) in the number of
+	 * quads on the layer. Quads on other layers are only looked at to see if they joined.
+	 */
+	private int sortLayer(int layer) {
+		ensureSortCapacity(layer);
+
+		int[] order = sortOrder[layer];
+		float[] keys = sortKey[layer];
+		int mode = sortMode[layer];
+		QuadSortKey getter = sortKeyGetter[layer];
+		int[] seen = sortSeen;
+		int pass = ++sortPass;
+		int count = 0;
+
+		// Keep the quads that are still on the layer, in last frame's order
+		for (int i = 0; i < sortCount[layer]; i++) {
+			int slot = order[i];
+			Quad q = quads.get(slot);
+
+			if (q != null && q.getTransformation().getLayer() == layer) {
+				seen[slot] = pass;
+				order[count] = slot;
+				keys[count] = getKey(q, mode, getter);
+				count++;
+			}
+		}
+
+		// Add the quads that joined the layer since the last sort
+		for (int i = 0; i < numQuads; i++) {
+			if (seen[i] != pass) {
+				Quad q = quads.get(i);
+
+				if (q != null && q.getTransformation().getLayer() == layer) {
+					order[count] = i;
+					keys[count] = getKey(q, mode, getter);
+					count++;
+				}
+			}
+		}
+
+		for (int i = 1; i < count; i++) {
+			float key = keys[i];
+			int quad = order[i];
+			int j = i - 1;
+
+			while (j >= 0 && keys[j] > key) {
+				keys[j + 1] = keys[j];
+				order[j + 1] = order[j];
+				j--;
+			}
+
+			keys[j + 1] = key;
+			order[j + 1] = quad;
+		}
+
+		sortCount[layer] = count;
+
+		return count;
+	}
+
+	/**
+	 * Get the sort key of a quad for a layer's sort mode.
+	 */
+	private static float getKey(Quad q, int mode, QuadSortKey getter) {
+		if (mode == SORT_Y) {
+			return (float) -Transform.getRealY(q.getTransformation());
+		} else if (mode == SORT_DEPTH) {
+			return q instanceof DepthQuad ? (float) -((DepthQuad) q).getDepth() : 0f;
+		} else {
+			return getter.getSortKey(q);
+		}
+	}
+
+	/**
+	 * Change the size of the vertex and texture buffers.
 	 *
 	 * @param quads The number of quads the buffers should be able to hold.
 	 */
@@ -282,26 +682,15 @@ public class QuadRenderSystem extends Entity implements Renderable {
 		textureBuffer = vertexByteBuffer.asFloatBuffer();
 		textureBuffer.position(0);
 
-		// Set up index buffer
-		int layers = Room.DEF_LAYERS;
-
-		if (getRoom() != null) {
-			layers = getRoom().getNumLayers();
-		}
-
-		vertexByteBuffer = ByteBuffer.allocateDirect(INDEX_BYTES * quads);
-		vertexByteBuffer.order(ByteOrder.nativeOrder());
-		indexBuffer = new ShortBuffer[layers];
-		for (int i = 0; i < layers; i++) {
-			indexBuffer[i] = vertexByteBuffer.asShortBuffer();
-			indexBuffer[i].position(0);
-		}
+		// Set up staging arrays
+		vertexStaging = new float[VERTICES * quads];
+		textureStaging = new float[GFX_VERTICES * quads];
 
 		bufferSize = quads;
 	}
 
 	/**
-	 * Get the size of the vertex, texture, and index buffers.
+	 * Get the size of the vertex and texture buffers.
 	 *
 	 * @return The size of the buffers.
 	 */
@@ -316,9 +705,8 @@ public class QuadRenderSystem extends Entity implements Renderable {
 	 * @param layer layer to render.
 	 */
 	public void render(GL10 gl, int layer) {
-		boolean obFound = false;
 		int gID;
-		int numIndices = 0;    // The number of indices for all objects
+		int numQuadsFound;     // The number of quads on this layer that will be drawn
 
 		if (graphic == null) {
 			gID = 0;
@@ -326,64 +714,168 @@ public class QuadRenderSystem extends Entity implements Renderable {
 			gID = graphic.id;
 		}
 
-		for (int i = 0; i < numQuads; i++) {
-			Transformation t = quads.get(i).getTransformation();
-			GraphicAreaTransformation g = quads.get(i).getGraphicAreaTransformation();
+		numQuadsFound = fillBuffers(layer);
 
-			if (t.getLayer() == layer && onScreen(t, getRoom()) && Transform.getRealVisibility(t)) {
-				if (!obFound) {
-					vertexBuffer.clear();
-					textureBuffer.clear();
+		if (numQuadsFound > 0) {
+			// Add color
+			gl.glColor4f(red[layer] * alpha[layer], green[layer] * alpha[layer], blue[layer] * alpha[layer], alpha[layer]);
 
-					vertexBuffer.position(0);
-					textureBuffer.position(0);
-					indexBuffer[layer].position(0);
+			// Bind the texture
+			gl.glBindTexture(GL11.GL_TEXTURE_2D, gID);
 
-					obFound = true;
-				}
+			// Draw the vertices as triangles
+			QuadIndexBuffer.draw(gl, vertexBuffer, textureBuffer, numQuadsFound);
+		}
+	}
+
+	/**
+	 * Put the vertices and texture coordinates of the visible quads on a layer into the
+	 * vertex and texture buffers. This is called by render() and does not need to be
+	 * called otherwise, but it doesn't need a GL context so it can be used to measure
+	 * how long it takes to prepare the buffers.
+	 *
+	 * @param layer The layer to fill the buffers for.
+	 * @return The number of quads put in the buffers.
+	 */
+	public int fillBuffers(int layer) {
+		Room room = getRoom();
+
+		fillRoom = room;
+		camLeft = room.getCameraLeftEdge();
+		camBottom = room.getCameraBottomEdge();
+		unitX = room.getGridUnitX();
+		unitY = room.getGridUnitY();
+
+		int found;
+		int[] order = null;
+		int count = numQuads;    // The number of quads to look at, or the number in order if the layer is sorted
+
+		if (sortMode != null && layer < sortMode.length && sortMode[layer] != SORT_NONE) {
+			count = sortLayer(layer);
+			order = sortOrder[layer];
+		}
 
-				vertexBuffer.put(getVertices(t));
-				textureBuffer.put(getVertices(g));
-				numIndices += INDICES;
+		if (parallelFill && count >= parallelThreshold) {
+			found = fillParallel(layer, order, count);
+		} else {
+			found = fillSerial(layer, order, count);
+		}
+
+		// One bulk put per buffer is much faster than a put for each quad
+		vertexBuffer.clear();
+		textureBuffer.clear();
+		vertexBuffer.put(vertexStaging, 0, found * VERTICES);
+		textureBuffer.put(textureStaging, 0, found * GFX_VERTICES);
+
+		return found;
+	}
+
+	/**
+	 * Compute the visible quads' vertices into the staging arrays one quad at a time on this thread.
+	 * If order isn't null, the first count quads in it are visited in that order.
+	 */
+	private int fillSerial(int layer, int[] order, int count) {
+		int found = 0;
+
+		for (int i = 0; i < count; i++) {
+			Quad q = quads.get(order == null ? i : order[i]);
+
+			if (q == null) {
+				continue;
+			}
+
+			Transformation t = q.getTransformation();
+			GraphicAreaTransformation g = q.getGraphicAreaTransformation();
+
+			if (t.getLayer() == layer && onScreen(t, fillRoom) && Transform.getRealVisibility(t)) {
+				getVertices(t, vertexStaging, found * VERTICES);
+				getVertices(g, textureStaging, found * GFX_VERTICES);
+				found++;
 			}
 		}
 
-		if (obFound) {
-			if (numIndices != lastIndex[layer]) {
-				if (numIndices > indices.length) {
-					indices = new short[numIndices + 1];
-				}
+		return found;
+	}
 
-				for (int i = 0; i < numIndices; i += 6) {
-					indices[i + 0] = (short) (((i / 6) * 4) + 0);
-					indices[i + 1] = (short) (((i / 6) * 4) + 1);
-					indices[i + 2] = (short) (((i / 6) * 4) + 2);
-					indices[i + 3] = (short) (((i / 6) * 4) + 1);
-					indices[i + 4] = (short) (((i / 6) * 4) + 2);
-					indices[i + 5] = (short) (((i / 6) * 4) + 3);
-				}
+	/**
+	 * Split the quads into chunks and let the workers compute each chunk's vertices into
+	 * its own part of the staging arrays. Then close the gaps between the chunks so the
+	 * visible quads' vertices are next to each other.
+	 */
+	private int fillParallel(int layer, int[] order, int numFill) {
+		WorkerPool pool = WorkerPool.getInstance();
+		int numChunks = (numFill + MIN_CHUNK_QUADS - 1) / MIN_CHUNK_QUADS;
+		int maxChunks = pool.getNumThreads() * CHUNKS_PER_THREAD;
+		int found = 0;
+
+		if (numChunks > maxChunks) {
+			numChunks = maxChunks;
+		}
 
-				indexBuffer[layer].clear();
-				indexBuffer[layer].put(indices);
-				lastIndex[layer] = numIndices;
+		if (chunkCounts == null || chunkCounts.length < numChunks) {
+			chunkCounts = new int[numChunks];
+		}
+
+		if (fillTask == null) {
+			fillTask = new FillTask();
+		}
+
+		fillTask.layer = layer;
+		fillTask.order = order;
+		fillTask.numFill = numFill;
+		fillTask.chunkSize = (numFill + numChunks - 1) / numChunks;
+
+		pool.run(fillTask, numChunks);
+
+		// Each chunk starts at its first quad's slot, so close the gaps left by quads that weren't drawn
+		for (int c = 0; c < numChunks; c++) {
+			int start = c * fillTask.chunkSize;
+			int count = chunkCounts[c];
+
+			if (count > 0 && start != found) {
+				System.arraycopy(vertexStaging, start * VERTICES, vertexStaging, found * VERTICES, count * VERTICES);
+				System.arraycopy(textureStaging, start * GFX_VERTICES, textureStaging, found * GFX_VERTICES, count * GFX_VERTICES);
 			}
 
-			vertexBuffer.position(0);
-			textureBuffer.position(0);
-			indexBuffer[layer].position(0);
+			found += count;
+		}
 
-			// Add color
-			gl.glColor4f(red[layer] * alpha[layer], green[layer] * alpha[layer], blue[layer] * alpha[layer], alpha[layer]);
+		return found;
+	}
 
-			// Bind the texture
-			gl.glBindTexture(GL11.GL_TEXTURE_2D, gID);
+	/**
+	 * Computes the vertices for one chunk of quads. Only reads the quads and writes to the
+	 * chunk's own part of the staging arrays, so chunks can run at the same time.
+	 */
+	private class FillTask implements WorkerPool.Task {
+		int layer;
+		int[] order;
+		int numFill;      // The number of quads to look at
+		int chunkSize;
+
+		@Override
+		public void run(int chunk) {
+			int start = chunk * chunkSize;
+			int end = Math.min(start + chunkSize, numFill);
+			int count = 0;
+
+			for (int i = start; i < end; i++) {
+				Quad q = quads.get(order == null ? i : order[i]);
+
+				if (q == null) {
+					continue;
+				}
 
-			// Point to our vertex and texture buffers
-			gl.glVertexPointer(2, GL10.GL_FLOAT, 0, vertexBuffer);
-			gl.glTexCoordPointer(2, GL10.GL_FLOAT, 0, textureBuffer);
+				Transformation t = q.getTransformation();
 
-			// Draw the vertices as triangles
-			gl.glDrawElements(GL10.GL_TRIANGLES, numIndices, GL10.GL_UNSIGNED_SHORT, indexBuffer[layer]);
+				if (t.getLayer() == layer && onScreen(t, fillRoom) && Transform.getRealVisibility(t)) {
+					getVertices(t, vertexStaging, (start + count) * VERTICES);
+					getVertices(q.getGraphicAreaTransformation(), textureStaging, (start + count) * GFX_VERTICES);
+					count++;
+				}
+			}
+
+			chunkCounts[chunk] = count;
 		}
 	}
 
@@ -452,10 +944,13 @@ public class QuadRenderSystem extends Entity implements Renderable {
 		return false;
 	}
 
-	private float[] getVertices(Transformation t) {
+	/**
+	 * Compute the 4 vertices of a quad and write them to out, starting at offset. Only
+	 * reads the values saved by fillBuffers() so it is safe to call from worker threads.
+	 */
+	private void getVertices(Transformation t, float[] out, int offset) {
 		// Data
 		Transformation parent;
-		Room room = getRoom();
 		double x = t.getX();
 		double y = t.getY();
 		double width = t.getWidth();
@@ -487,18 +982,18 @@ public class QuadRenderSystem extends Entity implements Renderable {
 		}
 
 		if (shouldFollowCamera) {
-			x += room.getCameraLeftEdge();
-			y += room.getCameraBottomEdge();
+			x += camLeft;
+			y += camBottom;
 		}
 
 		height *= scale;
 		width *= scale;
 
-		x *= room.getGridUnitX();
-		y *= room.getGridUnitY();
+		x *= unitX;
+		y *= unitY;
 
-		height *= room.getGridUnitY();
-		width *= room.getGridUnitX();
+		height *= unitY;
+		width *= unitX;
 
 		if (angle != 0) {                                      // Don't do unnecessary calculations
 			double sin;
@@ -507,29 +1002,30 @@ public class QuadRenderSystem extends Entity implements Renderable {
 			cos = Math.cos(Math.toRadians(angle + 180));
 			sin = Math.sin(Math.toRadians(angle + 180));
 
-			vertices[0] = (float) ((x - (x - width / 2)) * cos - (y - (y - height / 2)) * sin + x);   // Bottom Left X
-			vertices[1] = (float) ((x - (x - width / 2)) * sin + (y - (y - height / 2)) * cos + y);   // Bottom Left Y
-			vertices[2] = (float) ((x - (x - width / 2)) * cos - (y - (y + height / 2)) * sin + x);   // Top Left X
-			vertices[3] = (float) ((x - (x - width / 2)) * sin + (y - (y + height / 2)) * cos + y);   // Top Left Y
-			vertices[4] = (float) ((x - (x + width / 2)) * cos - (y - (y - height / 2)) * sin + x);   // Bottom Right X
-			vertices[5] = (float) ((x - (x + width / 2)) * sin + (y - (y - height / 2)) * cos + y);   // Bottom Right Y
-			vertices[6] = (float) ((x - (x + width / 2)) * cos - (y - (y + height / 2)) * sin + x);   // Top Right X
-			vertices[7] = (float) ((x - (x + width / 2)) * sin + (y - (y + height / 2)) * cos + y);   // Top Right Y
+			out[offset + 0] = (float) ((x - (x - width / 2)) * cos - (y - (y - height / 2)) * sin + x);   // Bottom Left X
+			out[offset + 1] = (float) ((x - (x - width / 2)) * sin + (y - (y - height / 2)) * cos + y);   // Bottom Left Y
+			out[offset + 2] = (float) ((x - (x - width / 2)) * cos - (y - (y + height / 2)) * sin + x);   // Top Left X
+			out[offset + 3] = (float) ((x - (x - width / 2)) * sin + (y - (y + height / 2)) * cos + y);   // Top Left Y
+			out[offset + 4] = (float) ((x - (x + width / 2)) * cos - (y - (y - height / 2)) * sin + x);   // Bottom Right X
+			out[offset + 5] = (float) ((x - (x + width / 2)) * sin + (y - (y - height / 2)) * cos + y);   // Bottom Right Y
+			out[offset + 6] = (float) ((x - (x + width / 2)) * cos - (y - (y + height / 2)) * sin + x);   // Top Right X
+			out[offset + 7] = (float) ((x - (x + width / 2)) * sin + (y - (y + height / 2)) * cos + y);   // Top Right Y
 		} else {
-			vertices[0] = (float) (x - width / 2);     // Bottom Left X
-			vertices[1] = (float) (y - height / 2);    // Bottom Left Y
-			vertices[2] = vertices[0];                 // Top Left X (Same as Bottom X)
-			vertices[3] = (float) (y + height / 2);    // Top Left Y
-			vertices[4] = (float) (x + width / 2);     // Bottom Right X
-			vertices[5] = vertices[1];                 // Bottom Right Y (Same as Left Y)
-			vertices[6] = vertices[4];                 // Top Right X (Same as Bottom X)
-			vertices[7] = vertices[3];                 // Top Right Y (Same as Left Y)
+			out[offset + 0] = (float) (x - width / 2);     // Bottom Left X
+			out[offset + 1] = (float) (y - height / 2);    // Bottom Left Y
+			out[offset + 2] = out[offset + 0];         // Top Left X (Same as Bottom X)
+			out[offset + 3] = (float) (y + height / 2);    // Top Left Y
+			out[offset + 4] = (float) (x + width / 2);     // Bottom Right X
+			out[offset + 5] = out[offset + 1];         // Bottom Right Y (Same as Left Y)
+			out[offset + 6] = out[offset + 4];         // Top Right X (Same as Bottom X)
+			out[offset + 7] = out[offset + 3];         // Top Right Y (Same as Left Y)
 		}
-
-		return vertices;
 	}
 
-	private float[] getVertices(GraphicAreaTransformation g) {
+	/**
+	 * Compute the 4 texture coordinates of a quad and write them to out, starting at offset.
+	 */
+	private void getVertices(GraphicAreaTransformation g, float[] out, int offset) {
 		// Data
 		float leftX;   // Left X coordinate of the frame on the graphic sheet
 		float rightX;  // Right X coordinate
@@ -562,15 +1058,13 @@ public class QuadRenderSystem extends Entity implements Renderable {
 		topY += 1f / (gHeight * height* 100f);
 		bottomY -= 1f / (gHeight * height * 100f);
 
-		gfxVertices[0] = leftX;
-		gfxVertices[1] = bottomY;
-		gfxVertices[2] = leftX;
-		gfxVertices[3] = topY;
-		gfxVertices[4] = rightX;
-		gfxVertices[5] = bottomY;
-		gfxVertices[6] = rightX;
-		gfxVertices[7] = topY;
-
-		return gfxVertices;
+		out[offset + 0] = leftX;
+		out[offset + 1] = bottomY;
+		out[offset + 2] = leftX;
+		out[offset + 3] = topY;
+		out[offset + 4] = rightX;
+		out[offset + 5] = bottomY;
+		out[offset + 6] = rightX;
+		out[offset + 7] = topY;
 	}
 }
@@ -0,0 +1,11 @@
+package com.bobbyloujo.bobengine.systems.quadrenderer;
+
+/**
+ * Gives the key used to sort quads on a layer sorted with QuadRenderSystem.SORT_CUSTOM.
+ * Quads are drawn from the lowest key to the highest, so quads with higher keys are
+ * drawn on top. getSortKey() is called on the GL thread for each quad on the layer
+ * every frame.
+ */
+public interface QuadSortKey {
+    float getSortKey(Quad quad);
+}
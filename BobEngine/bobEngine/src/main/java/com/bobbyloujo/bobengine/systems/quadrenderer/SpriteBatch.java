@@ -0,0 +1,601 @@
+/**
+ * BobEngine - 2D game engine for Android
+ * <p/>
+ * Copyright (C) 2014, 2015, 2016 Benjamin Blaszczak
+ * <p/>
+ * BobEngine is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser Public License
+ * version 2.1 as published by the free software foundation.
+ * <p/>
+ * BobEngine is provided without warranty; without even the implied
+ * warranty of merchantability or fitness for a particular
+ * purpose. See the GNU Lesser Public License for more details.
+ * <p/>
+ * You should have received a copy of the GNU Lesser General
+ * Public License along with BobEngine; if not, write to the
+ * Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301 USA
+ */
+package com.bobbyloujo.bobengine.systems.quadrenderer;
+
+import android.util.Log;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+
+import javax.microedition.khronos.opengles.GL10;
+import javax.microedition.khronos.opengles.GL11;
+
+import com.bobbyloujo.bobengine.entities.Entity;
+import com.bobbyloujo.bobengine.entities.Room;
+import com.bobbyloujo.bobengine.graphics.Graphic;
+import com.bobbyloujo.bobengine.systems.Renderable;
+import com.bobbyloujo.bobengine.systems.Updatable;
+
+/**
+ * A data-oriented alternative to GameObjects and the QuadRenderSystem for rooms with very
+ * large numbers of sprites. Sprite data is stored in primitive arrays instead of one object
+ * per sprite, so rendering streams through contiguous memory instead of making several
+ * interface calls per quad.
+ * <br />
+ * <br />
+ * Sprites are created with addSprite(), which returns an int handle. The handle stays valid
+ * until the sprite is removed. Sprite data can be changed through the handle with the setters,
+ * or all at once in an Updater which works directly on the public arrays.
+ * <br />
+ * <br />
+ * The public arrays are indexed by slot, not by handle. Slots 0 to getCount() - 1 are in use.
+ * Removing a sprite moves the last sprite into the removed sprite's slot. The arrays may be
+ * replaced when the batch grows, so don't hold on to them between frames.
+ * <br />
+ * <br />
+ * Sprites in a SpriteBatch can't have parent transformations and don't follow the camera.
+ */
+public class SpriteBatch extends Entity implements Renderable, Updatable {
+
+	public static final int DEF_INIT_SPRITES = 64;
+
+	private static final int VERTICES = 8;     // 2 coords per vertex * 4 vertices
+	private static final int NO_SLOT = -1;
+
+	/* SPRITE DATA, INDEXED BY SLOT */
+
+	/** X position of each sprite's midpoint. */
+	public float[] x;
+	/** Y position of each sprite's midpoint. */
+	public float[] y;
+	/** Width of each sprite. */
+	public float[] width;
+	/** Height of each sprite. */
+	public float[] height;
+	/** Angle of each sprite in degrees. */
+	public float[] angle;
+	/** Scale of each sprite. */
+	public float[] scale;
+	/** Layer of each sprite. */
+	public int[] layer;
+	/** Visibility of each sprite. */
+	public boolean[] visible;
+	/** Animation frame of each sprite. */
+	public int[] frame;
+
+	// Handles
+	private int[] slotToHandle;      // The handle of the sprite in each slot
+	private int[] handleToSlot;      // The slot of each handle, or NO_SLOT if the handle is free
+	private int[] freeHandles;       // Stack of handles that can be reused
+	private int numFreeHandles;      // Number of handles on the free stack
+	private int nextHandle;          // The next never-used handle
+
+	private int count;               // Number of sprites in this batch
+	private int capacity;            // Number of sprites the arrays can hold
+
+	// Graphic data
+	private Graphic graphic;
+	private float gfxX;
+	private float gfxY;
+	private float gfxWidth;
+	private float gfxHeight;
+	private int frameRows;
+
+	// Render data
+	private float[] vertexStage;           // Vertices for one layer, copied to the vertex buffer in one put
+	private float[] textureStage;          // Texture coordinates for one layer
+	private FloatBuffer vertexBuffer;
+	private FloatBuffer textureBuffer;
+
+	private float red[];          // Red values for each layer
+	private float green[];        // Green values for each layer
+	private float blue[];         // Blue values for each layer
+	private float alpha[];        // alpha values for each layer
+
+	private Updater updater;
+
+	/**
+	 * Make a new SpriteBatch in a Room.
+	 *
+	 * @param room The Room this batch belongs to.
+	 * @param graphic The Graphic used to render the sprites.
+	 */
+	public SpriteBatch(Room room, Graphic graphic) {
+		this(room, graphic, DEF_INIT_SPRITES);
+	}
+
+	/**
+	 * Make a new SpriteBatch in a Room.
+	 *
+	 * @param room The Room this batch belongs to.
+	 * @param graphic The Graphic used to render the sprites.
+	 * @param initCapacity The initial number of sprites this batch can hold. This will
+	 *                     automatically expand if more sprites are added.
+	 */
+	public SpriteBatch(Room room, Graphic graphic, int initCapacity) {
+		super();
+
+		int layers = room.getNumLayers();
+
+		this.graphic = graphic;
+		setGraphicArea(0, 0, 1, 1, 1);
+
+		red = new float[layers];
+		green = new float[layers];
+		blue = new float[layers];
+		alpha = new float[layers];
+
+		for (int i = 0; i < layers; i++) {
+			red[i] = green[i] = blue[i] = alpha[i] = 1f;
+		}
+
+		count = 0;
+		nextHandle = 0;
+		numFreeHandles = 0;
+		handleToSlot = new int[0];
+		freeHandles = new int[0];
+		capacity = 0;
+		resize(Math.max(initCapacity, 1));
+
+		room.addComponent(this);
+	}
+
+	/**
+	 * Set the area of the graphic sheet used by the sprites. Frames are arranged the same
+	 * way as AnimatedGraphicAreaTransform frames: in columns of frameRows frames.
+	 *
+	 * @param x The x position of the area on the graphic, from 0 to 1.
+	 * @param y The y position of the area on the graphic, from 0 to 1.
+	 * @param width The width of one column of frames, from 0 to 1.
+	 * @param height The height of one column of frames, from 0 to 1.
+	 * @param frameRows The number of frames in a column.
+	 */
+	public void setGraphicArea(float x, float y, float width, float height, int frameRows) {
+		gfxX = x;
+		gfxY = y;
+		gfxWidth = width;
+		gfxHeight = height;
+		this.frameRows = frameRows < 1 ? 1 : frameRows;
+	}
+
+	/**
+	 * Get the Graphic object used by this batch.
+	 * @return The Graphic object used by this batch.
+	 */
+	@Override
+	public Graphic getGraphic() {
+		return graphic;
+	}
+
+	public void setGraphic(Graphic graphic) {
+		this.graphic = graphic;
+	}
+
+	/**
+	 * Set the hook that updates all of the sprites in this batch each frame.
+	 *
+	 * @param updater The Updater to use, or null for none.
+	 */
+	public void setUpdater(Updater updater) {
+		this.updater = updater;
+	}
+
+	/**
+	 * Set the color of a particular layer.
+	 *
+	 * @param layer The layer for which to set the color.
+	 * @param r The red value, from 0-1
+	 * @param g The green value, from 0-1
+	 * @param b The blue value, from 0-1
+	 * @param a The alpha value, from 0-1
+	 */
+	public void setLayerColor(int layer, float r, float g, float b, float a) {
+		if (layer < red.length && layer >= 0) {
+			red[layer] = r;
+			green[layer] = g;
+			blue[layer] = b;
+			alpha[layer] = a;
+		} else {
+			Log.e("BobEngine", "Can't change layer color. Layer not in range.");
+		}
+	}
+
+	/**
+	 * Returns the number of sprites in this batch. Slots 0 to getCount() - 1 of the public
+	 * arrays hold sprite data.
+	 *
+	 * @return The number of sprites in this batch.
+	 */
+	public int getCount() {
+		return count;
+	}
+
+	/**
+	 * Returns the number of sprites this batch can hold before it has to grow.
+	 *
+	 * @return The capacity of this batch.
+	 */
+	public int getCapacity() {
+		return capacity;
+	}
+
+	/* SPRITE MANAGEMENT */
+
+	/**
+	 * Add a sprite to this batch.
+	 *
+	 * @param x X position of the sprite's midpoint
+	 * @param y Y position of the sprite's midpoint
+	 * @param width Width of the sprite
+	 * @param height Height of the sprite
+	 * @param layer The layer to draw the sprite on
+	 * @return A handle for the new sprite.
+	 */
+	public int addSprite(float x, float y, float width, float height, int layer) {
+		int handle;
+		int slot = count;
+
+		if (count == capacity) {
+			resize(capacity * 2);
+		}
+
+		if (numFreeHandles > 0) {
+			numFreeHandles--;
+			handle = freeHandles[numFreeHandles];
+		} else {
+			handle = nextHandle;
+			nextHandle++;
+
+			if (handle >= handleToSlot.length) {
+				int[] h = new int[Math.max(handleToSlot.length * 2, capacity)];
+				System.arraycopy(handleToSlot, 0, h, 0, handleToSlot.length);
+				handleToSlot = h;
+			}
+		}
+
+		this.x[slot] = x;
+		this.y[slot] = y;
+		this.width[slot] = width;
+		this.height[slot] = height;
+		this.angle[slot] = 0;
+		this.scale[slot] = 1;
+		this.layer[slot] = layer;
+		this.visible[slot] = true;
+		this.frame[slot] = 0;
+
+		slotToHandle[slot] = handle;
+		handleToSlot[handle] = slot;
+		count++;
+
+		return handle;
+	}
+
+	/**
+	 * Remove a sprite from this batch. The sprite in the last slot is moved into the
+	 * removed sprite's slot, so sprites on the same layer may change draw order.
+	 *
+	 * @param handle The handle of the sprite to remove.
+	 */
+	public void removeSprite(int handle) {
+		int slot = getSlot(handle);
+
+		if (slot == NO_SLOT) {
+			Log.e("BobEngine", "Can't remove sprite. Handle not in this SpriteBatch.");
+			return;
+		}
+
+		int last = count - 1;
+
+		if (slot != last) {
+			x[slot] = x[last];
+			y[slot] = y[last];
+			width[slot] = width[last];
+			height[slot] = height[last];
+			angle[slot] = angle[last];
+			scale[slot] = scale[last];
+			layer[slot] = layer[last];
+			visible[slot] = visible[last];
+			frame[slot] = frame[last];
+
+			slotToHandle[slot] = slotToHandle[last];
+			handleToSlot[slotToHandle[slot]] = slot;
+		}
+
+		handleToSlot[handle] = NO_SLOT;
+
+		if (numFreeHandles == freeHandles.length) {
+			int[] f = new int[Math.max(freeHandles.length * 2, 8)];
+			System.arraycopy(freeHandles, 0, f, 0, freeHandles.length);
+			freeHandles = f;
+		}
+
+		freeHandles[numFreeHandles] = handle;
+		numFreeHandles++;
+		count--;
+	}
+
+	/**
+	 * Remove all sprites from this batch. All handles become invalid.
+	 */
+	public void removeAllSprites() {
+		for (int i = 0; i < nextHandle; i++) {
+			handleToSlot[i] = NO_SLOT;
+		}
+
+		count = 0;
+		nextHandle = 0;
+		numFreeHandles = 0;
+	}
+
+	/**
+	 * Get the slot in the public arrays that holds the data for a sprite.
+	 *
+	 * @param handle The sprite's handle.
+	 * @return The sprite's slot, or -1 if the handle does not belong to a sprite in this batch.
+	 */
+	public int getSlot(int handle) {
+		if (handle < 0 || handle >= nextHandle) {
+			return NO_SLOT;
+		}
+
+		return handleToSlot[handle];
+	}
+
+	/**
+	 * Get the handle of the sprite in a slot.
+	 *
+	 * @param slot A slot from 0 to getCount() - 1
+	 * @return The handle of the sprite in the slot.
+	 */
+	public int getHandle(int slot) {
+		return slotToHandle[slot];
+	}
+
+	public void setPosition(int handle, float x, float y) {
+		int slot = handleToSlot[handle];
+		this.x[slot] = x;
+		this.y[slot] = y;
+	}
+
+	public void setSize(int handle, float width, float height) {
+		int slot = handleToSlot[handle];
+		this.width[slot] = width;
+		this.height[slot] = height;
+	}
+
+	public void setAngle(int handle, float angle) {
+		this.angle[handleToSlot[handle]] = angle;
+	}
+
+	public void setScale(int handle, float scale) {
+		this.scale[handleToSlot[handle]] = scale;
+	}
+
+	public void setLayer(int handle, int layer) {
+		this.layer[handleToSlot[handle]] = layer;
+	}
+
+	public void setVisible(int handle, boolean visible) {
+		this.visible[handleToSlot[handle]] = visible;
+	}
+
+	public void setFrame(int handle, int frame) {
+		this.frame[handleToSlot[handle]] = frame;
+	}
+
+	public float getX(int handle) {
+		return x[handleToSlot[handle]];
+	}
+
+	public float getY(int handle) {
+		return y[handleToSlot[handle]];
+	}
+
+	/**
+	 * Change the number of sprites the arrays and buffers can hold.
+	 *
+	 * @param sprites The new capacity. Can't be less than the current number of sprites.
+	 */
+	public void resize(int sprites) {
+		if (sprites < count) {
+			sprites = count;
+		}
+
+		x = copyOf(x, sprites);
+		y = copyOf(y, sprites);
+		width = copyOf(width, sprites);
+		height = copyOf(height, sprites);
+		angle = copyOf(angle, sprites);
+		scale = copyOf(scale, sprites);
+		layer = copyOf(layer, sprites);
+		frame = copyOf(frame, sprites);
+		slotToHandle = copyOf(slotToHandle, sprites);
+
+		boolean[] v = new boolean[sprites];
+		if (visible != null) System.arraycopy(visible, 0, v, 0, count);
+		visible = v;
+
+		vertexStage = new float[sprites * VERTICES];
+		textureStage = new float[sprites * VERTICES];
+
+		ByteBuffer byteBuffer = ByteBuffer.allocateDirect(4 * VERTICES * sprites);
+		byteBuffer.order(ByteOrder.nativeOrder());
+		vertexBuffer = byteBuffer.asFloatBuffer();
+
+		byteBuffer = ByteBuffer.allocateDirect(4 * VERTICES * sprites);
+		byteBuffer.order(ByteOrder.nativeOrder());
+		textureBuffer = byteBuffer.asFloatBuffer();
+
+		capacity = sprites;
+	}
+
+	private float[] copyOf(float[] a, int size) {
+		float[] n = new float[size];
+		if (a != null) System.arraycopy(a, 0, n, 0, count);
+		return n;
+	}
+
+	private int[] copyOf(int[] a, int size) {
+		int[] n = new int[size];
+		if (a != null) System.arraycopy(a, 0, n, 0, count);
+		return n;
+	}
+
+	/* EVENTS */
+
+	@Override
+	public void update(double deltaTime) {
+		if (updater != null) {
+			updater.update(this, deltaTime);
+		}
+	}
+
+	/**
+	 * Render the sprites on a layer.
+	 *
+	 * @param gl OpenGL ES 1 object.
+	 * @param layer layer to render.
+	 */
+	@Override
+	public void render(GL10 gl, int layer) {
+		int numSprites = fillLayer(layer);
+
+		if (numSprites > 0) {
+			int floats = numSprites * VERTICES;
+
+			vertexBuffer.clear();
+			vertexBuffer.put(vertexStage, 0, floats);
+
+			textureBuffer.clear();
+			textureBuffer.put(textureStage, 0, floats);
+
+			gl.glColor4f(red[layer] * alpha[layer], green[layer] * alpha[layer], blue[layer] * alpha[layer], alpha[layer]);
+			gl.glBindTexture(GL11.GL_TEXTURE_2D, graphic == null ? 0 : graphic.id);
+
+			QuadIndexBuffer.draw(gl, vertexBuffer, textureBuffer, numSprites);
+		}
+	}
+
+	/**
+	 * Write the vertices and texture coordinates of the visible, on screen sprites on a
+	 * layer into the staging arrays.
+	 *
+	 * @param l The layer to fill.
+	 * @return The number of sprites written.
+	 */
+	public int fillLayer(int l) {
+		Room room = getRoom();
+		float gridUnitX = (float) room.getGridUnitX();
+		float gridUnitY = (float) room.getGridUnitY();
+		float screenLeft = room.getCameraLeftEdge();
+		float screenRight = room.getCameraRightEdge();
+		float screenTop = room.getCameraTopEdge();
+		float screenBottom = room.getCameraBottomEdge();
+
+		float gWidth = gfxWidth;
+		float gHeight = gfxHeight / (float) frameRows;
+		float texWidth = graphic != null ? graphic.width : 1;
+		float texHeight = graphic != null ? graphic.height : 1;
+		float spillX = 1f / (gWidth * texWidth * 100f);     // Prevent other parts of the graphic from "spilling over" the edges.
+		float spillY = 1f / (gHeight * texHeight * 100f);
+
+		float[] vs = vertexStage;
+		float[] ts = textureStage;
+		int v = 0;
+
+		for (int i = 0; i < count; i++) {
+			if (layer[i] != l || !visible[i]) {
+				continue;
+			}
+
+			float s = scale[i];
+			float w = Math.abs(width[i]) * s;
+			float h = height[i] * s;
+			float sx = x[i];
+			float sy = y[i];
+
+			if (sx <= -w / 2 + screenLeft || sx >= w / 2 + screenRight || sy <= -h / 2 + screenBottom || sy >= h / 2 + screenTop) {
+				continue;
+			}
+
+			float hw = width[i] * s * gridUnitX / 2;
+			float hh = h * gridUnitY / 2;
+			float cx = sx * gridUnitX;
+			float cy = sy * gridUnitY;
+
+			if (angle[i] != 0) {
+				double rad = Math.toRadians(angle[i]);
+				float cos = (float) Math.cos(rad);
+				float sin = (float) Math.sin(rad);
+
+				vs[v + 0] = cx - hw * cos + hh * sin;     // Bottom Left X
+				vs[v + 1] = cy - hw * sin - hh * cos;     // Bottom Left Y
+				vs[v + 2] = cx - hw * cos - hh * sin;     // Top Left X
+				vs[v + 3] = cy - hw * sin + hh * cos;     // Top Left Y
+				vs[v + 4] = cx + hw * cos + hh * sin;     // Bottom Right X
+				vs[v + 5] = cy + hw * sin - hh * cos;     // Bottom Right Y
+				vs[v + 6] = cx + hw * cos - hh * sin;     // Top Right X
+				vs[v + 7] = cy + hw * sin + hh * cos;     // Top Right Y
+			} else {
+				vs[v + 0] = cx - hw;      // Bottom Left X
+				vs[v + 1] = cy - hh;      // Bottom Left Y
+				vs[v + 2] = vs[v];        // Top Left X
+				vs[v + 3] = cy + hh;      // Top Left Y
+				vs[v + 4] = cx + hw;      // Bottom Right X
+				vs[v + 5] = vs[v + 1];    // Bottom Right Y
+				vs[v + 6] = vs[v + 4];    // Top Right X
+				vs[v + 7] = vs[v + 3];    // Top Right Y
+			}
+
+			int f = frame[i];
+			float leftX = gfxX + gWidth * (float) (f / frameRows) + spillX;
+			float topY = gfxY + gHeight * (float) (f % frameRows) + spillY;
+			float rightX = leftX + gWidth - spillX * 2;
+			float bottomY = topY + gHeight - spillY * 2;
+
+			ts[v + 0] = leftX;
+			ts[v + 1] = bottomY;
+			ts[v + 2] = leftX;
+			ts[v + 3] = topY;
+			ts[v + 4] = rightX;
+			ts[v + 5] = bottomY;
+			ts[v + 6] = rightX;
+			ts[v + 7] = topY;
+
+			v += VERTICES;
+		}
+
+		return v / VERTICES;
+	}
+
+	/**
+	 * A hook that updates every sprite in a SpriteBatch at once. Implementations should loop
+	 * over slots 0 to getCount() - 1 of the batch's public arrays.
+	 */
+	public interface Updater {
+		/**
+		 * Update the sprites in the batch. Called once per frame.
+		 *
+		 * @param batch The SpriteBatch being updated.
+		 * @param deltaTime lag correction factor
+		 */
+		void update(SpriteBatch batch, double deltaTime);
+	}
+}
@@ -24,6 +24,7 @@ import android.os.SystemClock;
 import android.util.Log;
 
 import com.bobbyloujo.bobengine.entities.Room;
+import com.bobbyloujo.bobengine.profiling.Profiler;
 
 import javax.microedition.khronos.egl.EGLConfig;
 import javax.microedition.khronos.opengles.GL10;
@@ -128,16 +129,28 @@ public class BobRenderer implements Renderer {
 		long now = SystemClock.uptimeMillis();         // Current time
 		long timeElapsed = (long) OPTIMAL_TIME;        // Amount of time the frame took
 
+		Profiler.begin(Profiler.SCOPE_FRAME);
+
 		gl.glClear(GL10.GL_COLOR_BUFFER_BIT);                              // Get rid of the previous frame
 		gl.glClearColor(red, green, blue, alpha);                          // BG color
 
+		Profiler.begin(Profiler.SCOPE_TEXTURES);
 		myOwner.getGraphicsHelper().handleGraphics((GL11) gl);
+		Profiler.end(Profiler.SCOPE_TEXTURES);
 
 		if (current != null) {
+			Profiler.begin(Profiler.SCOPE_UPDATE);
 			current.update(1/*averageDelta / OPTIMAL_TIME*/);   // Update game logic
+			Profiler.end(Profiler.SCOPE_UPDATE);
+
+			Profiler.begin(Profiler.SCOPE_DRAW);
 			current.draw(gl);                              // Draw graphics
+			Profiler.end(Profiler.SCOPE_DRAW);
 		}
 
+		Profiler.end(Profiler.SCOPE_FRAME);
+		Profiler.endFrame();
+
 		if (lastTime > 0) {
 			timeElapsed = now - lastTime;                  // The amount of time the last frame took
 		}
@@ -38,6 +38,7 @@ import com.bobbyloujo.bobengine.entities.Room;
 import com.bobbyloujo.bobengine.extra.BobActivity;
 import com.bobbyloujo.bobengine.extra.RoomCache;
 import com.bobbyloujo.bobengine.graphics.GraphicsHelper;
+import com.bobbyloujo.bobengine.profiling.Profiler;
 import com.bobbyloujo.bobengine.systems.input.gamepad.Gamepad;
 import com.bobbyloujo.bobengine.systems.input.touch.Touch;
 
@@ -47,7 +48,7 @@ import com.bobbyloujo.bobengine.systems.input.touch.Touch;
  *
  * @author Benjamin Blaszczak
  */
-public abstract class BobView extends GLSurfaceView {
+public abstract class BobView extends GLSurfaceView implements ViewPort {
 
 	// Constants
 	private final int INIT_BASE_W = 720;                   // Initial base screen width resolution for correction ratio
@@ -193,6 +194,10 @@ public abstract class BobView extends GLSurfaceView {
 	 * @param nextRoom the room to switch to.
 	 */
 	public void goToRoom(Room nextRoom) {
+		if (Profiler.getTrace() != null) {
+			Profiler.mark(Profiler.scope("Go to " + nextRoom.getClass().getSimpleName()));
+		}
+
 		currentRoom = nextRoom;
 		currentRoom.indicateGraphicsUsed();
 	}
@@ -290,6 +295,20 @@ public abstract class BobView extends GLSurfaceView {
 		return renderer;
 	}
 
+	/**
+	 * Returns the width of the camera's view in pixels when the camera's zoom level is 1.
+	 */
+	public double getCameraWidth() {
+		return renderer.getCameraWidth();
+	}
+
+	/**
+	 * Returns the height of the camera's view in pixels when the camera's zoom level is 1.
+	 */
+	public double getCameraHeight() {
+		return renderer.getCameraHeight();
+	}
+
 	/**
 	 * Gets the screen orientation.
 	 *
@@ -0,0 +1,84 @@
+/**
+ * BobEngine - 2D game engine for Android
+ *
+ * Copyright (C) 2014, 2015, 2016 Benjamin Blaszczak
+ *
+ * BobEngine is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser Public License
+ * version 2.1 as published by the free software foundation.
+ *
+ * BobEngine is provided without warranty; without even the implied
+ * warranty of merchantability or fitness for a particular
+ * purpose. See the GNU Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General
+ * Public License along with BobEngine; if not, write to the
+ * Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301 USA
+ *
+ */
+package com.bobbyloujo.bobengine.view;
+
+import android.app.Activity;
+
+import com.bobbyloujo.bobengine.graphics.GraphicsHelper;
+import com.bobbyloujo.bobengine.systems.input.gamepad.Gamepad;
+import com.bobbyloujo.bobengine.systems.input.touch.Touch;
+
+/**
+ * The screen area that a Room is shown in. A Room gets its size, camera, graphics and
+ * input from its ViewPort. BobView is the ViewPort of a game running on a device; a
+ * HeadlessViewPort lets Rooms run without a screen.
+ */
+public interface ViewPort {
+
+	/**
+	 * Returns the width of the view, in pixels.
+	 */
+	int getWidth();
+
+	/**
+	 * Returns the height of the view, in pixels.
+	 */
+	int getHeight();
+
+	/**
+	 * Returns the screen width correction ratio for dealing with different size screens.
+	 */
+	double getRatioX();
+
+	/**
+	 * Returns the screen height correction ratio for dealing with different size screens.
+	 */
+	double getRatioY();
+
+	/**
+	 * Returns the width of the camera's view in pixels when the camera's zoom level is 1.
+	 */
+	double getCameraWidth();
+
+	/**
+	 * Returns the height of the camera's view in pixels when the camera's zoom level is 1.
+	 */
+	double getCameraHeight();
+
+	/**
+	 * Returns the GraphicsHelper that loads the graphics of the Rooms in this view.
+	 */
+	GraphicsHelper getGraphicsHelper();
+
+	/**
+	 * Returns the touch listener for this view.
+	 */
+	Touch getTouch();
+
+	/**
+	 * Returns the gamepad helper for this view, or null if this view has none.
+	 */
+	Gamepad getGamepad();
+
+	/**
+	 * Returns the Activity containing this view, or null if there isn't one.
+	 */
+	Activity getActivity();
+}
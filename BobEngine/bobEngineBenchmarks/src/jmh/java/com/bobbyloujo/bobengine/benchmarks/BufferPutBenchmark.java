@@ -0,0 +1,98 @@
+/**
+ * BobEngine - 2D game engine for Android
+ * <p/>
+ * Copyright (C) 2014, 2015, 2016 Benjamin Blaszczak
+ * <p/>
+ * BobEngine is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser Public License
+ * version 2.1 as published by the free software foundation.
+ * <p/>
+ * BobEngine is provided without warranty; without even the implied
+ * warranty of merchantability or fitness for a particular
+ * purpose. See the GNU Lesser Public License for more details.
+ * <p/>
+ * You should have received a copy of the GNU Lesser General
+ * Public License along with BobEngine; if not, write to the
+ * Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301 USA
+ */
+package com.bobbyloujo.bobengine.benchmarks;
+
+import com.bobbyloujo.bobengine.systems.quadrenderer.QuadRenderSystem;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the two ways QuadRenderSystem could get a layer's vertices into its direct
+ * vertex buffer: a put of each quad's 8 floats as it is computed, or computing every quad
+ * into a heap staging array and putting the whole array at once. The vertices are made up
+ * ahead of time so only the copying is measured. Uses the same quad counts as
+ * QuadRenderBenchmark.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class BufferPutBenchmark {
+
+	private static final int VERTICES = QuadRenderSystem.GFX_VERTICES;
+
+	@Param({"1000", "10000", "50000"})
+	public int quads;
+
+	private float[] source;      // The vertices of every quad
+	private float[] vertices;    // One quad's vertices, like the old per quad fill used
+	private float[] staging;     // Every quad's vertices, like the staged fill uses
+	private FloatBuffer buffer;
+
+	@Setup
+	public void setup() {
+		Random rand = new Random(quads);
+
+		source = new float[quads * VERTICES];
+		vertices = new float[VERTICES];
+		staging = new float[quads * VERTICES];
+		buffer = ByteBuffer.allocateDirect(quads * VERTICES * 4).order(ByteOrder.nativeOrder()).asFloatBuffer();
+
+		for (int i = 0; i < source.length; i++) {
+			source[i] = rand.nextFloat();
+		}
+	}
+
+	@Benchmark
+	public FloatBuffer perQuadPut() {
+		buffer.clear();
+
+		for (int q = 0; q < quads; q++) {
+			System.arraycopy(source, q * VERTICES, vertices, 0, VERTICES);
+			buffer.put(vertices);
+		}
+
+		return buffer;
+	}
+
+	@Benchmark
+	public FloatBuffer stagedBulkPut() {
+		buffer.clear();
+
+		for (int q = 0; q < quads; q++) {
+			System.arraycopy(source, q * VERTICES, staging, q * VERTICES, VERTICES);
+		}
+
+		buffer.put(staging, 0, quads * VERTICES);
+
+		return buffer;
+	}
+}
@@ -0,0 +1,117 @@
+/**
+ * BobEngine - 2D game engine for Android
+ * <p/>
+ * Copyright (C) 2014, 2015, 2016 Benjamin Blaszczak
+ * <p/>
+ * BobEngine is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser Public License
+ * version 2.1 as published by the free software foundation.
+ * <p/>
+ * BobEngine is provided without warranty; without even the implied
+ * warranty of merchantability or fitness for a particular
+ * purpose. See the GNU Lesser Public License for more details.
+ * <p/>
+ * You should have received a copy of the GNU Lesser General
+ * Public License along with BobEngine; if not, write to the
+ * Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301 USA
+ */
+package com.bobbyloujo.bobengine.benchmarks;
+
+import com.bobbyloujo.bobengine.components.Transform;
+import com.bobbyloujo.bobengine.systems.collision.BruteForceBroadphase;
+import com.bobbyloujo.bobengine.systems.collision.CollisionBox;
+import com.bobbyloujo.bobengine.systems.collision.CollisionHandler;
+import com.bobbyloujo.bobengine.systems.collision.CollisionSystem;
+import com.bobbyloujo.bobengine.systems.collision.DynamicAabbTree;
+import com.bobbyloujo.bobengine.systems.collision.SweepAndPrune;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures a CollisionSystem update. A quarter of the boxes are small bullets that move across
+ * the world every update and count their collisions; the rest stand still. A few of the still
+ * boxes are large so the broadphase has to deal with boxes of very different sizes. The world
+ * grows with the number of boxes so they are as crowded at every size. Each broadphase is
+ * measured with the same boxes.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class CollisionBenchmark {
+
+	private static final double WORLD_SIZE = 200;     // Width and height of the area 1000 boxes are in
+
+	@Param({"100", "1000", "10000"})
+	public int boxes;
+
+	@Param({"bruteForce", "aabbTree", "sweepAndPrune"})
+	public String broadphase;
+
+	private CollisionSystem system;
+	private Transform[] bullets;
+	private double worldSize;
+	private int hits;
+
+	@Setup
+	public void setup() {
+		Random rand = new Random(boxes);
+
+		system = new CollisionSystem();
+
+		if (broadphase.equals("bruteForce")) {
+			system.setBroadphase(new BruteForceBroadphase());
+		} else if (broadphase.equals("aabbTree")) {
+			system.setBroadphase(new DynamicAabbTree());
+		} else {
+			system.setBroadphase(new SweepAndPrune());
+		}
+		bullets = new Transform[boxes / 4];
+		worldSize = WORLD_SIZE * Math.sqrt(boxes / 1000.0);
+
+		CollisionHandler counter = new CollisionHandler() {
+			@Override
+			public void onCollision(CollisionBox c) {
+				hits++;
+			}
+		};
+
+		for (int i = 0; i < boxes; i++) {
+			Transform t = new Transform();
+			boolean bullet = i < bullets.length;
+			double size = i % 100 == 0 ? 20 + rand.nextDouble() * 30 : .5 + rand.nextDouble() * 2;
+
+			t.x = rand.nextDouble() * worldSize;
+			t.y = rand.nextDouble() * worldSize;
+			t.width = bullet ? .5 : size;
+			t.height = bullet ? .5 : size;
+
+			if (bullet) {
+				bullets[i] = t;
+			}
+
+			system.addCollidable(CollisionSystem.generateCollisionBox(t, bullet ? counter : null, null));
+		}
+	}
+
+	@Benchmark
+	public int update() {
+		for (int i = 0; i < bullets.length; i++) {
+			bullets[i].x = (bullets[i].x + .5) % worldSize;
+		}
+
+		system.update(1);
+
+		return hits;
+	}
+}
@@ -0,0 +1,134 @@
+/**
+ * BobEngine - 2D game engine for Android
+ * <p/>
+ * Copyright (C) 2014, 2015, 2016 Benjamin Blaszczak
+ * <p/>
+ * BobEngine is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser Public License
+ * version 2.1 as published by the free software foundation.
+ * <p/>
+ * BobEngine is provided without warranty; without even the implied
+ * warranty of merchantability or fitness for a particular
+ * purpose. See the GNU Lesser Public License for more details.
+ * <p/>
+ * You should have received a copy of the GNU Lesser General
+ * Public License along with BobEngine; if not, write to the
+ * Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301 USA
+ */
+package com.bobbyloujo.bobengine.benchmarks;
+
+import com.bobbyloujo.bobengine.components.Transform;
+import com.bobbyloujo.bobengine.components.Transformation;
+import com.bobbyloujo.bobengine.entities.Room;
+import com.bobbyloujo.bobengine.headless.HeadlessViewPort;
+import com.bobbyloujo.bobengine.systems.quadrenderer.AnimatedGraphicAreaTransform;
+import com.bobbyloujo.bobengine.systems.quadrenderer.GraphicAreaTransformation;
+import com.bobbyloujo.bobengine.systems.quadrenderer.Quad;
+import com.bobbyloujo.bobengine.systems.quadrenderer.QuadRenderSystem;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how long a QuadRenderSystem takes to fill its vertex and texture buffers, and how
+ * long the onScreen() check used to cull quads takes. The quads are spread over an area three
+ * times as wide and tall as the camera so most of them are culled, and some are rotated.
+ * fillBuffers is measured with the parallel fill off and on. 1000 quads is under the default
+ * parallel threshold, so it shows the fill staying serial for small systems.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class QuadRenderBenchmark {
+
+	@Param({"1000", "10000", "50000"})
+	public int quads;
+
+	@Param({"false", "true"})
+	public boolean parallel;
+
+	private Room room;
+	private QuadRenderSystem system;
+	private Transform[] transforms;
+
+	@Setup
+	public void setup() {
+		Random rand = new Random(quads);
+
+		room = new Room(new HeadlessViewPort());
+		system = new QuadRenderSystem(null, quads);
+		transforms = new Transform[quads];
+
+		room.setGridWidth(20);
+		room.setGridUnitY(room.getGridUnitX());
+		room.addComponent(system);
+		system.setParallelFill(parallel);
+
+		for (int i = 0; i < quads; i++) {
+			BenchQuad quad = new BenchQuad();
+
+			quad.transform.x = (rand.nextDouble() * 3 - 1) * room.getWidth();
+			quad.transform.y = (rand.nextDouble() * 3 - 1) * room.getHeight();
+			quad.transform.width = .5;
+			quad.transform.height = .5;
+			quad.transform.angle = rand.nextInt(2) == 0 ? rand.nextDouble() * 360 : 0;
+
+			transforms[i] = quad.transform;
+			system.addQuad(quad);
+		}
+
+		room.update(1);    // Sets up the camera edges used to cull quads
+	}
+
+	@Benchmark
+	public int fillBuffers() {
+		int filled = 0;
+
+		for (int l = 0; l < room.getNumLayers(); l++) {
+			filled += system.fillBuffers(l);
+		}
+
+		return filled;
+	}
+
+	@Benchmark
+	public int onScreen() {
+		int visible = 0;
+
+		for (int i = 0; i < transforms.length; i++) {
+			if (transforms[i].onScreen(room)) {
+				visible++;
+			}
+		}
+
+		return visible;
+	}
+
+	/**
+	 * A plain quad with a Transform and a single frame graphic area.
+	 */
+	private static class BenchQuad implements Quad {
+		Transform transform = new Transform();
+		AnimatedGraphicAreaTransform graphic = new AnimatedGraphicAreaTransform();
+
+		@Override
+		public Transformation getTransformation() {
+			return transform;
+		}
+
+		@Override
+		public GraphicAreaTransformation getGraphicAreaTransformation() {
+			return graphic;
+		}
+	}
+}
@@ -0,0 +1,146 @@
+/**
+ * BobEngine - 2D game engine for Android
+ * <p/>
+ * Copyright (C) 2014, 2015, 2016 Benjamin Blaszczak
+ * <p/>
+ * BobEngine is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser Public License
+ * version 2.1 as published by the free software foundation.
+ * <p/>
+ * BobEngine is provided without warranty; without even the implied
+ * warranty of merchantability or fitness for a particular
+ * purpose. See the GNU Lesser Public License for more details.
+ * <p/>
+ * You should have received a copy of the GNU Lesser General
+ * Public License along with BobEngine; if not, write to the
+ * Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301 USA
+ */
+package com.bobbyloujo.bobengine.benchmarks;
+
+import com.bobbyloujo.bobengine.components.Transform;
+import com.bobbyloujo.bobengine.components.Transformation;
+import com.bobbyloujo.bobengine.entities.Room;
+import com.bobbyloujo.bobengine.headless.HeadlessViewPort;
+import com.bobbyloujo.bobengine.systems.quadrenderer.AnimatedGraphicAreaTransform;
+import com.bobbyloujo.bobengine.systems.quadrenderer.GraphicAreaTransformation;
+import com.bobbyloujo.bobengine.systems.quadrenderer.Quad;
+import com.bobbyloujo.bobengine.systems.quadrenderer.QuadRenderSystem;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures a frame of y sorted sprites that move a little each frame, like characters
+ * walking around a top down map. The sprites are spread over a few layers that are all
+ * y sorted, so each layer's sort only has a part of the sprites.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class QuadSortBenchmark {
+
+	private static final int LAYERS = 4;
+	private static final double STEP = .05;    // How far a sprite can move in a frame, in grid units
+
+	@Param({"5000"})
+	public int sprites;
+
+	@Param({"none", "y"})
+	public String sort;
+
+	private Room room;
+	private QuadRenderSystem system;
+	private Transform[] transforms;
+	private double[] speeds;
+
+	@Setup
+	public void setup() {
+		Random rand = new Random(sprites);
+
+		room = new Room(new HeadlessViewPort());
+		system = new QuadRenderSystem(null, sprites);
+		transforms = new Transform[sprites];
+		speeds = new double[sprites];
+
+		room.setGridWidth(20);
+		room.setGridUnitY(room.getGridUnitX());
+		room.addComponent(system);
+		system.setParallelFill(false);
+
+		for (int i = 0; i < sprites; i++) {
+			BenchQuad quad = new BenchQuad();
+
+			quad.transform.x = rand.nextDouble() * room.getWidth();
+			quad.transform.y = rand.nextDouble() * room.getHeight();
+			quad.transform.width = .5;
+			quad.transform.height = .5;
+			quad.transform.layer = i % LAYERS;
+
+			transforms[i] = quad.transform;
+			speeds[i] = (rand.nextDouble() * 2 - 1) * STEP;
+			system.addQuad(quad);
+		}
+
+		for (int l = 0; l < LAYERS; l++) {
+			system.setLayerSort(l, sort.equals("y") ? QuadRenderSystem.SORT_Y : QuadRenderSystem.SORT_NONE);
+		}
+
+		room.update(1);    // Sets up the camera edges used to cull quads
+		fillLayers();      // The first sort puts every sprite in place, later ones only fix up the moves
+	}
+
+	@Benchmark
+	public int moveAndFill() {
+		double height = room.getHeight();
+
+		for (int i = 0; i < transforms.length; i++) {
+			Transform t = transforms[i];
+
+			t.y += speeds[i];
+
+			if (t.y < 0 || t.y > height) {
+				speeds[i] = -speeds[i];
+			}
+		}
+
+		return fillLayers();
+	}
+
+	private int fillLayers() {
+		int filled = 0;
+
+		for (int l = 0; l < LAYERS; l++) {
+			filled += system.fillBuffers(l);
+		}
+
+		return filled;
+	}
+
+	/**
+	 * A plain quad with a Transform and a single frame graphic area.
+	 */
+	private static class BenchQuad implements Quad {
+		Transform transform = new Transform();
+		AnimatedGraphicAreaTransform graphic = new AnimatedGraphicAreaTransform();
+
+		@Override
+		public Transformation getTransformation() {
+			return transform;
+		}
+
+		@Override
+		public GraphicAreaTransformation getGraphicAreaTransformation() {
+			return graphic;
+		}
+	}
+}
@@ -0,0 +1,85 @@
+/**
+ * BobEngine - 2D game engine for Android
+ * <p/>
+ * Copyright (C) 2014, 2015, 2016 Benjamin Blaszczak
+ * <p/>
+ * BobEngine is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser Public License
+ * version 2.1 as published by the free software foundation.
+ * <p/>
+ * BobEngine is provided without warranty; without even the implied
+ * warranty of merchantability or fitness for a particular
+ * purpose. See the GNU Lesser Public License for more details.
+ * <p/>
+ * You should have received a copy of the GNU Lesser General
+ * Public License along with BobEngine; if not, write to the
+ * Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301 USA
+ */
+package com.bobbyloujo.bobengine.benchmarks;
+
+import com.bobbyloujo.bobengine.entities.Room;
+import com.bobbyloujo.bobengine.entities.SimpleGameObject;
+import com.bobbyloujo.bobengine.headless.HeadlessViewPort;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures spawning many SimpleGameObjects into a Room at once and running the update after,
+ * which is when the Room rebuilds its lists of updatable, renderable and input handling
+ * components. Each spawn also looks up a render system for the object's graphic. The Room
+ * already holds a few hundred objects.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class RoomSpawnBenchmark {
+
+	private static final int EXISTING_OBJECTS = 500;    // Objects in the Room before the spawn
+
+	@Param({"100", "1000", "5000"})
+	public int spawned;
+
+	private HeadlessViewPort viewPort;
+	private Room room;
+
+	@Setup(Level.Trial)
+	public void createViewPort() {
+		viewPort = new HeadlessViewPort();
+	}
+
+	@Setup(Level.Invocation)
+	public void createRoom() {
+		room = new Room(viewPort);
+
+		for (int i = 0; i < EXISTING_OBJECTS; i++) {
+			new SimpleGameObject(room);
+		}
+
+		room.update(1);
+	}
+
+	@Benchmark
+	public Room spawn() {
+		for (int i = 0; i < spawned; i++) {
+			SimpleGameObject o = new SimpleGameObject(room);
+
+			o.transform.x = i % 20;
+			o.transform.y = i / 20;
+		}
+
+		room.update(1);
+
+		return room;
+	}
+}
@@ -0,0 +1,85 @@
+/**
+ * BobEngine - 2D game engine for Android
+ * <p/>
+ * Copyright (C) 2014, 2015, 2016 Benjamin Blaszczak
+ * <p/>
+ * BobEngine is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser Public License
+ * version 2.1 as published by the free software foundation.
+ * <p/>
+ * BobEngine is provided without warranty; without even the implied
+ * warranty of merchantability or fitness for a particular
+ * purpose. See the GNU Lesser Public License for more details.
+ * <p/>
+ * You should have received a copy of the GNU Lesser General
+ * Public License along with BobEngine; if not, write to the
+ * Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301 USA
+ */
+package com.bobbyloujo.bobengine.benchmarks;
+
+import com.bobbyloujo.bobengine.entities.Room;
+import com.bobbyloujo.bobengine.extra.TextDisplay;
+import com.bobbyloujo.bobengine.headless.HeadlessViewPort;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how long a TextDisplay takes to lay out its characters when its text changes. Two
+ * texts of the same length take turns so every call has new text to lay out. The longer texts
+ * wrap over several lines.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TextDisplayBenchmark {
+
+	private static final String[] WORDS = {"BOB", "engine", "score", "LEVEL", "hi", "time", "0123", "jump!", "a", "quad"};
+
+	@Param({"16", "512"})
+	public int length;    // Number of characters in the text
+
+	private TextDisplay text;
+	private String[] texts;
+	private int next;
+
+	@Setup
+	public void setup() {
+		Random rand = new Random(length);
+		Room room = new Room(new HeadlessViewPort());
+
+		text = new TextDisplay(room);
+		texts = new String[2];
+
+		for (int i = 0; i < texts.length; i++) {
+			StringBuilder sb = new StringBuilder(length);
+
+			while (sb.length() < length) {
+				sb.append(WORDS[rand.nextInt(WORDS.length)]).append(' ');
+			}
+
+			sb.setLength(length);
+			texts[i] = sb.toString();
+		}
+	}
+
+	@Benchmark
+	public int calculateText() {
+		next = 1 - next;
+
+		text.setText(texts[next]);
+		text.updateText();
+
+		return text.getNumLines();
+	}
+}
@@ -0,0 +1,76 @@
+/**
+ * BobEngine - 2D game engine for Android
+ * <p/>
+ * Copyright (C) 2014, 2015, 2016 Benjamin Blaszczak
+ * <p/>
+ * BobEngine is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser Public License
+ * version 2.1 as published by the free software foundation.
+ * <p/>
+ * BobEngine is provided without warranty; without even the implied
+ * warranty of merchantability or fitness for a particular
+ * purpose. See the GNU Lesser Public License for more details.
+ * <p/>
+ * You should have received a copy of the GNU Lesser General
+ * Public License along with BobEngine; if not, write to the
+ * Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301 USA
+ */
+package com.bobbyloujo.bobengine.benchmarks;
+
+import com.bobbyloujo.bobengine.components.Transform;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures Transform.getRealX() and getRealY() on a Transform with a chain of parents, each of
+ * them moved, rotated and scaled.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class TransformBenchmark {
+
+	@Param({"0", "1", "4", "16"})
+	public int depth;     // Number of parents above the measured Transform
+
+	private Transform leaf;
+
+	@Setup
+	public void setup() {
+		Transform parent = null;
+
+		for (int i = 0; i <= depth; i++) {
+			Transform t = new Transform();
+
+			t.x = 1 + i;
+			t.y = 2 + i;
+			t.angle = 15 * i;
+			t.scale = 1 + i / 10.0;
+			t.parent = parent;
+
+			parent = t;
+		}
+
+		leaf = parent;
+	}
+
+	@Benchmark
+	public double getRealX() {
+		return leaf.getRealX();
+	}
+
+	@Benchmark
+	public double getRealY() {
+		return leaf.getRealY();
+	}
+}
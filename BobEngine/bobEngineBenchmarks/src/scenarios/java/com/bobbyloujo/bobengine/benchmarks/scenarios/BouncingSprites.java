@@ -0,0 +1,169 @@
+/**
+ * BobEngine - 2D game engine for Android
+ * <p/>
+ * Copyright (C) 2014, 2015, 2016 Benjamin Blaszczak
+ * <p/>
+ * BobEngine is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser Public License
+ * version 2.1 as published by the free software foundation.
+ * <p/>
+ * BobEngine is provided without warranty; without even the implied
+ * warranty of merchantability or fitness for a particular
+ * purpose. See the GNU Lesser Public License for more details.
+ * <p/>
+ * You should have received a copy of the GNU Lesser General
+ * Public License along with BobEngine; if not, write to the
+ * Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301 USA
+ */
+package com.bobbyloujo.bobengine.benchmarks.scenarios;
+
+import com.bobbyloujo.bobengine.entities.Entity;
+import com.bobbyloujo.bobengine.entities.GameObject;
+import com.bobbyloujo.bobengine.entities.Room;
+import com.bobbyloujo.bobengine.graphics.Graphic;
+import com.bobbyloujo.bobengine.systems.quadrenderer.SpriteBatch;
+import com.bobbyloujo.bobengine.view.ViewPort;
+
+import java.util.Random;
+
+/**
+ * Icons bouncing off the edges of the screen, like the ManyIcons example. Some icons are
+ * GameObjects and the rest are sprites in a SpriteBatch, each with their own graphic.
+ */
+public class BouncingSprites implements Scenario {
+
+	private static final int ICONS = 2000;            // Number of icons that are GameObjects
+	private static final int BATCH_ICONS = 10000;     // Number of icons in the SpriteBatch
+	private static final double ICON_SCALE = .5;      // Scale of the icons
+	private static final float SPEED = .2f;           // Same speed as the ManyIcons example
+	private static final int ICON_GRAPHIC = 1;        // Drawable ids of the graphics. Headless graphics
+	private static final int BATCH_GRAPHIC = 2;       //   are never loaded so any id will do.
+
+	@Override
+	public String getName() {
+		return "bouncingSprites";
+	}
+
+	@Override
+	public Room createRoom(ViewPort viewPort, long seed) {
+		return new Field(viewPort, new Random(seed));
+	}
+
+	/**
+	 * The Room the icons bounce around in.
+	 */
+	private static class Field extends Room {
+		private Random rand;
+		private float[] dX;     // Direction of each batch sprite, by slot
+		private float[] dY;
+
+		Field(ViewPort viewPort, Random rand) {
+			super(viewPort);
+
+			this.rand = rand;
+
+			setGridWidth(20);
+			setGridUnitY(getGridUnitX());
+
+			Graphic icon = viewPort.getGraphicsHelper().getGraphic(ICON_GRAPHIC);
+
+			for (int i = 0; i < ICONS; i++) {
+				new Icon(this, icon, rand);
+			}
+
+			spawnBatch(viewPort.getGraphicsHelper().getGraphic(BATCH_GRAPHIC));
+		}
+
+		private void spawnBatch(Graphic graphic) {
+			float size = (float) (getHeight() / 10);
+			SpriteBatch batch = new SpriteBatch(this, graphic, BATCH_ICONS);
+
+			dX = new float[BATCH_ICONS];
+			dY = new float[BATCH_ICONS];
+
+			for (int i = 0; i < BATCH_ICONS; i++) {
+				int handle = batch.addSprite((float) (rand.nextDouble() * getWidth()), (float) (rand.nextDouble() * getHeight()), size, size, 1);
+				batch.setScale(handle, (float) ICON_SCALE);
+
+				dX[i] = rand.nextBoolean() ? 1 : -1;
+				dY[i] = rand.nextBoolean() ? 1 : -1;
+			}
+
+			batch.setUpdater(new SpriteBatch.Updater() {
+				@Override
+				public void update(SpriteBatch b, double deltaTime) {
+					float roomW = (float) getWidth();
+					float roomH = (float) getHeight();
+					float[] x = b.x;
+					float[] y = b.y;
+					float[] w = b.width;
+					float[] h = b.height;
+					float[] s = b.scale;
+
+					// Sprites are never removed, so each slot keeps the same sprite.
+					for (int i = 0; i < b.getCount(); i++) {
+						float halfW = w[i] / 2 * s[i];
+						float halfH = h[i] / 2 * s[i];
+
+						x[i] += dX[i] * SPEED * deltaTime;
+						y[i] += dY[i] * SPEED * deltaTime;
+
+						if (x[i] > roomW - halfW || x[i] < halfW) {
+							dX[i] = -dX[i];
+							x[i] = Math.max(halfW, Math.min(roomW - halfW, x[i]));
+						}
+
+						if (y[i] > roomH - halfH || y[i] < halfH) {
+							dY[i] = -dY[i];
+							y[i] = Math.max(halfH, Math.min(roomH - halfH, y[i]));
+						}
+					}
+				}
+			});
+		}
+	}
+
+	/**
+	 * A GameObject that bounces off the edges of the Room.
+	 */
+	private static class Icon extends GameObject {
+		private int dX;
+		private int dY;
+
+		Icon(Entity parent, Graphic graphic, Random rand) {
+			super(parent);
+
+			setGraphic(graphic);
+
+			height = getRoom().getHeight() / 10;
+			width = height;
+			scale = ICON_SCALE;
+			layer = 1;
+			x = rand.nextDouble() * getRoom().getWidth();
+			y = rand.nextDouble() * getRoom().getHeight();
+
+			dX = rand.nextBoolean() ? 1 : -1;
+			dY = rand.nextBoolean() ? 1 : -1;
+		}
+
+		@Override
+		public void step(double deltaTime) {
+			double halfW = width / 2 * scale;
+			double halfH = height / 2 * scale;
+
+			x += dX * SPEED * deltaTime;
+			y += dY * SPEED * deltaTime;
+
+			if (x > getRoom().getWidth() - halfW || x < halfW) {
+				dX = -dX;
+				x = Math.max(halfW, Math.min(getRoom().getWidth() - halfW, x));
+			}
+
+			if (y > getRoom().getHeight() - halfH || y < halfH) {
+				dY = -dY;
+				y = Math.max(halfH, Math.min(getRoom().getHeight() - halfH, y));
+			}
+		}
+	}
+}
@@ -0,0 +1,120 @@
+/**
+ * BobEngine - 2D game engine for Android
+ * <p/>
+ * Copyright (C) 2014, 2015, 2016 Benjamin Blaszczak
+ * <p/>
+ * BobEngine is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser Public License
+ * version 2.1 as published by the free software foundation.
+ * <p/>
+ * BobEngine is provided without warranty; without even the implied
+ * warranty of merchantability or fitness for a particular
+ * purpose. See the GNU Lesser Public License for more details.
+ * <p/>
+ * You should have received a copy of the GNU Lesser General
+ * Public License along with BobEngine; if not, write to the
+ * Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301 USA
+ */
+package com.bobbyloujo.bobengine.benchmarks.scenarios;
+
+import com.bobbyloujo.bobengine.entities.Room;
+import com.bobbyloujo.bobengine.entities.SimpleGameObject;
+import com.bobbyloujo.bobengine.graphics.Graphic;
+import com.bobbyloujo.bobengine.systems.collision.CollisionBox;
+import com.bobbyloujo.bobengine.systems.collision.CollisionHandler;
+import com.bobbyloujo.bobengine.systems.collision.CollisionSystem;
+import com.bobbyloujo.bobengine.view.ViewPort;
+
+import java.util.Random;
+
+/**
+ * A crowd of small objects flying around the screen in a CollisionSystem. Every object has a
+ * CollisionHandler, so every overlapping pair is reported each frame.
+ */
+public class CollisionSwarm implements Scenario {
+
+	private static final int SWARM = 1500;           // Number of objects in the swarm
+	private static final double SIZE = .25;          // Width and height of each object, in grid units
+	private static final double MAX_SPEED = .08;     // Fastest an object moves each frame, in grid units
+	private static final int SWARM_GRAPHIC = 3;      // Drawable id of the graphic
+
+	@Override
+	public String getName() {
+		return "collisionSwarm";
+	}
+
+	@Override
+	public Room createRoom(ViewPort viewPort, long seed) {
+		return new Swarm(viewPort, new Random(seed));
+	}
+
+	/**
+	 * The Room the swarm flies around in.
+	 */
+	private static class Swarm extends Room {
+		private SimpleGameObject[] objects;
+		private double[] vX;
+		private double[] vY;
+		private int collisions;     // Collisions reported so far
+
+		Swarm(ViewPort viewPort, Random rand) {
+			super(viewPort);
+
+			setGridWidth(20);
+			setGridUnitY(getGridUnitX());
+
+			Graphic graphic = viewPort.getGraphicsHelper().getGraphic(SWARM_GRAPHIC);
+			CollisionSystem system = new CollisionSystem(this);
+
+			CollisionHandler counter = new CollisionHandler() {
+				@Override
+				public void onCollision(CollisionBox c) {
+					collisions++;
+				}
+			};
+
+			objects = new SimpleGameObject[SWARM];
+			vX = new double[SWARM];
+			vY = new double[SWARM];
+
+			for (int i = 0; i < SWARM; i++) {
+				SimpleGameObject o = new SimpleGameObject(this);
+
+				o.setGraphic(graphic);
+				o.transform.x = rand.nextDouble() * getWidth();
+				o.transform.y = rand.nextDouble() * getHeight();
+				o.transform.width = SIZE;
+				o.transform.height = SIZE;
+				o.transform.angle = rand.nextDouble() * 360;
+
+				vX[i] = (rand.nextDouble() * 2 - 1) * MAX_SPEED;
+				vY[i] = (rand.nextDouble() * 2 - 1) * MAX_SPEED;
+				objects[i] = o;
+
+				system.addCollidable(CollisionSystem.generateCollisionBox(o.transform, counter, null));
+			}
+		}
+
+		@Override
+		public void step(double deltaTime) {
+			double roomW = getWidth();
+			double roomH = getHeight();
+
+			for (int i = 0; i < objects.length; i++) {
+				SimpleGameObject o = objects[i];
+
+				o.transform.x += vX[i] * deltaTime;
+				o.transform.y += vY[i] * deltaTime;
+
+				if (o.transform.x < 0 || o.transform.x > roomW) {
+					vX[i] = -vX[i];
+				}
+
+				if (o.transform.y < 0 || o.transform.y > roomH) {
+					vY[i] = -vY[i];
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,137 @@
+/**
+ * BobEngine - 2D game engine for Android
+ * <p/>
+ * Copyright (C) 2014, 2015, 2016 Benjamin Blaszczak
+ * <p/>
+ * BobEngine is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser Public License
+ * version 2.1 as published by the free software foundation.
+ * <p/>
+ * BobEngine is provided without warranty; without even the implied
+ * warranty of merchantability or fitness for a particular
+ * purpose. See the GNU Lesser Public License for more details.
+ * <p/>
+ * You should have received a copy of the GNU Lesser General
+ * Public License along with BobEngine; if not, write to the
+ * Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301 USA
+ */
+package com.bobbyloujo.bobengine.benchmarks.scenarios;
+
+import com.bobbyloujo.bobengine.entities.Room;
+import com.bobbyloujo.bobengine.graphics.Graphic;
+import com.bobbyloujo.bobengine.systems.quadrenderer.SpriteBatch;
+import com.bobbyloujo.bobengine.view.ViewPort;
+
+import java.util.Random;
+
+/**
+ * Emitters spraying short lived particles. Every frame hundreds of particles are added to a
+ * SpriteBatch and as many die and are removed, so the batch is always churning.
+ */
+public class ParticleStorm implements Scenario {
+
+	private static final int EMITTERS = 8;             // Number of places particles come from
+	private static final int SPAWN_PER_FRAME = 400;    // Particles added each frame
+	private static final int MIN_LIFE = 30;            // Fewest frames a particle lives
+	private static final int MAX_LIFE = 90;            // Most frames a particle lives
+	private static final double MAX_SPEED = .15;       // Fastest a particle starts, in grid units per frame
+	private static final float GRAVITY = .003f;        // Downward speed added each frame, in grid units per frame
+	private static final float SIZE = .2f;             // Width and height of a new particle, in grid units
+	private static final int PARTICLE_GRAPHIC = 6;     // Drawable id of the graphic
+
+	@Override
+	public String getName() {
+		return "particleStorm";
+	}
+
+	@Override
+	public Room createRoom(ViewPort viewPort, long seed) {
+		return new Storm(viewPort, new Random(seed));
+	}
+
+	/**
+	 * The Room the storm is in.
+	 */
+	private static class Storm extends Room {
+		private static final int CAPACITY = SPAWN_PER_FRAME * (MAX_LIFE + 1);   // Most particles alive at once
+
+		private Random rand;
+		private SpriteBatch batch;
+		private float[] emitterX;
+		private float[] emitterY;
+		private float[] vX;        // Velocity of each particle, by slot
+		private float[] vY;
+		private int[] life;        // Frames each particle has left, by slot
+
+		Storm(ViewPort viewPort, Random rand) {
+			super(viewPort);
+
+			this.rand = rand;
+
+			setGridWidth(20);
+			setGridUnitY(getGridUnitX());
+
+			Graphic graphic = viewPort.getGraphicsHelper().getGraphic(PARTICLE_GRAPHIC);
+
+			batch = new SpriteBatch(this, graphic, CAPACITY);
+			vX = new float[CAPACITY];
+			vY = new float[CAPACITY];
+			life = new int[CAPACITY];
+
+			emitterX = new float[EMITTERS];
+			emitterY = new float[EMITTERS];
+
+			for (int i = 0; i < EMITTERS; i++) {
+				emitterX[i] = (float) (rand.nextDouble() * getWidth());
+				emitterY[i] = (float) (rand.nextDouble() * getHeight());
+			}
+
+			batch.setUpdater(new SpriteBatch.Updater() {
+				@Override
+				public void update(SpriteBatch b, double deltaTime) {
+					moveParticles(b, (float) deltaTime);
+				}
+			});
+		}
+
+		/**
+		 * Move the particles and remove the ones that have died. Slots are visited from the
+		 * end so the particle moved into a removed particle's slot has already been moved.
+		 */
+		private void moveParticles(SpriteBatch b, float deltaTime) {
+			for (int s = b.getCount() - 1; s >= 0; s--) {
+				life[s]--;
+
+				if (life[s] <= 0) {
+					int last = b.getCount() - 1;
+
+					vX[s] = vX[last];
+					vY[s] = vY[last];
+					life[s] = life[last];
+					b.removeSprite(b.getHandle(s));
+				} else {
+					vY[s] -= GRAVITY * deltaTime;
+					b.x[s] += vX[s] * deltaTime;
+					b.y[s] += vY[s] * deltaTime;
+					b.angle[s] += 4 * deltaTime;
+					b.scale[s] = (float) life[s] / MAX_LIFE;
+				}
+			}
+		}
+
+		@Override
+		public void step(double deltaTime) {
+			for (int i = 0; i < SPAWN_PER_FRAME; i++) {
+				int emitter = i % EMITTERS;
+				double angle = rand.nextDouble() * Math.PI * 2;
+				double speed = rand.nextDouble() * MAX_SPEED;
+				int slot = batch.getSlot(batch.addSprite(emitterX[emitter], emitterY[emitter], SIZE, SIZE, 1));
+
+				vX[slot] = (float) (Math.cos(angle) * speed);
+				vY[slot] = (float) (Math.sin(angle) * speed);
+				life[slot] = MIN_LIFE + rand.nextInt(MAX_LIFE - MIN_LIFE + 1);
+			}
+		}
+	}
+}
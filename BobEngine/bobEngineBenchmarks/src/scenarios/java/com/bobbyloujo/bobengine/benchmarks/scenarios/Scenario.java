@@ -0,0 +1,44 @@
+/**
+ * BobEngine - 2D game engine for Android
+ * <p/>
+ * Copyright (C) 2014, 2015, 2016 Benjamin Blaszczak
+ * <p/>
+ * BobEngine is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser Public License
+ * version 2.1 as published by the free software foundation.
+ * <p/>
+ * BobEngine is provided without warranty; without even the implied
+ * warranty of merchantability or fitness for a particular
+ * purpose. See the GNU Lesser Public License for more details.
+ * <p/>
+ * You should have received a copy of the GNU Lesser General
+ * Public License along with BobEngine; if not, write to the
+ * Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301 USA
+ */
+package com.bobbyloujo.bobengine.benchmarks.scenarios;
+
+import com.bobbyloujo.bobengine.entities.Room;
+import com.bobbyloujo.bobengine.view.ViewPort;
+
+/**
+ * A game-like Room for the ScenarioRunner to measure. The Room must be built only from the
+ * seed it is given, so the same seed always gives the same Room and every frame of it does
+ * the same work. Randomness during the run should come from a Random made from the seed.
+ */
+public interface Scenario {
+
+	/**
+	 * Returns the name of this scenario, used in the report and for its budgets.
+	 */
+	String getName();
+
+	/**
+	 * Build the Room for this scenario.
+	 *
+	 * @param viewPort The ViewPort to create the Room in.
+	 * @param seed The seed for everything random in the Room.
+	 * @return The new Room.
+	 */
+	Room createRoom(ViewPort viewPort, long seed);
+}
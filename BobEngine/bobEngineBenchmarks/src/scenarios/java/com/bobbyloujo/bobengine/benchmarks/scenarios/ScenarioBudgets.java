@@ -0,0 +1,109 @@
+/**
+ * BobEngine - 2D game engine for Android
+ * <p/>
+ * Copyright (C) 2014, 2015, 2016 Benjamin Blaszczak
+ * <p/>
+ * BobEngine is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser Public License
+ * version 2.1 as published by the free software foundation.
+ * <p/>
+ * BobEngine is provided without warranty; without even the implied
+ * warranty of merchantability or fitness for a particular
+ * purpose. See the GNU Lesser Public License for more details.
+ * <p/>
+ * You should have received a copy of the GNU Lesser General
+ * Public License along with BobEngine; if not, write to the
+ * Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301 USA
+ */
+package com.bobbyloujo.bobengine.benchmarks.scenarios;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Properties;
+
+/**
+ * The most each ScenarioResult metric is allowed to be. Budgets are properties named
+ * scenario.metric, such as collisionSwarm.frameMs.p95 = 8. A budget named default.metric is
+ * used for every scenario that doesn't have its own. Metrics without a budget aren't checked.
+ * Budgets are targets, and aren't raised to fit a scenario that misses them.
+ */
+public class ScenarioBudgets {
+
+	public static final String DEFAULT = "default";   // Name used for budgets of every scenario
+
+	private Properties budgets;
+
+	public ScenarioBudgets() {
+		budgets = new Properties();
+	}
+
+	/**
+	 * Add budgets from a properties file. Budgets that were already set are replaced.
+	 *
+	 * @param in The properties to read. It is not closed.
+	 * @throws IOException If the properties can't be read.
+	 */
+	public void load(InputStream in) throws IOException {
+		budgets.load(in);
+	}
+
+	/**
+	 * Set a budget.
+	 *
+	 * @param scenario The scenario name, or DEFAULT.
+	 * @param metric The metric name. See ScenarioResult.
+	 * @param max The most the metric can be.
+	 */
+	public void set(String scenario, String metric, double max) {
+		budgets.setProperty(scenario + "." + metric, Double.toString(max));
+	}
+
+	/**
+	 * Returns the budget of a metric for a scenario, or NaN if it doesn't have one.
+	 *
+	 * @param scenario The scenario name.
+	 * @param metric The metric name. See ScenarioResult.
+	 */
+	public double get(String scenario, String metric) {
+		String value = budgets.getProperty(scenario + "." + metric);
+
+		if (value == null) {
+			value = budgets.getProperty(DEFAULT + "." + metric);
+		}
+
+		if (value == null) {
+			return Double.NaN;
+		}
+
+		try {
+			return Double.parseDouble(value.trim());
+		} catch (NumberFormatException e) {
+			System.err.println("Budget " + scenario + "." + metric + " is not a number: " + value);
+			return Double.NaN;
+		}
+	}
+
+	/**
+	 * Compare a result with its budgets. Each exceeded budget is added to the result's
+	 * violations. Metrics that couldn't be measured are skipped.
+	 *
+	 * @param result The result to check.
+	 * @return True if every budget was met.
+	 */
+	public boolean check(ScenarioResult result) {
+		boolean met = true;
+
+		for (String metric: ScenarioResult.METRICS) {
+			double max = get(result.getName(), metric);
+			double value = result.getMetric(metric);
+
+			if (!Double.isNaN(max) && value >= 0 && value > max) {
+				result.addViolation(metric + " " + ScenarioResult.format(value) + " > " + ScenarioResult.format(max));
+				met = false;
+			}
+		}
+
+		return met;
+	}
+}
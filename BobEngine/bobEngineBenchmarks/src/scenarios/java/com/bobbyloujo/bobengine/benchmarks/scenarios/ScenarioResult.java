@@ -0,0 +1,264 @@
+/**
+ * BobEngine - 2D game engine for Android
+ * <p/>
+ * Copyright (C) 2014, 2015, 2016 Benjamin Blaszczak
+ * <p/>
+ * BobEngine is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser Public License
+ * version 2.1 as published by the free software foundation.
+ * <p/>
+ * BobEngine is provided without warranty; without even the implied
+ * warranty of merchantability or fitness for a particular
+ * purpose. See the GNU Lesser Public License for more details.
+ * <p/>
+ * You should have received a copy of the GNU Lesser General
+ * Public License along with BobEngine; if not, write to the
+ * Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301 USA
+ */
+package com.bobbyloujo.bobengine.benchmarks.scenarios;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * The measurements from one run of a Scenario: how long each frame took, how many bytes it
+ * allocated, and how many draw calls, texture binds and elements it sent to the GL.
+ * <br />
+ * <br />
+ * Metrics are looked up by name with getMetric() so budgets can name them. The names are:
+ * frameMs.p50, frameMs.p90, frameMs.p95, frameMs.p99, frameMs.max, frameMs.mean,
+ * allocBytesPerFrame.mean, allocBytesPerFrame.max, drawCallsPerFrame, bindsPerFrame,
+ * elementsPerFrame and glCallsPerFrame.
+ */
+public class ScenarioResult {
+
+	public static final String[] METRICS = {
+			"frameMs.p50", "frameMs.p90", "frameMs.p95", "frameMs.p99", "frameMs.max", "frameMs.mean",
+			"allocBytesPerFrame.mean", "allocBytesPerFrame.max",
+			"drawCallsPerFrame", "bindsPerFrame", "elementsPerFrame", "glCallsPerFrame"
+	};
+
+	private String name;
+	private int frames;             // Frames recorded so far
+	private long[] frameNanos;      // Time of each frame, in ns
+	private long[] allocBytes;      // Bytes allocated in each frame, or -1 if unknown
+	private long[] sortedNanos;     // frameNanos sorted, made when first needed
+	private long drawCalls;         // Totals over all frames
+	private long binds;
+	private long elements;
+	private long glCalls;
+	private ArrayList<String> violations;
+
+	/**
+	 * Create an empty result.
+	 *
+	 * @param name The name of the scenario.
+	 * @param maxFrames The number of frames that will be recorded.
+	 */
+	public ScenarioResult(String name, int maxFrames) {
+		this.name = name;
+
+		frameNanos = new long[maxFrames];
+		allocBytes = new long[maxFrames];
+		violations = new ArrayList<String>();
+		frames = 0;
+	}
+
+	/**
+	 * Record a frame.
+	 *
+	 * @param nanos How long the frame took, in ns.
+	 * @param bytes How many bytes were allocated during the frame, or -1 if unknown.
+	 * @param drawCalls Draw calls made during the frame.
+	 * @param binds Textures bound during the frame.
+	 * @param elements Elements drawn during the frame.
+	 * @param glCalls All GL calls made during the frame.
+	 */
+	public void addFrame(long nanos, long bytes, long drawCalls, long binds, long elements, long glCalls) {
+		frameNanos[frames] = nanos;
+		allocBytes[frames] = bytes;
+		frames++;
+		sortedNanos = null;
+
+		this.drawCalls += drawCalls;
+		this.binds += binds;
+		this.elements += elements;
+		this.glCalls += glCalls;
+	}
+
+	/**
+	 * Returns the name of the scenario.
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * Returns the number of frames recorded.
+	 */
+	public int getFrameCount() {
+		return frames;
+	}
+
+	/**
+	 * Returns a percentile of the frame times, in ms, using the nearest rank.
+	 *
+	 * @param percentile From 0 to 100.
+	 */
+	public double getFramePercentile(double percentile) {
+		if (frames == 0) {
+			return 0;
+		}
+
+		if (sortedNanos == null) {
+			sortedNanos = Arrays.copyOf(frameNanos, frames);
+			Arrays.sort(sortedNanos);
+		}
+
+		int rank = (int) Math.ceil(percentile / 100 * frames);
+		return sortedNanos[Math.max(0, Math.min(frames - 1, rank - 1))] / 1e6;
+	}
+
+	/**
+	 * Returns the average frame time, in ms.
+	 */
+	public double getFrameMean() {
+		long total = 0;
+
+		for (int i = 0; i < frames; i++) {
+			total += frameNanos[i];
+		}
+
+		return frames == 0 ? 0 : total / 1e6 / frames;
+	}
+
+	/**
+	 * Returns the average bytes allocated each frame, or -1 if allocations couldn't be counted.
+	 */
+	public double getAllocMean() {
+		long total = 0;
+
+		for (int i = 0; i < frames; i++) {
+			if (allocBytes[i] < 0) {
+				return -1;
+			}
+
+			total += allocBytes[i];
+		}
+
+		return frames == 0 ? 0 : (double) total / frames;
+	}
+
+	/**
+	 * Returns the most bytes allocated in one frame, or -1 if allocations couldn't be counted.
+	 */
+	public long getAllocMax() {
+		long max = frames == 0 ? 0 : allocBytes[0];
+
+		for (int i = 0; i < frames; i++) {
+			if (allocBytes[i] < 0) {
+				return -1;
+			}
+
+			max = Math.max(max, allocBytes[i]);
+		}
+
+		return max;
+	}
+
+	/**
+	 * Returns the value of a metric, or NaN if there is no metric with that name. Metrics that
+	 * couldn't be measured are -1.
+	 *
+	 * @param metric One of the names in METRICS.
+	 */
+	public double getMetric(String metric) {
+		double perFrame = Math.max(frames, 1);
+
+		if (metric.equals("frameMs.p50")) return getFramePercentile(50);
+		if (metric.equals("frameMs.p90")) return getFramePercentile(90);
+		if (metric.equals("frameMs.p95")) return getFramePercentile(95);
+		if (metric.equals("frameMs.p99")) return getFramePercentile(99);
+		if (metric.equals("frameMs.max")) return getFramePercentile(100);
+		if (metric.equals("frameMs.mean")) return getFrameMean();
+		if (metric.equals("allocBytesPerFrame.mean")) return getAllocMean();
+		if (metric.equals("allocBytesPerFrame.max")) return getAllocMax();
+		if (metric.equals("drawCallsPerFrame")) return drawCalls / perFrame;
+		if (metric.equals("bindsPerFrame")) return binds / perFrame;
+		if (metric.equals("elementsPerFrame")) return elements / perFrame;
+		if (metric.equals("glCallsPerFrame")) return glCalls / perFrame;
+
+		return Double.NaN;
+	}
+
+	/**
+	 * Note that a budget was exceeded.
+	 *
+	 * @param violation A description of the exceeded budget.
+	 */
+	public void addViolation(String violation) {
+		violations.add(violation);
+	}
+
+	/**
+	 * Returns the budgets this result exceeded.
+	 */
+	public ArrayList<String> getViolations() {
+		return violations;
+	}
+
+	/**
+	 * Append this result to a JSON report as an object.
+	 *
+	 * @param sb The report.
+	 * @param indent The indent of the line the object starts on.
+	 */
+	public void appendJson(StringBuilder sb, String indent) {
+		String in = indent + "  ";
+
+		sb.append(indent).append("{\n");
+		sb.append(in).append("\"name\": \"").append(name).append("\",\n");
+		sb.append(in).append("\"frames\": ").append(frames).append(",\n");
+		sb.append(in).append("\"frameMs\": {");
+		appendNumber(sb, "p50", getMetric("frameMs.p50"), true);
+		appendNumber(sb, "p90", getMetric("frameMs.p90"), false);
+		appendNumber(sb, "p95", getMetric("frameMs.p95"), false);
+		appendNumber(sb, "p99", getMetric("frameMs.p99"), false);
+		appendNumber(sb, "max", getMetric("frameMs.max"), false);
+		appendNumber(sb, "mean", getMetric("frameMs.mean"), false);
+		sb.append("},\n");
+		sb.append(in).append("\"allocBytesPerFrame\": {");
+		appendNumber(sb, "mean", getMetric("allocBytesPerFrame.mean"), true);
+		appendNumber(sb, "max", getMetric("allocBytesPerFrame.max"), false);
+		sb.append("},\n");
+		sb.append(in).append("\"drawCallsPerFrame\": ").append(format(getMetric("drawCallsPerFrame"))).append(",\n");
+		sb.append(in).append("\"bindsPerFrame\": ").append(format(getMetric("bindsPerFrame"))).append(",\n");
+		sb.append(in).append("\"elementsPerFrame\": ").append(format(getMetric("elementsPerFrame"))).append(",\n");
+		sb.append(in).append("\"glCallsPerFrame\": ").append(format(getMetric("glCallsPerFrame"))).append(",\n");
+		sb.append(in).append("\"budgetViolations\": [");
+
+		for (int i = 0; i < violations.size(); i++) {
+			sb.append(i == 0 ? "" : ", ").append('"').append(violations.get(i)).append('"');
+		}
+
+		sb.append("]\n");
+		sb.append(indent).append('}');
+	}
+
+	private static void appendNumber(StringBuilder sb, String key, double value, boolean first) {
+		sb.append(first ? "" : ", ").append('"').append(key).append("\": ").append(format(value));
+	}
+
+	/**
+	 * Format a number for the report with up to three decimal places.
+	 */
+	static String format(double value) {
+		if (value == Math.rint(value)) {
+			return Long.toString((long) value);
+		}
+
+		return String.format(Locale.US, "%.3f", value);
+	}
+}
@@ -0,0 +1,234 @@
+/**
+ * BobEngine - 2D game engine for Android
+ * <p/>
+ * Copyright (C) 2014, 2015, 2016 Benjamin Blaszczak
+ * <p/>
+ * BobEngine is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser Public License
+ * version 2.1 as published by the free software foundation.
+ * <p/>
+ * BobEngine is provided without warranty; without even the implied
+ * warranty of merchantability or fitness for a particular
+ * purpose. See the GNU Lesser Public License for more details.
+ * <p/>
+ * You should have received a copy of the GNU Lesser General
+ * Public License along with BobEngine; if not, write to the
+ * Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301 USA
+ */
+package com.bobbyloujo.bobengine.benchmarks.scenarios;
+
+import com.bobbyloujo.bobengine.headless.HeadlessRuntime;
+import com.bobbyloujo.bobengine.headless.RecordingGL;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+
+/**
+ * Runs each Scenario in a HeadlessRuntime for a fixed number of frames, writes a JSON report
+ * of the results and exits with status 1 if any budget was exceeded.
+ * <br />
+ * <br />
+ * Each scenario is first run for the warmup frames in a Room built from the seed so the JIT
+ * has compiled the engine, then measured in a new Room built from the same seed. Frame times
+ * are the time of HeadlessRuntime.step(). Allocations are counted per thread, which needs a
+ * HotSpot based JVM; elsewhere they are reported as -1. They include the boxing RecordingGL
+ * does for each GL call, so they go up with glCallsPerFrame.
+ * <br />
+ * <br />
+ * Options are given as --name=value:
+ *   --frames       Frames to measure (default 600)
+ *   --warmup       Frames to run before measuring (default 300)
+ *   --seed         Seed the Rooms are built from (default 1)
+ *   --scenarios    Comma separated names of the scenarios to run (default all)
+ *   --budgets      Properties file of budgets to use instead of the default ones
+ *   --out          File to write the report to (default standard out)
+ */
+public class ScenarioRunner {
+
+	public static final Scenario[] SCENARIOS = {
+			new BouncingSprites(), new CollisionSwarm(), new TextHud(), new TileScroller(), new ParticleStorm()
+	};
+
+	private static final int DEF_FRAMES = 600;
+	private static final int DEF_WARMUP = 300;
+	private static final long DEF_SEED = 1;
+	private static final String DEFAULT_BUDGETS = "/scenario-budgets.properties";   // Budgets on the classpath
+
+	private static ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+
+	public static void main(String[] args) throws IOException {
+		int frames = DEF_FRAMES;
+		int warmup = DEF_WARMUP;
+		long seed = DEF_SEED;
+		String names = null;
+		String budgetFile = null;
+		String out = null;
+
+		for (String arg: args) {
+			int equals = arg.indexOf('=');
+			String option = equals < 0 ? arg : arg.substring(0, equals);
+			String value = equals < 0 ? "" : arg.substring(equals + 1);
+
+			if (option.equals("--frames")) frames = Integer.parseInt(value);
+			else if (option.equals("--warmup")) warmup = Integer.parseInt(value);
+			else if (option.equals("--seed")) seed = Long.parseLong(value);
+			else if (option.equals("--scenarios")) names = value;
+			else if (option.equals("--budgets")) budgetFile = value;
+			else if (option.equals("--out")) out = value;
+			else {
+				System.err.println("Unknown option " + arg);
+				System.exit(2);
+			}
+		}
+
+		ScenarioBudgets budgets = loadBudgets(budgetFile);
+		ArrayList<ScenarioResult> results = new ArrayList<ScenarioResult>();
+		boolean passed = true;
+
+		for (Scenario scenario: SCENARIOS) {
+			if (names != null && !("," + names + ",").contains("," + scenario.getName() + ",")) {
+				continue;
+			}
+
+			ScenarioResult result = run(scenario, seed, warmup, frames);
+
+			if (!budgets.check(result)) {
+				passed = false;
+
+				for (String violation: result.getViolations()) {
+					System.err.println(scenario.getName() + " over budget: " + violation);
+				}
+			}
+
+			results.add(result);
+		}
+
+		String report = toJson(results, seed, warmup, frames, passed);
+
+		if (out == null) {
+			System.out.print(report);
+		} else {
+			File file = new File(out);
+
+			if (file.getParentFile() != null) {
+				file.getParentFile().mkdirs();
+			}
+
+			Writer writer = new FileWriter(file);
+
+			try {
+				writer.write(report);
+			} finally {
+				writer.close();
+			}
+
+			System.out.println("Scenario report written to " + file.getPath());
+		}
+
+		if (!passed) {
+			System.exit(1);
+		}
+	}
+
+	/**
+	 * Warm up and then measure a scenario.
+	 *
+	 * @param scenario The scenario to run.
+	 * @param seed The seed to build its Rooms from.
+	 * @param warmup Frames to run before measuring.
+	 * @param frames Frames to measure.
+	 * @return The measurements.
+	 */
+	public static ScenarioResult run(Scenario scenario, long seed, int warmup, int frames) {
+		HeadlessRuntime runtime = new HeadlessRuntime();
+
+		runtime.goToRoom(scenario.createRoom(runtime.getViewPort(), seed));
+		runtime.run(warmup);
+
+		runtime = new HeadlessRuntime();
+		runtime.goToRoom(scenario.createRoom(runtime.getViewPort(), seed));
+
+		RecordingGL gl = runtime.getRecordingGL();
+		ScenarioResult result = new ScenarioResult(scenario.getName(), frames);
+
+		for (int f = 0; f < frames; f++) {
+			gl.reset();
+
+			long bytes = allocatedBytes();
+			long start = System.nanoTime();
+
+			runtime.step();
+
+			long time = System.nanoTime() - start;
+
+			if (bytes >= 0) {
+				bytes = allocatedBytes() - bytes;
+			}
+
+			result.addFrame(time, bytes, gl.getDrawCalls(), gl.getTextureBinds(), gl.getElementCount(), gl.getCallCount());
+		}
+
+		return result;
+	}
+
+	/**
+	 * Returns the number of bytes this thread has allocated, or -1 if the JVM can't tell.
+	 */
+	private static long allocatedBytes() {
+		if (threads instanceof com.sun.management.ThreadMXBean) {
+			return ((com.sun.management.ThreadMXBean) threads).getThreadAllocatedBytes(Thread.currentThread().getId());
+		}
+
+		return -1;
+	}
+
+	/**
+	 * Load the default budgets, or the budgets in a file if one is given.
+	 */
+	private static ScenarioBudgets loadBudgets(String file) throws IOException {
+		ScenarioBudgets budgets = new ScenarioBudgets();
+		InputStream in = file == null ? ScenarioRunner.class.getResourceAsStream(DEFAULT_BUDGETS) : new FileInputStream(file);
+
+		if (in == null) {
+			System.err.println("No budgets found. Nothing will be checked.");
+			return budgets;
+		}
+
+		try {
+			budgets.load(in);
+		} finally {
+			in.close();
+		}
+
+		return budgets;
+	}
+
+	private static String toJson(ArrayList<ScenarioResult> results, long seed, int warmup, int frames, boolean passed) {
+		StringBuilder sb = new StringBuilder();
+
+		sb.append("{\n");
+		sb.append("  \"seed\": ").append(seed).append(",\n");
+		sb.append("  \"warmupFrames\": ").append(warmup).append(",\n");
+		sb.append("  \"frames\": ").append(frames).append(",\n");
+		sb.append("  \"passed\": ").append(passed).append(",\n");
+		sb.append("  \"scenarios\": [\n");
+
+		for (int i = 0; i < results.size(); i++) {
+			results.get(i).appendJson(sb, "    ");
+			sb.append(i < results.size() - 1 ? ",\n" : "\n");
+		}
+
+		sb.append("  ]\n");
+		sb.append("}\n");
+
+		return sb.toString();
+	}
+}
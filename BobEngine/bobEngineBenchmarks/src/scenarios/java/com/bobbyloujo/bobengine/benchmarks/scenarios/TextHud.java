@@ -0,0 +1,157 @@
+/**
+ * BobEngine - 2D game engine for Android
+ * <p/>
+ * Copyright (C) 2014, 2015, 2016 Benjamin Blaszczak
+ * <p/>
+ * BobEngine is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser Public License
+ * version 2.1 as published by the free software foundation.
+ * <p/>
+ * BobEngine is provided without warranty; without even the implied
+ * warranty of merchantability or fitness for a particular
+ * purpose. See the GNU Lesser Public License for more details.
+ * <p/>
+ * You should have received a copy of the GNU Lesser General
+ * Public License along with BobEngine; if not, write to the
+ * Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301 USA
+ */
+package com.bobbyloujo.bobengine.benchmarks.scenarios;
+
+import com.bobbyloujo.bobengine.entities.Room;
+import com.bobbyloujo.bobengine.extra.NumberDisplay;
+import com.bobbyloujo.bobengine.extra.TextDisplay;
+import com.bobbyloujo.bobengine.view.ViewPort;
+
+import java.util.Random;
+
+/**
+ * A busy heads up display: counters that change every frame, labels that change every half
+ * second, and a long wrapped message that changes every two seconds. The labels take turns so
+ * a few of them change each frame. All of the texts are made when the Room is built so the
+ * scenario itself doesn't allocate while running.
+ */
+public class TextHud implements Scenario {
+
+	private static final int LABELS = 24;                // Number of short labels
+	private static final int LABEL_CHARS = 24;           // Length of each label
+	private static final int LABEL_PERIOD = 30;          // Frames between each label's changes
+	private static final int COUNTERS = 16;              // Number of NumberDisplays
+	private static final int MESSAGE_CHARS = 240;        // Length of the long message
+	private static final int MESSAGE_PERIOD = 120;       // Frames between the message's changes
+	private static final int VARIANTS = 4;               // Number of different texts each display cycles through
+	private static final double TEXT_SIZE = .4;          // Height of a character, in grid units
+
+	private static final String[] WORDS = {"SCORE", "level", "Bob", "engine", "lives", "x", "GO!", "time", "combo", "best", "quads", "hi"};
+
+	@Override
+	public String getName() {
+		return "textHud";
+	}
+
+	@Override
+	public Room createRoom(ViewPort viewPort, long seed) {
+		return new Hud(viewPort, new Random(seed));
+	}
+
+	/**
+	 * Make a string of random words that is exactly length characters long.
+	 */
+	private static String randomText(Random rand, int length) {
+		StringBuilder sb = new StringBuilder(length + 8);
+
+		while (sb.length() < length) {
+			sb.append(WORDS[rand.nextInt(WORDS.length)]).append(' ');
+		}
+
+		sb.setLength(length);
+		return sb.toString();
+	}
+
+	/**
+	 * The Room the HUD is drawn in.
+	 */
+	private static class Hud extends Room {
+		private TextDisplay[] labels;
+		private String[][] labelTexts;
+		private NumberDisplay[] counters;
+		private double[] counterRates;     // How much each counter goes up each frame
+		private TextDisplay message;
+		private String[] messageTexts;
+		private int frame;
+
+		Hud(ViewPort viewPort, Random rand) {
+			super(viewPort);
+
+			setGridWidth(20);
+			setGridUnitY(getGridUnitX());
+
+			labels = new TextDisplay[LABELS];
+			labelTexts = new String[LABELS][VARIANTS];
+
+			for (int i = 0; i < LABELS; i++) {
+				labels[i] = new TextDisplay(this);
+				labels[i].width = TEXT_SIZE;
+				labels[i].height = TEXT_SIZE;
+				labels[i].x = (i % 2) * getWidth() / 2;
+				labels[i].y = getHeight() - (i / 2) * TEXT_SIZE;
+				labels[i].setBoxWidth(getWidth() / 2);
+
+				for (int v = 0; v < VARIANTS; v++) {
+					labelTexts[i][v] = randomText(rand, LABEL_CHARS);
+				}
+
+				labels[i].setText(labelTexts[i][0]);
+			}
+
+			counters = new NumberDisplay[COUNTERS];
+			counterRates = new double[COUNTERS];
+
+			for (int i = 0; i < COUNTERS; i++) {
+				counters[i] = new NumberDisplay(this);
+				counters[i].width = TEXT_SIZE;
+				counters[i].height = TEXT_SIZE;
+				counters[i].x = getWidth() - 4;
+				counters[i].y = getHeight() - i * TEXT_SIZE;
+				counters[i].useCommas(i % 2 == 0);
+				counters[i].setPrecision(i % 3);
+
+				counterRates[i] = 1 + rand.nextDouble() * 1000;
+			}
+
+			message = new TextDisplay(this);
+			message.width = TEXT_SIZE;
+			message.height = TEXT_SIZE;
+			message.x = 0;
+			message.y = getHeight() / 3;
+			message.setBoxWidth(getWidth() * 2 / 3);
+			messageTexts = new String[VARIANTS];
+
+			for (int v = 0; v < VARIANTS; v++) {
+				messageTexts[v] = randomText(rand, MESSAGE_CHARS);
+			}
+
+			message.setText(messageTexts[0]);
+			frame = 0;
+		}
+
+		@Override
+		public void step(double deltaTime) {
+			frame++;
+
+			for (int i = 0; i < LABELS; i++) {
+				if ((frame + i) % LABEL_PERIOD == 0) {
+					labels[i].setText(labelTexts[i][(frame / LABEL_PERIOD) % VARIANTS]);
+				}
+			}
+
+			for (int i = 0; i < COUNTERS; i++) {
+				counters[i].setNumber(frame * counterRates[i]);
+			}
+
+			if (frame % MESSAGE_PERIOD == 0) {
+				message.setText(messageTexts[(frame / MESSAGE_PERIOD) % VARIANTS]);
+			}
+		}
+	}
+}
@@ -0,0 +1,186 @@
+/**
+ * BobEngine - 2D game engine for Android
+ * <p/>
+ * Copyright (C) 2014, 2015, 2016 Benjamin Blaszczak
+ * <p/>
+ * BobEngine is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser Public License
+ * version 2.1 as published by the free software foundation.
+ * <p/>
+ * BobEngine is provided without warranty; without even the implied
+ * warranty of merchantability or fitness for a particular
+ * purpose. See the GNU Lesser Public License for more details.
+ * <p/>
+ * You should have received a copy of the GNU Lesser General
+ * Public License along with BobEngine; if not, write to the
+ * Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301 USA
+ */
+package com.bobbyloujo.bobengine.benchmarks.scenarios;
+
+import com.bobbyloujo.bobengine.components.Transform;
+import com.bobbyloujo.bobengine.entities.Room;
+import com.bobbyloujo.bobengine.entities.SimpleGameObject;
+import com.bobbyloujo.bobengine.graphics.Graphic;
+import com.bobbyloujo.bobengine.systems.collision.TileCollisionLayer;
+import com.bobbyloujo.bobengine.view.ViewPort;
+
+import java.util.Random;
+
+/**
+ * A long platformer level that the camera scrolls across while walkers run, jump and fall
+ * through its tiles. Every tile is a SimpleGameObject so most of the level is culled each
+ * frame, and the walkers are moved through a TileCollisionLayer.
+ */
+public class TileScroller implements Scenario {
+
+	private static final int COLUMNS = 512;          // Width of the level, in tiles
+	private static final int ROWS = 12;              // Height of the level, in tiles
+	private static final int GROUND_ROWS = 2;        // Rows of solid ground at the bottom
+	private static final int PLATFORMS = 120;        // Number of floating platforms
+	private static final int WALKERS = 150;          // Number of walkers
+	private static final double WALK_SPEED = .06;    // Distance a walker moves each frame, in tiles
+	private static final double JUMP_SPEED = .35;    // Upward speed at the start of a jump, in tiles per frame
+	private static final double GRAVITY = .02;       // Downward speed added each frame, in tiles per frame
+	private static final int JUMP_PERIOD = 90;       // Frames between a walker's jumps
+	private static final double SCROLL_SPEED = .1;   // Distance the camera moves each frame, in tiles
+	private static final int TILE_GRAPHIC = 4;       // Drawable ids of the graphics
+	private static final int WALKER_GRAPHIC = 5;
+
+	@Override
+	public String getName() {
+		return "tileScroller";
+	}
+
+	@Override
+	public Room createRoom(ViewPort viewPort, long seed) {
+		return new Level(viewPort, new Random(seed));
+	}
+
+	/**
+	 * The Room the level is in.
+	 */
+	private static class Level extends Room {
+		private TileCollisionLayer tiles;
+		private Transform[] walkers;
+		private double[] direction;     // -1 or 1 for each walker
+		private double[] vY;
+		private int frame;
+
+		Level(ViewPort viewPort, Random rand) {
+			super(viewPort);
+
+			setGridWidth(20);
+			setGridUnitY(getGridUnitX());
+
+			tiles = new TileCollisionLayer(this, COLUMNS, ROWS, 1, 1);
+			buildLevel(rand);
+
+			Graphic tileGraphic = viewPort.getGraphicsHelper().getGraphic(TILE_GRAPHIC);
+
+			for (int c = 0; c < COLUMNS; c++) {
+				for (int r = 0; r < ROWS; r++) {
+					if (tiles.getTile(c, r) != TileCollisionLayer.EMPTY) {
+						SimpleGameObject tile = new SimpleGameObject(this);
+
+						tile.setGraphic(tileGraphic);
+						tile.transform.x = c + .5;
+						tile.transform.y = r + .5;
+						tile.transform.width = 1;
+						tile.transform.height = 1;
+						tile.transform.layer = 1;
+					}
+				}
+			}
+
+			Graphic walkerGraphic = viewPort.getGraphicsHelper().getGraphic(WALKER_GRAPHIC);
+
+			walkers = new Transform[WALKERS];
+			direction = new double[WALKERS];
+			vY = new double[WALKERS];
+
+			for (int i = 0; i < WALKERS; i++) {
+				SimpleGameObject walker = new SimpleGameObject(this);
+
+				walker.setGraphic(walkerGraphic);
+				walker.transform.width = .8;
+				walker.transform.height = .8;
+				walker.transform.layer = 2;
+
+				walkers[i] = walker.transform;
+				direction[i] = rand.nextBoolean() ? 1 : -1;
+				respawn(i, rand.nextDouble() * COLUMNS);
+			}
+
+			frame = 0;
+		}
+
+		/**
+		 * Fill the tiles with ground that has a few pits and slopes, and platforms above it.
+		 */
+		private void buildLevel(Random rand) {
+			tiles.fillTiles(0, 0, COLUMNS, GROUND_ROWS, TileCollisionLayer.SOLID);
+
+			for (int c = 4; c < COLUMNS - 4; c++) {
+				int roll = rand.nextInt(40);
+
+				if (roll == 0) {                               // A pit
+					tiles.fillTiles(c, 0, 2, GROUND_ROWS, TileCollisionLayer.EMPTY);
+					c += 2;
+				} else if (roll == 1) {                        // A bump with slopes on both sides
+					tiles.setTile(c, GROUND_ROWS, TileCollisionLayer.SLOPE_UP);
+					tiles.setTile(c + 1, GROUND_ROWS, TileCollisionLayer.SOLID);
+					tiles.setTile(c + 2, GROUND_ROWS, TileCollisionLayer.SLOPE_DOWN);
+					c += 3;
+				}
+			}
+
+			for (int i = 0; i < PLATFORMS; i++) {
+				int length = 3 + rand.nextInt(6);
+				int column = rand.nextInt(COLUMNS - length);
+				int row = GROUND_ROWS + 2 + rand.nextInt(ROWS - GROUND_ROWS - 4);
+				byte type = rand.nextBoolean() ? TileCollisionLayer.PLATFORM : TileCollisionLayer.SOLID;
+
+				tiles.fillTiles(column, row, length, 1, type);
+			}
+		}
+
+		/**
+		 * Put a walker back at the top of the level.
+		 */
+		private void respawn(int i, double x) {
+			walkers[i].x = x;
+			walkers[i].y = ROWS - 1;
+			vY[i] = 0;
+		}
+
+		@Override
+		public void step(double deltaTime) {
+			frame++;
+
+			for (int i = 0; i < WALKERS; i++) {
+				vY[i] -= GRAVITY * deltaTime;
+
+				int hit = tiles.move(walkers[i], direction[i] * WALK_SPEED * deltaTime, vY[i] * deltaTime);
+
+				if ((hit & (TileCollisionLayer.HIT_LEFT | TileCollisionLayer.HIT_RIGHT)) != 0) {
+					direction[i] = -direction[i];
+				}
+
+				if ((hit & (TileCollisionLayer.HIT_BOTTOM | TileCollisionLayer.HIT_TOP)) != 0) {
+					vY[i] = 0;
+				}
+
+				if ((hit & TileCollisionLayer.HIT_BOTTOM) != 0 && (frame + i) % JUMP_PERIOD == 0) {
+					vY[i] = JUMP_SPEED;
+				}
+
+				if (walkers[i].y < -ROWS || walkers[i].x < 0 || walkers[i].x > COLUMNS) {
+					respawn(i, (walkers[i].x + COLUMNS / 2) % COLUMNS);
+				}
+			}
+
+			setCameraX((frame * SCROLL_SPEED) % (COLUMNS - getWidth()));
+		}
+	}
+}
@@ -0,0 +1,57 @@
+/**
+ * BobEngine - 2D game engine for Android
+ * <p/>
+ * Copyright (C) 2014, 2015, 2016 Benjamin Blaszczak
+ * <p/>
+ * BobEngine is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser Public License
+ * version 2.1 as published by the free software foundation.
+ * <p/>
+ * BobEngine is provided without warranty; without even the implied
+ * warranty of merchantability or fitness for a particular
+ * purpose. See the GNU Lesser Public License for more details.
+ * <p/>
+ * You should have received a copy of the GNU Lesser General
+ * Public License along with BobEngine; if not, write to the
+ * Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301 USA
+ */
+package android.content;
+
+import android.content.pm.PackageManager;
+import android.content.res.Resources;
+
+import java.io.File;
+
+/**
+ * Desktop stand-in for Android's Context. The benchmarks run headless, so nothing here is
+ * expected to be called; it only has what the engine sources need to compile.
+ */
+public class Context {
+
+	public static final String WINDOW_SERVICE = "window";
+
+	public Object getSystemService(String name) {
+		return null;
+	}
+
+	public Resources getResources() {
+		return null;
+	}
+
+	public PackageManager getPackageManager() {
+		return null;
+	}
+
+	public String getPackageName() {
+		return "";
+	}
+
+	public File getCacheDir() {
+		return new File(System.getProperty("java.io.tmpdir"));
+	}
+
+	public File getFilesDir() {
+		return new File(System.getProperty("java.io.tmpdir"));
+	}
+}
@@ -0,0 +1,36 @@
+/**
+ * BobEngine - 2D game engine for Android
+ * <p/>
+ * Copyright (C) 2014, 2015, 2016 Benjamin Blaszczak
+ * <p/>
+ * BobEngine is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser Public License
+ * version 2.1 as published by the free software foundation.
+ * <p/>
+ * BobEngine is provided without warranty; without even the implied
+ * warranty of merchantability or fitness for a particular
+ * purpose. See the GNU Lesser Public License for more details.
+ * <p/>
+ * You should have received a copy of the GNU Lesser General
+ * Public License along with BobEngine; if not, write to the
+ * Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301 USA
+ */
+package android.opengl;
+
+import android.view.View;
+
+import javax.microedition.khronos.egl.EGLConfig;
+import javax.microedition.khronos.opengles.GL10;
+
+/**
+ * Desktop stand-in for GLSurfaceView, so BobRenderer can be compiled from the engine sources.
+ */
+public class GLSurfaceView extends View {
+
+	public interface Renderer {
+		void onSurfaceCreated(GL10 gl, EGLConfig config);
+		void onSurfaceChanged(GL10 gl, int width, int height);
+		void onDrawFrame(GL10 gl);
+	}
+}
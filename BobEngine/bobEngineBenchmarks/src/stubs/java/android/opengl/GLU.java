@@ -0,0 +1,31 @@
+/**
+ * BobEngine - 2D game engine for Android
+ * <p/>
+ * Copyright (C) 2014, 2015, 2016 Benjamin Blaszczak
+ * <p/>
+ * BobEngine is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser Public License
+ * version 2.1 as published by the free software foundation.
+ * <p/>
+ * BobEngine is provided without warranty; without even the implied
+ * warranty of merchantability or fitness for a particular
+ * purpose. See the GNU Lesser Public License for more details.
+ * <p/>
+ * You should have received a copy of the GNU Lesser General
+ * Public License along with BobEngine; if not, write to the
+ * Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301 USA
+ */
+package android.opengl;
+
+import javax.microedition.khronos.opengles.GL10;
+
+/**
+ * Desktop stand-in for GLU.
+ */
+public class GLU {
+
+	public static void gluOrtho2D(GL10 gl, float left, float right, float bottom, float top) {
+		gl.glOrthof(left, right, bottom, top, -1, 1);
+	}
+}
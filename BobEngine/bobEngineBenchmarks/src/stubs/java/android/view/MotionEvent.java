@@ -0,0 +1,64 @@
+/**
+ * BobEngine - 2D game engine for Android
+ * <p/>
+ * Copyright (C) 2014, 2015, 2016 Benjamin Blaszczak
+ * <p/>
+ * BobEngine is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser Public License
+ * version 2.1 as published by the free software foundation.
+ * <p/>
+ * BobEngine is provided without warranty; without even the implied
+ * warranty of merchantability or fitness for a particular
+ * purpose. See the GNU Lesser Public License for more details.
+ * <p/>
+ * You should have received a copy of the GNU Lesser General
+ * Public License along with BobEngine; if not, write to the
+ * Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301 USA
+ */
+package android.view;
+
+/**
+ * Desktop stand-in for Android's MotionEvent, so Touch can be compiled from the engine sources.
+ */
+public class MotionEvent {
+
+	public static final int ACTION_MASK = 0xff;
+	public static final int ACTION_DOWN = 0;
+	public static final int ACTION_UP = 1;
+	public static final int ACTION_MOVE = 2;
+	public static final int ACTION_POINTER_DOWN = 5;
+	public static final int ACTION_POINTER_UP = 6;
+
+	public int getPointerCount() {
+		return 0;
+	}
+
+	public int getActionIndex() {
+		return 0;
+	}
+
+	public int getActionMasked() {
+		return 0;
+	}
+
+	public int getPointerId(int pointerIndex) {
+		return pointerIndex;
+	}
+
+	public float getX() {
+		return 0;
+	}
+
+	public float getX(int pointerIndex) {
+		return 0;
+	}
+
+	public float getY() {
+		return 0;
+	}
+
+	public float getY(int pointerIndex) {
+		return 0;
+	}
+}
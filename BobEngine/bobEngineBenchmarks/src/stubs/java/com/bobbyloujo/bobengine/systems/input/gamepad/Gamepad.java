@@ -0,0 +1,64 @@
+/**
+ * BobEngine - 2D game engine for Android
+ * <p/>
+ * Copyright (C) 2014, 2015, 2016 Benjamin Blaszczak
+ * <p/>
+ * BobEngine is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser Public License
+ * version 2.1 as published by the free software foundation.
+ * <p/>
+ * BobEngine is provided without warranty; without even the implied
+ * warranty of merchantability or fitness for a particular
+ * purpose. See the GNU Lesser Public License for more details.
+ * <p/>
+ * You should have received a copy of the GNU Lesser General
+ * Public License along with BobEngine; if not, write to the
+ * Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301 USA
+ */
+package com.bobbyloujo.bobengine.systems.input.gamepad;
+
+/**
+ * Stand-in for the engine's Gamepad, which needs Android input classes. It has the same
+ * constants and reports that nothing is held.
+ */
+public class Gamepad {
+
+	public static final int MAX_CONTROLLERS = 4;
+	public static final int NUM_BUTTONS = 12;
+
+	public static final int A = 0;
+	public static final int B = 1;
+	public static final int X = 2;
+	public static final int Y = 3;
+
+	public static final int R1 = 4;
+	public static final int L1 = 5;
+
+	public static final int D_LEFT = 6;
+	public static final int D_RIGHT = 7;
+	public static final int D_UP = 8;
+	public static final int D_DOWN = 9;
+
+	public static final int START = 10;
+	public static final int SELECT = 11;
+
+	public static final int RS_X = 10;
+	public static final int RS_Y = 11;
+	public static final int LS_X = 12;
+	public static final int LS_Y = 13;
+
+	public static final int RTRIGGER = 14;
+	public static final int LTRIGGER = 15;
+
+	public static final int AXIS_D_LR = 16;
+	public static final int AXIS_D_UD = 17;
+
+	public boolean held(int gamepad, int button) {
+		return false;
+	}
+
+	public double getAxisValue(int gamepad, int axis) {
+		return 0;
+	}
+}
@@ -0,0 +1,37 @@
+/**
+ * BobEngine - 2D game engine for Android
+ * <p/>
+ * Copyright (C) 2014, 2015, 2016 Benjamin Blaszczak
+ * <p/>
+ * BobEngine is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser Public License
+ * version 2.1 as published by the free software foundation.
+ * <p/>
+ * BobEngine is provided without warranty; without even the implied
+ * warranty of merchantability or fitness for a particular
+ * purpose. See the GNU Lesser Public License for more details.
+ * <p/>
+ * You should have received a copy of the GNU Lesser General
+ * Public License along with BobEngine; if not, write to the
+ * Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301 USA
+ */
+package com.bobbyloujo.bobengine.view;
+
+import android.opengl.GLSurfaceView;
+
+import com.bobbyloujo.bobengine.entities.Room;
+
+/**
+ * Stand-in for the engine's BobView, which needs a real GLSurfaceView. The benchmarks run
+ * Rooms in a HeadlessRuntime instead, so a BobView is never created; this only has what the
+ * engine sources that refer to BobView need to compile.
+ */
+public abstract class BobView extends GLSurfaceView implements ViewPort {
+
+	public abstract Room getCurrentRoom();
+
+	public abstract void goToRoom(Room nextRoom);
+
+	public abstract BobRenderer getRenderer();
+}
@@ -0,0 +1,103 @@
+/**
+ * BobEngine - 2D game engine for Android
+ * <p/>
+ * Copyright (C) 2014, 2015, 2016 Benjamin Blaszczak
+ * <p/>
+ * BobEngine is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser Public License
+ * version 2.1 as published by the free software foundation.
+ * <p/>
+ * BobEngine is provided without warranty; without even the implied
+ * warranty of merchantability or fitness for a particular
+ * purpose. See the GNU Lesser Public License for more details.
+ * <p/>
+ * You should have received a copy of the GNU Lesser General
+ * Public License along with BobEngine; if not, write to the
+ * Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301 USA
+ */
+package javax.microedition.khronos.opengles;
+
+import java.nio.Buffer;
+
+/**
+ * Desktop stand-in for GL10 with the calls and constants the engine uses. The constants have
+ * their real OpenGL ES values. There is no implementation; headless rooms draw into a
+ * RecordingGL.
+ */
+public interface GL10 extends GL {
+
+	int GL_POINTS = 0x0000;
+	int GL_LINES = 0x0001;
+	int GL_LINE_LOOP = 0x0002;
+	int GL_LINE_STRIP = 0x0003;
+	int GL_TRIANGLES = 0x0004;
+	int GL_TRIANGLE_STRIP = 0x0005;
+	int GL_TRIANGLE_FAN = 0x0006;
+
+	int GL_FALSE = 0;
+	int GL_TRUE = 1;
+	int GL_ONE = 1;
+	int GL_GREATER = 0x0204;
+	int GL_ONE_MINUS_SRC_ALPHA = 0x0303;
+	int GL_CCW = 0x0901;
+	int GL_CULL_FACE = 0x0B44;
+	int GL_LIGHTING = 0x0B50;
+	int GL_FOG = 0x0B60;
+	int GL_DEPTH_TEST = 0x0B71;
+	int GL_STENCIL_TEST = 0x0B90;
+	int GL_DITHER = 0x0BD0;
+	int GL_BLEND = 0x0BE2;
+	int GL_SCISSOR_TEST = 0x0C11;
+	int GL_TEXTURE_2D = 0x0DE1;
+	int GL_UNSIGNED_BYTE = 0x1401;
+	int GL_UNSIGNED_SHORT = 0x1403;
+	int GL_FLOAT = 0x1406;
+	int GL_MODELVIEW = 0x1700;
+	int GL_PROJECTION = 0x1701;
+	int GL_NEAREST = 0x2600;
+	int GL_LINEAR = 0x2601;
+	int GL_NEAREST_MIPMAP_NEAREST = 0x2700;
+	int GL_LINEAR_MIPMAP_LINEAR = 0x2703;
+	int GL_TEXTURE_MAG_FILTER = 0x2800;
+	int GL_TEXTURE_MIN_FILTER = 0x2801;
+	int GL_TEXTURE_WRAP_S = 0x2802;
+	int GL_TEXTURE_WRAP_T = 0x2803;
+	int GL_REPEAT = 0x2901;
+	int GL_COLOR_BUFFER_BIT = 0x4000;
+	int GL_VERTEX_ARRAY = 0x8074;
+	int GL_COLOR_ARRAY = 0x8076;
+	int GL_TEXTURE_COORD_ARRAY = 0x8078;
+	int GL_CLAMP_TO_EDGE = 0x812F;
+
+	void glAlphaFunc(int func, float ref);
+	void glBindTexture(int target, int texture);
+	void glBlendFunc(int sfactor, int dfactor);
+	void glClear(int mask);
+	void glClearColor(float red, float green, float blue, float alpha);
+	void glColor4f(float red, float green, float blue, float alpha);
+	void glColorPointer(int size, int type, int stride, Buffer pointer);
+	void glDeleteTextures(int n, int[] textures, int offset);
+	void glDisable(int cap);
+	void glDisableClientState(int array);
+	void glDrawArrays(int mode, int first, int count);
+	void glDrawElements(int mode, int count, int type, Buffer indices);
+	void glEnable(int cap);
+	void glEnableClientState(int array);
+	void glFinish();
+	void glFrontFace(int mode);
+	void glGenTextures(int n, int[] textures, int offset);
+	void glLineWidth(float width);
+	void glLoadIdentity();
+	void glMatrixMode(int mode);
+	void glOrthof(float left, float right, float bottom, float top, float zNear, float zFar);
+	void glPopMatrix();
+	void glPushMatrix();
+	void glScalef(float x, float y, float z);
+	void glTexCoordPointer(int size, int type, int stride, Buffer pointer);
+	void glTexParameterf(int target, int pname, float param);
+	void glTexParameterx(int target, int pname, int param);
+	void glTranslatef(float x, float y, float z);
+	void glVertexPointer(int size, int type, int stride, Buffer pointer);
+	void glViewport(int x, int y, int width, int height);
+}
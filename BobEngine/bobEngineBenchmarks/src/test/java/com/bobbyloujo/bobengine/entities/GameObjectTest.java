@@ -0,0 +1,69 @@
+/**
+ * BobEngine - 2D game engine for Android
+ * <p/>
+ * Copyright (C) 2014, 2015, 2016 Benjamin Blaszczak
+ * <p/>
+ * BobEngine is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser Public License
+ * version 2.1 as published by the free software foundation.
+ * <p/>
+ * BobEngine is provided without warranty; without even the implied
+ * warranty of merchantability or fitness for a particular
+ * purpose. See the GNU Lesser Public License for more details.
+ * <p/>
+ * You should have received a copy of the GNU Lesser General
+ * Public License along with BobEngine; if not, write to the
+ * Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301 USA
+ */
+package com.bobbyloujo.bobengine.entities;
+
+import com.bobbyloujo.bobengine.graphics.Graphic;
+import com.bobbyloujo.bobengine.headless.HeadlessViewPort;
+import com.bobbyloujo.bobengine.systems.quadrenderer.QuadRenderSystem;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class GameObjectTest {
+
+	@Test
+	public void deletedObjectIsDrawnAgainWhenReAdded() {
+		Room room = new Room(new HeadlessViewPort());
+		Graphic graphic = new Graphic();
+		GameObject o = new GameObject(room);
+
+		o.setGraphic(graphic);
+
+		QuadRenderSystem system = room.getQuadRenderSystem(graphic);
+
+		assertEquals(1, system.getQuadCount());
+
+		room.deleteObject(o);
+
+		assertEquals(0, system.getQuadCount());
+		assertEquals(0, room.getOrphanCount());
+
+		room.addObject(o);
+
+		assertEquals(1, system.getQuadCount());
+
+		room.deleteObject(o);
+		room.addObject(o);
+
+		assertEquals(1, system.getQuadCount());
+	}
+
+	@Test
+	public void objectWithoutGraphicIsNotDrawnWhenReAdded() {
+		Room room = new Room(new HeadlessViewPort());
+		GameObject o = new GameObject(room);
+		QuadRenderSystem system = room.getQuadRenderSystem(o.getGraphic());
+
+		room.deleteObject(o);
+		room.addObject(o);
+
+		assertEquals(0, system.getQuadCount());
+	}
+}
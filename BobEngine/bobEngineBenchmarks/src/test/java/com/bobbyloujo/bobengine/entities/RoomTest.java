@@ -0,0 +1,124 @@
+/**
+ * BobEngine - 2D game engine for Android
+ * <p/>
+ * Copyright (C) 2014, 2015, 2016 Benjamin Blaszczak
+ * <p/>
+ * BobEngine is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser Public License
+ * version 2.1 as published by the free software foundation.
+ * <p/>
+ * BobEngine is provided without warranty; without even the implied
+ * warranty of merchantability or fitness for a particular
+ * purpose. See the GNU Lesser Public License for more details.
+ * <p/>
+ * You should have received a copy of the GNU Lesser General
+ * Public License along with BobEngine; if not, write to the
+ * Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301 USA
+ */
+package com.bobbyloujo.bobengine.entities;
+
+import com.bobbyloujo.bobengine.graphics.Graphic;
+import com.bobbyloujo.bobengine.headless.HeadlessViewPort;
+import com.bobbyloujo.bobengine.systems.Updatable;
+import com.bobbyloujo.bobengine.systems.quadrenderer.QuadRenderSystem;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+
+import static org.junit.Assert.assertEquals;
+
+public class RoomTest {
+
+	private static final int COMPONENTS = 1000;
+
+	@Test
+	public void removalDuringUpdateDoesNotSkipOthers() {
+		final Room room = new Room(new HeadlessViewPort());
+		final ArrayList<Integer> order = new ArrayList<Integer>();
+		final Counter[] counters = new Counter[COMPONENTS];
+
+		// Removes every other counter the first time it is updated, before they are updated
+		room.addComponent(new Updatable() {
+			private boolean done;
+
+			@Override
+			public void update(double deltaTime) {
+				for (int i = 0; !done && i < COMPONENTS; i += 2) {
+					room.removeComponent(counters[i]);
+				}
+
+				done = true;
+			}
+		});
+
+		for (int i = 0; i < COMPONENTS; i++) {
+			counters[i] = new Counter(i, order);
+			room.addComponent(counters[i]);
+		}
+
+		for (int frame = 0; frame < 2; frame++) {
+			order.clear();
+			room.update(1);
+
+			assertEquals(COMPONENTS / 2, order.size());
+
+			for (int i = 0; i < order.size(); i++) {
+				assertEquals(i * 2 + 1, (int) order.get(i));
+			}
+		}
+	}
+
+	@Test
+	public void readdedComponentIsUpdatedOnce() {
+		Room room = new Room(new HeadlessViewPort());
+		ArrayList<Integer> order = new ArrayList<Integer>();
+
+		for (int i = 0; i < COMPONENTS; i++) {
+			room.addComponent(new Counter(i, order));
+		}
+
+		Counter counter = new Counter(COMPONENTS, order);
+
+		for (int i = 0; i < COMPONENTS; i++) {
+			room.addComponent(counter);
+			room.removeComponent(counter);
+		}
+
+		room.addComponent(counter);
+		room.update(1);
+
+		assertEquals(COMPONENTS + 1, order.size());
+		assertEquals(COMPONENTS, (int) order.get(COMPONENTS));
+	}
+
+	@Test
+	public void newSpritesShareOneRenderSystem() {
+		Room room = new Room(new HeadlessViewPort());
+		Graphic graphic = new Graphic();
+
+		for (int i = 0; i < COMPONENTS; i++) {
+			new SimpleGameObject(room).setGraphic(graphic);
+		}
+
+		// The sprites pass through the system for no graphic while they are built
+		assertEquals(2, room.getComponentsOfType(QuadRenderSystem.class).size());
+		assertEquals(COMPONENTS, room.getQuadRenderSystem(graphic).getQuadCount());
+	}
+
+	private static class Counter implements Updatable {
+		private int id;
+		private ArrayList<Integer> order;
+
+		Counter(int id, ArrayList<Integer> order) {
+			this.id = id;
+			this.order = order;
+		}
+
+		@Override
+		public void update(double deltaTime) {
+			order.add(id);
+		}
+	}
+}
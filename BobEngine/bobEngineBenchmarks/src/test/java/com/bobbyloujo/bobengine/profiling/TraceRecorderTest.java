@@ -0,0 +1,138 @@
+/**
+ * BobEngine - 2D game engine for Android
+ * <p/>
+ * Copyright (C) 2014, 2015, 2016 Benjamin Blaszczak
+ * <p/>
+ * BobEngine is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser Public License
+ * version 2.1 as published by the free software foundation.
+ * <p/>
+ * BobEngine is provided without warranty; without even the implied
+ * warranty of merchantability or fitness for a particular
+ * purpose. See the GNU Lesser Public License for more details.
+ * <p/>
+ * You should have received a copy of the GNU Lesser General
+ * Public License along with BobEngine; if not, write to the
+ * Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301 USA
+ */
+package com.bobbyloujo.bobengine.profiling;
+
+import com.bobbyloujo.bobengine.entities.Entity;
+import com.bobbyloujo.bobengine.entities.Room;
+import com.bobbyloujo.bobengine.headless.HeadlessRuntime;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TraceRecorderTest {
+
+	private static final int FRAMES = 50;
+	private static final int SMALL_CAPACITY = 16;
+	private static final int METADATA_EVENTS = 2;  // The process and thread names
+
+	@After
+	public void tearDown() {
+		Profiler.stopTrace();
+		Profiler.setEnabled(false);
+		Profiler.clear();
+	}
+
+	@Test
+	public void traceIsChromeTraceJson() throws IOException {
+		TraceRecorder recorder = record(TraceRecorder.DEF_CAPACITY);
+		JSONArray events = parse(recorder).getJSONArray("traceEvents");
+		int frames = 0;
+		int instants = 0;
+
+		assertEquals(0, recorder.getDroppedCount());
+		assertEquals(recorder.getEventCount() + METADATA_EVENTS, events.length());
+
+		for (int i = 0; i < events.length(); i++) {
+			JSONObject event = events.getJSONObject(i);
+			String phase = event.getString("ph");
+
+			if (i < METADATA_EVENTS) {
+				assertEquals("M", phase);
+				continue;
+			}
+
+			assertTrue("Event " + i + " has phase " + phase, phase.equals("X") || phase.equals("i"));
+			assertTrue(event.getDouble("ts") >= 0);
+
+			if (phase.equals("X")) {
+				assertTrue(event.getDouble("dur") >= 0);
+
+				if (event.getString("name").equals("Frame")) {
+					frames++;
+				}
+			} else {
+				instants++;
+			}
+		}
+
+		assertEquals(FRAMES, frames);
+		assertEquals(1, instants);
+	}
+
+	@Test
+	public void fullRecorderKeepsTheNewestEvents() throws IOException {
+		int total = record(TraceRecorder.DEF_CAPACITY).getEventCount();
+
+		tearDown();
+
+		TraceRecorder recorder = record(SMALL_CAPACITY);
+		JSONArray events = parse(recorder).getJSONArray("traceEvents");
+
+		assertTrue(total > SMALL_CAPACITY);
+		assertEquals(SMALL_CAPACITY, recorder.getEventCount());
+		assertEquals(total - SMALL_CAPACITY, recorder.getDroppedCount());
+		assertEquals(SMALL_CAPACITY + METADATA_EVENTS, events.length());
+
+		// The Room change at the start was replaced, and the last frame ended last
+		for (int i = METADATA_EVENTS; i < events.length(); i++) {
+			JSONObject event = events.getJSONObject(i);
+
+			assertEquals("X", event.getString("ph"));
+			assertTrue(event.getDouble("dur") >= 0);
+		}
+
+		assertEquals("Frame", events.getJSONObject(events.length() - 1).getString("name"));
+	}
+
+	/**
+	 * Run a Room with a few entities for FRAMES frames while recording a trace.
+	 */
+	private static TraceRecorder record(int capacity) {
+		TraceRecorder recorder = new TraceRecorder(capacity);
+		HeadlessRuntime runtime = new HeadlessRuntime();
+		Room room = new Room(runtime.getViewPort());
+
+		for (int i = 0; i < 10; i++) {
+			room.addObject(new Entity());
+		}
+
+		Profiler.startTrace(recorder);
+		runtime.goToRoom(room);
+		runtime.run(FRAMES);
+		Profiler.stopTrace();
+
+		return recorder;
+	}
+
+	private static JSONObject parse(TraceRecorder recorder) throws IOException {
+		StringWriter out = new StringWriter();
+
+		recorder.write(out);
+
+		return new JSONObject(out.toString());
+	}
+}
@@ -0,0 +1,166 @@
+/**
+ * BobEngine - 2D game engine for Android
+ * <p/>
+ * Copyright (C) 2014, 2015, 2016 Benjamin Blaszczak
+ * <p/>
+ * BobEngine is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser Public License
+ * version 2.1 as published by the free software foundation.
+ * <p/>
+ * BobEngine is provided without warranty; without even the implied
+ * warranty of merchantability or fitness for a particular
+ * purpose. See the GNU Lesser Public License for more details.
+ * <p/>
+ * You should have received a copy of the GNU Lesser General
+ * Public License along with BobEngine; if not, write to the
+ * Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301 USA
+ */
+package com.bobbyloujo.bobengine.systems.collision;
+
+import com.bobbyloujo.bobengine.components.Transform;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Runs the same scene through a CollisionSystem with each broadphase and checks that the
+ * handlers are called for the same pairs, in the same order.
+ */
+public class BroadphaseTest {
+
+	private static final int BOXES = 1000;
+	private static final double WORLD_SIZE = 200;
+	private static final int FRAMES = 30;
+
+	@Test
+	public void dynamicAabbTreeFindsSameCollisionsAsBruteForce() {
+		ArrayList<Long> expected = collide(new BruteForceBroadphase(), false);
+
+		assertTrue(expected.size() > 0);
+		assertEquals(expected, collide(new DynamicAabbTree(), false));
+	}
+
+	@Test
+	public void sweepAndPruneFindsSameCollisionsAsBruteForce() {
+		assertEquals(collide(new BruteForceBroadphase(), false), collide(new SweepAndPrune(), false));
+	}
+
+	@Test
+	public void staticSceneryFindsSameCollisionsAsMovingScenery() {
+		assertEquals(collide(new BruteForceBroadphase(), false), collide(new DynamicAabbTree(), true));
+	}
+
+	@Test
+	public void queryFindsSameBoxesAsBruteForce() {
+		Broadphase[] broadphases = {new BruteForceBroadphase(), new DynamicAabbTree(), new SweepAndPrune()};
+		Random rand = new Random(BOXES);
+
+		for (int i = 0; i < BOXES; i++) {
+			float x = (float) (rand.nextDouble() * WORLD_SIZE);
+			float y = (float) (rand.nextDouble() * WORLD_SIZE);
+
+			for (Broadphase b: broadphases) {
+				b.insert(i, x, y, x + 1, y + 1, CollisionFilter.CATEGORY_DEFAULT, CollisionFilter.MASK_ALL);
+			}
+		}
+
+		for (int q = 0; q < 100; q++) {
+			float x = (float) (rand.nextDouble() * WORLD_SIZE);
+			float y = (float) (rand.nextDouble() * WORLD_SIZE);
+			boolean[] expected = query(broadphases[0], x, y);
+
+			for (int b = 1; b < broadphases.length; b++) {
+				boolean[] found = query(broadphases[b], x, y);
+
+				for (int i = 0; i < BOXES; i++) {
+					if (expected[i]) {
+						assertTrue(broadphases[b].getClass().getSimpleName() + " missed box " + i, found[i]);
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns the ids of the boxes found by a 10 x 10 query at (x, y). Only the boxes that
+	 * really overlap the area are marked, since a broadphase may return extra boxes.
+	 */
+	private static boolean[] query(Broadphase broadphase, final float x, final float y) {
+		final boolean[] found = new boolean[BOXES];
+
+		broadphase.query(x, y, x + 10, y + 10, new Broadphase.QueryCallback() {
+			@Override
+			public void onResult(int id) {
+				found[id] = true;
+			}
+		});
+
+		return found;
+	}
+
+	/**
+	 * Move a quarter of the boxes, as bullets, through a scene of small boxes and a few
+	 * huge ones and return each collision reported to the bullets' handlers, as
+	 * (frame << 40) | (bullet << 20) | other box.
+	 */
+	private static ArrayList<Long> collide(Broadphase broadphase, boolean staticScenery) {
+		final CollisionSystem system = new CollisionSystem();
+		final IdentityHashMap<CollisionBox, Integer> index = new IdentityHashMap<CollisionBox, Integer>();
+		final ArrayList<Long> hits = new ArrayList<Long>();
+		final int[] frame = new int[1];
+		Transform[] bullets = new Transform[BOXES / 4];
+		Random rand = new Random(BOXES);
+
+		system.setBroadphase(broadphase);
+
+		for (int i = 0; i < BOXES; i++) {
+			final int id = i;
+			Transform t = new Transform();
+			boolean bullet = i < bullets.length;
+			double size = i % 100 == 0 ? 20 + rand.nextDouble() * 30 : .5 + rand.nextDouble() * 2;
+
+			t.x = rand.nextDouble() * WORLD_SIZE;
+			t.y = rand.nextDouble() * WORLD_SIZE;
+			t.width = bullet ? .5 : size;
+			t.height = bullet ? .5 : size;
+
+			CollisionHandler handler = null;
+
+			if (bullet) {
+				bullets[i] = t;
+				handler = new CollisionHandler() {
+					@Override
+					public void onCollision(CollisionBox c) {
+						hits.add(((long) frame[0] << 40) | ((long) id << 20) | index.get(c));
+					}
+				};
+			}
+
+			CollisionBox box = CollisionSystem.generateCollisionBox(t, handler, null);
+			index.put(box, i);
+
+			if (staticScenery && !bullet) {
+				system.addStaticCollidable(box);
+			} else {
+				system.addCollidable(box);
+			}
+		}
+
+		for (frame[0] = 0; frame[0] < FRAMES; frame[0]++) {
+			for (int i = 0; i < bullets.length; i++) {
+				bullets[i].x = (bullets[i].x + .5) % WORLD_SIZE;
+			}
+
+			system.update(1);
+		}
+
+		return hits;
+	}
+}
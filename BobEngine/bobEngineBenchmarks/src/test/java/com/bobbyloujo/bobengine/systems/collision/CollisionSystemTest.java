@@ -0,0 +1,401 @@
+/**
+ * BobEngine - 2D game engine for Android
+ * <p/>
+ * Copyright (C) 2014, 2015, 2016 Benjamin Blaszczak
+ * <p/>
+ * BobEngine is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser Public License
+ * version 2.1 as published by the free software foundation.
+ * <p/>
+ * BobEngine is provided without warranty; without even the implied
+ * warranty of merchantability or fitness for a particular
+ * purpose. See the GNU Lesser Public License for more details.
+ * <p/>
+ * You should have received a copy of the GNU Lesser General
+ * Public License along with BobEngine; if not, write to the
+ * Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301 USA
+ */
+package com.bobbyloujo.bobengine.systems.collision;
+
+import com.bobbyloujo.bobengine.components.Transform;
+import com.bobbyloujo.bobengine.systems.DebugDraw;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class CollisionSystemTest {
+
+	private static final int DENSE_BOXES = 2000;
+	private static final double DENSE_WORLD_SIZE = 50;
+	private static final int FRAMES = 20;
+
+	@Test
+	public void parallelNarrowphaseCallsHandlersInSameOrder() {
+		ArrayList<Long> serial = crowd(false);
+
+		assertTrue(serial.size() > CollisionSystem.DEF_PARALLEL_THRESHOLD);
+		assertEquals(serial, crowd(true));
+	}
+
+	@Test
+	public void sleepingBoxesKeepTheirCollisions() {
+		CollisionSystem awake = new CollisionSystem();
+		CollisionSystem sleeping = new CollisionSystem();
+
+		sleeping.setSleepFrames(5);
+
+		ArrayList<Long> expected = scenery(awake);
+
+		assertTrue(expected.size() > 0);
+		assertEquals(expected, scenery(sleeping));
+		assertEquals(0, awake.getSleepingCount());
+		assertTrue(sleeping.getSleepingCount() > 0);
+	}
+
+	@Test
+	public void contactHandlerIsToldWhenBoxesTouchAndSeparate() {
+		CollisionSystem system = new CollisionSystem();
+		Transform mover = box(0, 0, 1);
+		Transform wall = box(3, 0, 1);
+		final int[] events = new int[3];
+
+		system.addCollidable(CollisionSystem.generateCollisionBox(mover, new ContactAdapter() {
+			@Override
+			public void onCollisionEnter(CollisionBox c) {
+				events[0]++;
+			}
+
+			@Override
+			public void onCollisionStay(CollisionBox c) {
+				events[1]++;
+			}
+
+			@Override
+			public void onCollisionExit(CollisionBox c) {
+				events[2]++;
+			}
+		}, null));
+		system.addCollidable(CollisionSystem.generateCollisionBox(wall, null, null));
+
+		system.update(1);
+		assertEquals(0, events[0]);
+
+		mover.x = 2.5;                                        // Overlaps the wall for 3 frames
+		system.update(1);
+		system.update(1);
+		system.update(1);
+		assertEquals(1, events[0]);
+		assertEquals(2, events[1]);
+		assertEquals(0, events[2]);
+
+		mover.x = 0;
+		system.update(1);
+		system.update(1);
+		assertEquals(1, events[0]);
+		assertEquals(2, events[1]);
+		assertEquals(1, events[2]);
+	}
+
+	@Test
+	public void triggerIsToldWhenBoxesEnterAndLeave() {
+		CollisionSystem system = new CollisionSystem();
+		Transform zone = box(5, 0, 2);
+		Transform walker = box(0, 0, 1);
+		final int[] events = new int[2];
+
+		system.addStaticCollidable(CollisionSystem.generateCollisionBox(zone, new TriggerAdapter() {
+			@Override
+			public void onTriggerEnter(CollisionBox c) {
+				events[0]++;
+			}
+
+			@Override
+			public void onTriggerExit(CollisionBox c) {
+				events[1]++;
+			}
+		}, null));
+
+		CollisionBox walkerBox = CollisionSystem.generateCollisionBox(walker, null, null);
+		system.addCollidable(walkerBox);
+
+		for (int f = 0; f < 100; f++) {                       // Walk through the zone and out the other side
+			walker.x += .1;
+			system.update(1);
+		}
+
+		assertEquals(1, events[0]);
+		assertEquals(1, events[1]);
+
+		walker.x = 5;                                         // Back in, then removed while inside
+		system.update(1);
+		system.removeCollidable(walkerBox);
+		system.update(1);
+
+		assertEquals(2, events[0]);
+		assertEquals(2, events[1]);
+	}
+
+	@Test
+	public void staticBoxesDontPileUpInStaticIndex() {
+		CollisionSystem system = new CollisionSystem();
+		Transform wall = box(0, 0, 1);
+		CollisionBox wallBox = CollisionSystem.generateCollisionBox(wall, null, null);
+
+		system.addCollidable(CollisionSystem.generateCollisionBox(box(0, 0, 1), null, null));
+
+		for (int i = 0; i < 1000; i++) {
+			system.addStaticCollidable(wallBox);
+			system.update(1);
+
+			wall.x = i % 2 == 0 ? 10 : 0;                     // Leaves its fat bounds
+			system.invalidate(wallBox);
+			system.update(1);
+
+			system.removeCollidable(wallBox);
+			system.update(1);
+		}
+
+		assertEquals(0, system.getStaticIndex().getMoveCount());
+	}
+
+	@Test
+	public void sleepWakeCyclesDontPileUpInStaticIndex() {
+		CollisionSystem system = new CollisionSystem();
+		Transform mover = box(0, 0, 1);
+		int sleeps = 0;
+
+		system.setSleepFrames(2);
+		system.addCollidable(CollisionSystem.generateCollisionBox(mover, null, null));
+
+		for (int i = 0; i < 1000; i++) {
+			for (int f = 0; f < 3; f++) {                     // Still long enough to fall asleep
+				system.update(1);
+				sleeps += system.getLastSleepCount();
+			}
+
+			assertEquals(1, system.getSleepingCount());
+
+			mover.x += 5;
+			system.wakeAll();
+			system.update(1);
+
+			assertEquals(0, system.getSleepingCount());
+		}
+
+		assertEquals(1000, sleeps);
+		assertEquals(0, system.getStaticIndex().getMoveCount());
+	}
+
+	@Test
+	public void drawBoxesOutlinesEveryShape() {
+		CollisionSystem system = new CollisionSystem();
+		DebugDraw draw = new DebugDraw();
+		Transform rotated = box(10, 0, 1);
+
+		rotated.angle = 30;
+
+		system.addCollidable(CollisionSystem.generateCollisionBox(box(0, 0, 1), null, null));
+		system.addCollidable(CollisionSystem.generateCollisionBox(rotated, null, null, CollisionShape.SHAPE_ORIENTED_BOX));
+		system.addCollidable(CollisionSystem.generateCollisionBox(box(20, 0, 1), null, null, CollisionShape.SHAPE_CIRCLE));
+		system.update(1);
+
+		system.drawBoxes(draw);
+
+		assertEquals(4 + 4 + DebugDraw.DEF_CIRCLE_SEGMENTS, draw.getLineCount());
+	}
+
+	@Test
+	public void boxesCollideByCellAndOtherShapesByTheirRealBounds() {
+		CollisionSystem system = new CollisionSystem();
+		final ArrayList<CollisionBox> hits = new ArrayList<CollisionBox>();
+		CollisionHandler handler = new CollisionHandler() {
+			@Override
+			public void onCollision(CollisionBox c) {
+				hits.add(c);
+			}
+		};
+
+		CollisionBox small = CollisionSystem.generateCollisionBox(box(.3, .3, .25), handler, null);
+		CollisionBox sameCell = CollisionSystem.generateCollisionBox(box(.7, .6, .25), null, null);
+		CollisionBox nextCell = CollisionSystem.generateCollisionBox(box(1.4, .3, .25), null, null);
+
+		Transform left = box(2.9, 5, .2);
+		Transform right = box(3.15, 5, .2);
+
+		left.angle = 45;
+		right.angle = 45;
+
+		CollisionBox across = CollisionSystem.generateCollisionBox(left, handler, null, CollisionShape.SHAPE_ORIENTED_BOX);
+		CollisionBox acrossOther = CollisionSystem.generateCollisionBox(right, null, null, CollisionShape.SHAPE_ORIENTED_BOX);
+
+		system.addCollidable(small);
+		system.addCollidable(sameCell);
+		system.addCollidable(nextCell);
+		system.addCollidable(across);
+		system.addCollidable(acrossOther);
+		system.update(1);
+
+		// The small boxes share a cell, but not with the box in the next cell. The rotated boxes
+		// only touch by their corners, across the edge between two cells.
+		assertEquals(2, hits.size());
+		assertSame(sameCell, hits.get(0));
+		assertSame(acrossOther, hits.get(1));
+	}
+
+	@Test
+	public void continuousShapesOnlyHitWhatTheyTouchAlongTheirPath() {
+		CollisionSystem system = new CollisionSystem();
+		final ArrayList<Double> times = new ArrayList<Double>();
+		Transform grazer = box(-2, 4.9, 1);
+		Transform tunneler = box(-3, 3, 1);
+
+		// Both circles move too far in one frame to be seen inside the wall. The grazer's path
+		// comes within .64 of the wall's corner, inside its swept bounds but out of its radius.
+		system.addStaticCollidable(CollisionSystem.generateCollisionBox(box(0, 0, 2), null, null));
+		system.addCollidable(CollisionSystem.generateCollisionBox(grazer, new ContinuousCollisionHandler() {
+			@Override
+			public void onCollision(CollisionBox c, double time) {
+				times.add(-time);
+			}
+
+			@Override
+			public void onCollision(CollisionBox c) {
+			}
+		}, null, CollisionShape.SHAPE_CIRCLE, CollisionFilter.CATEGORY_DEFAULT, CollisionFilter.MASK_ALL, true));
+		system.addCollidable(CollisionSystem.generateCollisionBox(tunneler, new ContinuousCollisionHandler() {
+			@Override
+			public void onCollision(CollisionBox c, double time) {
+				times.add(time);
+			}
+
+			@Override
+			public void onCollision(CollisionBox c) {
+			}
+		}, null, CollisionShape.SHAPE_CIRCLE, CollisionFilter.CATEGORY_DEFAULT, CollisionFilter.MASK_ALL, true));
+		system.update(1);
+
+		grazer.x = 5;
+		grazer.y = -2.1;
+		tunneler.x = 4;
+		tunneler.y = -4;
+		system.update(1);
+
+		// The tunneler's edge reaches the wall's corner when its center is at (-1 - .5 / sqrt(2), 1 + .5 / sqrt(2))
+		assertEquals(1, times.size());
+		assertEquals((2 - .5 / Math.sqrt(2)) / 7, times.get(0), .001);
+	}
+
+	private static Transform box(double x, double y, double size) {
+		Transform t = new Transform();
+
+		t.x = x;
+		t.y = y;
+		t.width = size;
+		t.height = size;
+
+		return t;
+	}
+
+	/**
+	 * Spin and move a crowd of rotated boxes and circles, where most of the time goes to
+	 * testing pairs, and return each collision in the order the handlers were called, as
+	 * (frame << 40) | (box << 20) | other box.
+	 */
+	private static ArrayList<Long> crowd(boolean parallel) {
+		CollisionSystem system = new CollisionSystem();
+		final IdentityHashMap<CollisionBox, Integer> index = new IdentityHashMap<CollisionBox, Integer>();
+		final ArrayList<Long> hits = new ArrayList<Long>();
+		final int[] frame = new int[1];
+		Transform[] transforms = new Transform[DENSE_BOXES];
+		Random rand = new Random(DENSE_BOXES);
+
+		system.setBroadphase(new DynamicAabbTree());
+		system.setParallelNarrowphase(parallel);
+
+		for (int i = 0; i < DENSE_BOXES; i++) {
+			final int id = i;
+			Transform t = box(rand.nextDouble() * DENSE_WORLD_SIZE, rand.nextDouble() * DENSE_WORLD_SIZE, 1 + rand.nextDouble() * 2);
+
+			t.angle = rand.nextDouble() * 360;
+			transforms[i] = t;
+
+			CollisionHandler handler = new CollisionHandler() {
+				@Override
+				public void onCollision(CollisionBox c) {
+					hits.add(((long) frame[0] << 40) | ((long) id << 20) | index.get(c));
+				}
+			};
+
+			int shape = i % 2 == 0 ? CollisionShape.SHAPE_ORIENTED_BOX : CollisionShape.SHAPE_CIRCLE;
+			CollisionBox box = CollisionSystem.generateCollisionBox(t, handler, null, shape);
+
+			index.put(box, i);
+			system.addCollidable(box);
+		}
+
+		for (frame[0] = 0; frame[0] < FRAMES; frame[0]++) {
+			for (int i = 0; i < transforms.length; i++) {
+				transforms[i].angle += 1;
+				transforms[i].x = (transforms[i].x + .05) % DENSE_WORLD_SIZE;
+			}
+
+			system.update(1);
+		}
+
+		return hits;
+	}
+
+	/**
+	 * Move bullets through still scenery and return each collision reported to the
+	 * bullets' handlers, as (frame << 40) | (bullet << 20) | scenery box.
+	 */
+	private static ArrayList<Long> scenery(CollisionSystem system) {
+		final IdentityHashMap<CollisionBox, Integer> index = new IdentityHashMap<CollisionBox, Integer>();
+		final ArrayList<Long> hits = new ArrayList<Long>();
+		final int[] frame = new int[1];
+		Transform[] bullets = new Transform[50];
+		Random rand = new Random(bullets.length);
+
+		system.setBroadphase(new DynamicAabbTree());
+
+		for (int i = 0; i < 500; i++) {
+			final int id = i;
+			boolean bullet = i < bullets.length;
+			Transform t = box(rand.nextDouble() * 100, rand.nextDouble() * 100, bullet ? .5 : 1 + rand.nextDouble() * 2);
+			CollisionHandler handler = null;
+
+			if (bullet) {
+				bullets[i] = t;
+				handler = new CollisionHandler() {
+					@Override
+					public void onCollision(CollisionBox c) {
+						hits.add(((long) frame[0] << 40) | ((long) id << 20) | index.get(c));
+					}
+				};
+			}
+
+			CollisionBox box = CollisionSystem.generateCollisionBox(t, handler, null);
+
+			index.put(box, i);
+			system.addCollidable(box);
+		}
+
+		for (frame[0] = 0; frame[0] < 200; frame[0]++) {
+			for (int i = 0; i < bullets.length; i++) {
+				bullets[i].x = (bullets[i].x + .5) % 100;
+			}
+
+			system.update(1);
+		}
+
+		return hits;
+	}
+}
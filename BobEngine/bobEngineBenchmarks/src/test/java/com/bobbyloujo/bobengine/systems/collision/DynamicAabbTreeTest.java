@@ -0,0 +1,75 @@
+/**
+ * BobEngine - 2D game engine for Android
+ * <p/>
+ * Copyright (C) 2014, 2015, 2016 Benjamin Blaszczak
+ * <p/>
+ * BobEngine is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser Public License
+ * version 2.1 as published by the free software foundation.
+ * <p/>
+ * BobEngine is provided without warranty; without even the implied
+ * warranty of merchantability or fitness for a particular
+ * purpose. See the GNU Lesser Public License for more details.
+ * <p/>
+ * You should have received a copy of the GNU Lesser General
+ * Public License along with BobEngine; if not, write to the
+ * Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301 USA
+ */
+package com.bobbyloujo.bobengine.systems.collision;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class DynamicAabbTreeTest {
+
+	private static final Broadphase.PairCallback IGNORE = new Broadphase.PairCallback() {
+		@Override
+		public void onPair(int idA, int idB) {
+
+		}
+	};
+
+	@Test
+	public void findPairsForgetsMovedBoxes() {
+		DynamicAabbTree tree = new DynamicAabbTree();
+
+		for (int i = 0; i < 100; i++) {
+			tree.insert(0, 0, 0, 1, 1, CollisionFilter.CATEGORY_DEFAULT, CollisionFilter.MASK_ALL);
+			tree.remove(0);
+		}
+
+		assertEquals(100, tree.getMoveCount());
+
+		tree.findPairs(IGNORE);
+		assertEquals(0, tree.getMoveCount());
+	}
+
+	@Test
+	public void queryOnlyTreeDoesNotRememberMovedBoxes() {
+		DynamicAabbTree tree = new DynamicAabbTree(DynamicAabbTree.DEF_MARGIN, true);
+		final int[] found = new int[1];
+
+		for (int i = 0; i < 100; i++) {
+			tree.insert(0, 0, 0, 1, 1, CollisionFilter.CATEGORY_DEFAULT, CollisionFilter.MASK_ALL);
+			tree.update(0, i, 0, i + 1, 1);
+			tree.setFilter(0, CollisionFilter.CATEGORY_DEFAULT, i);
+			tree.remove(0);
+		}
+
+		tree.insert(0, 0, 0, 1, 1, CollisionFilter.CATEGORY_DEFAULT, CollisionFilter.MASK_ALL);
+		tree.insert(1, 0, 0, 1, 1, CollisionFilter.CATEGORY_DEFAULT, CollisionFilter.MASK_ALL);
+
+		assertEquals(0, tree.getMoveCount());
+
+		tree.query(.5f, .5f, .5f, .5f, new Broadphase.QueryCallback() {
+			@Override
+			public void onResult(int id) {
+				found[0]++;
+			}
+		});
+
+		assertEquals(2, found[0]);
+	}
+}
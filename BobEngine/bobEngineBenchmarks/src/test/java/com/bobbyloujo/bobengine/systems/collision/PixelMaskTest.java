@@ -0,0 +1,110 @@
+/**
+ * BobEngine - 2D game engine for Android
+ * <p/>
+ * Copyright (C) 2014, 2015, 2016 Benjamin Blaszczak
+ * <p/>
+ * BobEngine is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser Public License
+ * version 2.1 as published by the free software foundation.
+ * <p/>
+ * BobEngine is provided without warranty; without even the implied
+ * warranty of merchantability or fitness for a particular
+ * purpose. See the GNU Lesser Public License for more details.
+ * <p/>
+ * You should have received a copy of the GNU Lesser General
+ * Public License along with BobEngine; if not, write to the
+ * Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301 USA
+ */
+package com.bobbyloujo.bobengine.systems.collision;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class PixelMaskTest {
+
+	private static final int SIZE = 100;    // Not a multiple of 64, so rows end part way through a word
+
+	@Test
+	public void overlapsMatchesCheckingEachPixel() {
+		PixelMask ring = ring(SIZE);
+		Random rand = new Random(SIZE);
+		int hits = 0;
+
+		for (int i = 0; i < 2000; i++) {
+			int x = rand.nextInt(SIZE * 2) - SIZE;
+			int y = rand.nextInt(SIZE * 2) - SIZE;
+			boolean expected = overlapsPerPixel(ring, ring, x, y);
+
+			assertEquals("Offset " + x + ", " + y, expected, PixelMask.overlaps(ring, 0, 0, ring, x, y));
+
+			if (expected) hits++;
+		}
+
+		assertTrue(hits > 0 && hits < 2000);
+	}
+
+	@Test
+	public void fromPixelsUsesAlpha() {
+		int[] pixels = {0x80000000, 0x7fffffff, 0xff000000, 0x00ffffff};
+		PixelMask mask = PixelMask.fromPixels(pixels, 0, 2, 2, 2, PixelMask.DEF_ALPHA);
+
+		assertTrue(mask.get(0, 0));
+		assertFalse(mask.get(1, 0));
+		assertTrue(mask.get(0, 1));
+		assertFalse(mask.get(1, 1));
+		assertFalse(mask.get(-1, 0));
+		assertFalse(mask.get(0, 2));
+	}
+
+	@Test
+	public void flipMirrorsPixels() {
+		int[] pixels = new int[SIZE * SIZE];
+		Random rand = new Random(SIZE);
+
+		for (int i = 0; i < pixels.length; i++) {
+			pixels[i] = rand.nextInt(4) == 0 ? 0xff000000 : 0;
+		}
+
+		PixelMask mask = PixelMask.fromPixels(pixels, 0, SIZE, SIZE, SIZE, PixelMask.DEF_ALPHA);
+		PixelMask flipped = mask.flip(true, true);
+
+		for (int y = 0; y < SIZE; y++) {
+			for (int x = 0; x < SIZE; x++) {
+				assertEquals(mask.get(x, y), flipped.get(SIZE - 1 - x, SIZE - 1 - y));
+			}
+		}
+	}
+
+	/**
+	 * A mask of a ring 3 pixels thick, so most offsets only overlap empty pixels.
+	 */
+	private static PixelMask ring(int size) {
+		int[] pixels = new int[size * size];
+		double r = size / 2.0;
+
+		for (int y = 0; y < size; y++) {
+			for (int x = 0; x < size; x++) {
+				double d = Math.hypot(x + .5 - r, y + .5 - r);
+				pixels[y * size + x] = d < r && d > r - 3 ? 0xff000000 : 0;
+			}
+		}
+
+		return PixelMask.fromPixels(pixels, 0, size, size, size, PixelMask.DEF_ALPHA);
+	}
+
+	private static boolean overlapsPerPixel(PixelMask a, PixelMask b, int bX, int bY) {
+		for (int y = 0; y < a.height; y++) {
+			for (int x = 0; x < a.width; x++) {
+				if (a.get(x, y) && b.get(x - bX, y - bY)) return true;
+			}
+		}
+
+		return false;
+	}
+}
@@ -0,0 +1,144 @@
+/**
+ * BobEngine - 2D game engine for Android
+ * <p/>
+ * Copyright (C) 2014, 2015, 2016 Benjamin Blaszczak
+ * <p/>
+ * BobEngine is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser Public License
+ * version 2.1 as published by the free software foundation.
+ * <p/>
+ * BobEngine is provided without warranty; without even the implied
+ * warranty of merchantability or fitness for a particular
+ * purpose. See the GNU Lesser Public License for more details.
+ * <p/>
+ * You should have received a copy of the GNU Lesser General
+ * Public License along with BobEngine; if not, write to the
+ * Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301 USA
+ */
+package com.bobbyloujo.bobengine.systems.collision;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class SweepAndPruneTest {
+
+	private static final Broadphase.PairCallback IGNORE = new Broadphase.PairCallback() {
+		@Override
+		public void onPair(int idA, int idB) {
+
+		}
+	};
+
+	@Test
+	public void sweepsAxisBoxesAreSpreadAlong() {
+		SweepAndPrune sap = new SweepAndPrune();
+		Random rand = new Random(1);
+
+		for (int i = 0; i < 1000; i++) {
+			float x = rand.nextFloat() * 100;
+			float y = rand.nextFloat() * 10;
+
+			sap.insert(i, x, y, x + 1, y + 1, CollisionFilter.CATEGORY_DEFAULT, CollisionFilter.MASK_ALL);
+		}
+
+		sap.findPairs(IGNORE);
+		assertEquals(SweepAndPrune.AXIS_X, sap.getSweepAxis());
+	}
+
+	@Test
+	public void choosesAxisFarFromOrigin() {
+		SweepAndPrune sap = new SweepAndPrune();
+		Random rand = new Random(1);
+
+		// A column of boxes far out along X. Their X centers barely differ, so the spread
+		// along X is tiny next to the square of their distance from the origin.
+		for (int i = 0; i < 1000; i++) {
+			float x = 100000 + rand.nextFloat() * .5f;
+			float y = rand.nextFloat() * 20;
+
+			sap.insert(i, x, y, x + 1, y + 1, CollisionFilter.CATEGORY_DEFAULT, CollisionFilter.MASK_ALL);
+		}
+
+		sap.findPairs(IGNORE);
+		assertEquals(SweepAndPrune.AXIS_Y, sap.getSweepAxis());
+	}
+
+	@Test
+	public void removedBoxesAreNotPaired() {
+		SweepAndPrune sap = new SweepAndPrune();
+		BruteForceBroadphase brute = new BruteForceBroadphase();
+		Random rand = new Random(2);
+
+		for (int i = 0; i < 1000; i++) {
+			float x = rand.nextFloat() * 100;
+			float y = rand.nextFloat() * 100;
+
+			sap.insert(i, x, y, x + 3, y + 3, CollisionFilter.CATEGORY_DEFAULT, CollisionFilter.MASK_ALL);
+			brute.insert(i, x, y, x + 3, y + 3, CollisionFilter.CATEGORY_DEFAULT, CollisionFilter.MASK_ALL);
+		}
+
+		assertEquals(pairs(brute), pairs(sap));
+
+		for (int i = 0; i < 1000; i += 2) {                   // Remove half of the boxes at once
+			sap.remove(i);
+			brute.remove(i);
+		}
+
+		for (int i = 0; i < 100; i += 4) {                    // Give some of the ids back before the next sort
+			float x = rand.nextFloat() * 100;
+			float y = rand.nextFloat() * 100;
+
+			sap.insert(i, x, y, x + 3, y + 3, CollisionFilter.CATEGORY_DEFAULT, CollisionFilter.MASK_ALL);
+			brute.insert(i, x, y, x + 3, y + 3, CollisionFilter.CATEGORY_DEFAULT, CollisionFilter.MASK_ALL);
+		}
+
+		ArrayList<Long> expected = pairs(brute);
+
+		assertTrue(expected.size() > 0);
+		assertEquals(expected, pairs(sap));
+	}
+
+	@Test
+	public void removedBoxesAreNotFoundByQuery() {
+		SweepAndPrune sap = new SweepAndPrune();
+		final int[] found = new int[2];
+
+		sap.insert(0, 0, 0, 1, 1, CollisionFilter.CATEGORY_DEFAULT, CollisionFilter.MASK_ALL);
+		sap.insert(1, 0, 0, 1, 1, CollisionFilter.CATEGORY_DEFAULT, CollisionFilter.MASK_ALL);
+		sap.remove(0);
+
+		sap.query(0, 0, 1, 1, new Broadphase.QueryCallback() {
+			@Override
+			public void onResult(int id) {
+				found[id]++;
+			}
+		});
+
+		assertEquals(0, found[0]);
+		assertEquals(1, found[1]);
+	}
+
+	/**
+	 * Returns the pairs a broadphase finds, sorted, as (lower id << 32) | higher id.
+	 */
+	private static ArrayList<Long> pairs(Broadphase broadphase) {
+		final ArrayList<Long> pairs = new ArrayList<Long>();
+
+		broadphase.findPairs(new Broadphase.PairCallback() {
+			@Override
+			public void onPair(int idA, int idB) {
+				pairs.add(idA < idB ? ((long) idA << 32) | idB : ((long) idB << 32) | idA);
+			}
+		});
+
+		Collections.sort(pairs);
+		return pairs;
+	}
+}
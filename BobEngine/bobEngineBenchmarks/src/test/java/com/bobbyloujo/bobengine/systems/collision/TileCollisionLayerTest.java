@@ -0,0 +1,112 @@
+/**
+ * BobEngine - 2D game engine for Android
+ * <p/>
+ * Copyright (C) 2014, 2015, 2016 Benjamin Blaszczak
+ * <p/>
+ * BobEngine is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser Public License
+ * version 2.1 as published by the free software foundation.
+ * <p/>
+ * BobEngine is provided without warranty; without even the implied
+ * warranty of merchantability or fitness for a particular
+ * purpose. See the GNU Lesser Public License for more details.
+ * <p/>
+ * You should have received a copy of the GNU Lesser General
+ * Public License along with BobEngine; if not, write to the
+ * Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301 USA
+ */
+package com.bobbyloujo.bobengine.systems.collision;
+
+import com.bobbyloujo.bobengine.components.Transform;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TileCollisionLayerTest {
+
+	private static final double EPSILON = 1e-6;
+
+	private TileCollisionLayer tiles;
+	private Transform walker;
+
+	@Before
+	public void setUp() {
+		tiles = new TileCollisionLayer(20, 10);
+		tiles.fillTiles(0, 0, 20, 1, TileCollisionLayer.SOLID);
+
+		walker = new Transform();
+		walker.width = .8;
+		walker.height = 1;
+		walker.x = 2;
+		walker.y = 1.5;    // Standing on the ground
+	}
+
+	@Test
+	public void fallingBoxLandsOnGround() {
+		walker.y = 5;
+
+		assertEquals(TileCollisionLayer.HIT_BOTTOM, tiles.move(walker, 0, -10));
+		assertEquals(1.5, walker.y, EPSILON);
+	}
+
+	@Test
+	public void wallStopsBox() {
+		tiles.fillTiles(5, 1, 1, 2, TileCollisionLayer.SOLID);
+		walker.x = 4;
+
+		assertEquals(TileCollisionLayer.HIT_RIGHT | TileCollisionLayer.HIT_BOTTOM, tiles.move(walker, 1, 0));
+		assertEquals(4.6, walker.x, EPSILON);
+		assertEquals(1.5, walker.y, EPSILON);
+	}
+
+	@Test
+	public void platformIsOnlySolidFromAbove() {
+		tiles.fillTiles(0, 3, 20, 1, TileCollisionLayer.PLATFORM);
+
+		walker.y = 2.4;
+		assertEquals(0, tiles.move(walker, 0, 1));          // Jumps through from below
+		assertEquals(3.4, walker.y, EPSILON);
+
+		walker.y = 5;
+		assertEquals(TileCollisionLayer.HIT_BOTTOM, tiles.move(walker, 0, -1));
+		assertEquals(4.5, walker.y, EPSILON);
+	}
+
+	@Test
+	public void boxWalksOverHill() {
+		tiles.setTile(5, 1, TileCollisionLayer.SLOPE_UP);
+		tiles.fillTiles(6, 1, 2, 1, TileCollisionLayer.SOLID);
+		tiles.setTile(8, 1, TileCollisionLayer.SLOPE_DOWN);
+
+		double highest = walker.y;
+
+		while (walker.x < 12) {
+			int hit = tiles.move(walker, .1, -.02);
+
+			assertEquals("At x = " + walker.x, TileCollisionLayer.HIT_BOTTOM, hit);
+			highest = Math.max(highest, walker.y);
+
+			if (walker.x > 6.4 && walker.x < 7.6) {
+				assertEquals(2.5, walker.y, EPSILON);       // On top of the hill
+			}
+		}
+
+		assertEquals(2.5, highest, EPSILON);
+		assertEquals(1.5, walker.y, EPSILON);               // Walked back down to the ground
+	}
+
+	@Test
+	public void slopeRaisesBoxPartWay() {
+		tiles.setTile(5, 1, TileCollisionLayer.SLOPE_UP);
+
+		while (walker.x < 5.2) {
+			tiles.move(walker, .1, -.02);
+		}
+
+		assertTrue(walker.y > 1.5 && walker.y < 2.5);
+	}
+}
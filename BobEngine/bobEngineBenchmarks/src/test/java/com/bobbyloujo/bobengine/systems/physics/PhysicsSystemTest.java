@@ -0,0 +1,180 @@
+/**
+ * BobEngine - 2D game engine for Android
+ * <p/>
+ * Copyright (C) 2014, 2015, 2016 Benjamin Blaszczak
+ * <p/>
+ * BobEngine is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser Public License
+ * version 2.1 as published by the free software foundation.
+ * <p/>
+ * BobEngine is provided without warranty; without even the implied
+ * warranty of merchantability or fitness for a particular
+ * purpose. See the GNU Lesser Public License for more details.
+ * <p/>
+ * You should have received a copy of the GNU Lesser General
+ * Public License along with BobEngine; if not, write to the
+ * Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301 USA
+ */
+package com.bobbyloujo.bobengine.systems.physics;
+
+import com.bobbyloujo.bobengine.components.Transform;
+import com.bobbyloujo.bobengine.entities.Entity;
+import com.bobbyloujo.bobengine.entities.Room;
+import com.bobbyloujo.bobengine.headless.HeadlessViewPort;
+import com.bobbyloujo.bobengine.systems.collision.CollisionShape;
+import com.bobbyloujo.bobengine.systems.collision.SweepAndPrune;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class PhysicsSystemTest {
+
+	private static final int BODIES = 200;
+	private static final double SIZE = 30;
+	private static final int FRAMES = 600;
+	private static final double EPSILON = 1e-9;
+
+	@Test
+	public void bodiesSettleInsideBounds() {
+		PhysicsSystem system = new PhysicsSystem();
+		Transform[] bodies = pile(system);
+
+		for (int f = 0; f < FRAMES; f++) {
+			system.update(1);
+		}
+
+		double[] before = positions(bodies);
+		system.update(1);
+		double[] after = positions(bodies);
+
+		assertTrue(system.getContactCount() > 0);
+
+		for (int i = 0; i < bodies.length; i++) {
+			Transform t = bodies[i];
+
+			assertTrue(t.x - t.width / 2 > -EPSILON && t.x + t.width / 2 < SIZE + EPSILON);
+			assertTrue(t.y - t.height / 2 > -EPSILON);
+			assertEquals("Body " + i + " is still moving", before[i * 2], after[i * 2], .05);
+			assertEquals("Body " + i + " is still moving", before[i * 2 + 1], after[i * 2 + 1], .05);
+		}
+	}
+
+	@Test
+	public void sameInputGivesSameResultForEveryBroadphase() {
+		PhysicsSystem tree = new PhysicsSystem();
+		PhysicsSystem sweep = new PhysicsSystem();
+
+		sweep.setBroadphase(new SweepAndPrune());
+
+		Transform[] a = pile(tree);
+		Transform[] b = pile(sweep);
+
+		for (int f = 0; f < 100; f++) {
+			tree.update(1);
+			sweep.update(1);
+		}
+
+		assertArrayEquals(positions(a), positions(b), 0);
+	}
+
+	@Test
+	public void removedBodyStopsMoving() {
+		PhysicsSystem system = new PhysicsSystem();
+		Transform[] bodies = pile(system);
+		double y = bodies[0].y;
+
+		assertTrue(system.removeBody(bodies[0]));
+		system.update(1);
+
+		assertEquals(BODIES - 1, system.getBodyCount());
+		assertEquals(y, bodies[0].y, 0);
+	}
+
+	@Test
+	public void removedOwnerTakesItsBodies() {
+		Room room = new Room(new HeadlessViewPort());
+		PhysicsSystem system = new PhysicsSystem();
+		Entity owner = new Entity();
+		Transform other = new Transform();
+
+		room.addComponent(system);
+		room.addObject(owner);
+		system.addBody(new Transform(), 1, 0, owner);
+		system.addBody(new Transform(), 1, 0, CollisionShape.SHAPE_CIRCLE, owner);
+		system.addBody(other, 1, 0);
+
+		room.deleteObject(owner);
+
+		assertEquals(1, system.getBodyCount());
+		assertEquals(0, room.getOrphanCount());
+		assertTrue(system.removeBody(other));
+	}
+
+	@Test
+	public void bodiesOfOwnersOutsideTheRoomAreOrphans() {
+		Room room = new Room(new HeadlessViewPort());
+		Room otherRoom = new Room(new HeadlessViewPort());
+		PhysicsSystem system = new PhysicsSystem();
+		Entity owner = new Entity();
+		Transform t = new Transform();
+
+		room.addComponent(system);
+		otherRoom.addObject(owner);
+		system.addBody(t, 1, 0, owner);
+		system.addBody(new Transform(), 1, 0);
+
+		assertEquals(0, system.getOrphanCount());
+
+		otherRoom.deleteObject(owner);            // This system doesn't hear about it
+
+		assertEquals(1, system.getOrphanCount());
+		assertEquals(1, room.getOrphanCount());
+
+		system.removeBody(t);
+
+		assertEquals(0, system.getOrphanCount());
+	}
+
+	/**
+	 * Add boxes and circles falling into a walled area.
+	 */
+	private static Transform[] pile(PhysicsSystem system) {
+		Transform[] bodies = new Transform[BODIES];
+		Random rand = new Random(BODIES);
+
+		system.setGravity(0, -.01);
+		system.setBounds(0, 0, SIZE, SIZE * 2);
+
+		for (int i = 0; i < BODIES; i++) {
+			Transform t = new Transform();
+
+			t.x = rand.nextDouble() * SIZE;
+			t.y = rand.nextDouble() * SIZE * 2;
+			t.width = .5 + rand.nextDouble();
+			t.height = .5 + rand.nextDouble();
+			bodies[i] = t;
+
+			system.addBody(t, 1 + rand.nextInt(3), .2, i % 2 == 0 ? CollisionShape.SHAPE_BOX : CollisionShape.SHAPE_CIRCLE);
+			system.setVelocity(t, rand.nextDouble() * .2 - .1, 0);
+		}
+
+		return bodies;
+	}
+
+	private static double[] positions(Transform[] bodies) {
+		double[] p = new double[bodies.length * 2];
+
+		for (int i = 0; i < bodies.length; i++) {
+			p[i * 2] = bodies[i].x;
+			p[i * 2 + 1] = bodies[i].y;
+		}
+
+		return p;
+	}
+}
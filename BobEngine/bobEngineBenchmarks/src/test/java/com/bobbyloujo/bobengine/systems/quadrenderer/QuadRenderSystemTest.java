@@ -0,0 +1,218 @@
+/**
+ * BobEngine - 2D game engine for Android
+ * <p/>
+ * Copyright (C) 2014, 2015, 2016 Benjamin Blaszczak
+ * <p/>
+ * BobEngine is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser Public License
+ * version 2.1 as published by the free software foundation.
+ * <p/>
+ * BobEngine is provided without warranty; without even the implied
+ * warranty of merchantability or fitness for a particular
+ * purpose. See the GNU Lesser Public License for more details.
+ * <p/>
+ * You should have received a copy of the GNU Lesser General
+ * Public License along with BobEngine; if not, write to the
+ * Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301 USA
+ */
+package com.bobbyloujo.bobengine.systems.quadrenderer;
+
+import com.bobbyloujo.bobengine.components.Transform;
+import com.bobbyloujo.bobengine.components.Transformation;
+import com.bobbyloujo.bobengine.entities.Room;
+import com.bobbyloujo.bobengine.headless.HeadlessViewPort;
+import com.bobbyloujo.bobengine.headless.RecordingGL;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.reflect.Method;
+import java.nio.FloatBuffer;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class QuadRenderSystemTest {
+
+	private static final int QUADS = 5000;
+
+	private Room room;
+	private QuadRenderSystem system;
+	private TestQuad[] quads;
+
+	@Before
+	public void setUp() {
+		Random rand = new Random(QUADS);
+
+		room = new Room(new HeadlessViewPort());
+		system = new QuadRenderSystem(null, QUADS);
+		quads = new TestQuad[QUADS];
+
+		room.setGridWidth(20);
+		room.setGridUnitY(room.getGridUnitX());
+		room.addComponent(system);
+
+		for (int i = 0; i < QUADS; i++) {
+			quads[i] = new TestQuad();
+			quads[i].transform.x = rand.nextDouble() * room.getWidth() * 1.5 - room.getWidth() * .25;   // Some are off screen
+			quads[i].transform.y = rand.nextDouble() * room.getHeight();
+			quads[i].transform.width = .5;
+			quads[i].transform.height = .5;
+			quads[i].transform.angle = rand.nextInt(2) == 0 ? rand.nextDouble() * 360 : 0;
+
+			system.addQuad(quads[i]);
+		}
+
+		room.update(1);    // Sets up the camera edges used to cull quads
+	}
+
+	@Test
+	public void parallelFillMatchesSerialFill() {
+		int layer = quads[0].transform.layer;
+
+		system.setParallelFill(false);
+		float[] serial = render(layer);
+
+		system.setParallelFill(true);
+		system.setParallelThreshold(0);
+		float[] parallel = render(layer);
+
+		assertTrue(serial.length > 0);
+		assertArrayEquals(serial, parallel, 0f);
+	}
+
+	@Test
+	public void quadsOffScreenAreCulled() {
+		int layer = quads[0].transform.layer;
+		int onScreen = 0;
+
+		for (int i = 0; i < QUADS; i++) {
+			if (QuadRenderSystem.onScreen(quads[i].transform, room)) {
+				onScreen++;
+			}
+		}
+
+		assertTrue(onScreen < QUADS);
+		assertEquals(onScreen, system.fillBuffers(layer));
+	}
+
+	@Test
+	public void ySortDrawsHigherQuadsFirst() {
+		int layer = quads[0].transform.layer;
+
+		system.setLayerSort(layer, QuadRenderSystem.SORT_Y);
+		assertSortedByY(render(layer));
+	}
+
+	@Test
+	public void quadsThatChangeLayerAreSortedOnTheirNewLayer() {
+		int layer = quads[0].transform.layer;
+		int other = layer + 1;
+
+		system.setLayerSort(layer, QuadRenderSystem.SORT_Y);
+		system.setLayerSort(other, QuadRenderSystem.SORT_Y);
+		int before = render(layer).length;
+
+		// Move every third quad to the other layer, then move half of those back and remove half of all the quads
+		for (int i = 0; i < QUADS; i += 3) {
+			quads[i].transform.layer = other;
+		}
+
+		render(layer);
+		render(other);
+
+		for (int i = 0; i < QUADS; i += 6) {
+			quads[i].transform.layer = layer;
+		}
+
+		for (int i = 1; i < QUADS; i += 2) {
+			system.removeQuad(quads[i]);
+		}
+
+		float[] vertices = render(layer);
+		int expected = 0;
+
+		for (int i = 0; i < QUADS; i++) {
+			boolean removed = i % 2 == 1;
+
+			if (!removed && quads[i].transform.layer == layer && QuadRenderSystem.onScreen(quads[i].transform, room)) {
+				expected++;
+			}
+		}
+
+		assertTrue(expected < before / QuadRenderSystem.GFX_VERTICES);
+		assertEquals(expected, vertices.length / QuadRenderSystem.GFX_VERTICES);
+		assertSortedByY(vertices);
+		assertSortedByY(render(other));
+	}
+
+	/**
+	 * Render a layer and return the vertices that were drawn.
+	 */
+	private float[] render(int layer) {
+		VertexCapture gl = new VertexCapture();
+
+		system.render(gl.getGL(), layer);
+
+		return Arrays.copyOf(gl.vertices, gl.count);
+	}
+
+	/**
+	 * Check that each quad drawn is no higher than the one drawn before it.
+	 */
+	private static void assertSortedByY(float[] vertices) {
+		float lastY = Float.MAX_VALUE;
+
+		for (int v = 0; v < vertices.length; v += QuadRenderSystem.GFX_VERTICES) {
+			float minY = Math.min(Math.min(vertices[v + 1], vertices[v + 3]), Math.min(vertices[v + 5], vertices[v + 7]));
+			float maxY = Math.max(Math.max(vertices[v + 1], vertices[v + 3]), Math.max(vertices[v + 5], vertices[v + 7]));
+			float centerY = (minY + maxY) / 2;
+
+			assertTrue("Quad " + v / QuadRenderSystem.GFX_VERTICES + " is above the quad before it", centerY <= lastY + 1e-3f);
+			lastY = centerY;
+		}
+	}
+
+	/**
+	 * Keeps a copy of the vertices given to each draw call.
+	 */
+	private static class VertexCapture extends RecordingGL {
+		FloatBuffer pointer;
+		float[] vertices = new float[0];
+		int count;
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) {
+			if (method.getName().equals("glVertexPointer")) {
+				pointer = ((FloatBuffer) args[3]).duplicate();
+			} else if (method.getName().equals("glDrawElements")) {
+				int floats = (Integer) args[1] / QuadIndexBuffer.INDICES_PER_QUAD * QuadRenderSystem.GFX_VERTICES;
+
+				vertices = Arrays.copyOf(vertices, count + floats);
+				pointer.get(vertices, count, floats);
+				count += floats;
+			}
+
+			return super.invoke(proxy, method, args);
+		}
+	}
+
+	private static class TestQuad implements Quad {
+		Transform transform = new Transform();
+		AnimatedGraphicAreaTransform graphic = new AnimatedGraphicAreaTransform();
+
+		@Override
+		public Transformation getTransformation() {
+			return transform;
+		}
+
+		@Override
+		public GraphicAreaTransformation getGraphicAreaTransformation() {
+			return graphic;
+		}
+	}
+}
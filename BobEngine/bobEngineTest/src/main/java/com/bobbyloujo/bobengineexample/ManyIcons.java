@@ -1,41 +1,196 @@
 package com.bobbyloujo.bobengineexample;
 
+import android.os.SystemClock;
+import android.util.Log;
+
 import java.util.Random;
 
 import com.bobbyloujo.bobengine.entities.Room;
-import com.bobbyloujo.bobengine.entities.Entity;
+import com.bobbyloujo.bobengine.systems.quadrenderer.SpriteBatch;
+import com.bobbyloujo.bobengine.view.BobView;
 
 /**
+ * A benchmark that bounces lots of icons around the screen, first as one BouncingIcon
+ * GameObject per icon and then as sprites in a SpriteBatch. Each stage runs in its own
+ * room so the stages don't share render systems. Results are written to logcat with the
+ * tag "ManyIcons".
+ *
  * Created by Benjamin on 9/25/2015.
  */
-public class ManyIcons extends Entity {
+public class ManyIcons extends Room {
 
 	// Constants
-	private final int NUM_ICONS = 500;     // Number of bouncing icons
-	private final double ICON_SCALE = .5;  // Scale of the icons
+	private static final int[] COUNTS = {1000, 10000, 100000};   // Number of icons in each stage
+	private static final int WARMUP_FRAMES = 60;                 // Frames to skip before measuring
+	private static final int MEASURED_FRAMES = 300;              // Frames to measure
+	private static final double ICON_SCALE = .5;                 // Scale of the icons
+	private static final float SPEED = .2f;                      // Same speed as BouncingIcon
+	private static final String TAG = "ManyIcons";
+
+	private static String results = "";
+
+	// Variables
+	private int stage;          // Index into COUNTS * 2. Even stages use GameObjects, odd stages use a SpriteBatch.
+	private int numIcons;
+	private boolean useBatch;
+	private long spawnTime;     // Time it took to create the icons, in ms
 
-	private BouncingIcon[] icons;
+	private int frames;
+	private long lastTime;
+	private long totalTime;
+	private long minTime;
+	private long maxTime;
+
+	// Objects
 	private Random rand;
+	private SpriteBatch batch;
+	private float[] dX;
+	private float[] dY;
+
+	public ManyIcons(BobView container, int stage) {
+		super(container);
+
+		setGridWidth(20);
+		setGridUnitY(getGridUnitX());
+
+		this.stage = stage;
+		numIcons = COUNTS[stage / 2];
+		useBatch = stage % 2 == 1;
+		rand = new Random(stage);
+
+		long start = SystemClock.uptimeMillis();
+
+		if (useBatch) {
+			spawnBatch();
+		} else {
+			spawnGameObjects();
+		}
+
+		spawnTime = SystemClock.uptimeMillis() - start;
+
+		frames = 0;
+		lastTime = 0;
+		totalTime = 0;
+		minTime = Long.MAX_VALUE;
+		maxTime = 0;
+	}
+
+	/**
+	 * Start the benchmark from the first stage.
+	 *
+	 * @param view The BobView to run the benchmark in.
+	 */
+	public static void start(BobView view) {
+		results = "";
+		view.goToRoom(new ManyIcons(view, 0));
+	}
+
+	private void spawnGameObjects() {
+		for (int i = 0; i < numIcons; i++) {
+			BouncingIcon icon = new BouncingIcon(this);
+			icon.set(randomX(), randomY(), ICON_SCALE, 1);
+		}
+	}
+
+	private void spawnBatch() {
+		float size = (float) (getHeight() / 10);
 
-	public ManyIcons(Room room) {
-		super(room);
+		batch = new SpriteBatch(this, GameView.icon, numIcons);
+		dX = new float[numIcons];
+		dY = new float[numIcons];
 
-		getRoom().createQuadRenderSystem(getView().getGraphicsHelper().addGraphic(R.drawable.ic_launcher), NUM_ICONS);
+		for (int i = 0; i < numIcons; i++) {
+			int handle = batch.addSprite((float) randomX(), (float) randomY(), size, size, 1);
+			batch.setScale(handle, (float) ICON_SCALE);
 
-		rand = new Random();
-		icons = new BouncingIcon[NUM_ICONS];
+			dX[i] = rand.nextInt() % 2 == 0 ? 1 : -1;
+			dY[i] = rand.nextInt() % 2 == 0 ? 1 : -1;
+		}
+
+		batch.setUpdater(new SpriteBatch.Updater() {
+			@Override
+			public void update(SpriteBatch b, double deltaTime) {
+				float roomW = (float) getWidth();
+				float roomH = (float) getHeight();
+				float[] x = b.x;
+				float[] y = b.y;
+				float[] w = b.width;
+				float[] h = b.height;
+				float[] s = b.scale;
+
+				// Sprites are never removed, so each slot keeps the same sprite.
+				for (int i = 0; i < b.getCount(); i++) {
+					float halfW = w[i] / 2 * s[i];
+					float halfH = h[i] / 2 * s[i];
+
+					x[i] += dX[i] * SPEED * deltaTime;
+					y[i] += dY[i] * SPEED * deltaTime;
+
+					if (x[i] > roomW - halfW) {
+						dX[i] = -dX[i];
+						x[i] = roomW - halfW;
+					}
 
-		for (int i = 0; i < NUM_ICONS; i++) {
-			icons[i] = new BouncingIcon(this);
+					if (x[i] < halfW) {
+						dX[i] = -dX[i];
+						x[i] = halfW;
+					}
+
+					if (y[i] > roomH - halfH) {
+						dY[i] = -dY[i];
+						y[i] = roomH - halfH;
+					}
+
+					if (y[i] < halfH) {
+						dY[i] = -dY[i];
+						y[i] = halfH;
+					}
+				}
+			}
+		});
+	}
+
+	private double randomX() {
+		return (double) rand.nextInt(getViewWidth()) / getGridUnitX();
+	}
+
+	private double randomY() {
+		return (double) rand.nextInt(getViewHeight()) / getGridUnitY();
+	}
+
+	@Override
+	public void step(double deltaTime) {
+		long now = System.nanoTime();
+
+		if (lastTime > 0 && frames >= WARMUP_FRAMES) {
+			long time = now - lastTime;
+
+			totalTime += time;
+			if (time < minTime) minTime = time;
+			if (time > maxTime) maxTime = time;
+		}
+
+		lastTime = now;
+		frames++;
+
+		if (frames > WARMUP_FRAMES + MEASURED_FRAMES) {
+			finishStage();
 		}
 	}
 
-	public void set() {
-		for (int i = 0; i < NUM_ICONS; i++) {
-			double x = (double) rand.nextInt(getRoom().getViewWidth()) / getRoom().getGridUnitX();
-			double y = (double) rand.nextInt(getRoom().getViewHeight()) / getRoom().getGridUnitY();
+	private void finishStage() {
+		String result = String.format("%s x %d: spawn %d ms, frame avg %.2f ms, min %.2f ms, max %.2f ms",
+				useBatch ? "SpriteBatch" : "GameObject", numIcons, spawnTime,
+				totalTime / 1e6 / MEASURED_FRAMES, minTime / 1e6, maxTime / 1e6);
+
+		Log.d(TAG, result);
+		results += result + "\n";
 
-			icons[i].set(x, y, ICON_SCALE, 1);
+		if (stage + 1 < COUNTS.length * 2) {
+			getView().goToRoom(new ManyIcons(getView(), stage + 1));
+		} else {
+			Log.d(TAG, "Results:\n" + results);
+			getView().goToRoom(new StartRoom(getView()));
 		}
 	}
 }
@@ -12,7 +12,6 @@ import javax.microedition.khronos.opengles.GL11;
 public class StartRoom extends Room {
 
 	// Game objects
-	private ManyIcons icons;
 	private TextDisplay text;
 	private BobEngineMothership big;
 	NumberDisplay numberDisplay;
@@ -25,8 +24,6 @@ public class StartRoom extends Room {
 		setGridWidth(20);
 		setGridUnitY(getGridUnitX());
 
-		//icons = new ManyIcons(this);
-
 		/*
 		text = new TextDisplay(this);
 		text.setText("BobEngine test box");
@@ -86,7 +83,17 @@ public class StartRoom extends Room {
 	}
 
 	public void set() {
-		//icons.set();
+
+	}
+
+	/**
+	 * Touch the screen to run the ManyIcons benchmark.
+	 */
+	@Override
+	public void newpress(int index) {
+		if (index == 0) {
+			ManyIcons.start(getView());
+		}
 	}
 
 	@Override
@@ -5,11 +5,13 @@ import com.bobbyloujo.bobengine.entities.Entity;
 import com.bobbyloujo.bobengine.entities.SimpleGameObject;
 import com.bobbyloujo.bobengine.systems.collision.CollisionBox;
 import com.bobbyloujo.bobengine.systems.collision.CollisionHandler;
+import com.bobbyloujo.bobengine.systems.collision.PixelCollision;
+import com.bobbyloujo.bobengine.systems.collision.PixelMask;
 
 /**
  * Created by Ben on 1/6/2015.
  */
-public class Flower extends SimpleGameObject implements CollisionBox {
+public class Flower extends SimpleGameObject implements CollisionBox, PixelCollision {
 
 	/**
 	 * Initialize.
@@ -39,4 +41,8 @@ public class Flower extends SimpleGameObject implements CollisionBox {
 	@Override public Entity getEntity() {
 		return this;
 	}
+
+	@Override public PixelMask getPixelMask() {
+		return transform.angle == 180 ? GameView.flowerMaskFlipped : GameView.flowerMask;
+	}
 }
@@ -6,6 +6,7 @@ import javax.microedition.khronos.opengles.GL10;
 
 import com.bobbyloujo.bobengine.view.BobView;
 import com.bobbyloujo.bobengine.graphics.Graphic;
+import com.bobbyloujo.bobengine.systems.collision.PixelMask;
 
 /**
  * Created by Ben on 1/6/2015.
@@ -25,6 +26,11 @@ public class GameView extends BobView {
 	public static Graphic bg;
 	public static Graphic over;
 
+	// Pixel masks, so the bug only hits the solid parts of the flowers. The bug tilts as it
+	// flies and masks don't turn with their box, so the bug uses its whole box.
+	public static PixelMask flowerMask;
+	public static PixelMask flowerMaskFlipped; // For the upside down flowers on top
+
 	public GameView(Context context) {
 		super(context);
 	}
@@ -62,6 +68,10 @@ public class GameView extends BobView {
 		flower = getGraphicsHelper().getGraphic(R.drawable.flower);
 		bg = getGraphicsHelper().getGraphic(R.drawable.background);
 		over = getGraphicsHelper().getGraphic(R.drawable.gameover);
+
+		// Masks are saved after the first launch, so this is only slow once.
+		flowerMask = getGraphicsHelper().getPixelMasks(flower, 1)[0];
+		flowerMaskFlipped = flowerMask != null ? flowerMask.flip(true, true) : null;
 	}
 
 